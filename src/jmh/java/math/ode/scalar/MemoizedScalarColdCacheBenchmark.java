@@ -0,0 +1,115 @@
+package math.ode.scalar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the memoized Scalar Runge-Kutta solvers over t in [0, 10] when no step is in the cache. Every
+ * solve starts from an initial condition not used before, so each of its steps misses; the caches are emptied
+ * between iterations so that every iteration fills them from the same point.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MemoizedScalarColdCacheBenchmark {
+
+    /**
+     * Solves per invocation, each from its own initial condition.
+     */
+    private static final int BATCH = 16;
+
+    private static final ScalarODE ODE = (x, t) -> -x + Math.sin(t);
+
+    /**
+     * Source of initial conditions, distinct from every one used since the cache was emptied.
+     */
+    abstract static class ColdCache {
+
+        private long solves;
+
+        abstract void clear();
+
+        @Setup(Level.Iteration)
+        public void clearCache() {
+            clear();
+            solves = 0;
+        }
+
+        double nextInitialCondition() {
+            return 1.0 + 1e-9 * solves++;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RungeKutta4 extends ColdCache {
+
+        @Param({"0.1", "0.01", "0.001"})
+        private double stepSize;
+
+        private MemoizedScalarRungeKutta4 solver;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            solver = MemoizedScalarRungeKutta4.Builder.builder().setStepSize(stepSize).build();
+        }
+
+        @Override
+        void clear() {
+            solver.clear();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RungeKuttaAdaptive extends ColdCache {
+
+        @Param({"1e-6", "1e-9", "1e-12"})
+        private double tolerance;
+
+        private MemoizedScalarRungeKuttaAdaptive solver;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            solver = MemoizedScalarRungeKuttaAdaptive.Builder.builder().setLocalTruncationError(tolerance).build();
+        }
+
+        @Override
+        void clear() {
+            solver.clear();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public double memoizedRungeKutta4(RungeKutta4 state) {
+        double sum = 0.0;
+        for (int i = 0; i < BATCH; ++i) {
+            sum += state.solver.solve(ODE, state.nextInitialCondition(), 0.0, 10.0);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public double memoizedRungeKuttaAdaptive(RungeKuttaAdaptive state) {
+        double sum = 0.0;
+        for (int i = 0; i < BATCH; ++i) {
+            sum += state.solver.solve(ODE, state.nextInitialCondition(), 0.0, 10.0);
+        }
+        return sum;
+    }
+}
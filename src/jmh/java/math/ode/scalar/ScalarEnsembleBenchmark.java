@@ -0,0 +1,68 @@
+package math.ode.scalar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of solving an ensemble of initial conditions whose adaptive step counts differ widely, serially and
+ * with the parallel ensemble API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ScalarEnsembleBenchmark {
+
+    @Param({"1000", "100000"})
+    private int members;
+
+    /**
+     * Oscillates faster, and so needs more steps, for larger initial conditions.
+     */
+    private final ScalarODE ode = (x, t) -> Math.sin(x * t);
+
+    private final ScalarRungeKuttaAdaptive rka = ScalarRungeKuttaAdaptive.Builder.builder()
+            .setLocalTruncationError(1e-9)
+            .build();
+
+    private double[] xi;
+
+    private double[] x;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        xi = new double[members];
+        for (int i = 0; i < members; ++i) {
+            xi[i] = 10.0 * i / members;
+        }
+        x = new double[members];
+    }
+
+    @Benchmark
+    public double[] serial() {
+        for (int i = 0; i < members; ++i) {
+            x[i] = rka.solve(ode, xi[i], 0.0, 1.0);
+        }
+        return x;
+    }
+
+    @Benchmark
+    public double[] solveAll() {
+        return rka.solveAll(ode, xi, 0.0, 1.0, x, ForkJoinPool.commonPool());
+    }
+}
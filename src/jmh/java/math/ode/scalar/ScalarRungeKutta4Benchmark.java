@@ -0,0 +1,61 @@
+package math.ode.scalar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Throughput of the fixed step Scalar 4th Order Runge-Kutta solvers over t in [0, 10].
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ScalarRungeKutta4Benchmark {
+
+    @Param({"0.1", "0.01", "0.001"})
+    private double stepSize;
+
+    private final ScalarODE ode = (x, t) -> -x + Math.sin(t);
+
+    private final BiFunction<Double, Double, Double> boxedOde = (x, t) -> -x + Math.sin(t);
+
+    private ScalarRungeKutta4 rk4;
+
+    private MemoizedScalarRungeKutta4 memoizedRk4;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rk4 = ScalarRungeKutta4.Builder.builder().setStepSize(stepSize).build();
+        memoizedRk4 = MemoizedScalarRungeKutta4.Builder.builder().setStepSize(stepSize).build();
+    }
+
+    @Benchmark
+    public double rungeKutta4() {
+        return rk4.solve(ode, 1.0, 0.0, 10.0);
+    }
+
+    @Benchmark
+    public double rungeKutta4Boxed() {
+        return rk4.solve(boxedOde, 1.0, 0.0, 10.0);
+    }
+
+    @Benchmark
+    public double memoizedRungeKutta4() {
+        return memoizedRk4.solve(ode, 1.0, 0.0, 10.0);
+    }
+}
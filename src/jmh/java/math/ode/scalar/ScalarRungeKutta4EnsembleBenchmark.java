@@ -0,0 +1,74 @@
+package math.ode.scalar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a fixed step Runge-Kutta parameter study, member by member and in lockstep, on one thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ScalarRungeKutta4EnsembleBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int members;
+
+    private final Executor callingThread = Runnable::run;
+
+    private final ScalarRungeKutta4 rk4 = ScalarRungeKutta4.Builder.builder().setStepSize(0.01).build();
+
+    private double[] k;
+
+    private double[] xi;
+
+    private double[] x;
+
+    private ScalarBatchODE batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        k = new double[members];
+        xi = new double[members];
+        for (int i = 0; i < members; ++i) {
+            k[i] = 1.0 + (double) i / members;
+            xi[i] = 1.0;
+        }
+        x = new double[members];
+        batch = (xs, t, dxdt, offset) -> {
+            for (int i = 0; i < xs.length; ++i) {
+                dxdt[i] = -k[offset + i] * xs[i];
+            }
+        };
+    }
+
+    @Benchmark
+    public double[] memberByMember() {
+        for (int i = 0; i < members; ++i) {
+            final double rate = k[i];
+            x[i] = rk4.solve((ScalarODE) (xs, t) -> -rate * xs, xi[i], 0.0, 1.0);
+        }
+        return x;
+    }
+
+    @Benchmark
+    public double[] lockstep() {
+        return rk4.solveAll(batch, xi, 0.0, 1.0, x, callingThread);
+    }
+}
@@ -0,0 +1,53 @@
+package math.ode.scalar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the adaptive Scalar Runge-Kutta solvers over t in [0, 10].
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ScalarRungeKuttaAdaptiveBenchmark {
+
+    @Param({"1e-6", "1e-9", "1e-12"})
+    private double tolerance;
+
+    private final ScalarODE ode = (x, t) -> -x + Math.sin(t);
+
+    private ScalarRungeKuttaAdaptive rka;
+
+    private MemoizedScalarRungeKuttaAdaptive memoizedRka;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rka = ScalarRungeKuttaAdaptive.Builder.builder().setLocalTruncationError(tolerance).build();
+        memoizedRka = MemoizedScalarRungeKuttaAdaptive.Builder.builder().setLocalTruncationError(tolerance).build();
+    }
+
+    @Benchmark
+    public double rungeKuttaAdaptive() {
+        return rka.solve(ode, 1.0, 0.0, 10.0);
+    }
+
+    @Benchmark
+    public double memoizedRungeKuttaAdaptive() {
+        return memoizedRka.solve(ode, 1.0, 0.0, 10.0);
+    }
+}
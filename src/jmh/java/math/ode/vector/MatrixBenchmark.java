@@ -0,0 +1,87 @@
+package math.ode.vector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Products and factorizations of the second difference matrix, tridiagonal, in band and compressed sparse row
+ * form.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MatrixBenchmark {
+
+    @Param({"1024", "65536", "1048576"})
+    private int size;
+
+    @Param({"SEQUENTIAL", "PARALLEL"})
+    private VectorExecution execution;
+
+    private Matrix banded;
+
+    private Matrix sparse;
+
+    private LUDecomposition bandedLU;
+
+    private LUDecomposition sparseLU;
+
+    private Vector x;
+
+    private Vector dest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Matrix.Builder builder = Matrix.Builder.builder().setSize(size);
+        for (int i = 0; i < size; ++i) {
+            builder.add(i, i, -2.0);
+            if (i > 0) {
+                builder.add(i, i - 1, 1.0);
+                builder.add(i - 1, i, 1.0);
+            }
+        }
+        banded = builder.buildBanded();
+        sparse = builder.build();
+        bandedLU = banded.decomposition();
+        sparseLU = sparse.decomposition();
+        x = Vector.randomImmutable(size);
+        dest = Vector.mutable(size).setExecution(execution);
+    }
+
+    @Benchmark
+    public Vector multiplyBanded() {
+        return banded.multiply(x, dest);
+    }
+
+    @Benchmark
+    public Vector multiplySparse() {
+        return sparse.multiply(x, dest);
+    }
+
+    @Benchmark
+    public Vector factorSolveBanded() {
+        bandedLU.factor(banded, 100.0, -1.0);
+        return bandedLU.solve(x, dest);
+    }
+
+    @Benchmark
+    public Vector factorSolveSparse() {
+        sparseLU.factor(sparse, 100.0, -1.0);
+        return sparseLU.solve(x, dest);
+    }
+}
@@ -0,0 +1,162 @@
+package math.ode.vector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the main element-wise Vector operations. The in-place variants write into a mutable vector,
+ * the immutable variants allocate their result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class VectorBenchmark {
+
+    @Param({"16", "1024", "65536", "1048576"})
+    private int size;
+
+    @Param({"SEQUENTIAL", "PARALLEL"})
+    private VectorExecution execution;
+
+    /**
+     * Starting value of a, which the in-place benchmarks keep writing into.
+     */
+    private Vector initial;
+
+    private Vector a;
+
+    private Vector b;
+
+    private Vector[] stages;
+
+    private final double[] weights = {1.0, 0.1 / 6.0, 0.1 / 3.0, 0.1 / 3.0, 0.1 / 6.0};
+
+    private VectorExpression errorRatios;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        initial = Vector.randomImmutable(size);
+        a = initial.mutable();
+        b = Vector.randomImmutable(size).add(1.0, VectorType.IMMUTABLE);
+        stages = new Vector[]{a, Vector.randomImmutable(size), Vector.randomImmutable(size),
+                Vector.randomImmutable(size), Vector.randomImmutable(size)};
+        Vector.setDefaultExecution(execution);
+        // Built once, as the adaptive solver does, and evaluated by each call
+        errorRatios = stages[1].lazy().sub(stages[2]).abs()
+                .div(stages[1].lazy().abs().add(stages[2].lazy().abs()).mult(0.5e-8).add(1e-16));
+    }
+
+    /**
+     * Put a back to its starting value, so that the in-place additions do not grow it without bound.
+     */
+    @Setup(Level.Iteration)
+    public void resetA() {
+        a.set(initial);
+    }
+
+    @Benchmark
+    public Vector addInPlace() {
+        return a.add(b);
+    }
+
+    @Benchmark
+    public Vector addImmutable() {
+        return a.add(b, VectorType.IMMUTABLE);
+    }
+
+    @Benchmark
+    public Vector multScalarInPlace() {
+        return a.mult(1.0);
+    }
+
+    @Benchmark
+    public Vector multImmutable() {
+        return a.mult(b, VectorType.IMMUTABLE);
+    }
+
+    @Benchmark
+    public Vector divImmutable() {
+        return a.div(b, VectorType.IMMUTABLE);
+    }
+
+    @Benchmark
+    public Vector absImmutable() {
+        return a.abs(VectorType.IMMUTABLE);
+    }
+
+    @Benchmark
+    public Vector expImmutable() {
+        return b.exp(VectorType.IMMUTABLE);
+    }
+
+    @Benchmark
+    public Vector sinImmutable() {
+        return b.sin(VectorType.IMMUTABLE);
+    }
+
+    @Benchmark
+    public Vector sqrtImmutable() {
+        return b.sqrt(VectorType.IMMUTABLE);
+    }
+
+    @Benchmark
+    public Vector axpy() {
+        return Vector.axpy(1e-9, b, a);
+    }
+
+    /**
+     * The Runge-Kutta 4 update x + tau / 6 * (f1 + 2 * f2 + 2 * f3 + f4) chained from element-wise operations.
+     */
+    @Benchmark
+    public Vector rungeKutta4UpdateChained() {
+        return stages[2].add(stages[3]).mult(2.0).add(stages[1]).add(stages[4]).mult(0.1 / 6.0).add(a);
+    }
+
+    /**
+     * The same update as one fused pass into x.
+     */
+    @Benchmark
+    public Vector rungeKutta4UpdateFused() {
+        return Vector.linearCombination(a, weights, stages);
+    }
+
+    @Benchmark
+    public double dotProduct() {
+        return a.dotProduct(b);
+    }
+
+    @Benchmark
+    public double max() {
+        return b.max();
+    }
+
+    @Benchmark
+    public double min() {
+        return b.min();
+    }
+
+    @Benchmark
+    public double errorRatioChained() {
+        return stages[1].sub(stages[2]).abs().div(stages[1].abs().add(stages[2].abs()).mult(0.5e-8).add(1e-16)).max();
+    }
+
+    @Benchmark
+    public double errorRatioLazy() {
+        return errorRatios.max();
+    }
+}
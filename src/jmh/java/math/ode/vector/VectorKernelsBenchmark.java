@@ -0,0 +1,102 @@
+package math.ode.vector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scalar loops against the SIMD kernels of the multi-release jar. The SIMD backend needs JDK 17+ with
+ * {@code --add-modules jdk.incubator.vector}, which the jmh task adds when Gradle runs on such a JDK.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class VectorKernelsBenchmark {
+
+    @Param({"1024", "65536", "1048576"})
+    private int size;
+
+    @Param({"scalar", "simd"})
+    private String backend;
+
+    private VectorKernels kernels;
+
+    private double[] a;
+
+    private double[] b;
+
+    private double[] out;
+
+    private double[][] stages;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        kernels = "simd".equals(backend) ? VectorKernels.get() : VectorKernels.scalar();
+        if ("simd".equals(backend) && !kernels.isVectorized()) {
+            throw new IllegalStateException("SIMD kernels need JDK 17+ and --add-modules jdk.incubator.vector.");
+        }
+        Random rand = new Random(size);
+        a = random(rand);
+        b = random(rand);
+        out = new double[size];
+        stages = new double[][]{a, random(rand), random(rand), random(rand), random(rand)};
+    }
+
+    private double[] random(Random rand) {
+        double[] x = new double[size];
+        for (int i = 0; i < size; ++i) {
+            x[i] = rand.nextDouble() + 0.5;
+        }
+        return x;
+    }
+
+    @Benchmark
+    public double[] add() {
+        kernels.apply(VectorOperation.ADD, a, b, 0.0, out, 0, size);
+        return out;
+    }
+
+    @Benchmark
+    public double[] divide() {
+        kernels.apply(VectorOperation.DIVIDE, a, b, 0.0, out, 0, size);
+        return out;
+    }
+
+    @Benchmark
+    public double[] abs() {
+        kernels.apply(VectorOperation.ABS, a, null, 0.0, out, 0, size);
+        return out;
+    }
+
+    @Benchmark
+    public double max() {
+        return kernels.max(a, 0, size);
+    }
+
+    @Benchmark
+    public double dotProduct() {
+        return kernels.dotProduct(a, b, 0, size);
+    }
+
+    @Benchmark
+    public double[] rungeKutta4Update() {
+        kernels.linearCombination(out, 0, size, 1.0, stages[0], 0.1 / 6.0, stages[1], 0.1 / 3.0, stages[2],
+                0.1 / 3.0, stages[3], 0.1 / 6.0, stages[4]);
+        return out;
+    }
+}
@@ -0,0 +1,66 @@
+package math.ode.vector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Throughput of the fixed step Vector 4th Order Runge-Kutta solver on a system of decoupled decays,
+ * 100 steps per invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class VectorRungeKutta4Benchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    private Vector rates;
+
+    private Vector xi;
+
+    private BiFunction<Vector, Double, Vector> ode;
+
+    private VectorODE inPlaceOde;
+
+    private VectorRungeKutta4 rk4;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rates = Vector.randomImmutable(size).negate(VectorType.IMMUTABLE);
+        xi = Vector.immutable(size, 1.0);
+        ode = (x, t) -> rates.mult(x, VectorType.IMMUTABLE);
+        inPlaceOde = (x, t, dxdt) -> {
+            for (int i = 0; i < size; ++i) {
+                dxdt.set(i, rates.get(i) * x.get(i));
+            }
+        };
+        rk4 = VectorRungeKutta4.Builder.builder().setStepSize(0.01).build();
+    }
+
+    @Benchmark
+    public Vector rungeKutta4() {
+        return rk4.solve(ode, xi, 0.0, 1.0);
+    }
+
+    @Benchmark
+    public Vector rungeKutta4InPlace() {
+        return rk4.solve(inPlaceOde, xi, 0.0, 1.0);
+    }
+}
@@ -0,0 +1,54 @@
+package math.ode.vector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Throughput of the adaptive Vector Runge-Kutta solver on a system of decoupled oscillators over t in [0, 1].
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class VectorRungeKuttaAdaptiveBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    @Param({"1e-6", "1e-9"})
+    private double tolerance;
+
+    private Vector xi;
+
+    private BiFunction<Vector, Double, Vector> ode;
+
+    private VectorRungeKuttaAdaptive rka;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Vector omega = Vector.randomImmutable(size).add(1.0, VectorType.IMMUTABLE);
+        xi = Vector.immutable(size, 1.0);
+        ode = (x, t) -> x.mult(omega, VectorType.IMMUTABLE).mult(Math.cos(t));
+        rka = VectorRungeKuttaAdaptive.Builder.builder().setLocalTruncationError(tolerance).build();
+    }
+
+    @Benchmark
+    public Vector rungeKuttaAdaptive() {
+        return rka.solve(ode, xi, 0.0, 1.0);
+    }
+}
@@ -0,0 +1,43 @@
+package math.ode.scalar;
+
+import java.util.function.BiFunction;
+
+/**
+ * Primitive view of a boxed right-hand side. Equal to any other view of the same function, so that memoized steps
+ * keyed on the ode are found again by later calls given the same boxed ode.
+ */
+final class BoxedScalarODE implements ScalarODE {
+
+    private final BiFunction<Double, Double, Double> ode;
+
+    /**
+     * Package Private Constructor.
+     *
+     * @param ode boxed right-hand side of the first order ode dx/dt(x, t)
+     */
+    BoxedScalarODE(BiFunction<Double, Double, Double> ode) {
+        this.ode = ode;
+    }
+
+    @Override
+    public double applyAsDouble(double x, double t) {
+        return ode.apply(x, t);
+    }
+
+    @Override
+    public Double apply(Double x, Double t) {
+        return ode.apply(x, t);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return ode.equals(((BoxedScalarODE) o).ode);
+    }
+
+    @Override
+    public int hashCode() {
+        return ode.hashCode();
+    }
+}
@@ -0,0 +1,51 @@
+package math.ode.scalar;
+
+import math.ode.utils.SolverStatistics;
+
+/**
+ * Right-hand side counting its evaluations in solver statistics. Equal to any other count of the same ode, and
+ * memoized steps are keyed on the ode counted, so a solve recording statistics finds the steps of earlier calls and
+ * only counts the evaluations it really makes.
+ */
+final class CountingScalarODE implements ScalarODE {
+
+    private final ScalarODE ode;
+    private final SolverStatistics statistics;
+
+    /**
+     * Package Private Constructor.
+     *
+     * @param ode        right-hand side of the first order ode dx/dt(x, t)
+     * @param statistics statistics to count the evaluations in
+     */
+    CountingScalarODE(ScalarODE ode, SolverStatistics statistics) {
+        this.ode = ode;
+        this.statistics = statistics;
+    }
+
+    /**
+     * @param ode right-hand side, possibly counted
+     * @return the ode being counted, or the ode itself
+     */
+    static ScalarODE uncounted(ScalarODE ode) {
+        return (ode instanceof CountingScalarODE) ? ((CountingScalarODE) ode).ode : ode;
+    }
+
+    @Override
+    public double applyAsDouble(double x, double t) {
+        statistics.countEvaluation();
+        return ode.applyAsDouble(x, t);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return ode.equals(((CountingScalarODE) o).ode);
+    }
+
+    @Override
+    public int hashCode() {
+        return ode.hashCode();
+    }
+}
@@ -1,8 +1,9 @@
 package math.ode.scalar;
 
+import math.ode.utils.EvictionPolicy;
 import math.ode.utils.Memoizer;
 
-import java.util.function.BiFunction;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
@@ -11,14 +12,14 @@ import java.util.function.Function;
 public class MemoizedScalarRungeKutta4 implements ScalarODESolver {
 
     /**
-     * Memoizer for clearing.
+     * Memoizer for clearing and statistics.
      */
-    private Memoizer<ScalarRungeKuttaParameters, Double> memoizer = new Memoizer<>();
+    private final Memoizer<ScalarRungeKuttaParameters, Double> memoizer;
 
     /**
      * Memoized rk4 function.
      */
-    private Function<ScalarRungeKuttaParameters, Double> rk4 = memoizer.doMemoize(MemoizedScalarRungeKutta4::rk4);
+    private final Function<ScalarRungeKuttaParameters, Double> rk4;
 
     /**
      * Step size.
@@ -31,6 +32,8 @@ public class MemoizedScalarRungeKutta4 implements ScalarODESolver {
      * @param builder builder to set the parameters
      */
     private MemoizedScalarRungeKutta4(Builder builder) {
+        this.memoizer = builder.cache.build();
+        this.rk4 = memoizer.doMemoize(MemoizedScalarRungeKutta4::rk4);
         this.tau = builder.tau;
     }
 
@@ -41,39 +44,106 @@ public class MemoizedScalarRungeKutta4 implements ScalarODESolver {
      * @return new value of x after step size tau
      */
     static double rk4(ScalarRungeKuttaParameters params) {
-        BiFunction<Double, Double, Double> ode = params.getOde();
+        ScalarODE ode = params.getOde();
         double x = params.getX();
         double t = params.getT();
         double tau = params.getTau();
         double halfTau = 0.5 * tau;
         double tHalf = t + halfTau;
-        double f1 = ode.apply(x, t);
-        double f2 = ode.apply(x + halfTau * f1, tHalf);
-        double f3 = ode.apply(x + halfTau * f2, tHalf);
-        double f4 = ode.apply(x + tau * f3, t + tau);
+        double f1 = ode.applyAsDouble(x, t);
+        double f2 = ode.applyAsDouble(x + halfTau * f1, tHalf);
+        double f3 = ode.applyAsDouble(x + halfTau * f2, tHalf);
+        double f4 = ode.applyAsDouble(x + tau * f3, t + tau);
         return x + tau / 6.0 * (f1 + f4 + 2.0 * (f2 + f3));
     }
 
     @Override
-    public double solve(BiFunction<Double, Double, Double> ode, double xi, double ti, double t) {
-        double dt = t < ti ? -1.0 * tau : tau;
-        final double iterations = (t - ti) / dt;
-        for (int i = 0; i < iterations; ++i) {
-            xi = rk4.apply(new ScalarRungeKuttaParameters(ode, xi, ti, dt));
-            ti += dt;
+    public ScalarStepper stepper(ScalarODE ode, double xi, double ti, double t) {
+        return new Stepper(ode, xi, ti, t);
+    }
+
+    /**
+     * Fixed step integration state. The last step is shortened to land exactly on the desired value.
+     */
+    private final class Stepper implements ScalarStepper {
+
+        private final ScalarODE ode;
+        private final double tEnd;
+        private final double dt;
+        private double x;
+        private double t;
+        private double f;
+        private boolean hasDerivative;
+
+        private Stepper(ScalarODE ode, double xi, double ti, double tEnd) {
+            this.ode = ode;
+            this.tEnd = tEnd;
+            this.dt = tEnd < ti ? -1.0 * tau : tau;
+            this.x = xi;
+            this.t = ti;
+        }
+
+        @Override
+        public double getT() {
+            return t;
+        }
+
+        @Override
+        public double getX() {
+            return x;
+        }
+
+        @Override
+        public double getDerivative() {
+            if (!hasDerivative) {
+                f = ode.applyAsDouble(x, t);
+                hasDerivative = true;
+            }
+            return f;
+        }
+
+        @Override
+        public double getStepSize() {
+            return dt;
+        }
+
+        @Override
+        public boolean isDone() {
+            return t == tEnd;
+        }
+
+        @Override
+        public void step() {
+            if (isDone()) throw new IllegalStateException("The integration has already reached t.");
+            final boolean last = (dt > 0.0) ? t + dt >= tEnd : t + dt <= tEnd;
+            final double h = last ? tEnd - t : dt;
+            x = rk4.apply(new ScalarRungeKuttaParameters(ode, x, t, h));
+            t = last ? tEnd : t + h;
+            hasDerivative = false;
         }
-        return t != ti ? rk4.apply(new ScalarRungeKuttaParameters(ode, xi, ti, t - ti)) : xi;
     }
 
     public void clear() {
         memoizer.clear();
     }
 
+    /**
+     * @return memoizer of the single step computations, for cache statistics
+     */
+    public Memoizer<ScalarRungeKuttaParameters, Double> getMemoizer() {
+        return memoizer;
+    }
+
     /**
      * Builder class for the Scalar 4th Order Runge-Kutta class.
      */
     public static class Builder {
 
+        /**
+         * Settings of the memoizer caching single steps.
+         */
+        private final Memoizer.Builder<ScalarRungeKuttaParameters, Double> cache;
+
         /**
          * Step size.
          */
@@ -92,6 +162,9 @@ public class MemoizedScalarRungeKutta4 implements ScalarODESolver {
          * Private Constructor.
          */
         private Builder() {
+            this.cache = Memoizer.Builder.<ScalarRungeKuttaParameters, Double>builder()
+                    .setMaximumSize(1 << 16)
+                    .setEvictionPolicy(EvictionPolicy.TINY_LFU);
             this.tau = 0.1;
         }
 
@@ -105,6 +178,34 @@ public class MemoizedScalarRungeKutta4 implements ScalarODESolver {
             return this;
         }
 
+        /**
+         * @param cacheSize maximum number of single steps kept by the memoizer
+         * @return this
+         */
+        public Builder setCacheSize(long cacheSize) {
+            cache.setMaximumSize(cacheSize);
+            return this;
+        }
+
+        /**
+         * @param evictionPolicy policy choosing single steps to evict once the cache is full
+         * @return this
+         */
+        public Builder setCacheEvictionPolicy(EvictionPolicy evictionPolicy) {
+            cache.setEvictionPolicy(evictionPolicy);
+            return this;
+        }
+
+        /**
+         * @param duration time after which a cached single step expires
+         * @param unit     unit of the duration
+         * @return this
+         */
+        public Builder setCacheExpiry(long duration, TimeUnit unit) {
+            cache.setExpireAfterWrite(duration, unit);
+            return this;
+        }
+
         /**
          * Build the Scalar 4th Order Runge-Kutta class with this builder's parameters.
          *
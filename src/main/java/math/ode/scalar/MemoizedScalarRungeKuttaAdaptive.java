@@ -1,8 +1,9 @@
 package math.ode.scalar;
 
+import math.ode.utils.EvictionPolicy;
 import math.ode.utils.Memoizer;
 
-import java.util.function.BiFunction;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import static math.ode.scalar.ScalarRungeKutta4.rk4;
@@ -13,14 +14,14 @@ import static math.ode.scalar.ScalarRungeKutta4.rk4;
 public class MemoizedScalarRungeKuttaAdaptive implements ScalarODESolver {
 
     /**
-     * Memoizer for clearing.
+     * Memoizer for clearing and statistics.
      */
-    private Memoizer<ScalarRungeKuttaParameters, Double> memoizer = new Memoizer<>();
+    private final Memoizer<ScalarRungeKuttaParameters, Double> memoizer;
 
     /**
      * Memoized rk4 function.
      */
-    private Function<ScalarRungeKuttaParameters, Double> rk4 = memoizer.doMemoize(MemoizedScalarRungeKutta4::rk4);
+    private final Function<ScalarRungeKuttaParameters, Double> rk4;
 
     /**
      * Smallest double value to avoid any divide by zero in the error ratio computation.
@@ -58,6 +59,8 @@ public class MemoizedScalarRungeKuttaAdaptive implements ScalarODESolver {
      * @param builder builder to set the parameters
      */
     private MemoizedScalarRungeKuttaAdaptive(Builder builder) {
+        this.memoizer = builder.cache.build();
+        this.rk4 = memoizer.doMemoize(MemoizedScalarRungeKutta4::rk4);
         this.err = builder.err;
         this.initialTau = builder.initialTau;
         this.maxTry = builder.maxTry;
@@ -66,51 +69,126 @@ public class MemoizedScalarRungeKuttaAdaptive implements ScalarODESolver {
     }
 
     @Override
-    public double solve(BiFunction<Double, Double, Double> ode, double xi, double ti, double t) {
-        final int sign = t < ti ? -1 : 1;
-        double tau = sign * initialTau;
-        boolean done = false;
-        while (!done) {
-            int iTry;
-            for (iTry = 1; iTry <= maxTry; ++iTry) {
+    public ScalarStepper stepper(ScalarODE ode, double xi, double ti, double t) {
+        return new Stepper(ode, xi, ti, t, initialTau);
+    }
+
+    @Override
+    public ScalarStepper stepper(ScalarODE ode, double xi, double ti, double t, double tau) {
+        return new Stepper(ode, xi, ti, t, Math.abs(tau));
+    }
+
+    /**
+     * Adaptive integration state. Once a step would pass the desired value, a final unchecked step lands on it.
+     */
+    private final class Stepper implements ScalarStepper {
+
+        private final ScalarODE ode;
+        private final double tEnd;
+        private final int sign;
+        private double x;
+        private double t;
+        private double tau;
+        private double f;
+        private boolean hasDerivative;
+        private int rejected;
+
+        private Stepper(ScalarODE ode, double xi, double ti, double tEnd, double tau) {
+            this.ode = ode;
+            this.tEnd = tEnd;
+            this.sign = tEnd < ti ? -1 : 1;
+            this.x = xi;
+            this.t = ti;
+            this.tau = sign * tau;
+        }
+
+        @Override
+        public double getT() {
+            return t;
+        }
+
+        @Override
+        public double getX() {
+            return x;
+        }
+
+        @Override
+        public double getDerivative() {
+            if (!hasDerivative) {
+                f = ode.applyAsDouble(x, t);
+                hasDerivative = true;
+            }
+            return f;
+        }
+
+        @Override
+        public double getStepSize() {
+            return tau;
+        }
+
+        @Override
+        public int getRejectedSteps() {
+            return rejected;
+        }
+
+        @Override
+        public boolean isDone() {
+            return t == tEnd;
+        }
+
+        @Override
+        public void step() {
+            if (isDone()) throw new IllegalStateException("The integration has already reached t.");
+            for (int iTry = 1; iTry <= maxTry; ++iTry) {
                 double halfTau = 0.5 * tau;
-                double xTemp = rk4.apply(new ScalarRungeKuttaParameters(ode, xi, ti, halfTau));
-                double xSmall = rk4.apply(new ScalarRungeKuttaParameters(ode, xTemp, ti + halfTau, halfTau));
-                double xBig = rk4.apply(new ScalarRungeKuttaParameters(ode, xi, ti, tau));
+                double xTemp = rk4.apply(new ScalarRungeKuttaParameters(ode, x, t, halfTau));
+                double xSmall = rk4.apply(new ScalarRungeKuttaParameters(ode, xTemp, t + halfTau, halfTau));
+                double xBig = rk4.apply(new ScalarRungeKuttaParameters(ode, x, t, tau));
                 double errorRatio = Math.abs(xSmall - xBig) / (err * (Math.abs(xSmall) + Math.abs(xBig)) / 2.0 + EPS);
                 double tauOld = tau;
                 tau = (sign > 0.0)
                         ? Math.min(Math.max(safe1 * tau * Math.pow(errorRatio, -0.2), tauOld / safe2), safe2 * tauOld)
                         : Math.max(Math.min(safe1 * tau * Math.pow(errorRatio, -0.2), tauOld / safe2), safe2 * tauOld);
                 if (errorRatio < 1.0) {
-                    double tDiff = sign * (t - (ti + tauOld));
+                    double tDiff = sign * (tEnd - (t + tauOld));
                     if (tDiff < 0.0) {
-                        done = true;
+                        x = rk4(ode, x, t, tEnd - t, getDerivative());
+                        t = tEnd;
                     } else {
-                        xi = xSmall;
-                        ti = ti + tauOld;
-                        done = (tDiff == 0.0);
+                        x = xSmall;
+                        t = (tDiff == 0.0) ? tEnd : t + tauOld;
                     }
-                    break;
+                    hasDerivative = false;
+                    return;
                 }
+                ++rejected;
             }
-            if (iTry > maxTry) {
-                String errorMessage = String.format("Adaptive Runge-Kutta failed at ti = %f.", ti);
-                throw new IllegalStateException(errorMessage);
-            }
+            String errorMessage = String.format("Adaptive Runge-Kutta failed at ti = %f.", t);
+            throw new IllegalStateException(errorMessage);
         }
-        return t != ti ? rk4(ode, xi, ti, t - ti) : xi;
     }
 
     public void clear() {
         memoizer.clear();
     }
 
+    /**
+     * @return memoizer of the single step computations, for cache statistics
+     */
+    public Memoizer<ScalarRungeKuttaParameters, Double> getMemoizer() {
+        return memoizer;
+    }
+
     /**
      * Builder class for the Scalar First Order Adaptive Runge-Kutta class.
      */
     public static class Builder {
 
+        /**
+         * Settings of the memoizer caching single steps.
+         */
+        private final Memoizer.Builder<ScalarRungeKuttaParameters, Double> cache;
+
         /**
          * Desired local truncation error.
          */
@@ -149,6 +227,9 @@ public class MemoizedScalarRungeKuttaAdaptive implements ScalarODESolver {
          * Private Constructor.
          */
         private Builder() {
+            this.cache = Memoizer.Builder.<ScalarRungeKuttaParameters, Double>builder()
+                    .setMaximumSize(1 << 16)
+                    .setEvictionPolicy(EvictionPolicy.TINY_LFU);
             this.err = 1e-12;
             this.initialTau = 0.1;
             this.safe1 = 0.9;
@@ -207,6 +288,34 @@ public class MemoizedScalarRungeKuttaAdaptive implements ScalarODESolver {
             return this;
         }
 
+        /**
+         * @param cacheSize maximum number of single steps kept by the memoizer
+         * @return this
+         */
+        public Builder setCacheSize(long cacheSize) {
+            cache.setMaximumSize(cacheSize);
+            return this;
+        }
+
+        /**
+         * @param evictionPolicy policy choosing single steps to evict once the cache is full
+         * @return this
+         */
+        public Builder setCacheEvictionPolicy(EvictionPolicy evictionPolicy) {
+            cache.setEvictionPolicy(evictionPolicy);
+            return this;
+        }
+
+        /**
+         * @param duration time after which a cached single step expires
+         * @param unit     unit of the duration
+         * @return this
+         */
+        public Builder setCacheExpiry(long duration, TimeUnit unit) {
+            cache.setExpireAfterWrite(duration, unit);
+            return this;
+        }
+
         /**
          * Build the Scalar First Order Adaptive Runge-Kutta class with this builder's parameters.
          *
@@ -0,0 +1,395 @@
+package math.ode.scalar;
+
+import math.ode.utils.AdamsWeights;
+
+/**
+ * Scalar First Order Variable Step, Variable Order Adams-Bashforth-Moulton Algorithm, for odes whose right-hand side
+ * is expensive to evaluate.
+ * <p>
+ * Each step of order k predicts with the k step Adams-Bashforth formula, evaluates the ode, corrects with the
+ * Adams-Moulton formula of order k + 1 and evaluates the ode again at the corrected value (PECE), so a step costs two
+ * evaluations whatever the order. The derivatives of the last points are kept in a ring buffer and the formulas are
+ * integrated over their actual spacing, so the step size can change on every step. The difference between the
+ * prediction and the correction estimates the error of the step. The first points come from the Adaptive Runge-Kutta
+ * Algorithm, after which the order is chosen by comparing the error estimates of the neighbouring orders.
+ */
+public class ScalarAdamsBashforthMoulton implements ScalarODESolver {
+
+    /**
+     * Highest order supported.
+     */
+    public static final int MAX_ORDER = 12;
+
+    /**
+     * Order started at once the Runge-Kutta steps have provided its points.
+     */
+    private static final int START_ORDER = 4;
+
+    /**
+     * Smallest double value to avoid any divide by zero in the error ratio computation.
+     */
+    private static final double EPS = Math.ulp(1.0);
+
+    /**
+     * Safety factor applied to the step size chosen from an error estimate.
+     */
+    private static final double SAFETY = 0.9;
+
+    /**
+     * Smallest factor applied to the step size after an error test failure.
+     */
+    private static final double MIN_FACTOR = 0.2;
+
+    /**
+     * Largest factor applied to the step size after an accepted step.
+     */
+    private static final double MAX_FACTOR = 2.0;
+
+    /**
+     * Points kept, the most any step uses plus the one being evaluated.
+     */
+    private static final int CAPACITY = MAX_ORDER + 1;
+
+    /**
+     * Desired local truncation error.
+     */
+    private final double err;
+
+    /**
+     * Highest order to use.
+     */
+    private final int maxOrder;
+
+    /**
+     * Maximum attempts before failing to reach the desired error.
+     */
+    private final int maxTry;
+
+    /**
+     * Solver of the first steps.
+     */
+    private final ScalarRungeKuttaAdaptive starter;
+
+    /**
+     * Private Constructor.
+     *
+     * @param builder builder to set the parameters
+     */
+    private ScalarAdamsBashforthMoulton(Builder builder) {
+        this.err = builder.err;
+        this.maxOrder = builder.maxOrder;
+        this.maxTry = builder.maxTry;
+        ScalarRungeKuttaAdaptive.Builder starterBuilder = ScalarRungeKuttaAdaptive.Builder.builder()
+                .setLocalTruncationError(builder.err)
+                .setMaximumTries(builder.maxTry);
+        if (builder.initialTau != 0.0) {
+            starterBuilder.setInitialStepSize(builder.initialTau);
+        }
+        this.starter = starterBuilder.build();
+    }
+
+    @Override
+    public ScalarStepper stepper(ScalarODE ode, double xi, double ti, double t) {
+        return new Stepper(ode, starter.stepper(ode, xi, ti, t), t);
+    }
+
+    @Override
+    public ScalarStepper stepper(ScalarODE ode, double xi, double ti, double t, double tau) {
+        return new Stepper(ode, starter.stepper(ode, xi, ti, t, tau), t);
+    }
+
+    /**
+     * Multistep integration state, taking Runge-Kutta steps until it holds enough points for the starting order.
+     */
+    private final class Stepper implements ScalarStepper {
+
+        private final ScalarODE ode;
+        private final double tEnd;
+        private final int sign;
+        private final AdamsWeights adams;
+        /**
+         * Ring buffers of the times and derivatives of the last points, the newest at head.
+         */
+        private final double[] times;
+        private final double[] derivatives;
+        /**
+         * Node 1 for the end of the step, then the points from the newest back, in units of the step.
+         */
+        private final double[] nodes;
+        private final double[] predictor;
+        private final double[] corrector;
+        private ScalarStepper starting;
+        private int head;
+        private int count;
+        private double x;
+        private double t;
+        private double tau;
+        private double f;
+        private boolean hasDerivative;
+        private int order;
+        private int stepsAtOrder;
+        private int rejected;
+
+        private Stepper(ScalarODE ode, ScalarStepper starting, double tEnd) {
+            this.ode = ode;
+            this.tEnd = tEnd;
+            this.sign = tEnd < starting.getT() ? -1 : 1;
+            this.adams = new AdamsWeights();
+            this.times = new double[CAPACITY];
+            this.derivatives = new double[CAPACITY];
+            this.nodes = new double[CAPACITY + 1];
+            this.predictor = new double[CAPACITY + 1];
+            this.corrector = new double[CAPACITY + 1];
+            this.starting = starting;
+            this.head = CAPACITY - 1;
+            this.x = starting.getX();
+            this.t = starting.getT();
+            this.tau = starting.getStepSize();
+            this.order = Math.min(START_ORDER, maxOrder);
+        }
+
+        @Override
+        public double getT() {
+            return t;
+        }
+
+        @Override
+        public double getX() {
+            return x;
+        }
+
+        @Override
+        public double getDerivative() {
+            if (starting != null) {
+                return starting.getDerivative();
+            }
+            if (!hasDerivative) {
+                f = ode.applyAsDouble(x, t);
+                hasDerivative = true;
+            }
+            return f;
+        }
+
+        @Override
+        public double getStepSize() {
+            return tau;
+        }
+
+        @Override
+        public int getRejectedSteps() {
+            return rejected + ((starting != null) ? starting.getRejectedSteps() : 0);
+        }
+
+        @Override
+        public boolean isDone() {
+            return t == tEnd;
+        }
+
+        /**
+         * @param j number of points back from the newest
+         * @return index of the point in the ring buffers
+         */
+        private int point(int j) {
+            int index = head - j;
+            return (index < 0) ? index + CAPACITY : index;
+        }
+
+        /**
+         * @param weights weights of the end of the step and of the points
+         * @param from    first weight
+         * @param to      last weight
+         * @param fEnd    derivative at the end of the step, used when from is 0
+         * @return sum of the weighted derivatives
+         */
+        private double combine(double[] weights, int from, int to, double fEnd) {
+            double sum = (from == 0) ? weights[0] * fEnd : 0.0;
+            for (int j = Math.max(from, 1); j <= to; ++j) {
+                sum += weights[j] * derivatives[point(j - 1)];
+            }
+            return sum;
+        }
+
+        /**
+         * Weighted error estimate of the formulas of an order, the difference between its prediction and correction.
+         *
+         * @param k     order
+         * @param h     step size
+         * @param fEnd  derivative at the end of the step
+         * @param scale error allowed
+         * @return error ratio
+         */
+        private double estimate(int k, double h, double fEnd, double scale) {
+            adams.integrate(nodes, 1, k, predictor);
+            adams.integrate(nodes, 0, k + 1, corrector);
+            return Math.abs(h * (combine(corrector, 0, k, fEnd) - combine(predictor, 1, k, fEnd))) / scale;
+        }
+
+        @Override
+        public void step() {
+            if (isDone()) throw new IllegalStateException("The integration has already reached t.");
+            head = (head + 1) % CAPACITY;
+            times[head] = t;
+            derivatives[head] = getDerivative();
+            count = Math.min(count + 1, CAPACITY);
+            if (starting != null) {
+                if (count < order) {
+                    starting.step();
+                    x = starting.getX();
+                    t = starting.getT();
+                    tau = starting.getStepSize();
+                    return;
+                }
+                rejected = starting.getRejectedSteps();
+                starting = null;
+            }
+            final int k = order;
+            for (int iTry = 1; iTry <= maxTry; ++iTry) {
+                final boolean last = sign * (t + tau - tEnd) >= 0.0;
+                final double h = last ? tEnd - t : tau;
+                nodes[0] = 1.0;
+                for (int j = 0; j < Math.min(count, k + 1); ++j) {
+                    nodes[j + 1] = (times[point(j)] - t) / h;
+                }
+                adams.integrate(nodes, 1, k, predictor);
+                adams.integrate(nodes, 0, k + 1, corrector);
+                final double xPredict = x + h * combine(predictor, 1, k, 0.0);
+                final double fPredict = ode.applyAsDouble(xPredict, t + h);
+                final double xCorrect = x + h * combine(corrector, 0, k, fPredict);
+                final double scale = err * (Math.abs(xPredict) + Math.abs(xCorrect)) / 2.0 + EPS;
+                final double errorRatio = Math.abs(xCorrect - xPredict) / scale;
+                if (errorRatio <= 1.0) {
+                    ++stepsAtOrder;
+                    double factor = Math.pow(errorRatio, -1.0 / (k + 1));
+                    if (stepsAtOrder > k) {
+                        double lower = (k > 1) ? estimate(k - 1, h, fPredict, scale) : Double.POSITIVE_INFINITY;
+                        double higher = (k < maxOrder && count > k)
+                                ? estimate(k + 1, h, fPredict, scale)
+                                : Double.POSITIVE_INFINITY;
+                        double lowerFactor = Math.pow(lower, -1.0 / k);
+                        double higherFactor = Math.pow(higher, -1.0 / (k + 2));
+                        if (lowerFactor > factor) {
+                            factor = lowerFactor;
+                            order = k - 1;
+                        }
+                        if (higherFactor > factor) {
+                            factor = higherFactor;
+                            order = k + 1;
+                        }
+                        if (order != k) {
+                            stepsAtOrder = 0;
+                        }
+                    }
+                    tau = h * Math.min(MAX_FACTOR, SAFETY * factor);
+                    x = xCorrect;
+                    t = last ? tEnd : t + h;
+                    hasDerivative = false;
+                    return;
+                }
+                final double factor = SAFETY * Math.pow(errorRatio, -1.0 / (k + 1));
+                tau = h * ((factor > MIN_FACTOR) ? factor : MIN_FACTOR);
+                ++rejected;
+            }
+            String errorMessage = String.format("Adams-Bashforth-Moulton failed at ti = %f.", t);
+            throw new IllegalStateException(errorMessage);
+        }
+    }
+
+    /**
+     * Builder class for the Scalar First Order Adams-Bashforth-Moulton class.
+     */
+    public static class Builder {
+
+        /**
+         * Desired local truncation error.
+         */
+        private double err;
+
+        /**
+         * Highest order to use.
+         */
+        private int maxOrder;
+
+        /**
+         * Initial step size of the Runge-Kutta steps, or 0 to estimate it from the ode at the initial condition.
+         */
+        private double initialTau;
+
+        /**
+         * Maximum attempts before failing to reach the desired error.
+         */
+        private int maxTry;
+
+        /**
+         * Get a builder instance with default settings.
+         *
+         * @return builder
+         */
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        /**
+         * Private Constructor.
+         */
+        private Builder() {
+            this.err = 1e-10;
+            this.maxOrder = MAX_ORDER;
+            this.initialTau = 0.0;
+            this.maxTry = 100;
+        }
+
+        /**
+         * @param err desired fractional local truncation error
+         * @return this
+         */
+        public Builder setLocalTruncationError(double err) {
+            if (!(err > 0.0)) throw new IllegalArgumentException("Local truncation error must be positive.");
+            this.err = err;
+            return this;
+        }
+
+        /**
+         * @param maxOrder highest order to use, from 1 to {@link #MAX_ORDER}
+         * @return this
+         */
+        public Builder setMaximumOrder(int maxOrder) {
+            if (maxOrder < 1 || maxOrder > MAX_ORDER) {
+                throw new IllegalArgumentException("Maximum order must be between 1 and " + MAX_ORDER + ".");
+            }
+            this.maxOrder = maxOrder;
+            return this;
+        }
+
+        /**
+         * Set the initial step size of the Runge-Kutta steps instead of estimating it from the ode at the initial
+         * condition.
+         *
+         * @param initialTau initial step size
+         * @return this
+         */
+        public Builder setInitialStepSize(double initialTau) {
+            if (initialTau == 0.0) throw new IllegalArgumentException("Initial step size cannot be zero.");
+            this.initialTau = initialTau;
+            return this;
+        }
+
+        /**
+         * @param maxTry maximum number of tries to converge on an acceptable step size
+         * @return this
+         */
+        public Builder setMaximumTries(int maxTry) {
+            if (maxTry < 0) throw new IllegalArgumentException("Maximum tries must be positive.");
+            this.maxTry = maxTry;
+            return this;
+        }
+
+        /**
+         * Build the Scalar First Order Adams-Bashforth-Moulton class with this builder's parameters.
+         *
+         * @return abm instance
+         */
+        public ScalarAdamsBashforthMoulton build() {
+            return new ScalarAdamsBashforthMoulton(this);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package math.ode.scalar;
+
+/**
+ * Right-hand side dx/dt(x, t) of a Scalar First Order Ordinary Differential Equation(ODE) evaluated for a block of
+ * ensemble members at once.
+ * <p>
+ * Members are stored in contiguous arrays so that a loop over them, such as
+ * {@code for (int i = 0; i < x.length; ++i) dxdt[i] = -k[offset + i] * x[i];}, can be vectorized by the JIT.
+ */
+@FunctionalInterface
+public interface ScalarBatchODE {
+
+    /**
+     * Evaluate the right-hand side of the ode for every member of a block.
+     *
+     * @param x      dependent variable of each member of the block
+     * @param t      independent variable, shared by all members
+     * @param dxdt   array of the same length as x receiving dx/dt(x, t) of each member
+     * @param offset ensemble index of the first member of the block
+     */
+    void apply(double[] x, double t, double[] dxdt, int offset);
+
+    /**
+     * Evaluate a right-hand side member by member.
+     *
+     * @param ode right-hand side of the first order ode dx/dt(x, t)
+     * @return batch right-hand side looping over the members
+     */
+    static ScalarBatchODE of(ScalarODE ode) {
+        return (x, t, dxdt, offset) -> {
+            for (int i = 0; i < x.length; ++i) {
+                dxdt[i] = ode.applyAsDouble(x[i], t);
+            }
+        };
+    }
+}
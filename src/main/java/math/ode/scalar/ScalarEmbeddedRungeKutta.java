@@ -0,0 +1,344 @@
+package math.ode.scalar;
+
+import math.ode.utils.ButcherTableau;
+import math.ode.utils.StepSizeController;
+
+/**
+ * Scalar First Order Adaptive Runge-Kutta Algorithm using an embedded pair for the error estimate.
+ */
+public class ScalarEmbeddedRungeKutta implements ScalarODESolver {
+
+    /**
+     * Smallest double value to avoid any divide by zero in the error ratio computation.
+     */
+    private static final double EPS = Math.ulp(1.0);
+
+    /**
+     * Stage times as fractions of the step size.
+     */
+    private final double[] c;
+
+    /**
+     * Stage coefficients.
+     */
+    private final double[][] a;
+
+    /**
+     * Solution weights.
+     */
+    private final double[] b;
+
+    /**
+     * Error estimate weights.
+     */
+    private final double[] e;
+
+    /**
+     * Whether the last stage is the first stage of the next step.
+     */
+    private final boolean fsal;
+
+    /**
+     * Exponent applied to the error ratio when choosing the next step size.
+     */
+    private final double exponent;
+
+    /**
+     * Desired local truncation error.
+     */
+    private final double err;
+
+    /**
+     * Initial step size.
+     */
+    private final double initialTau;
+
+    /**
+     * Maximum attempts before failing to reach the desired error.
+     */
+    private final int maxTry;
+
+    /**
+     * Safety factor 1.
+     */
+    private final double safe1;
+
+    /**
+     * Safety factor 2.
+     */
+    private final double safe2;
+
+    /**
+     * Step size controller.
+     */
+    private final StepSizeController controller;
+
+    /**
+     * Private Constructor.
+     *
+     * @param builder builder to set the parameters
+     */
+    private ScalarEmbeddedRungeKutta(Builder builder) {
+        this.c = builder.tableau.getC();
+        this.a = builder.tableau.getA();
+        this.b = builder.tableau.getB();
+        this.e = builder.tableau.getE();
+        this.fsal = builder.tableau.isFirstSameAsLast();
+        this.exponent = builder.tableau.getStepExponent();
+        this.err = builder.err;
+        this.initialTau = builder.initialTau;
+        this.maxTry = builder.maxTry;
+        this.safe1 = builder.safe1;
+        this.safe2 = builder.safe2;
+        this.controller = builder.controller;
+    }
+
+    @Override
+    public ScalarStepper stepper(ScalarODE ode, double xi, double ti, double t) {
+        return new Stepper(ode, xi, ti, t, initialTau);
+    }
+
+    @Override
+    public ScalarStepper stepper(ScalarODE ode, double xi, double ti, double t, double tau) {
+        return new Stepper(ode, xi, ti, t, Math.abs(tau));
+    }
+
+    /**
+     * Adaptive integration state. The last step is shortened to land exactly on the desired value.
+     */
+    private final class Stepper implements ScalarStepper {
+
+        private final ScalarODE ode;
+        private final double tEnd;
+        private final int sign;
+        private final double[] k;
+        private final StepSizeController.Control control;
+        private double x;
+        private double t;
+        private double tau;
+        private boolean hasDerivative;
+
+        private Stepper(ScalarODE ode, double xi, double ti, double tEnd, double tau) {
+            this.ode = ode;
+            this.tEnd = tEnd;
+            this.sign = tEnd < ti ? -1 : 1;
+            this.k = new double[c.length];
+            this.x = xi;
+            this.t = ti;
+            this.tau = sign * tau;
+            this.control = controller.start(-exponent, safe1, safe2);
+        }
+
+        @Override
+        public double getT() {
+            return t;
+        }
+
+        @Override
+        public double getX() {
+            return x;
+        }
+
+        @Override
+        public double getDerivative() {
+            if (!hasDerivative) {
+                k[0] = ode.applyAsDouble(x, t);
+                hasDerivative = true;
+            }
+            return k[0];
+        }
+
+        @Override
+        public double getStepSize() {
+            return tau;
+        }
+
+        @Override
+        public int getRejectedSteps() {
+            return control.getRejectedSteps();
+        }
+
+        @Override
+        public boolean isDone() {
+            return t == tEnd;
+        }
+
+        @Override
+        public void step() {
+            if (isDone()) throw new IllegalStateException("The integration has already reached t.");
+            final int stages = k.length;
+            getDerivative();
+            for (int iTry = 1; iTry <= maxTry; ++iTry) {
+                final boolean last = sign * (t + tau - tEnd) >= 0.0;
+                final double h = last ? tEnd - t : tau;
+                for (int s = 1; s < stages; ++s) {
+                    double xStage = x;
+                    for (int j = 0; j < s; ++j) {
+                        xStage += h * a[s][j] * k[j];
+                    }
+                    k[s] = ode.applyAsDouble(xStage, t + c[s] * h);
+                }
+                double xNew = x;
+                double error = 0.0;
+                for (int s = 0; s < stages; ++s) {
+                    xNew += h * b[s] * k[s];
+                    error += h * e[s] * k[s];
+                }
+                double errorRatio = Math.abs(error) / (err * (Math.abs(x) + Math.abs(xNew)) / 2.0 + EPS);
+                tau = h * control.factor(errorRatio);
+                if (errorRatio < 1.0) {
+                    t = last ? tEnd : t + h;
+                    x = xNew;
+                    k[0] = k[stages - 1];
+                    hasDerivative = fsal;
+                    return;
+                }
+            }
+            String errorMessage = String.format("Embedded Runge-Kutta failed at ti = %f.", t);
+            throw new IllegalStateException(errorMessage);
+        }
+    }
+
+    /**
+     * Builder class for the Scalar Embedded Runge-Kutta class.
+     */
+    public static class Builder {
+
+        /**
+         * Embedded pair.
+         */
+        private ButcherTableau tableau;
+
+        /**
+         * Desired local truncation error.
+         */
+        private double err;
+
+        /**
+         * Initial step size.
+         */
+        private double initialTau;
+
+        /**
+         * Maximum attempts before failing to reach the desired error.
+         */
+        private int maxTry;
+
+        /**
+         * Safety factor 1.
+         */
+        private double safe1;
+
+        /**
+         * Safety factor 2.
+         */
+        private double safe2;
+
+        /**
+         * Step size controller.
+         */
+        private StepSizeController controller;
+
+        /**
+         * Get a builder instance with default settings.
+         *
+         * @return builder
+         */
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        /**
+         * Private Constructor.
+         */
+        private Builder() {
+            this.tableau = ButcherTableau.DORMAND_PRINCE_54;
+            this.err = 1e-12;
+            this.initialTau = 0.1;
+            this.safe1 = 0.9;
+            this.safe2 = 4.0;
+            this.controller = StepSizeController.INTEGRAL;
+            this.maxTry = 100;
+        }
+
+        /**
+         * @param tableau embedded pair
+         * @return this
+         */
+        public Builder setTableau(ButcherTableau tableau) {
+            if (tableau == null) throw new IllegalArgumentException("Tableau cannot be null.");
+            this.tableau = tableau;
+            return this;
+        }
+
+        /**
+         * @param err desired fractional local truncation error
+         * @return this
+         */
+        public Builder setLocalTruncationError(double err) {
+            if (err < 0) throw new IllegalArgumentException("Local truncation error must be positive.");
+            this.err = err;
+            return this;
+        }
+
+        /**
+         * @param initialTau initial step size
+         * @return this
+         */
+        public Builder setInitialStepSize(double initialTau) {
+            if (initialTau == 0.0) throw new IllegalArgumentException("Initial step size cannot be zero.");
+            this.initialTau = initialTau;
+            return this;
+        }
+
+        /**
+         * @param maxTry maximum number of tries to converge on an acceptable step size
+         * @return this
+         */
+        public Builder setMaximumTries(int maxTry) {
+            if (maxTry < 0) throw new IllegalArgumentException("Maximum tries must be positive.");
+            this.maxTry = maxTry;
+            return this;
+        }
+
+        /**
+         * @param safe1 safety factor 1 (value must be non-negative and less than 1.0)
+         * @return this
+         */
+        public Builder setSafetyFactor1(double safe1) {
+            if (safe1 < 0.0) throw new IllegalArgumentException("Safety Factor 1 must be non-negative.");
+            if (safe1 >= 1.0) throw new IllegalArgumentException("Safety Factor 1 must be less than 1.0.");
+            this.safe1 = safe1;
+            return this;
+        }
+
+        /**
+         * @param safe2 safety factor 2 (value must be greater than 1.0)
+         * @return this
+         */
+        public Builder setSafetyFactor2(double safe2) {
+            if (safe2 <= 1.0) throw new IllegalArgumentException("Safety Factor 2 must be greater than 1.0.");
+            this.safe2 = safe2;
+            return this;
+        }
+
+        /**
+         * @param controller step size controller
+         * @return this
+         */
+        public Builder setStepSizeController(StepSizeController controller) {
+            if (controller == null) throw new IllegalArgumentException("Step size controller cannot be null.");
+            this.controller = controller;
+            return this;
+        }
+
+        /**
+         * Build the Scalar Embedded Runge-Kutta class with this builder's parameters.
+         *
+         * @return rka instance
+         */
+        public ScalarEmbeddedRungeKutta build() {
+            return new ScalarEmbeddedRungeKutta(this);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package math.ode.scalar;
+
+import math.ode.utils.EventAction;
+
+/**
+ * Event of a Scalar First Order ODE integration, occurring where the event function g(t, x) crosses zero. The
+ * function is checked after every accepted step and crossings are located on the step's interpolant, so events
+ * cost no evaluations of the ode. A function that crosses zero twice within one step is not seen.
+ * <p>
+ * By default an event stops the integration.
+ */
+@FunctionalInterface
+public interface ScalarEvent {
+
+    /**
+     * @param t independent variable
+     * @param x dependent variable
+     * @return value of the event function, changing sign at the event
+     */
+    double g(double t, double x);
+
+    /**
+     * @return 1 to only detect crossings where g increases along the integration, -1 for crossings where it
+     * decreases, 0 for both
+     */
+    default int getDirection() {
+        return 0;
+    }
+
+    /**
+     * Called at each located event.
+     *
+     * @param t independent variable at the event
+     * @param x dependent variable at the event
+     * @return how the integration carries on
+     */
+    default EventAction handle(double t, double x) {
+        return EventAction.STOP;
+    }
+
+    /**
+     * Called after {@link #handle(double, double)} returns {@link EventAction#RESET}. A reset event should
+     * usually detect a single direction, so that a new state left just short of zero is not taken for a crossing.
+     *
+     * @param t independent variable at the event
+     * @param x dependent variable at the event
+     * @return dependent variable to restart the integration from
+     */
+    default double reset(double t, double x) {
+        return x;
+    }
+}
@@ -0,0 +1,153 @@
+package math.ode.scalar;
+
+import math.ode.utils.EventAction;
+import math.ode.utils.RootFinder;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Integration of a Scalar First Order ODE checking event functions after every accepted step. A crossing is located
+ * by {@link RootFinder#illinois} on the cubic Hermite interpolant of the step's end states and derivatives, which the
+ * steppers keep for the next step anyway, so locating it costs no evaluations of the ode.
+ */
+final class ScalarEvents {
+
+    /**
+     * Fraction of a step after its start where event functions that are zero at the start are evaluated.
+     */
+    private static final double NUDGE = 1e-9;
+
+    /**
+     * Private Constructor.
+     */
+    private ScalarEvents() {
+    }
+
+    /**
+     * @param solver solver to integrate with, restarted after each reset
+     * @param ode    right-hand side of the first order ode dx/dt(x, t)
+     * @param xi     initial condition of the dependent variable
+     * @param ti     initial condition of the independent variable
+     * @param t      desired value of independent variable
+     * @param events events to detect
+     * @return state at t, or at the event that stopped the integration
+     */
+    static ScalarStep solve(ScalarODESolver solver, ScalarODE ode, double xi, double ti, double t,
+                            List<ScalarEvent> events) {
+        if (events == null) throw new IllegalArgumentException("Events cannot be null.");
+        final int m = events.size();
+        final double[] tStart = new double[m];
+        final double[] gStart = new double[m];
+        final double[] gEnd = new double[m];
+        for (int i = 0; i < m; ++i) {
+            gStart[i] = events.get(i).g(ti, xi);
+        }
+        ScalarStepper stepper = solver.stepper(ode, xi, ti, t);
+        while (!stepper.isDone()) {
+            final double t0 = stepper.getT();
+            final double x0 = stepper.getX();
+            final double f0 = stepper.getDerivative();
+            stepper.step();
+            final double t1 = stepper.getT();
+            final double x1 = stepper.getX();
+            final double f1 = stepper.getDerivative();
+            final double sign = (t1 > t0) ? 1.0 : -1.0;
+            for (int i = 0; i < m; ++i) {
+                gEnd[i] = events.get(i).g(t1, x1);
+            }
+            Arrays.fill(tStart, t0);
+            // An event function left at zero, as after a reset or a crossing ending a step, takes its sign from
+            // just after the start, so a step that leaves zero and returns across it is not missed
+            final double nudge = t0 + (t1 - t0) * NUDGE;
+            for (int i = 0; i < m; ++i) {
+                if (gStart[i] == 0.0 && nudge != t0) {
+                    tStart[i] = nudge;
+                    gStart[i] = events.get(i).g(nudge, hermite(nudge, t0, x0, f0, t1, x1, f1));
+                }
+            }
+            boolean restarted = false;
+            while (!restarted) {
+                // Earliest crossing, which the later ones may depend on
+                int first = -1;
+                double tEvent = t1;
+                for (int i = 0; i < m; ++i) {
+                    if (!crosses(events.get(i), gStart[i], gEnd[i])) {
+                        continue;
+                    }
+                    final ScalarEvent event = events.get(i);
+                    final double root = RootFinder.illinois(
+                            time -> event.g(time, hermite(time, t0, x0, f0, t1, x1, f1)),
+                            tStart[i], gStart[i], t1, gEnd[i], 4.0 * Math.ulp(Math.max(Math.abs(t0), Math.abs(t1))));
+                    if (first < 0 || sign * (root - tEvent) < 0.0) {
+                        first = i;
+                        tEvent = root;
+                    }
+                }
+                if (first < 0) {
+                    System.arraycopy(gEnd, 0, gStart, 0, m);
+                    break;
+                }
+                final ScalarEvent event = events.get(first);
+                double xEvent = (tEvent == t1) ? x1 : hermite(tEvent, t0, x0, f0, t1, x1, f1);
+                EventAction action = event.handle(tEvent, xEvent);
+                if (action == EventAction.STOP) {
+                    return new ScalarStep(tEvent, xEvent);
+                }
+                if (action == EventAction.RESET) {
+                    xEvent = event.reset(tEvent, xEvent);
+                    if (tEvent == t) {
+                        return new ScalarStep(tEvent, xEvent);
+                    }
+                    stepper = solver.stepper(ode, xEvent, tEvent, t, stepper.getStepSize());
+                    for (int i = 0; i < m; ++i) {
+                        gStart[i] = events.get(i).g(tEvent, xEvent);
+                    }
+                    restarted = true;
+                } else {
+                    // The other events have not crossed before this one, so their brackets still hold
+                    tStart[first] = tEvent;
+                    gStart[first] = event.g(tEvent, xEvent);
+                }
+            }
+        }
+        return new ScalarStep(stepper.getT(), stepper.getX());
+    }
+
+    /**
+     * @param event  event to check
+     * @param gStart value of the event function at the start of the interval
+     * @param gEnd   value of the event function at the end of the interval
+     * @return true if the event function crosses zero in the detected direction
+     */
+    private static boolean crosses(ScalarEvent event, double gStart, double gEnd) {
+        if (gStart == 0.0 || ((gStart > 0.0) == (gEnd > 0.0) && gEnd != 0.0)) {
+            return false;
+        }
+        final int direction = event.getDirection();
+        return direction == 0 || (direction > 0) == (gStart < 0.0);
+    }
+
+    /**
+     * Cubic Hermite interpolation of a step.
+     *
+     * @param time independent variable within the step
+     * @param t0   start of the step
+     * @param x0   dependent variable at the start
+     * @param f0   derivative at the start
+     * @param t1   end of the step
+     * @param x1   dependent variable at the end
+     * @param f1   derivative at the end
+     * @return interpolated value of x(time)
+     */
+    static double hermite(double time, double t0, double x0, double f0, double t1, double x1, double f1) {
+        double h = t1 - t0;
+        double s = (time - t0) / h;
+        double s2 = s * s;
+        double s3 = s2 * s;
+        return (2.0 * s3 - 3.0 * s2 + 1.0) * x0
+                + (s3 - 2.0 * s2 + s) * h * f0
+                + (-2.0 * s3 + 3.0 * s2) * x1
+                + (s3 - s2) * h * f1;
+    }
+}
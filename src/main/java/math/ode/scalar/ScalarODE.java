@@ -0,0 +1,38 @@
+package math.ode.scalar;
+
+import java.util.function.BiFunction;
+
+/**
+ * Right-hand side dx/dt(x, t) of a Scalar First Order Ordinary Differential Equation(ODE) on primitive doubles.
+ * <p>
+ * Extends {@link BiFunction} so a primitive ode can be passed anywhere a boxed ode is expected, while the solvers
+ * call {@link #applyAsDouble(double, double)} directly and never box.
+ */
+@FunctionalInterface
+public interface ScalarODE extends BiFunction<Double, Double, Double> {
+
+    /**
+     * Evaluate the right-hand side of the ode.
+     *
+     * @param x dependent variable
+     * @param t independent variable
+     * @return dx/dt(x, t)
+     */
+    double applyAsDouble(double x, double t);
+
+    @Override
+    default Double apply(Double x, Double t) {
+        return applyAsDouble(x, t);
+    }
+
+    /**
+     * Adapt a boxed right-hand side to a primitive one.
+     *
+     * @param ode right-hand side of the first order ode dx/dt(x, t)
+     * @return the ode itself if it is already primitive, otherwise an unboxing adapter equal to every other adapter of
+     * the same ode
+     */
+    static ScalarODE of(BiFunction<Double, Double, Double> ode) {
+        return (ode instanceof ScalarODE) ? (ScalarODE) ode : new BoxedScalarODE(ode);
+    }
+}
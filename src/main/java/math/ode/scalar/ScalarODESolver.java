@@ -1,13 +1,50 @@
 package math.ode.scalar;
 
+import math.ode.utils.ParallelLoop;
+import math.ode.utils.SolverStatistics;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Interface that represents a Numerical Method for Solving Scalar First Order Ordinary Differential Equations(ODEs).
  */
 public interface ScalarODESolver {
 
+    /**
+     * Start a step by step integration of the Scalar First Order ODE.
+     *
+     * @param ode right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial condition of the dependent variable
+     * @param ti  initial condition of the independent variable
+     * @param t   desired value of independent variable
+     * @return stepper positioned at the initial condition
+     */
+    ScalarStepper stepper(ScalarODE ode, double xi, double ti, double t);
+
+    /**
+     * Start a step by step integration of the Scalar First Order ODE with a suggested first step size, such as the
+     * last accepted step size of an earlier integration being resumed. Fixed step solvers ignore it.
+     *
+     * @param ode right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial condition of the dependent variable
+     * @param ti  initial condition of the independent variable
+     * @param t   desired value of independent variable
+     * @param tau suggested first step size
+     * @return stepper positioned at the initial condition
+     */
+    default ScalarStepper stepper(ScalarODE ode, double xi, double ti, double t, double tau) {
+        return stepper(ode, xi, ti, t);
+    }
+
     /**
      * Computations for solving the Scalar First Order ODE.
      *
@@ -17,10 +54,255 @@ public interface ScalarODESolver {
      * @param t   desired value of independent variable
      * @return computed value of x(t)
      */
-    double solve(BiFunction<Double, Double, Double> ode, double xi, double ti, double t);
+    default double solve(ScalarODE ode, double xi, double ti, double t) {
+        ScalarStepper stepper = stepper(ode, xi, ti, t);
+        while (!stepper.isDone()) {
+            stepper.step();
+        }
+        return stepper.getX();
+    }
+
+    /**
+     * Computations for solving the Scalar First Order ODE given a boxed right-hand side.
+     *
+     * @param ode right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial condition of the dependent variable
+     * @param ti  initial condition of the independent variable
+     * @param t   desired value of independent variable
+     * @return computed value of x(t)
+     */
+    default double solve(BiFunction<Double, Double, Double> ode, double xi, double ti, double t) {
+        return solve(ScalarODE.of(ode), xi, ti, t);
+    }
+
+    /**
+     * Solve the Scalar First Order ODE recording the work done and calling a listener after every accepted step.
+     * Without statistics the ode is not wrapped and the clock is not read, without a listener nothing is called, so
+     * with neither the integration costs what {@link #solve(ScalarODE, double, double, double)} does. Memoized
+     * solvers share their cached steps between calls with and without statistics.
+     *
+     * @param ode        right-hand side of the first order ode dx/dt(x, t)
+     * @param xi         initial condition of the dependent variable
+     * @param ti         initial condition of the independent variable
+     * @param t          desired value of independent variable
+     * @param statistics statistics to fill in, or null for none
+     * @param listener   listener to call after every accepted step, or null for none
+     * @return computed value of x(t)
+     */
+    default double solve(ScalarODE ode, double xi, double ti, double t, SolverStatistics statistics,
+                         ScalarStepListener listener) {
+        if (statistics == null && listener == null) {
+            return solve(ode, xi, ti, t);
+        }
+        if (statistics != null) {
+            statistics.start();
+        }
+        ScalarStepper stepper = null;
+        try {
+            stepper = stepper((statistics == null) ? ode : new CountingScalarODE(ode, statistics), xi, ti, t);
+            while (!stepper.isDone()) {
+                final double tOld = stepper.getT();
+                stepper.step();
+                if (statistics != null) {
+                    statistics.countStep(stepper.getT() - tOld);
+                }
+                if (listener != null) {
+                    listener.onStep(stepper);
+                }
+            }
+            return stepper.getX();
+        } finally {
+            if (statistics != null) {
+                statistics.stop((stepper == null) ? 0 : stepper.getRejectedSteps());
+            }
+        }
+    }
+
+    /**
+     * Solve the Scalar First Order ODE given a boxed right-hand side recording the work done and calling a listener
+     * after every accepted step.
+     *
+     * @param ode        right-hand side of the first order ode dx/dt(x, t)
+     * @param xi         initial condition of the dependent variable
+     * @param ti         initial condition of the independent variable
+     * @param t          desired value of independent variable
+     * @param statistics statistics to fill in, or null for none
+     * @param listener   listener to call after every accepted step, or null for none
+     * @return computed value of x(t)
+     */
+    default double solve(BiFunction<Double, Double, Double> ode, double xi, double ti, double t,
+                         SolverStatistics statistics, ScalarStepListener listener) {
+        return solve(ScalarODE.of(ode), xi, ti, t, statistics, listener);
+    }
+
+    /**
+     * Solve the Scalar First Order ODE checking event functions after every accepted step. Each crossing is located
+     * on the step's interpolant without evaluating the ode and handled in order, stopping the integration, carrying
+     * on, or restarting it from a reset state.
+     *
+     * @param ode    right-hand side of the first order ode dx/dt(x, t)
+     * @param xi     initial condition of the dependent variable
+     * @param ti     initial condition of the independent variable
+     * @param t      desired value of independent variable
+     * @param events events to detect
+     * @return state at t, or at the event that stopped the integration
+     */
+    default ScalarStep solve(ScalarODE ode, double xi, double ti, double t, List<ScalarEvent> events) {
+        return ScalarEvents.solve(this, ode, xi, ti, t, events);
+    }
+
+    /**
+     * Solve the Scalar First Order ODE given a boxed right-hand side checking event functions after every accepted
+     * step.
+     *
+     * @param ode    right-hand side of the first order ode dx/dt(x, t)
+     * @param xi     initial condition of the dependent variable
+     * @param ti     initial condition of the independent variable
+     * @param t      desired value of independent variable
+     * @param events events to detect
+     * @return state at t, or at the event that stopped the integration
+     */
+    default ScalarStep solve(BiFunction<Double, Double, Double> ode, double xi, double ti, double t,
+                             List<ScalarEvent> events) {
+        return solve(ScalarODE.of(ode), xi, ti, t, events);
+    }
+
+    /**
+     * Lazily stream the state after every accepted step, starting with the initial condition and ending at t.
+     * Each step is only taken when the stream pulls the next element, so a consumer that stops early, for example
+     * with {@code limit} or {@code takeWhile}, stops the integration, and no steps are buffered.
+     *
+     * @param ode right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial condition of the dependent variable
+     * @param ti  initial condition of the independent variable
+     * @param t   desired value of independent variable
+     * @return sequential ordered stream of steps
+     */
+    default Stream<ScalarStep> steps(ScalarODE ode, double xi, double ti, double t) {
+        return ScalarODESolver.steps(stepper(ode, xi, ti, t));
+    }
+
+    /**
+     * Lazily stream the state after every accepted step given a boxed right-hand side.
+     *
+     * @param ode right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial condition of the dependent variable
+     * @param ti  initial condition of the independent variable
+     * @param t   desired value of independent variable
+     * @return sequential ordered stream of steps
+     */
+    default Stream<ScalarStep> steps(BiFunction<Double, Double, Double> ode, double xi, double ti, double t) {
+        return steps(ScalarODE.of(ode), xi, ti, t);
+    }
+
+    /**
+     * @param stepper integration to take a step of each time an element is pulled
+     * @return sequential ordered stream of steps
+     */
+    static Stream<ScalarStep> steps(ScalarStepper stepper) {
+        Spliterator<ScalarStep> spliterator = new Spliterators.AbstractSpliterator<ScalarStep>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE) {
+
+            private boolean started;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super ScalarStep> action) {
+                if (started) {
+                    if (stepper.isDone()) {
+                        return false;
+                    }
+                    stepper.step();
+                }
+                started = true;
+                action.accept(new ScalarStep(stepper.getT(), stepper.getX()));
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    /**
+     * Solve the Scalar First Order ODE for every initial condition of an ensemble in parallel on the common
+     * {@link ForkJoinPool}.
+     *
+     * @param ode right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial conditions of the dependent variable
+     * @param ti  initial condition of the independent variable
+     * @param t   desired value of independent variable
+     * @return computed values of x(t), in the order of xi
+     */
+    default double[] solveAll(ScalarODE ode, double[] xi, double ti, double t) {
+        return solveAll(ode, xi, ti, t, new double[xi.length], ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Solve the Scalar First Order ODE for every initial condition of an ensemble in parallel into a preallocated
+     * array. Members are split into chunks that idle workers steal, so members of very different cost still keep
+     * every worker busy.
+     *
+     * @param ode      right-hand side of the first order ode dx/dt(x, t)
+     * @param xi       initial conditions of the dependent variable
+     * @param ti       initial condition of the independent variable
+     * @param t        desired value of independent variable
+     * @param x        array receiving the computed values of x(t), may be xi itself
+     * @param executor executor to solve on
+     * @return x
+     */
+    default double[] solveAll(ScalarODE ode, double[] xi, double ti, double t, double[] x, Executor executor) {
+        if (x.length != xi.length) throw new IllegalArgumentException("Output length must match xi.");
+        ParallelLoop.forRange(xi.length, executor, (from, to) -> {
+            for (int i = from; i < to; ++i) {
+                x[i] = solve(ode, xi[i], ti, t);
+            }
+        });
+        return x;
+    }
 
     /**
-     * Get the solution function for the Scalar ODE.
+     * Solve the Scalar First Order ODE given a boxed right-hand side for every initial condition of an ensemble.
+     *
+     * @param ode right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial conditions of the dependent variable
+     * @param ti  initial condition of the independent variable
+     * @param t   desired value of independent variable
+     * @return computed values of x(t), in the order of xi
+     */
+    default double[] solveAll(BiFunction<Double, Double, Double> ode, double[] xi, double ti, double t) {
+        return solveAll(ScalarODE.of(ode), xi, ti, t);
+    }
+
+    /**
+     * Solve the Scalar First Order ODE given a boxed right-hand side for every initial condition of an ensemble
+     * into a preallocated array.
+     *
+     * @param ode      right-hand side of the first order ode dx/dt(x, t)
+     * @param xi       initial conditions of the dependent variable
+     * @param ti       initial condition of the independent variable
+     * @param t        desired value of independent variable
+     * @param x        array receiving the computed values of x(t), may be xi itself
+     * @param executor executor to solve on
+     * @return x
+     */
+    default double[] solveAll(BiFunction<Double, Double, Double> ode, double[] xi, double ti, double t, double[] x,
+                              Executor executor) {
+        return solveAll(ScalarODE.of(ode), xi, ti, t, x, executor);
+    }
+
+    /**
+     * Get the solution function for the Scalar ODE. The function keeps a small, bounded cache of checkpoints and
+     * resumes each query from the nearest one between ti and the queried value. It is safe to share between threads.
+     *
+     * @param ode right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial condition of the dependent variable
+     * @param ti  initial condition of the independent variable
+     * @return function x(t)
+     */
+    default Function<Double, Double> solution(ScalarODE ode, double xi, double ti) {
+        return new ScalarSolution(this, ode, xi, ti, ScalarSolution.DEFAULT_CHECKPOINTS);
+    }
+
+    /**
+     * Get the solution function for the Scalar ODE given a boxed right-hand side.
      *
      * @param ode right-hand side of the first order ode dx/dt(x, t)
      * @param xi  initial condition of the dependent variable
@@ -28,6 +310,33 @@ public interface ScalarODESolver {
      * @return function x(t)
      */
     default Function<Double, Double> solution(BiFunction<Double, Double, Double> ode, double xi, double ti) {
-        return t -> solve(ode, xi, ti, t);
+        return solution(ScalarODE.of(ode), xi, ti);
+    }
+
+    /**
+     * Integrate the Scalar ODE once and keep every accepted step, so that the solution can be evaluated anywhere
+     * between ti and t without integrating again.
+     *
+     * @param ode right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial condition of the dependent variable
+     * @param ti  initial condition of the independent variable
+     * @param t   final value of independent variable
+     * @return interpolating trajectory over [ti, t]
+     */
+    default ScalarTrajectory trajectory(ScalarODE ode, double xi, double ti, double t) {
+        return ScalarTrajectory.record(stepper(ode, xi, ti, t));
+    }
+
+    /**
+     * Integrate the Scalar ODE once given a boxed right-hand side and keep every accepted step.
+     *
+     * @param ode right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial condition of the dependent variable
+     * @param ti  initial condition of the independent variable
+     * @param t   final value of independent variable
+     * @return interpolating trajectory over [ti, t]
+     */
+    default ScalarTrajectory trajectory(BiFunction<Double, Double, Double> ode, double xi, double ti, double t) {
+        return trajectory(ScalarODE.of(ode), xi, ti, t);
     }
 }
@@ -1,12 +1,20 @@
 package math.ode.scalar;
 
-import java.util.function.BiFunction;
+import math.ode.utils.ParallelLoop;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Scalar 4th Order Runge-Kutta Algorithm.
  */
 public class ScalarRungeKutta4 implements ScalarODESolver {
 
+    /**
+     * Ensemble members integrated together, sized so that a block's five working arrays stay in the L1 cache.
+     */
+    static final int BLOCK_SIZE = 512;
+
     /**
      * Step size.
      */
@@ -30,25 +38,181 @@ public class ScalarRungeKutta4 implements ScalarODESolver {
      * @param tau step size
      * @return new value of x after step size tau
      */
-    static double rk4(BiFunction<Double, Double, Double> ode, double x, double t, double tau) {
+    static double rk4(ScalarODE ode, double x, double t, double tau) {
+        return rk4(ode, x, t, tau, ode.applyAsDouble(x, t));
+    }
+
+    /**
+     * Single step Scalar 4th Order Runge-Kutta computation with the derivative at the start of the step known.
+     *
+     * @param ode right-hand side of first order ode: dx/dt = derivsRK(x, t)
+     * @param x   current value of the dependant variable
+     * @param t   independent variable
+     * @param tau step size
+     * @param f1  dx/dt(x, t)
+     * @return new value of x after step size tau
+     */
+    static double rk4(ScalarODE ode, double x, double t, double tau, double f1) {
         double halfTau = 0.5 * tau;
         double tHalf = t + halfTau;
-        double f1 = ode.apply(x, t);
-        double f2 = ode.apply(x + halfTau * f1, tHalf);
-        double f3 = ode.apply(x + halfTau * f2, tHalf);
-        double f4 = ode.apply(x + tau * f3, t + tau);
+        double f2 = ode.applyAsDouble(x + halfTau * f1, tHalf);
+        double f3 = ode.applyAsDouble(x + halfTau * f2, tHalf);
+        double f4 = ode.applyAsDouble(x + tau * f3, t + tau);
         return x + tau / 6.0 * (f1 + f4 + 2.0 * (f2 + f3));
     }
 
     @Override
-    public double solve(BiFunction<Double, Double, Double> ode, double xi, double ti, double t) {
-        double dt = t < ti ? -1.0 * tau : tau;
-        final double iterations = (t - ti) / dt;
-        for (int i = 0; i < iterations; ++i) {
-            xi = rk4(ode, xi, ti, dt);
-            ti += dt;
+    public ScalarStepper stepper(ScalarODE ode, double xi, double ti, double t) {
+        return new Stepper(ode, xi, ti, t);
+    }
+
+    /**
+     * Fixed step integration state. The last step is shortened to land exactly on the desired value.
+     */
+    private final class Stepper implements ScalarStepper {
+
+        private final ScalarODE ode;
+        private final double tEnd;
+        private final double dt;
+        private double x;
+        private double t;
+        private double f;
+        private boolean hasDerivative;
+
+        private Stepper(ScalarODE ode, double xi, double ti, double tEnd) {
+            this.ode = ode;
+            this.tEnd = tEnd;
+            this.dt = tEnd < ti ? -1.0 * tau : tau;
+            this.x = xi;
+            this.t = ti;
+        }
+
+        @Override
+        public double getT() {
+            return t;
+        }
+
+        @Override
+        public double getX() {
+            return x;
+        }
+
+        @Override
+        public double getDerivative() {
+            if (!hasDerivative) {
+                f = ode.applyAsDouble(x, t);
+                hasDerivative = true;
+            }
+            return f;
+        }
+
+        @Override
+        public double getStepSize() {
+            return dt;
+        }
+
+        @Override
+        public boolean isDone() {
+            return t == tEnd;
+        }
+
+        @Override
+        public void step() {
+            if (isDone()) throw new IllegalStateException("The integration has already reached t.");
+            final boolean last = (dt > 0.0) ? t + dt >= tEnd : t + dt <= tEnd;
+            final double h = last ? tEnd - t : dt;
+            x = rk4(ode, x, t, h, getDerivative());
+            t = last ? tEnd : t + h;
+            hasDerivative = false;
+        }
+    }
+
+    /**
+     * Solve the Scalar First Order ODE for an ensemble of initial conditions in lockstep on the common
+     * {@link ForkJoinPool}.
+     *
+     * @param ode batch right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial conditions of the dependent variable
+     * @param ti  initial condition of the independent variable
+     * @param t   desired value of independent variable
+     * @return computed values of x(t), in the order of xi
+     */
+    public double[] solveAll(ScalarBatchODE ode, double[] xi, double ti, double t) {
+        return solveAll(ode, xi, ti, t, new double[xi.length], ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Solve the Scalar First Order ODE for an ensemble of initial conditions in lockstep into a preallocated array.
+     * <p>
+     * Members are split into blocks of contiguous states. Every stage of a step is one call to the batch ode and
+     * one pass over the block, and a block takes all of its steps while it is in cache. Blocks are independent and
+     * run in parallel. Each member gets exactly the result of {@link #solve(ScalarODE, double, double, double)}.
+     *
+     * @param ode      batch right-hand side of the first order ode dx/dt(x, t)
+     * @param xi       initial conditions of the dependent variable
+     * @param ti       initial condition of the independent variable
+     * @param t        desired value of independent variable
+     * @param x        array receiving the computed values of x(t), may be xi itself
+     * @param executor executor to solve on
+     * @return x
+     */
+    public double[] solveAll(ScalarBatchODE ode, double[] xi, double ti, double t, double[] x, Executor executor) {
+        if (x.length != xi.length) throw new IllegalArgumentException("Output length must match xi.");
+        final int blocks = (xi.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        ParallelLoop.forRange(blocks, executor, (from, to) -> {
+            for (int block = from; block < to; ++block) {
+                int offset = block * BLOCK_SIZE;
+                int length = Math.min(BLOCK_SIZE, xi.length - offset);
+                double[] xs = new double[length];
+                System.arraycopy(xi, offset, xs, 0, length);
+                solveBlock(ode, xs, ti, t, offset);
+                System.arraycopy(xs, 0, x, offset, length);
+            }
+        });
+        return x;
+    }
+
+    /**
+     * Integrate one block of ensemble members in place with the step sequence of the scalar stepper.
+     *
+     * @param ode    batch right-hand side of the first order ode dx/dt(x, t)
+     * @param x      dependent variable of each member, overwritten with x(tEnd)
+     * @param t      initial condition of the independent variable
+     * @param tEnd   desired value of independent variable
+     * @param offset ensemble index of the first member of the block
+     */
+    private void solveBlock(ScalarBatchODE ode, double[] x, double t, double tEnd, int offset) {
+        final int n = x.length;
+        final double dt = tEnd < t ? -1.0 * tau : tau;
+        double[] f1 = new double[n];
+        double[] f = new double[n];
+        double[] f23 = new double[n];
+        double[] xTemp = new double[n];
+        while (t != tEnd) {
+            final boolean last = (dt > 0.0) ? t + dt >= tEnd : t + dt <= tEnd;
+            final double h = last ? tEnd - t : dt;
+            final double halfH = 0.5 * h;
+            final double tHalf = t + halfH;
+            ode.apply(x, t, f1, offset);
+            for (int i = 0; i < n; ++i) {
+                xTemp[i] = x[i] + halfH * f1[i];
+            }
+            ode.apply(xTemp, tHalf, f, offset);
+            for (int i = 0; i < n; ++i) {
+                f23[i] = f[i];
+                xTemp[i] = x[i] + halfH * f[i];
+            }
+            ode.apply(xTemp, tHalf, f, offset);
+            for (int i = 0; i < n; ++i) {
+                f23[i] += f[i];
+                xTemp[i] = x[i] + h * f[i];
+            }
+            ode.apply(xTemp, t + h, f, offset);
+            for (int i = 0; i < n; ++i) {
+                x[i] = x[i] + h / 6.0 * (f1[i] + f[i] + 2.0 * f23[i]);
+            }
+            t = last ? tEnd : t + h;
         }
-        return t != ti ? rk4(ode, xi, ti, t - ti) : xi;
     }
 
     /**
@@ -1,6 +1,6 @@
 package math.ode.scalar;
 
-import java.util.function.BiFunction;
+import math.ode.utils.StepSizeController;
 
 import static math.ode.scalar.ScalarRungeKutta4.rk4;
 
@@ -20,7 +20,7 @@ public class ScalarRungeKuttaAdaptive implements ScalarODESolver {
     private final double err;
 
     /**
-     * Initial step size.
+     * Initial step size, or 0 to estimate it from the ode at the initial condition.
      */
     private final double initialTau;
 
@@ -39,6 +39,11 @@ public class ScalarRungeKuttaAdaptive implements ScalarODESolver {
      */
     private final double safe2;
 
+    /**
+     * Step size controller.
+     */
+    private final StepSizeController controller;
+
     /**
      * Private Constructor.
      *
@@ -50,42 +55,129 @@ public class ScalarRungeKuttaAdaptive implements ScalarODESolver {
         this.maxTry = builder.maxTry;
         this.safe1 = builder.safe1;
         this.safe2 = builder.safe2;
+        this.controller = builder.controller;
+    }
+
+    @Override
+    public ScalarStepper stepper(ScalarODE ode, double xi, double ti, double t) {
+        return new Stepper(ode, xi, ti, t, initialTau);
     }
 
     @Override
-    public double solve(BiFunction<Double, Double, Double> ode, double xi, double ti, double t) {
-        final int sign = t < ti ? -1 : 1;
-        double tau = sign * initialTau;
-        boolean done = false;
-        while (!done) {
-            int iTry;
-            for (iTry = 1; iTry <= maxTry; ++iTry) {
+    public ScalarStepper stepper(ScalarODE ode, double xi, double ti, double t, double tau) {
+        return new Stepper(ode, xi, ti, t, Math.abs(tau));
+    }
+
+    /**
+     * Adaptive integration state. Once a step would pass the desired value, a final unchecked step lands on it.
+     */
+    private final class Stepper implements ScalarStepper {
+
+        private final ScalarODE ode;
+        private final double tEnd;
+        private final int sign;
+        private final StepSizeController.Control control;
+        private double x;
+        private double t;
+        private double tau;
+        private double f;
+        private boolean hasDerivative;
+
+        private Stepper(ScalarODE ode, double xi, double ti, double tEnd, double tau) {
+            this.ode = ode;
+            this.tEnd = tEnd;
+            this.sign = tEnd < ti ? -1 : 1;
+            this.x = xi;
+            this.t = ti;
+            this.tau = sign * tau;
+            this.control = controller.start(0.2, safe1, safe2);
+            if (tau == 0.0 && ti != tEnd) {
+                this.tau = sign * estimateStepSize();
+            }
+        }
+
+        /**
+         * Estimate the initial step size as Hairer, Norsett and Wanner do, from the sizes of x and dx/dt weighted by
+         * the error allowed and from the change of dx/dt over a small explicit Euler step. This costs one evaluation
+         * of the ode besides the derivative at the initial condition, which the first step reuses.
+         *
+         * @return magnitude of the first step to try
+         */
+        private double estimateStepSize() {
+            final double interval = Math.abs(tEnd - t);
+            final double scale = err * Math.abs(x) + EPS;
+            final double f0 = getDerivative();
+            final double d0 = Math.abs(x) / scale;
+            final double d1 = Math.abs(f0) / scale;
+            final double h0 = Math.min((d0 < 1e-5 || d1 < 1e-5) ? 1e-6 : 0.01 * d0 / d1, interval);
+            final double f1 = ode.applyAsDouble(x + sign * h0 * f0, t + sign * h0);
+            final double d2 = Math.abs(f1 - f0) / scale / h0;
+            final double dMax = Math.max(d1, d2);
+            final double h1 = (dMax <= 1e-15) ? Math.max(1e-6, 1e-3 * h0) : Math.pow(0.01 / dMax, 0.2);
+            return Math.min(Math.min(100.0 * h0, h1), interval);
+        }
+
+        @Override
+        public double getT() {
+            return t;
+        }
+
+        @Override
+        public double getX() {
+            return x;
+        }
+
+        @Override
+        public double getDerivative() {
+            if (!hasDerivative) {
+                f = ode.applyAsDouble(x, t);
+                hasDerivative = true;
+            }
+            return f;
+        }
+
+        @Override
+        public double getStepSize() {
+            return tau;
+        }
+
+        @Override
+        public int getRejectedSteps() {
+            return control.getRejectedSteps();
+        }
+
+        @Override
+        public boolean isDone() {
+            return t == tEnd;
+        }
+
+        @Override
+        public void step() {
+            if (isDone()) throw new IllegalStateException("The integration has already reached t.");
+            final double f1 = getDerivative();
+            for (int iTry = 1; iTry <= maxTry; ++iTry) {
                 double halfTau = 0.5 * tau;
-                double xSmall = rk4(ode, rk4(ode, xi, ti, halfTau), ti + halfTau, halfTau);
-                double xBig = rk4(ode, xi, ti, tau);
+                double xSmall = rk4(ode, rk4(ode, x, t, halfTau, f1), t + halfTau, halfTau);
+                double xBig = rk4(ode, x, t, tau, f1);
                 double errorRatio = Math.abs(xSmall - xBig) / (err * (Math.abs(xSmall) + Math.abs(xBig)) / 2.0 + EPS);
                 double tauOld = tau;
-                tau = (sign > 0.0)
-                        ? Math.min(Math.max(safe1 * tau * Math.pow(errorRatio, -0.2), tauOld / safe2), safe2 * tauOld)
-                        : Math.max(Math.min(safe1 * tau * Math.pow(errorRatio, -0.2), tauOld / safe2), safe2 * tauOld);
+                tau = tauOld * control.factor(errorRatio);
                 if (errorRatio < 1.0) {
-                    double tDiff = sign * (t - (ti + tauOld));
+                    double tDiff = sign * (tEnd - (t + tauOld));
                     if (tDiff < 0.0) {
-                        done = true;
+                        x = rk4(ode, x, t, tEnd - t, f1);
+                        t = tEnd;
                     } else {
-                        xi = xSmall;
-                        ti = ti + tauOld;
-                        done = (tDiff == 0.0);
+                        x = xSmall;
+                        t = (tDiff == 0.0) ? tEnd : t + tauOld;
                     }
-                    break;
+                    hasDerivative = false;
+                    return;
                 }
             }
-            if (iTry > maxTry) {
-                String errorMessage = String.format("Adaptive Runge-Kutta failed at ti = %f.", ti);
-                throw new IllegalStateException(errorMessage);
-            }
+            String errorMessage = String.format("Adaptive Runge-Kutta failed at ti = %f.", t);
+            throw new IllegalStateException(errorMessage);
         }
-        return t != ti ? rk4(ode, xi, ti, t - ti) : xi;
     }
 
     /**
@@ -99,7 +191,7 @@ public class ScalarRungeKuttaAdaptive implements ScalarODESolver {
         private double err;
 
         /**
-         * Initial step size.
+         * Initial step size, or 0 to estimate it from the ode at the initial condition.
          */
         private double initialTau;
 
@@ -118,6 +210,11 @@ public class ScalarRungeKuttaAdaptive implements ScalarODESolver {
          */
         private double safe2;
 
+        /**
+         * Step size controller.
+         */
+        private StepSizeController controller;
+
         /**
          * Get a builder instance with default settings.
          *
@@ -132,9 +229,10 @@ public class ScalarRungeKuttaAdaptive implements ScalarODESolver {
          */
         private Builder() {
             this.err = 1e-12;
-            this.initialTau = 0.1;
+            this.initialTau = 0.0;
             this.safe1 = 0.9;
             this.safe2 = 4.0;
+            this.controller = StepSizeController.INTEGRAL;
             this.maxTry = 100;
         }
 
@@ -149,6 +247,8 @@ public class ScalarRungeKuttaAdaptive implements ScalarODESolver {
         }
 
         /**
+         * Set the initial step size instead of estimating it from the ode at the initial condition.
+         *
          * @param initialTau initial step size
          * @return this
          */
@@ -189,6 +289,16 @@ public class ScalarRungeKuttaAdaptive implements ScalarODESolver {
             return this;
         }
 
+        /**
+         * @param controller step size controller
+         * @return this
+         */
+        public Builder setStepSizeController(StepSizeController controller) {
+            if (controller == null) throw new IllegalArgumentException("Step size controller cannot be null.");
+            this.controller = controller;
+            return this;
+        }
+
         /**
          * Build the Scalar First Order Adaptive Runge-Kutta class with this builder's parameters.
          *
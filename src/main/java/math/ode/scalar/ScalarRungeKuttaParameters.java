@@ -5,19 +5,23 @@ import java.util.function.BiFunction;
 
 public class ScalarRungeKuttaParameters {
 
-    private final BiFunction<Double, Double, Double> ode;
+    private final ScalarODE ode;
     private final double x;
     private final double t;
     private final double tau;
 
-    public ScalarRungeKuttaParameters(BiFunction<Double, Double, Double> ode, double x, double t, double tau) {
+    public ScalarRungeKuttaParameters(ScalarODE ode, double x, double t, double tau) {
         this.ode = ode;
         this.x = x;
         this.t = t;
         this.tau = tau;
     }
 
-    public BiFunction<Double, Double, Double> getOde() {
+    public ScalarRungeKuttaParameters(BiFunction<Double, Double, Double> ode, double x, double t, double tau) {
+        this(ScalarODE.of(ode), x, t, tau);
+    }
+
+    public ScalarODE getOde() {
         return ode;
     }
 
@@ -41,11 +45,11 @@ public class ScalarRungeKuttaParameters {
         return Double.compare(that.x, x) == 0 &&
                 Double.compare(that.t, t) == 0 &&
                 Double.compare(that.tau, tau) == 0 &&
-                Objects.equals(ode, that.ode);
+                Objects.equals(CountingScalarODE.uncounted(ode), CountingScalarODE.uncounted(that.ode));
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(ode, x, t, tau);
+        return Objects.hash(CountingScalarODE.uncounted(ode), x, t, tau);
     }
 }
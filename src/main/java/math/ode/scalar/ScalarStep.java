@@ -0,0 +1,42 @@
+package math.ode.scalar;
+
+/**
+ * State of a Scalar First Order ODE integration after an accepted step.
+ */
+public final class ScalarStep {
+
+    /**
+     * Independent variable.
+     */
+    private final double t;
+
+    /**
+     * Dependent variable.
+     */
+    private final double x;
+
+    /**
+     * Package Private Constructor.
+     *
+     * @param t independent variable
+     * @param x dependent variable
+     */
+    ScalarStep(double t, double x) {
+        this.t = t;
+        this.x = x;
+    }
+
+    /**
+     * @return independent variable
+     */
+    public double getT() {
+        return t;
+    }
+
+    /**
+     * @return dependent variable
+     */
+    public double getX() {
+        return x;
+    }
+}
@@ -0,0 +1,16 @@
+package math.ode.scalar;
+
+/**
+ * Listener called after every accepted step of a Scalar First Order ODE integration, for example to log progress or
+ * record the step sizes. Integrations without a listener do not pay for the hook.
+ */
+@FunctionalInterface
+public interface ScalarStepListener {
+
+    /**
+     * Called after an accepted step. The listener may read the stepper, but must not advance it.
+     *
+     * @param stepper integration positioned after the step
+     */
+    void onStep(ScalarStepper stepper);
+}
@@ -0,0 +1,50 @@
+package math.ode.scalar;
+
+/**
+ * Integration of a Scalar First Order ODE from an initial condition towards a desired value of the independent
+ * variable, advanced one accepted step at a time.
+ */
+public interface ScalarStepper {
+
+    /**
+     * @return current value of the independent variable
+     */
+    double getT();
+
+    /**
+     * @return current value of the dependent variable
+     */
+    double getX();
+
+    /**
+     * The derivative is evaluated at most once per accepted step and reused by the next step where the method
+     * allows it.
+     *
+     * @return dx/dt at the current state
+     */
+    double getDerivative();
+
+    /**
+     * @return signed size of the next step to attempt
+     */
+    double getStepSize();
+
+    /**
+     * @return number of tries rejected by the error control so far, always 0 for fixed step solvers
+     */
+    default int getRejectedSteps() {
+        return 0;
+    }
+
+    /**
+     * @return true once the desired value of the independent variable has been reached
+     */
+    boolean isDone();
+
+    /**
+     * Advance the integration by one accepted step, never passing the desired value of the independent variable.
+     *
+     * @throws IllegalStateException if the integration is already done or no acceptable step was found
+     */
+    void step();
+}
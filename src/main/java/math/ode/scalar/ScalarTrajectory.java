@@ -0,0 +1,163 @@
+package math.ode.scalar;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Solution of a Scalar First Order ODE recorded at every accepted step of one integration. Values between the
+ * steps are given by cubic Hermite interpolation of the recorded states and derivatives, found by binary search.
+ */
+public class ScalarTrajectory implements Function<Double, Double> {
+
+    /**
+     * Values of the independent variable at the recorded steps, monotonic.
+     */
+    private double[] t;
+
+    /**
+     * Values of the dependent variable at the recorded steps.
+     */
+    private double[] x;
+
+    /**
+     * Derivatives at the recorded steps.
+     */
+    private double[] f;
+
+    /**
+     * Number of recorded steps.
+     */
+    private int size;
+
+    /**
+     * Package Private Constructor.
+     */
+    ScalarTrajectory() {
+        this.t = new double[16];
+        this.x = new double[16];
+        this.f = new double[16];
+    }
+
+    /**
+     * Record the state at an accepted step.
+     *
+     * @param time       independent variable
+     * @param value      dependent variable
+     * @param derivative dx/dt at the state
+     */
+    void add(double time, double value, double derivative) {
+        if (size == t.length) {
+            t = Arrays.copyOf(t, 2 * size);
+            x = Arrays.copyOf(x, 2 * size);
+            f = Arrays.copyOf(f, 2 * size);
+        }
+        t[size] = time;
+        x[size] = value;
+        f[size] = derivative;
+        ++size;
+    }
+
+    /**
+     * Record every step of an integration.
+     *
+     * @param stepper integration to run to completion
+     * @return trajectory of the integration
+     */
+    static ScalarTrajectory record(ScalarStepper stepper) {
+        ScalarTrajectory trajectory = new ScalarTrajectory();
+        trajectory.add(stepper.getT(), stepper.getX(), stepper.getDerivative());
+        while (!stepper.isDone()) {
+            stepper.step();
+            trajectory.add(stepper.getT(), stepper.getX(), stepper.getDerivative());
+        }
+        return trajectory;
+    }
+
+    /**
+     * Find the recorded step interval containing a value of the independent variable.
+     *
+     * @param time independent variable
+     * @return index of the first step of the interval
+     */
+    private int interval(double time) {
+        final boolean forward = t[size - 1] >= t[0];
+        if (forward ? (time < t[0] || time > t[size - 1]) : (time > t[0] || time < t[size - 1])) {
+            String errorMessage = String.format("t = %f is outside of the trajectory [%f, %f].", time, t[0], t[size - 1]);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        int lo = 0;
+        int hi = size - 1;
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            if (forward ? t[mid] <= time : t[mid] >= time) {
+                lo = mid;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @param time independent variable within the trajectory
+     * @return interpolated value of x(time)
+     */
+    public double interpolate(double time) {
+        int i = interval(time);
+        if (size == 1) {
+            return x[0];
+        }
+        double h = t[i + 1] - t[i];
+        double s = (time - t[i]) / h;
+        double s2 = s * s;
+        double s3 = s2 * s;
+        return (2.0 * s3 - 3.0 * s2 + 1.0) * x[i]
+                + (s3 - 2.0 * s2 + s) * h * f[i]
+                + (-2.0 * s3 + 3.0 * s2) * x[i + 1]
+                + (s3 - s2) * h * f[i + 1];
+    }
+
+    /**
+     * @param time independent variable within the trajectory
+     * @return interpolated value of dx/dt(time)
+     */
+    public double interpolateDerivative(double time) {
+        int i = interval(time);
+        if (size == 1) {
+            return f[0];
+        }
+        double h = t[i + 1] - t[i];
+        double s = (time - t[i]) / h;
+        double s2 = s * s;
+        return (6.0 * s2 - 6.0 * s) / h * x[i]
+                + (3.0 * s2 - 4.0 * s + 1.0) * f[i]
+                + (-6.0 * s2 + 6.0 * s) / h * x[i + 1]
+                + (3.0 * s2 - 2.0 * s) * f[i + 1];
+    }
+
+    @Override
+    public Double apply(Double time) {
+        return interpolate(time);
+    }
+
+    /**
+     * @return initial value of the independent variable
+     */
+    public double getInitialTime() {
+        return t[0];
+    }
+
+    /**
+     * @return final value of the independent variable
+     */
+    public double getFinalTime() {
+        return t[size - 1];
+    }
+
+    /**
+     * @return number of recorded steps, including the initial condition
+     */
+    public int size() {
+        return size;
+    }
+}
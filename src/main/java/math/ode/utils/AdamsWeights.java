@@ -0,0 +1,92 @@
+package math.ode.utils;
+
+/**
+ * Weights of Adams formulas on arbitrarily spaced points. Given nodes s_0, ..., s_{m-1} measured from the start of a
+ * step in units of the step, the integral over the step of the polynomial interpolating values y_j at the nodes is
+ * h * sum w_j * y_j, w_j being the integral over [0, 1] of the Lagrange basis polynomial of node j. An
+ * Adams-Bashforth predictor integrates the derivatives at the current and past points, at nodes 0 and below, and an
+ * Adams-Moulton corrector adds node 1 at the end of the step.
+ * <p>
+ * The integrals are computed in barycentric form by Gauss-Legendre quadrature, exact for up to {@link #MAX_NODES}
+ * nodes, in O(m^2) operations and without expanding the basis into powers, whose coefficients grow quickly with the
+ * number of nodes. Instances keep a work array and are not thread safe.
+ */
+public final class AdamsWeights {
+
+    /**
+     * Largest number of nodes the quadrature integrates exactly.
+     */
+    public static final int MAX_NODES = 14;
+
+    /**
+     * Gauss-Legendre points on [0, 1], exact for polynomials of degree 2 * POINTS - 1 = MAX_NODES - 1.
+     */
+    private static final int POINTS = MAX_NODES / 2;
+
+    private static final double[] GAUSS_NODES = new double[POINTS];
+
+    private static final double[] GAUSS_WEIGHTS = new double[POINTS];
+
+    static {
+        // Roots of the Legendre polynomial by Newton's method, mapped from [-1, 1] to [0, 1]
+        for (int i = 0; i < POINTS; ++i) {
+            double z = Math.cos(Math.PI * (i + 0.75) / (POINTS + 0.5));
+            double derivative;
+            double update;
+            do {
+                double p0 = 1.0;
+                double p1 = z;
+                for (int k = 2; k <= POINTS; ++k) {
+                    double p2 = ((2 * k - 1) * z * p1 - (k - 1) * p0) / k;
+                    p0 = p1;
+                    p1 = p2;
+                }
+                derivative = POINTS * (z * p1 - p0) / (z * z - 1.0);
+                update = p1 / derivative;
+                z -= update;
+            } while (Math.abs(update) > 1e-15);
+            GAUSS_NODES[i] = 0.5 * (1.0 - z);
+            GAUSS_WEIGHTS[i] = 1.0 / ((1.0 - z * z) * derivative * derivative);
+        }
+    }
+
+    /**
+     * Quadrature weight times the node polynomial at each Gauss-Legendre point.
+     */
+    private final double[] work = new double[POINTS];
+
+    /**
+     * Compute the weights of the nodes from offset to offset + count - 1 into the same positions of weights.
+     *
+     * @param nodes   distinct nodes in units of the step, none strictly between 0 and 1
+     * @param offset  first node
+     * @param count   number of nodes, from 1 to {@link #MAX_NODES}
+     * @param weights array receiving the weights
+     */
+    public void integrate(double[] nodes, int offset, int count, double[] weights) {
+        if (count < 1 || count > MAX_NODES) {
+            throw new IllegalArgumentException("Number of nodes must be between 1 and " + MAX_NODES + ".");
+        }
+        final int end = offset + count;
+        for (int g = 0; g < POINTS; ++g) {
+            double product = GAUSS_WEIGHTS[g];
+            for (int i = offset; i < end; ++i) {
+                product *= GAUSS_NODES[g] - nodes[i];
+            }
+            work[g] = product;
+        }
+        for (int j = offset; j < end; ++j) {
+            double denominator = 1.0;
+            for (int i = offset; i < end; ++i) {
+                if (i != j) {
+                    denominator *= nodes[j] - nodes[i];
+                }
+            }
+            double sum = 0.0;
+            for (int g = 0; g < POINTS; ++g) {
+                sum += work[g] / (GAUSS_NODES[g] - nodes[j]);
+            }
+            weights[j] = sum / denominator;
+        }
+    }
+}
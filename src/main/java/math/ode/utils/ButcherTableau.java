@@ -0,0 +1,151 @@
+package math.ode.utils;
+
+/**
+ * Enum of embedded Runge-Kutta pairs. Each pair advances the solution with one set of weights and estimates the
+ * local truncation error from the difference to a second, lower order set of weights over the same stages.
+ */
+public enum ButcherTableau {
+
+    /**
+     * Enum denoting the Dormand-Prince 5(4) pair. Seven stages, the last of which is evaluated at the new solution
+     * and reused as the first stage of the next step (first same as last), so an accepted step costs six evaluations.
+     */
+    DORMAND_PRINCE_54(
+            new double[]{0.0, 1.0 / 5.0, 3.0 / 10.0, 4.0 / 5.0, 8.0 / 9.0, 1.0, 1.0},
+            new double[][]{
+                    {},
+                    {1.0 / 5.0},
+                    {3.0 / 40.0, 9.0 / 40.0},
+                    {44.0 / 45.0, -56.0 / 15.0, 32.0 / 9.0},
+                    {19372.0 / 6561.0, -25360.0 / 2187.0, 64448.0 / 6561.0, -212.0 / 729.0},
+                    {9017.0 / 3168.0, -355.0 / 33.0, 46732.0 / 5247.0, 49.0 / 176.0, -5103.0 / 18656.0},
+                    {35.0 / 384.0, 0.0, 500.0 / 1113.0, 125.0 / 192.0, -2187.0 / 6784.0, 11.0 / 84.0}},
+            new double[]{35.0 / 384.0, 0.0, 500.0 / 1113.0, 125.0 / 192.0, -2187.0 / 6784.0, 11.0 / 84.0, 0.0},
+            new double[]{71.0 / 57600.0, 0.0, -71.0 / 16695.0, 71.0 / 1920.0, -17253.0 / 339200.0, 22.0 / 525.0,
+                    -1.0 / 40.0},
+            4, true),
+
+    /**
+     * Enum denoting the Cash-Karp 5(4) pair. Six stages per step.
+     */
+    CASH_KARP_54(
+            new double[]{0.0, 1.0 / 5.0, 3.0 / 10.0, 3.0 / 5.0, 1.0, 7.0 / 8.0},
+            new double[][]{
+                    {},
+                    {1.0 / 5.0},
+                    {3.0 / 40.0, 9.0 / 40.0},
+                    {3.0 / 10.0, -9.0 / 10.0, 6.0 / 5.0},
+                    {-11.0 / 54.0, 5.0 / 2.0, -70.0 / 27.0, 35.0 / 27.0},
+                    {1631.0 / 55296.0, 175.0 / 512.0, 575.0 / 13824.0, 44275.0 / 110592.0, 253.0 / 4096.0}},
+            new double[]{37.0 / 378.0, 0.0, 250.0 / 621.0, 125.0 / 594.0, 0.0, 512.0 / 1771.0},
+            new double[]{37.0 / 378.0 - 2825.0 / 27648.0, 0.0, 250.0 / 621.0 - 18575.0 / 48384.0,
+                    125.0 / 594.0 - 13525.0 / 55296.0, -277.0 / 14336.0, 512.0 / 1771.0 - 1.0 / 4.0},
+            4, false),
+
+    /**
+     * Enum denoting the Bogacki-Shampine 3(2) pair. Four stages with first same as last, so an accepted step costs
+     * three evaluations. Suited to loose tolerances.
+     */
+    BOGACKI_SHAMPINE_32(
+            new double[]{0.0, 1.0 / 2.0, 3.0 / 4.0, 1.0},
+            new double[][]{
+                    {},
+                    {1.0 / 2.0},
+                    {0.0, 3.0 / 4.0},
+                    {2.0 / 9.0, 1.0 / 3.0, 4.0 / 9.0}},
+            new double[]{2.0 / 9.0, 1.0 / 3.0, 4.0 / 9.0, 0.0},
+            new double[]{-5.0 / 72.0, 1.0 / 12.0, 1.0 / 9.0, -1.0 / 8.0},
+            2, true);
+
+    /**
+     * Stage times as fractions of the step size.
+     */
+    private final double[] c;
+
+    /**
+     * Stage coefficients, row i holds the weights of the previous stages for stage i.
+     */
+    private final double[][] a;
+
+    /**
+     * Weights of the stages in the propagated solution.
+     */
+    private final double[] b;
+
+    /**
+     * Weights of the stages in the local truncation error estimate.
+     */
+    private final double[] e;
+
+    /**
+     * Order of the lower order solution of the pair, which the error estimate is accurate to.
+     */
+    private final int errorOrder;
+
+    /**
+     * Whether the last stage is evaluated at the propagated solution.
+     */
+    private final boolean fsal;
+
+    ButcherTableau(double[] c, double[][] a, double[] b, double[] e, int errorOrder, boolean fsal) {
+        this.c = c;
+        this.a = a;
+        this.b = b;
+        this.e = e;
+        this.errorOrder = errorOrder;
+        this.fsal = fsal;
+    }
+
+    /**
+     * @return number of stages
+     */
+    public int getStages() {
+        return c.length;
+    }
+
+    /**
+     * @return copy of the stage times as fractions of the step size
+     */
+    public double[] getC() {
+        return c.clone();
+    }
+
+    /**
+     * @return copy of the stage coefficients
+     */
+    public double[][] getA() {
+        double[][] out = new double[a.length][];
+        for (int i = 0; i < a.length; ++i) {
+            out[i] = a[i].clone();
+        }
+        return out;
+    }
+
+    /**
+     * @return copy of the solution weights
+     */
+    public double[] getB() {
+        return b.clone();
+    }
+
+    /**
+     * @return copy of the error estimate weights
+     */
+    public double[] getE() {
+        return e.clone();
+    }
+
+    /**
+     * @return exponent applied to the error ratio by the step size controller
+     */
+    public double getStepExponent() {
+        return -1.0 / (errorOrder + 1);
+    }
+
+    /**
+     * @return true if the last stage can be reused as the first stage of the next step
+     */
+    public boolean isFirstSameAsLast() {
+        return fsal;
+    }
+}
@@ -0,0 +1,23 @@
+package math.ode.utils;
+
+/**
+ * Enum that denotes how an integration carries on after an event function crosses zero.
+ */
+public enum EventAction {
+
+    /**
+     * Enum denoting the end of the integration at the event.
+     */
+    STOP,
+
+    /**
+     * Enum denoting an event that is only recorded, the integration carrying on unchanged.
+     */
+    CONTINUE,
+
+    /**
+     * Enum denoting a discontinuity of the state at the event, such as an impact. The integration restarts from the
+     * event with the state given by the event's reset.
+     */
+    RESET
+}
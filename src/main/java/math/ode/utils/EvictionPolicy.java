@@ -0,0 +1,19 @@
+package math.ode.utils;
+
+/**
+ * Enum that denotes how a bounded {@link Memoizer} chooses which entries to keep.
+ */
+public enum EvictionPolicy {
+
+    /**
+     * Enum denoting least recently used eviction.
+     */
+    LRU,
+
+    /**
+     * Enum denoting W-TinyLFU eviction: new entries enter a small LRU window and are only admitted to the main
+     * cache when they have been requested more often than the entry they would replace. Resistant to the sequential
+     * scans produced by the memoized solvers, which flush a plain LRU cache.
+     */
+    TINY_LFU
+}
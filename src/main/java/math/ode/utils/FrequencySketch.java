@@ -0,0 +1,91 @@
+package math.ode.utils;
+
+import java.util.Arrays;
+
+/**
+ * Count-min sketch estimating how often keys have been requested, used as the TinyLFU admission filter.
+ * Counters saturate at 15 and are halved once the number of recorded requests reaches ten times the capacity,
+ * so old popularity decays. Not thread safe, callers synchronize.
+ */
+final class FrequencySketch {
+
+    private static final int DEPTH = 4;
+
+    private static final int MAX_COUNT = 15;
+
+    private static final int[] SEEDS = {0x97cb3127, 0xc2b2ae35, 0x85ebca6b, 0x27d4eb2f};
+
+    private final byte[][] table;
+
+    private final int mask;
+
+    private final long sampleSize;
+
+    private long additions;
+
+    /**
+     * @param capacity maximum number of entries of the cache this sketch admits for
+     */
+    FrequencySketch(long capacity) {
+        int width = Integer.highestOneBit((int) Math.min(Math.max(capacity, 16L), 1L << 30) - 1) << 1;
+        this.table = new byte[DEPTH][width];
+        this.mask = width - 1;
+        this.sampleSize = 10L * Math.max(capacity, 16L);
+    }
+
+    private int index(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * SEEDS[(row + 1) % DEPTH];
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * @param key key that was requested
+     */
+    void increment(Object key) {
+        int hash = key.hashCode();
+        for (int row = 0; row < DEPTH; ++row) {
+            int i = index(hash, row);
+            if (table[row][i] < MAX_COUNT) {
+                ++table[row][i];
+            }
+        }
+        if (++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * @param key key to look up
+     * @return estimated number of recent requests for the key
+     */
+    int frequency(Object key) {
+        int hash = key.hashCode();
+        int out = MAX_COUNT;
+        for (int row = 0; row < DEPTH; ++row) {
+            out = Math.min(out, table[row][index(hash, row)]);
+        }
+        return out;
+    }
+
+    /**
+     * Halve every counter.
+     */
+    void reset() {
+        for (byte[] row : table) {
+            for (int i = 0; i < row.length; ++i) {
+                row[i] >>= 1;
+            }
+        }
+        additions /= 2;
+    }
+
+    /**
+     * Forget all recorded requests.
+     */
+    void clear() {
+        for (byte[] row : table) {
+            Arrays.fill(row, (byte) 0);
+        }
+        additions = 0;
+    }
+}
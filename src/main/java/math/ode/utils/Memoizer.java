@@ -1,24 +1,519 @@
 package math.ode.utils;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 
+/**
+ * Caches the results of a function by input.
+ * <p>
+ * A memoizer created with the public constructor is unbounded. One created with the {@link Builder} can hold a
+ * maximum number of entries, evicted with an {@link EvictionPolicy}, and can expire entries a fixed time after they
+ * were written. Bounded memoizers are split into independently locked segments so concurrent writes rarely
+ * contend, and lookups take no lock at all. Values are computed outside of any lock, so memoized functions may call
+ * back into the same memoizer.
+ *
+ * @param <T> input type
+ * @param <U> result type
+ */
 public class Memoizer<T, U> {
 
-    private final Map<T, U> cache = new ConcurrentHashMap<>();
+    /**
+     * Cache of an unbounded memoizer without expiry, null otherwise.
+     */
+    private final Map<T, U> cache;
 
-    public Memoizer() {}
+    /**
+     * Segments of a bounded or expiring memoizer, null otherwise.
+     */
+    private final Segment<T, U>[] segments;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public Memoizer() {
+        this.cache = new ConcurrentHashMap<>();
+        this.segments = null;
+    }
+
+    /**
+     * Private Constructor.
+     *
+     * @param builder builder to set the parameters
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Memoizer(Builder<T, U> builder) {
+        if (builder.maximumSize < 0 && builder.expireAfterNanos == 0) {
+            this.cache = new ConcurrentHashMap<>();
+            this.segments = null;
+            return;
+        }
+        int count = builder.concurrencyLevel;
+        if (builder.maximumSize >= 0) {
+            count = (int) Math.max(1L, Math.min(count, builder.maximumSize));
+        }
+        count = Integer.highestOneBit(count);
+        this.cache = null;
+        this.segments = (Segment<T, U>[]) new Segment[count];
+        for (int i = 0; i < count; ++i) {
+            long capacity = (builder.maximumSize < 0)
+                    ? Long.MAX_VALUE
+                    : builder.maximumSize / count + ((i < builder.maximumSize % count) ? 1 : 0);
+            EvictionPolicy policy = (builder.maximumSize < 0) ? EvictionPolicy.LRU : builder.evictionPolicy;
+            segments[i] = new Segment<>(capacity, policy, builder.expireAfterNanos, builder.ticker, evictions);
+        }
+    }
+
+    private Segment<T, U> segmentFor(Object input) {
+        int h = input.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (segments.length - 1)];
+    }
 
     public Function<T, U> doMemoize(final Function<T, U> function) {
-        return input -> cache.computeIfAbsent(input, function);
+        if (segments == null) {
+            return input -> {
+                U value = cache.get(input);
+                if (value != null) {
+                    hits.increment();
+                    return value;
+                }
+                misses.increment();
+                return cache.computeIfAbsent(input, function);
+            };
+        }
+        return input -> {
+            Segment<T, U> segment = segmentFor(input);
+            U value = segment.get(input);
+            if (value != null) {
+                hits.increment();
+                return value;
+            }
+            misses.increment();
+            value = function.apply(input);
+            if (value != null) {
+                segment.put(input, value);
+            }
+            return value;
+        };
     }
 
     public void clear() {
-        cache.clear();
+        if (segments == null) {
+            cache.clear();
+            return;
+        }
+        for (Segment<T, U> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * @return number of cached entries, including expired entries not yet removed
+     */
+    public long size() {
+        if (segments == null) {
+            return cache.size();
+        }
+        long out = 0;
+        for (Segment<T, U> segment : segments) {
+            out += segment.size();
+        }
+        return out;
+    }
+
+    /**
+     * @return number of lookups answered from the cache
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of lookups that had to compute the result
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of entries removed because of the size bound or expiry
+     */
+    public long evictionCount() {
+        return evictions.sum();
     }
 
     public static <T, U> Function<T, U> memoize(final Function<T, U> function) {
         return new Memoizer<T, U>().doMemoize(function);
     }
-}
\ No newline at end of file
+
+    /**
+     * Cached value and the time it was written.
+     */
+    private static final class Node<U> {
+
+        private final U value;
+
+        private final long writeTime;
+
+        private Node(U value, long writeTime) {
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+    }
+
+    /**
+     * Independently locked part of a bounded memoizer. With {@link EvictionPolicy#LRU} every entry lives in the
+     * window. With {@link EvictionPolicy#TINY_LFU} the window holds about 1% of the capacity and entries leaving it
+     * compete with the least recently used entry of the main map on estimated frequency.
+     * <p>
+     * Lookups read a concurrent copy of the entries without locking. Hits are recorded in a ring buffer and replayed
+     * into the access order and frequency sketch under the lock, by the lookup that fills the buffer or by the next
+     * write. A hit that finds the buffer full while another thread drains it is dropped, so under heavy contention
+     * the policy works from a sample of the hits, as in Caffeine.
+     */
+    private static final class Segment<T, U> {
+
+        /**
+         * Number of hits buffered before they are replayed, a power of two.
+         */
+        private static final int READ_BUFFER_SIZE = 64;
+
+        private final ConcurrentHashMap<T, Node<U>> data = new ConcurrentHashMap<>();
+
+        private final LinkedHashMap<T, Node<U>> window = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final LinkedHashMap<T, Node<U>> main = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final AtomicReferenceArray<T> reads = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+
+        /**
+         * Number of hits ever recorded in the read buffer.
+         */
+        private final AtomicLong readTail = new AtomicLong();
+
+        /**
+         * Number of hits ever replayed from the read buffer, only written under the lock.
+         */
+        private volatile long readHead;
+
+        private final long windowCapacity;
+
+        private final long mainCapacity;
+
+        private final FrequencySketch sketch;
+
+        private final long expireAfterNanos;
+
+        private final LongSupplier ticker;
+
+        private final LongAdder evictions;
+
+        private long writesSinceSweep;
+
+        private Segment(long capacity, EvictionPolicy policy, long expireAfterNanos, LongSupplier ticker,
+                        LongAdder evictions) {
+            if (policy == EvictionPolicy.TINY_LFU) {
+                this.windowCapacity = Math.min(capacity, Math.max(1L, capacity / 100));
+                this.mainCapacity = capacity - windowCapacity;
+                this.sketch = new FrequencySketch(capacity);
+            } else {
+                this.windowCapacity = capacity;
+                this.mainCapacity = 0;
+                this.sketch = null;
+            }
+            this.expireAfterNanos = expireAfterNanos;
+            this.ticker = ticker;
+            this.evictions = evictions;
+        }
+
+        private boolean isExpired(Node<U> node, long now) {
+            return expireAfterNanos > 0 && now - node.writeTime >= expireAfterNanos;
+        }
+
+        private U get(T key) {
+            Node<U> node = data.get(key);
+            if (node == null) {
+                return null;
+            }
+            if (expireAfterNanos > 0 && isExpired(node, ticker.getAsLong())) {
+                expire(key, node);
+                return null;
+            }
+            recordRead(key);
+            return node.value;
+        }
+
+        /**
+         * Buffer a hit, replaying the buffer if this fills it and no other thread is replaying it already.
+         *
+         * @param key key found in the cache
+         */
+        private void recordRead(T key) {
+            long tail = readTail.get();
+            long pending = tail - readHead;
+            if (pending < READ_BUFFER_SIZE && readTail.compareAndSet(tail, tail + 1)) {
+                reads.lazySet((int) tail & (READ_BUFFER_SIZE - 1), key);
+                pending++;
+            }
+            if (pending >= READ_BUFFER_SIZE && lock.tryLock()) {
+                try {
+                    drainReads();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        /**
+         * Replay the buffered hits into the policy, oldest first. Called under the lock.
+         */
+        private void drainReads() {
+            long head = readHead;
+            long tail = readTail.get();
+            for (; head < tail; ++head) {
+                int index = (int) head & (READ_BUFFER_SIZE - 1);
+                T key = reads.get(index);
+                if (key == null) {
+                    // Slot claimed but not written yet, picked up by the next drain
+                    break;
+                }
+                reads.lazySet(index, null);
+                if (sketch != null) {
+                    sketch.increment(key);
+                }
+                if (window.get(key) == null) {
+                    main.get(key);
+                }
+            }
+            readHead = head;
+        }
+
+        private void expire(T key, Node<U> node) {
+            lock.lock();
+            try {
+                if (data.remove(key, node)) {
+                    window.remove(key);
+                    main.remove(key);
+                    evictions.increment();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void put(T key, U value) {
+            lock.lock();
+            try {
+                drainReads();
+                if (sketch != null) {
+                    sketch.increment(key);
+                }
+                long now = (expireAfterNanos > 0) ? ticker.getAsLong() : 0L;
+                Node<U> node = new Node<>(value, now);
+                data.put(key, node);
+                if (main.containsKey(key)) {
+                    main.put(key, node);
+                    return;
+                }
+                window.put(key, node);
+                if (expireAfterNanos > 0 && ++writesSinceSweep >= Math.max(64L, window.size() + main.size())) {
+                    sweep(now);
+                }
+                while (window.size() > windowCapacity) {
+                    Map.Entry<T, Node<U>> candidate = window.entrySet().iterator().next();
+                    window.remove(candidate.getKey());
+                    if (sketch == null || mainCapacity == 0) {
+                        data.remove(candidate.getKey());
+                        evictions.increment();
+                    } else if (main.size() < mainCapacity) {
+                        main.put(candidate.getKey(), candidate.getValue());
+                    } else {
+                        T victim = main.keySet().iterator().next();
+                        if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim)) {
+                            main.remove(victim);
+                            data.remove(victim);
+                            main.put(candidate.getKey(), candidate.getValue());
+                        } else {
+                            data.remove(candidate.getKey());
+                        }
+                        evictions.increment();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Remove every expired entry. Called every so many writes so that entries which are never read again
+         * do not stay in an expiring cache.
+         *
+         * @param now current ticker value
+         */
+        private void sweep(long now) {
+            writesSinceSweep = 0;
+            sweep(window, now);
+            sweep(main, now);
+        }
+
+        private void sweep(LinkedHashMap<T, Node<U>> map, long now) {
+            Iterator<Map.Entry<T, Node<U>>> it = map.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<T, Node<U>> entry = it.next();
+                if (isExpired(entry.getValue(), now)) {
+                    it.remove();
+                    data.remove(entry.getKey(), entry.getValue());
+                    evictions.increment();
+                }
+            }
+        }
+
+        private void clear() {
+            lock.lock();
+            try {
+                drainReads();
+                data.clear();
+                window.clear();
+                main.clear();
+                if (sketch != null) {
+                    sketch.clear();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private long size() {
+            return data.size();
+        }
+    }
+
+    /**
+     * Builder class for bounded and expiring memoizers.
+     *
+     * @param <T> input type
+     * @param <U> result type
+     */
+    public static class Builder<T, U> {
+
+        /**
+         * Maximum number of entries, negative for unbounded.
+         */
+        private long maximumSize;
+
+        /**
+         * Policy choosing entries to evict once the maximum size is reached.
+         */
+        private EvictionPolicy evictionPolicy;
+
+        /**
+         * Time after writing at which an entry expires, zero for never.
+         */
+        private long expireAfterNanos;
+
+        /**
+         * Number of independently locked segments.
+         */
+        private int concurrencyLevel;
+
+        /**
+         * Source of the current time in nanoseconds.
+         */
+        private LongSupplier ticker;
+
+        /**
+         * Get a builder instance with default settings.
+         *
+         * @param <T> input type
+         * @param <U> result type
+         * @return builder
+         */
+        public static <T, U> Builder<T, U> builder() {
+            return new Builder<>();
+        }
+
+        /**
+         * Private Constructor.
+         */
+        private Builder() {
+            this.maximumSize = -1;
+            this.evictionPolicy = EvictionPolicy.TINY_LFU;
+            this.expireAfterNanos = 0;
+            this.concurrencyLevel = 16;
+            this.ticker = System::nanoTime;
+        }
+
+        /**
+         * @param maximumSize maximum number of cached entries
+         * @return this
+         */
+        public Builder<T, U> setMaximumSize(long maximumSize) {
+            if (maximumSize < 0) throw new IllegalArgumentException("Maximum size must be non-negative.");
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * @param evictionPolicy policy choosing entries to evict once the maximum size is reached
+         * @return this
+         */
+        public Builder<T, U> setEvictionPolicy(EvictionPolicy evictionPolicy) {
+            if (evictionPolicy == null) throw new IllegalArgumentException("Eviction policy cannot be null.");
+            this.evictionPolicy = evictionPolicy;
+            return this;
+        }
+
+        /**
+         * @param duration time after writing at which an entry expires
+         * @param unit     unit of the duration
+         * @return this
+         */
+        public Builder<T, U> setExpireAfterWrite(long duration, TimeUnit unit) {
+            if (duration <= 0) throw new IllegalArgumentException("Expiry duration must be positive.");
+            this.expireAfterNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * @param concurrencyLevel expected number of threads using the memoizer concurrently
+         * @return this
+         */
+        public Builder<T, U> setConcurrencyLevel(int concurrencyLevel) {
+            if (concurrencyLevel <= 0) throw new IllegalArgumentException("Concurrency level must be positive.");
+            this.concurrencyLevel = concurrencyLevel;
+            return this;
+        }
+
+        /**
+         * @param ticker source of the current time in nanoseconds, used for expiry
+         * @return this
+         */
+        Builder<T, U> setTicker(LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        /**
+         * Build a memoizer with this builder's parameters.
+         *
+         * @return memoizer instance
+         */
+        public Memoizer<T, U> build() {
+            return new Memoizer<>(this);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package math.ode.utils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * Runs a loop over an index range in parallel chunks whose costs may differ widely.
+ * <p>
+ * On a {@link ForkJoinPool} the range is split recursively into several chunks per worker, and idle workers steal
+ * the halves that busy workers have not started yet. On any other {@link Executor} the workers, one of which is
+ * the calling thread, claim the next unstarted chunk from a shared counter until the range is exhausted, the calling
+ * thread taking over from any worker the executor rejects. Either way a slow chunk delays at most its own worker,
+ * and no chunk is still running once the loop returns or throws.
+ */
+public final class ParallelLoop {
+
+    /**
+     * Chunks per worker, trading scheduling overhead against imbalance between the slowest and fastest chunk.
+     */
+    private static final int CHUNKS_PER_WORKER = 8;
+
+    /**
+     * Body of a loop, applied to consecutive chunks of the index range.
+     */
+    @FunctionalInterface
+    public interface Body {
+
+        /**
+         * @param from first index of the chunk, inclusive
+         * @param to   last index of the chunk, exclusive
+         */
+        void apply(int from, int to);
+    }
+
+    /**
+     * Reduction of one chunk of the index range to a value.
+     */
+    @FunctionalInterface
+    public interface Reduction {
+
+        /**
+         * @param from first index of the chunk, inclusive
+         * @param to   last index of the chunk, exclusive
+         * @return value of the chunk
+         */
+        double apply(int from, int to);
+    }
+
+    private ParallelLoop() {
+    }
+
+    /**
+     * Run the loop body over [0, size) and wait for it to complete.
+     *
+     * @param size     number of indices
+     * @param executor executor to run the chunks on
+     * @param body     loop body
+     */
+    public static void forRange(int size, Executor executor, Body body) {
+        if (size < 0) throw new IllegalArgumentException("Size must be non-negative.");
+        if (executor == null) throw new IllegalArgumentException("Executor cannot be null.");
+        if (size == 0) {
+            return;
+        }
+        if (executor instanceof ForkJoinPool) {
+            ForkJoinPool pool = (ForkJoinPool) executor;
+            pool.invoke(new Chunk(body, 0, size, grain(size, pool.getParallelism())));
+        } else {
+            claimChunks(size, executor, body);
+        }
+    }
+
+    /**
+     * Run the loop body over [0, size) on a pool in chunks of at most grain indices and wait for it to complete.
+     * Use this form when the best chunk size depends on the body, such as on what fits in cache, rather than on
+     * the number of workers.
+     *
+     * @param size  number of indices
+     * @param grain largest chunk
+     * @param pool  pool to run the chunks on
+     * @param body  loop body
+     */
+    public static void forRange(int size, int grain, ForkJoinPool pool, Body body) {
+        checkArguments(size, grain, pool);
+        if (size > 0) {
+            pool.invoke(new Chunk(body, 0, size, grain));
+        }
+    }
+
+    /**
+     * Reduce [0, size) on a pool as a binary tree: chunks of at most grain indices are reduced in parallel and
+     * sibling results are combined up the tree. The tree only depends on size and grain, so the result is the same
+     * on every run whatever the number of workers, even for a combiner such as a floating point sum.
+     *
+     * @param size    number of indices, positive
+     * @param grain   largest chunk
+     * @param pool    pool to run the chunks on
+     * @param leaf    reduction of one chunk
+     * @param combine associative combination of the results of adjacent ranges, left first
+     * @return reduction of the whole range
+     */
+    public static double reduce(int size, int grain, ForkJoinPool pool, Reduction leaf, DoubleBinaryOperator combine) {
+        checkArguments(size, grain, pool);
+        if (size == 0) throw new IllegalArgumentException("Cannot reduce an empty range.");
+        Fold fold = new Fold(leaf, combine, 0, size, grain);
+        pool.invoke(fold);
+        return fold.result;
+    }
+
+    private static void checkArguments(int size, int grain, ForkJoinPool pool) {
+        if (size < 0) throw new IllegalArgumentException("Size must be non-negative.");
+        if (grain < 1) throw new IllegalArgumentException("Grain must be positive.");
+        if (pool == null) throw new IllegalArgumentException("Pool cannot be null.");
+    }
+
+    private static int grain(int size, int workers) {
+        return Math.max(1, size / (CHUNKS_PER_WORKER * workers));
+    }
+
+    private static void claimChunks(int size, Executor executor, Body body) {
+        final int workers = Math.min(Runtime.getRuntime().availableProcessors(), size);
+        final int grain = grain(size, workers);
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(workers - 1);
+        Runnable worker = () -> {
+            try {
+                int from;
+                while (failure.get() == null && (from = next.getAndAdd(grain)) < size) {
+                    body.apply(from, Math.min(from + grain, size));
+                }
+            } catch (Throwable throwable) {
+                failure.compareAndSet(null, throwable);
+            }
+        };
+        for (int i = 1; i < workers; ++i) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        worker.run();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Chunks stay on the shared counter, so the calling thread claims those of the workers never started
+                for (int j = i; j < workers; ++j) {
+                    done.countDown();
+                }
+                break;
+            }
+        }
+        worker.run();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                // Stop the workers claiming chunks, but still wait for the ones they are running
+                failure.compareAndSet(null, e);
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        Throwable throwable = failure.get();
+        if (throwable instanceof RuntimeException) throw (RuntimeException) throwable;
+        if (throwable instanceof Error) throw (Error) throwable;
+        if (throwable != null) throw new IllegalStateException("Parallel loop failed.", throwable);
+    }
+
+    /**
+     * Range of indices split in halves until no larger than the grain.
+     */
+    private static final class Chunk extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Body body;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        private Chunk(Body body, int from, int to, int grain) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                body.apply(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            Chunk right = new Chunk(body, mid, to, grain);
+            right.fork();
+            try {
+                new Chunk(body, from, mid, grain).compute();
+            } catch (Throwable throwable) {
+                settle(right);
+                throw throwable;
+            }
+            right.join();
+        }
+    }
+
+    /**
+     * Make sure a forked half is not running once its sibling has failed: take it back if no worker has started it,
+     * otherwise wait for it. Its own failure is dropped in favour of the sibling's.
+     *
+     * @param right forked half
+     */
+    private static void settle(ForkJoinTask<?> right) {
+        if (!right.tryUnfork()) {
+            right.quietlyJoin();
+        }
+    }
+
+    /**
+     * Range of indices reduced by splitting it in halves until no larger than the grain.
+     */
+    private static final class Fold extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Reduction leaf;
+        private final transient DoubleBinaryOperator combine;
+        private final int from;
+        private final int to;
+        private final int grain;
+        private double result;
+
+        private Fold(Reduction leaf, DoubleBinaryOperator combine, int from, int to, int grain) {
+            this.leaf = leaf;
+            this.combine = combine;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                result = leaf.apply(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            Fold right = new Fold(leaf, combine, mid, to, grain);
+            right.fork();
+            Fold left = new Fold(leaf, combine, from, mid, grain);
+            try {
+                left.compute();
+            } catch (Throwable throwable) {
+                settle(right);
+                throw throwable;
+            }
+            right.join();
+            result = combine.applyAsDouble(left.result, right.result);
+        }
+    }
+}
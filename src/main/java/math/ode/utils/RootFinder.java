@@ -0,0 +1,76 @@
+package math.ode.utils;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Bracketing root finding for the event functions of the solvers, which are evaluated on a step's interpolant and
+ * so cost no evaluations of the ode.
+ */
+public final class RootFinder {
+
+    /**
+     * Maximum iterations before returning the current bracket.
+     */
+    private static final int MAX_ITERATIONS = 100;
+
+    /**
+     * Private Constructor.
+     */
+    private RootFinder() {
+    }
+
+    /**
+     * Locate a sign change of g between a and b with the Illinois variant of regula falsi, which halves the value
+     * kept at an end that has not moved for two iterations and so converges superlinearly from both sides.
+     * <p>
+     * The returned point is the end of the final bracket on the side of b, so g there already has the sign of gb,
+     * or is zero, and the crossing is not found again when the search resumes from it.
+     *
+     * @param g         function to find a root of
+     * @param a         start of the bracket
+     * @param ga        g(a), nonzero
+     * @param b         end of the bracket, on either side of a
+     * @param gb        g(b), zero or of the opposite sign to ga
+     * @param tolerance width of the bracket below which the search stops
+     * @return the first point on the side of b of a bracket of the root no wider than the tolerance
+     */
+    public static double illinois(DoubleUnaryOperator g, double a, double ga, double b, double gb, double tolerance) {
+        if (ga == 0.0 || ((ga > 0.0) == (gb > 0.0) && gb != 0.0)) {
+            throw new IllegalArgumentException("The function must change sign over the bracket.");
+        }
+        int side = 0;
+        for (int iteration = 0; iteration < MAX_ITERATIONS && gb != 0.0; ++iteration) {
+            if (Math.abs(b - a) <= tolerance) {
+                break;
+            }
+            double c = b - gb * (b - a) / (gb - ga);
+            if (!(c != a && c != b && (c - a) * (c - b) < 0.0)) {
+                // Regula falsi stalled on the rounding of an end
+                c = a + 0.5 * (b - a);
+                if (c == a || c == b) {
+                    break;
+                }
+            }
+            final double gc = g.applyAsDouble(c);
+            if (gc == 0.0) {
+                return c;
+            }
+            if ((gc > 0.0) == (gb > 0.0)) {
+                b = c;
+                gb = gc;
+                if (side == 1) {
+                    ga *= 0.5;
+                }
+                side = 1;
+            } else {
+                a = c;
+                ga = gc;
+                if (side == -1) {
+                    gb *= 0.5;
+                }
+                side = -1;
+            }
+        }
+        return b;
+    }
+}
@@ -0,0 +1,233 @@
+package math.ode.utils;
+
+/**
+ * Enum of embedded Rosenbrock methods for stiff ODEs. Stage i solves
+ * (I - gamma * h * J) * k_i = h * f(x + sum(alpha_ij * k_j)) + h * J * sum(gamma_ij * k_j), and the pair estimates
+ * the local truncation error from the difference to a second, lower order set of weights over the same stages.
+ * <p>
+ * The coefficients are given in that classical form and converted to the form that solvers use, where the stages
+ * are u_i = sum(gamma_ij * k_j) and no product of the Jacobian with a vector is needed.
+ */
+public enum RosenbrockTableau {
+
+    /**
+     * Enum denoting RODAS3 of Sandu et al., third order with a second order estimate, L-stable and stiffly
+     * accurate. Four stages, the first two of which evaluate the ode at the same point, so a step costs three
+     * evaluations. Its order requires the exact Jacobian, so the Jacobian is evaluated at every step.
+     */
+    RODAS3(
+            0.5,
+            new double[][]{
+                    {},
+                    {0.0},
+                    {1.0, 0.0},
+                    {0.75, -0.25, 0.5}},
+            new double[][]{
+                    {},
+                    {1.0},
+                    {-0.25, -0.25},
+                    {1.0 / 12.0, 1.0 / 12.0, -2.0 / 3.0}},
+            new double[]{5.0 / 6.0, -1.0 / 6.0, -1.0 / 6.0, 0.5},
+            new double[]{0.75, -0.25, 0.5, 0.0},
+            2, false),
+
+    /**
+     * Enum denoting ROS34PW2 of Rang and Angermann, a W-method of third order with a second order estimate and
+     * L-stable. Four stages per step. It keeps its order two with any approximation of the Jacobian, so the
+     * Jacobian can be kept across steps.
+     */
+    ROS34PW2(
+            4.3586652150845900e-01,
+            new double[][]{
+                    {},
+                    {8.7173304301691801e-01},
+                    {8.4457060015369423e-01, -1.1299064236484185e-01},
+                    {0.0, 0.0, 1.0}},
+            new double[][]{
+                    {},
+                    {-8.7173304301691801e-01},
+                    {-9.0338057013044082e-01, 5.4180672388095326e-02},
+                    {2.4212380706095346e-01, -1.2232505839045147e+00, 5.4526025533510214e-01}},
+            new double[]{2.4212380706095346e-01, -1.2232505839045147e+00, 1.5452602553351020e+00,
+                    4.3586652150845900e-01},
+            new double[]{3.7810903145819369e-01, -9.6042292212423178e-02, 5.0000000000000000e-01,
+                    2.1793326075422950e-01},
+            2, true);
+
+    /**
+     * Diagonal coefficient gamma.
+     */
+    private final double gamma;
+
+    /**
+     * Stage times as fractions of the step size.
+     */
+    private final double[] c;
+
+    /**
+     * Coefficients of the stage states, row i holds the weights of the previous u_j for stage i.
+     */
+    private final double[][] a;
+
+    /**
+     * Coefficients of the previous u_j in the right-hand side of stage i, to be divided by the step size.
+     */
+    private final double[][] coupling;
+
+    /**
+     * Coefficients of df/dt in the right-hand side of each stage, to be multiplied by the step size.
+     */
+    private final double[] d;
+
+    /**
+     * Weights of the u_i in the propagated solution.
+     */
+    private final double[] m;
+
+    /**
+     * Weights of the u_i in the local truncation error estimate.
+     */
+    private final double[] e;
+
+    /**
+     * Order of the lower order solution of the pair, which the error estimate is accurate to.
+     */
+    private final int errorOrder;
+
+    /**
+     * Whether the method keeps its order with an approximate Jacobian.
+     */
+    private final boolean w;
+
+    /**
+     * @param gamma      diagonal coefficient
+     * @param alpha      classical stage coefficients, strictly lower triangular
+     * @param gammas     classical Jacobian coefficients below the diagonal
+     * @param b          weights of the propagated solution
+     * @param bHat       weights of the embedded solution
+     * @param errorOrder order of the embedded solution
+     * @param w          whether the method is a W-method
+     */
+    RosenbrockTableau(double gamma, double[][] alpha, double[][] gammas, double[] b, double[] bHat, int errorOrder,
+                      boolean w) {
+        final int s = b.length;
+        // Inverse of the lower triangular matrix with gamma on the diagonal and gammas below it
+        double[][] inverse = new double[s][s];
+        for (int j = 0; j < s; ++j) {
+            inverse[j][j] = 1.0 / gamma;
+            for (int i = j + 1; i < s; ++i) {
+                double sum = 0.0;
+                for (int k = j; k < i; ++k) {
+                    sum += gammas[i][k] * inverse[k][j];
+                }
+                inverse[i][j] = -sum / gamma;
+            }
+        }
+        this.gamma = gamma;
+        this.c = new double[s];
+        this.a = new double[s][];
+        this.coupling = new double[s][];
+        this.d = new double[s];
+        this.m = new double[s];
+        this.e = new double[s];
+        for (int i = 0; i < s; ++i) {
+            a[i] = new double[i];
+            coupling[i] = new double[i];
+            d[i] = gamma;
+            for (int j = 0; j < i; ++j) {
+                c[i] += alpha[i][j];
+                d[i] += gammas[i][j];
+                for (int k = j; k < i; ++k) {
+                    a[i][j] += alpha[i][k] * inverse[k][j];
+                }
+                coupling[i][j] = -inverse[i][j];
+            }
+        }
+        for (int j = 0; j < s; ++j) {
+            for (int i = j; i < s; ++i) {
+                m[j] += b[i] * inverse[i][j];
+                e[j] += (b[i] - bHat[i]) * inverse[i][j];
+            }
+        }
+        this.errorOrder = errorOrder;
+        this.w = w;
+    }
+
+    /**
+     * @return number of stages
+     */
+    public int getStages() {
+        return c.length;
+    }
+
+    /**
+     * @return diagonal coefficient gamma
+     */
+    public double getGamma() {
+        return gamma;
+    }
+
+    /**
+     * @return copy of the stage times as fractions of the step size
+     */
+    public double[] getC() {
+        return c.clone();
+    }
+
+    /**
+     * @return copy of the coefficients of the stage states in terms of the previous u_j
+     */
+    public double[][] getA() {
+        return copy(a);
+    }
+
+    /**
+     * @return copy of the coefficients of the previous u_j in the right-hand side of each stage, over h
+     */
+    public double[][] getCoupling() {
+        return copy(coupling);
+    }
+
+    /**
+     * @return copy of the coefficients of df/dt in the right-hand side of each stage, times h
+     */
+    public double[] getD() {
+        return d.clone();
+    }
+
+    /**
+     * @return copy of the solution weights of the u_i
+     */
+    public double[] getM() {
+        return m.clone();
+    }
+
+    /**
+     * @return copy of the error estimate weights of the u_i
+     */
+    public double[] getE() {
+        return e.clone();
+    }
+
+    /**
+     * @return exponent applied to the error ratio by the step size controller
+     */
+    public double getStepExponent() {
+        return -1.0 / (errorOrder + 1);
+    }
+
+    /**
+     * @return true if the method keeps its order with a Jacobian evaluated at an earlier step
+     */
+    public boolean isW() {
+        return w;
+    }
+
+    private static double[][] copy(double[][] values) {
+        double[][] out = new double[values.length][];
+        for (int i = 0; i < values.length; ++i) {
+            out[i] = values[i].clone();
+        }
+        return out;
+    }
+}
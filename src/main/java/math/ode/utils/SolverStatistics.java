@@ -0,0 +1,127 @@
+package math.ode.utils;
+
+/**
+ * Work done by one call of a solver: evaluations of the right-hand side, accepted steps, tries rejected by the error
+ * control, sizes of the accepted steps and wall time.
+ * <p>
+ * Solvers fill an instance in through {@link #start()}, {@link #countEvaluation()}, {@link #countStep(double)} and
+ * {@link #stop(int)}. Starting resets every count, so an instance passed to several calls describes the last one.
+ * Instances are not thread safe, give each concurrent call its own.
+ */
+public final class SolverStatistics {
+
+    private long evaluations;
+    private int acceptedSteps;
+    private int rejectedSteps;
+    private double minStepSize;
+    private double maxStepSize;
+    private double lastStepSize;
+    private long startTime;
+    private long wallTime;
+
+    public SolverStatistics() {
+        start();
+    }
+
+    /**
+     * Reset every count and start the clock, called by a solver before its first step.
+     */
+    public void start() {
+        evaluations = 0;
+        acceptedSteps = 0;
+        rejectedSteps = 0;
+        minStepSize = Double.POSITIVE_INFINITY;
+        maxStepSize = 0.0;
+        lastStepSize = 0.0;
+        wallTime = 0;
+        startTime = System.nanoTime();
+    }
+
+    /**
+     * Count an evaluation of the right-hand side, including those estimating a Jacobian.
+     */
+    public void countEvaluation() {
+        ++evaluations;
+    }
+
+    /**
+     * Count an accepted step.
+     *
+     * @param stepSize signed size of the step
+     */
+    public void countStep(double stepSize) {
+        final double size = Math.abs(stepSize);
+        ++acceptedSteps;
+        minStepSize = Math.min(minStepSize, size);
+        maxStepSize = Math.max(maxStepSize, size);
+        lastStepSize = size;
+    }
+
+    /**
+     * Stop the clock, called by a solver once it has returned its result or failed.
+     *
+     * @param rejectedSteps number of tries rejected by the error control
+     */
+    public void stop(int rejectedSteps) {
+        this.rejectedSteps = rejectedSteps;
+        this.wallTime = System.nanoTime() - startTime;
+    }
+
+    /**
+     * @return number of evaluations of the right-hand side
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * @return number of accepted steps
+     */
+    public int getAcceptedSteps() {
+        return acceptedSteps;
+    }
+
+    /**
+     * @return number of tries rejected by the error control, always 0 for fixed step solvers
+     */
+    public int getRejectedSteps() {
+        return rejectedSteps;
+    }
+
+    /**
+     * The last step of an integration is usually shortened to land on the desired value, and counts here too.
+     *
+     * @return smallest size of an accepted step, 0 if there was none
+     */
+    public double getMinStepSize() {
+        return (acceptedSteps == 0) ? 0.0 : minStepSize;
+    }
+
+    /**
+     * @return largest size of an accepted step, 0 if there was none
+     */
+    public double getMaxStepSize() {
+        return maxStepSize;
+    }
+
+    /**
+     * @return size of the last accepted step, 0 if there was none
+     */
+    public double getLastStepSize() {
+        return lastStepSize;
+    }
+
+    /**
+     * @return nanoseconds from start to stop
+     */
+    public long getWallTimeNanos() {
+        return wallTime;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("evaluations = %d, accepted = %d, rejected = %d, step size in [%g, %g], last = %g, "
+                        + "wall time = %d ns", evaluations, acceptedSteps, rejectedSteps, getMinStepSize(),
+                maxStepSize, lastStepSize, wallTime);
+    }
+}
@@ -0,0 +1,115 @@
+package math.ode.utils;
+
+/**
+ * Enum of symmetric splitting schemes for odes split into two parts A and B whose flows are computed separately,
+ * such as the drift and kick of a separable Hamiltonian. A step of size h applies the flows
+ * A(a_1 * h), B(b_1 * h), A(a_2 * h), B(b_2 * h), ... in turn, skipping zero coefficients. Compositions of
+ * symplectic flows are symplectic, so the energy error of a Hamiltonian system stays bounded over long runs.
+ */
+public enum SplittingScheme {
+
+    /**
+     * Enum denoting velocity Verlet, second order: B(h / 2), A(h), B(h / 2). The last kick of a step and the first
+     * kick of the next are at the same state, so a step costs one evaluation of each part.
+     */
+    VERLET(2, composition(1.0)),
+
+    /**
+     * Enum denoting leapfrog, or position Verlet, second order: A(h / 2), B(h), A(h / 2).
+     */
+    LEAPFROG(2, new double[]{0.5, 0.5}, new double[]{1.0, 0.0}),
+
+    /**
+     * Enum denoting Yoshida's fourth order triple jump, three velocity Verlet steps of sizes w1 * h, w0 * h and
+     * w1 * h, the middle one backwards.
+     */
+    YOSHIDA4(4, composition(
+            1.0 / (2.0 - Math.cbrt(2.0)),
+            -Math.cbrt(2.0) / (2.0 - Math.cbrt(2.0)),
+            1.0 / (2.0 - Math.cbrt(2.0)))),
+
+    /**
+     * Enum denoting Yoshida's sixth order scheme, solution A, seven velocity Verlet steps of symmetric sizes.
+     */
+    YOSHIDA6(6, composition(
+            0.784513610477560,
+            0.235573213359357,
+            -1.17767998417887,
+            1.0 - 2.0 * (0.784513610477560 + 0.235573213359357 - 1.17767998417887),
+            -1.17767998417887,
+            0.235573213359357,
+            0.784513610477560));
+
+    /**
+     * Order of the scheme.
+     */
+    private final int order;
+
+    /**
+     * Fractions of the step of each flow of A.
+     */
+    private final double[] a;
+
+    /**
+     * Fractions of the step of each flow of B, applied after the flow of A with the same index.
+     */
+    private final double[] b;
+
+    /**
+     * @param order order of the scheme
+     * @param ab    fractions of the step of the flows of A and B
+     */
+    SplittingScheme(int order, double[][] ab) {
+        this(order, ab[0], ab[1]);
+    }
+
+    /**
+     * @param order order of the scheme
+     * @param a     fractions of the step of the flows of A
+     * @param b     fractions of the step of the flows of B
+     */
+    SplittingScheme(int order, double[] a, double[] b) {
+        this.order = order;
+        this.a = a;
+        this.b = b;
+    }
+
+    /**
+     * Coefficients of velocity Verlet steps of the given sizes, merging the adjacent kicks of consecutive steps.
+     *
+     * @param weights fractions of the step of each velocity Verlet step
+     * @return fractions of the step of the flows of A and B
+     */
+    private static double[][] composition(double... weights) {
+        double[] a = new double[weights.length + 1];
+        double[] b = new double[weights.length + 1];
+        for (int i = 0; i < weights.length; ++i) {
+            a[i + 1] = weights[i];
+            b[i] += 0.5 * weights[i];
+            b[i + 1] += 0.5 * weights[i];
+        }
+        return new double[][]{a, b};
+    }
+
+    /**
+     * @return order of the scheme
+     */
+    public int getOrder() {
+        return order;
+    }
+
+    /**
+     * @return copy of the fractions of the step of the flows of A
+     */
+    public double[] getA() {
+        return a.clone();
+    }
+
+    /**
+     * @return copy of the fractions of the step of the flows of B, each applied after the flow of A with the same
+     * index
+     */
+    public double[] getB() {
+        return b.clone();
+    }
+}
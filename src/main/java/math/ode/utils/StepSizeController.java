@@ -0,0 +1,186 @@
+package math.ode.utils;
+
+/**
+ * Enum of step size controllers of the adaptive solvers, choosing the next step size from the error ratios of the
+ * steps, errors divided by their tolerance. A try is accepted when its error ratio is below one.
+ * <p>
+ * The controllers are filters of the logarithms of the error ratios. With k the exponent of the error estimate, an
+ * accepted step of error ratio r_n, after accepted steps of ratios r_n-1 and r_n-2, is followed by a step
+ * (r_n / s)^(-b1 / k) * (r_n-1 / s)^(-b2 / k) * (r_n-2 / s)^(-b3 / k) times longer, where s = safe1^k is the error
+ * ratio all of them settle at. A rejected try is always retried with the integral step safe1 * r_n^(-1 / k), and the
+ * factor is kept between 1 / safe2 and safe2.
+ * <p>
+ * The filters pay off where the step size is limited by stability rather than accuracy, mildly stiff problems
+ * solved with explicit methods, where the integral controller alternates between accepted and rejected tries.
+ */
+public enum StepSizeController {
+
+    /**
+     * Enum denoting the elementary integral controller, b = (1, 0, 0). It responds at once to every change of the
+     * error, so the step size tends to oscillate around the tolerance and a share of the tries are rejected.
+     */
+    INTEGRAL(1.0, 0.0, 0.0, false),
+
+    /**
+     * Enum denoting the integral controller that keeps the step size from growing on the step following a
+     * rejection, which would likely be rejected again.
+     */
+    LIMITED_INTEGRAL(1.0, 0.0, 0.0, true),
+
+    /**
+     * Enum denoting Gustafsson's proportional-integral controller, integral gain 0.3 and proportional gain 0.4,
+     * b = (0.7, -0.4, 0), with growth limited after a rejection. Damps the oscillations of the integral controller.
+     */
+    PI(0.7, -0.4, 0.0, true),
+
+    /**
+     * Enum denoting the proportional-integral controller with a derivative gain of 0.1 added, b = (0.8, -0.6, 0.1),
+     * with growth limited after a rejection. Also responds to the trend of the error, cutting the step before an
+     * error that keeps growing gets it rejected.
+     */
+    PID(0.8, -0.6, 0.1, true);
+
+    /**
+     * Smallest error ratio kept in the history, so that an exact step does not dominate the next ones.
+     */
+    private static final double MIN_RATIO = 1e-4;
+
+    /**
+     * Gain of the error ratio of the current step.
+     */
+    private final double b1;
+
+    /**
+     * Gain of the error ratio of the previous accepted step.
+     */
+    private final double b2;
+
+    /**
+     * Gain of the error ratio of the accepted step before it.
+     */
+    private final double b3;
+
+    /**
+     * True to keep the step size from growing right after a rejection.
+     */
+    private final boolean limited;
+
+    /**
+     * @param b1      gain of the error ratio of the current step
+     * @param b2      gain of the error ratio of the previous accepted step
+     * @param b3      gain of the error ratio of the accepted step before it
+     * @param limited true to keep the step size from growing right after a rejection
+     */
+    StepSizeController(double b1, double b2, double b3, boolean limited) {
+        this.b1 = b1;
+        this.b2 = b2;
+        this.b3 = b3;
+        this.limited = limited;
+    }
+
+    /**
+     * Start controlling the steps of one integration.
+     *
+     * @param exponent 1 / k, with k the exponent of the error estimate, one more than the order of the lower
+     *                 order solution
+     * @param safe1    safety factor of the step size, less than 1.0
+     * @param safe2    largest factor by which the step size grows or shrinks, greater than 1.0
+     * @return controller state of the integration
+     */
+    public Control start(double exponent, double safe1, double safe2) {
+        return new Control(this, exponent, safe1, safe2);
+    }
+
+    /**
+     * State of a step size controller over one integration.
+     */
+    public static final class Control {
+
+        private final StepSizeController controller;
+        private final double exponent;
+        private final double safe1;
+        private final double safe2;
+
+        /**
+         * safe1^(b1 + b2 + b3), which places the error ratio the controller settles at on safe1^k.
+         */
+        private final double safety;
+
+        /**
+         * Error ratios of the last two accepted steps, 0 before any.
+         */
+        private double previous;
+        private double beforePrevious;
+
+        /**
+         * True if a try of the current step has been rejected.
+         */
+        private boolean rejected;
+
+        private int accepted;
+        private int rejections;
+
+        /**
+         * Private Constructor.
+         *
+         * @param controller controller
+         * @param exponent   1 / k, with k the exponent of the error estimate
+         * @param safe1      safety factor of the step size
+         * @param safe2      largest factor by which the step size grows or shrinks
+         */
+        private Control(StepSizeController controller, double exponent, double safe1, double safe2) {
+            this.controller = controller;
+            this.exponent = exponent;
+            this.safe1 = safe1;
+            this.safe2 = safe2;
+            this.safety = Math.pow(safe1, controller.b1 + controller.b2 + controller.b3);
+        }
+
+        /**
+         * Record a try and choose the size of the next one.
+         *
+         * @param errorRatio error of the try divided by its tolerance, accepted when below one
+         * @return factor to multiply the size of the try by to get the size of the next one
+         */
+        public double factor(double errorRatio) {
+            double factor;
+            if (!(errorRatio < 1.0)) {
+                ++rejections;
+                rejected = true;
+                factor = safe1 * Math.pow(errorRatio, -exponent);
+            } else {
+                ++accepted;
+                if (previous == 0.0) {
+                    factor = safe1 * Math.pow(errorRatio, -exponent);
+                } else {
+                    // Ratios missing at the start are taken equal to the oldest one known
+                    final double before = (beforePrevious == 0.0) ? previous : beforePrevious;
+                    factor = safety * Math.pow(errorRatio, -controller.b1 * exponent)
+                            * Math.pow(previous, -controller.b2 * exponent)
+                            * Math.pow(before, -controller.b3 * exponent);
+                }
+                if (controller.limited && rejected) {
+                    factor = Math.min(factor, 1.0);
+                }
+                beforePrevious = previous;
+                previous = Math.max(errorRatio, MIN_RATIO);
+                rejected = false;
+            }
+            return Math.min(Math.max(factor, 1.0 / safe2), safe2);
+        }
+
+        /**
+         * @return number of accepted tries
+         */
+        public int getAcceptedSteps() {
+            return accepted;
+        }
+
+        /**
+         * @return number of rejected tries
+         */
+        public int getRejectedSteps() {
+            return rejections;
+        }
+    }
+}
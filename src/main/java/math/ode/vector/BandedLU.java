@@ -0,0 +1,144 @@
+package math.ode.vector;
+
+/**
+ * LU decomposition of a band matrix with partial pivoting, as in LAPACK's gbtrf. Row interchanges widen the upper
+ * band of U by the lower bandwidth, and the multipliers of each elimination step stay in the rows they were
+ * computed in, so a solve applies the interchanges and eliminations step by step.
+ */
+final class BandedLU extends LUDecomposition {
+
+    private final int n;
+    private final int lower;
+    private final int upper;
+
+    /**
+     * Row width of the factors, from lower below the diagonal to lower + upper above it.
+     */
+    private final int width;
+
+    /**
+     * Factors, row i starting at i * width with column i - lower.
+     */
+    private final double[] lu;
+
+    /**
+     * Row interchanged with row k at step k.
+     */
+    private final int[] pivot;
+
+    /**
+     * Right-hand side being solved.
+     */
+    private final double[] work;
+
+    /**
+     * Package Private Constructor.
+     *
+     * @param n     number of rows and columns
+     * @param lower number of diagonals below the main diagonal
+     * @param upper number of diagonals above the main diagonal
+     */
+    BandedLU(int n, int lower, int upper) {
+        this.n = n;
+        this.lower = lower;
+        this.upper = upper;
+        this.width = 2 * lower + upper + 1;
+        this.lu = new double[n * width];
+        this.pivot = new int[n];
+        this.work = new double[n];
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    /**
+     * @param i row
+     * @param j column, from i - lower to i + lower + upper
+     * @return position of element (i, j) in the factors
+     */
+    private int index(int i, int j) {
+        return i * width + j - i + lower;
+    }
+
+    @Override
+    boolean factor(Matrix a, double diagonal, double scale) {
+        if (!(a instanceof BandedMatrix) || ((BandedMatrix) a).lower != lower || ((BandedMatrix) a).upper != upper
+                || a.size() != n) {
+            throw new IllegalArgumentException("Matrix structure must match the decomposition.");
+        }
+        final double[] elements = ((BandedMatrix) a).a;
+        final int band = lower + upper + 1;
+        for (int i = 0; i < n; ++i) {
+            for (int k = 0; k < width; ++k) {
+                lu[i * width + k] = (k < band) ? scale * elements[i * band + k] : 0.0;
+            }
+            lu[index(i, i)] += diagonal;
+        }
+        for (int k = 0; k < n; ++k) {
+            final int lastRow = Math.min(n - 1, k + lower);
+            final int lastColumn = Math.min(n - 1, k + lower + upper);
+            int p = k;
+            double largest = Math.abs(lu[index(k, k)]);
+            for (int i = k + 1; i <= lastRow; ++i) {
+                double candidate = Math.abs(lu[index(i, k)]);
+                if (candidate > largest) {
+                    largest = candidate;
+                    p = i;
+                }
+            }
+            if (largest == 0.0 || Double.isNaN(largest)) return false;
+            pivot[k] = p;
+            if (p != k) {
+                for (int j = k; j <= lastColumn; ++j) {
+                    double swap = lu[index(p, j)];
+                    lu[index(p, j)] = lu[index(k, j)];
+                    lu[index(k, j)] = swap;
+                }
+            }
+            final double inverse = 1.0 / lu[index(k, k)];
+            for (int i = k + 1; i <= lastRow; ++i) {
+                final double l = lu[index(i, k)] * inverse;
+                lu[index(i, k)] = l;
+                if (l != 0.0) {
+                    for (int j = k + 1; j <= lastColumn; ++j) {
+                        lu[index(i, j)] -= l * lu[index(k, j)];
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    void solveInPlace(Vector b, Vector dest) {
+        for (int i = 0; i < n; ++i) {
+            work[i] = b.get(i);
+        }
+        for (int k = 0; k < n; ++k) {
+            final int p = pivot[k];
+            if (p != k) {
+                double swap = work[p];
+                work[p] = work[k];
+                work[k] = swap;
+            }
+            final double wk = work[k];
+            if (wk != 0.0) {
+                for (int i = k + 1; i <= Math.min(n - 1, k + lower); ++i) {
+                    work[i] -= lu[index(i, k)] * wk;
+                }
+            }
+        }
+        for (int i = n - 1; i >= 0; --i) {
+            double sum = work[i];
+            for (int j = i + 1; j <= Math.min(n - 1, i + lower + upper); ++j) {
+                sum -= lu[index(i, j)] * work[j];
+            }
+            work[i] = sum / lu[index(i, i)];
+        }
+        for (int i = 0; i < n; ++i) {
+            dest.set(i, work[i]);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package math.ode.vector;
+
+import java.util.Arrays;
+
+/**
+ * Band matrix storing the diagonals from lower below the main diagonal to upper above it, row by row.
+ */
+final class BandedMatrix extends Matrix {
+
+    private final int n;
+
+    /**
+     * Number of diagonals below the main diagonal.
+     */
+    final int lower;
+
+    /**
+     * Number of diagonals above the main diagonal.
+     */
+    final int upper;
+
+    /**
+     * Elements, row i starting at i * (lower + upper + 1) with column i - lower.
+     */
+    final double[] a;
+
+    /**
+     * Package Private Constructor.
+     *
+     * @param n     number of rows and columns
+     * @param lower number of diagonals below the main diagonal
+     * @param upper number of diagonals above the main diagonal
+     */
+    BandedMatrix(int n, int lower, int upper) {
+        if (n < 0) throw new IllegalArgumentException("Size must be non-negative.");
+        if (lower < 0 || upper < 0) throw new IllegalArgumentException("Bandwidths must be non-negative.");
+        this.n = n;
+        this.lower = lower;
+        this.upper = upper;
+        this.a = new double[n * (lower + upper + 1)];
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public double get(int i, int j) {
+        checkIndex(i, j);
+        return (j - i > upper || i - j > lower) ? 0.0 : a[i * (lower + upper + 1) + j - i + lower];
+    }
+
+    /**
+     * @throws IllegalArgumentException if a nonzero value is set outside of the band
+     */
+    @Override
+    public void set(int i, int j, double value) {
+        checkIndex(i, j);
+        if (j - i > upper || i - j > lower) {
+            if (value == 0.0) {
+                return;
+            }
+            String errorMessage = String.format("(%d, %d) is outside of the band.", i, j);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        a[i * (lower + upper + 1) + j - i + lower] = value;
+    }
+
+    @Override
+    public Vector multiply(Vector x, Vector dest) {
+        return multiply(x, dest, a.length, (from, to) -> {
+            final int width = lower + upper + 1;
+            for (int i = from; i < to; ++i) {
+                final int first = Math.max(0, i - lower);
+                final int last = Math.min(n - 1, i + upper);
+                final int offset = i * width - i + lower;
+                double sum = 0.0;
+                for (int j = first; j <= last; ++j) {
+                    sum += a[offset + j] * x.get(j);
+                }
+                dest.set(i, sum);
+            }
+        });
+    }
+
+    @Override
+    void clear() {
+        Arrays.fill(a, 0.0);
+    }
+
+    @Override
+    Matrix like() {
+        return new BandedMatrix(n, lower, upper);
+    }
+
+    @Override
+    LUDecomposition decomposition() {
+        return new BandedLU(n, lower, upper);
+    }
+
+    @Override
+    void copyInto(Matrix dest) {
+        if (dest instanceof BandedMatrix && ((BandedMatrix) dest).lower == lower
+                && ((BandedMatrix) dest).upper == upper) {
+            System.arraycopy(a, 0, ((BandedMatrix) dest).a, 0, a.length);
+            return;
+        }
+        final int width = lower + upper + 1;
+        for (int i = 0; i < n; ++i) {
+            for (int j = Math.max(0, i - lower); j <= Math.min(n - 1, i + upper); ++j) {
+                double value = a[i * width + j - i + lower];
+                if (value != 0.0) {
+                    dest.set(i, j, value);
+                }
+            }
+        }
+    }
+
+    private void checkIndex(int i, int j) {
+        if (i < 0 || i >= n || j < 0 || j >= n) {
+            String errorMessage = String.format("(%d, %d) is outside of the %dx%d matrix.", i, j, n, n);
+            throw new IndexOutOfBoundsException(errorMessage);
+        }
+    }
+}
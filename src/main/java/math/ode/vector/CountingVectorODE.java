@@ -0,0 +1,83 @@
+package math.ode.vector;
+
+import math.ode.utils.SolverStatistics;
+
+import java.util.function.BiFunction;
+
+/**
+ * In-place right-hand side counting its evaluations in solver statistics. Equal to any other count of the same ode,
+ * so a solve recording statistics keeps the identity of the ode it was given.
+ */
+final class CountingVectorODE implements VectorODE {
+
+    private final VectorODE ode;
+    private final SolverStatistics statistics;
+
+    /**
+     * Package Private Constructor.
+     *
+     * @param ode        in-place right-hand side of the first order ode dx/dt(x, t)
+     * @param statistics statistics to count the evaluations in
+     */
+    CountingVectorODE(VectorODE ode, SolverStatistics statistics) {
+        this.ode = ode;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public void apply(Vector x, double t, Vector dxdt) {
+        statistics.countEvaluation();
+        ode.apply(x, t, dxdt);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return ode.equals(((CountingVectorODE) o).ode);
+    }
+
+    @Override
+    public int hashCode() {
+        return ode.hashCode();
+    }
+
+    /**
+     * Right-hand side returning a new vector, counting its evaluations in solver statistics. Equal to any other count
+     * of the same ode.
+     */
+    static final class Boxed implements BiFunction<Vector, Double, Vector> {
+
+        private final BiFunction<Vector, Double, Vector> ode;
+        private final SolverStatistics statistics;
+
+        /**
+         * Package Private Constructor.
+         *
+         * @param ode        right-hand side of the first order ode dx/dt(x, t)
+         * @param statistics statistics to count the evaluations in
+         */
+        Boxed(BiFunction<Vector, Double, Vector> ode, SolverStatistics statistics) {
+            this.ode = ode;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public Vector apply(Vector x, Double t) {
+            statistics.countEvaluation();
+            return ode.apply(x, t);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return ode.equals(((Boxed) o).ode);
+        }
+
+        @Override
+        public int hashCode() {
+            return ode.hashCode();
+        }
+    }
+}
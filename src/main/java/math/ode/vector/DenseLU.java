@@ -0,0 +1,123 @@
+package math.ode.vector;
+
+/**
+ * LU decomposition of a dense matrix with partial pivoting, P * A = L * U, with L and U sharing one array.
+ */
+final class DenseLU extends LUDecomposition {
+
+    private final int n;
+
+    /**
+     * Factors row by row, L below the diagonal with an implicit unit diagonal and U on and above it.
+     */
+    private final double[] lu;
+
+    /**
+     * Row of A that ends up in each row of the factors.
+     */
+    private final int[] pivot;
+
+    /**
+     * Right-hand side being solved.
+     */
+    private final double[] work;
+
+    /**
+     * Package Private Constructor.
+     *
+     * @param n number of rows and columns
+     */
+    DenseLU(int n) {
+        this.n = n;
+        this.lu = new double[n * n];
+        this.pivot = new int[n];
+        this.work = new double[n];
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    boolean factor(Matrix a, double diagonal, double scale) {
+        if (a.size() != n) throw new IllegalArgumentException("Matrix size must match the decomposition.");
+        if (a instanceof DenseMatrix) {
+            double[] elements = ((DenseMatrix) a).a;
+            for (int k = 0; k < lu.length; ++k) {
+                lu[k] = scale * elements[k];
+            }
+        } else {
+            for (int i = 0; i < n; ++i) {
+                for (int j = 0; j < n; ++j) {
+                    lu[i * n + j] = scale * a.get(i, j);
+                }
+            }
+        }
+        for (int i = 0; i < n; ++i) {
+            lu[i * n + i] += diagonal;
+            pivot[i] = i;
+        }
+        for (int k = 0; k < n; ++k) {
+            int p = k;
+            double largest = Math.abs(lu[k * n + k]);
+            for (int i = k + 1; i < n; ++i) {
+                double candidate = Math.abs(lu[i * n + k]);
+                if (candidate > largest) {
+                    largest = candidate;
+                    p = i;
+                }
+            }
+            if (largest == 0.0 || Double.isNaN(largest)) return false;
+            if (p != k) {
+                for (int j = 0; j < n; ++j) {
+                    double swap = lu[p * n + j];
+                    lu[p * n + j] = lu[k * n + j];
+                    lu[k * n + j] = swap;
+                }
+                int swap = pivot[p];
+                pivot[p] = pivot[k];
+                pivot[k] = swap;
+            }
+            final int rowK = k * n;
+            final double inverse = 1.0 / lu[rowK + k];
+            for (int i = k + 1; i < n; ++i) {
+                final int rowI = i * n;
+                final double l = lu[rowI + k] * inverse;
+                lu[rowI + k] = l;
+                if (l != 0.0) {
+                    for (int j = k + 1; j < n; ++j) {
+                        lu[rowI + j] -= l * lu[rowK + j];
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    void solveInPlace(Vector b, Vector dest) {
+        for (int i = 0; i < n; ++i) {
+            work[i] = b.get(pivot[i]);
+        }
+        for (int i = 1; i < n; ++i) {
+            final int row = i * n;
+            double sum = work[i];
+            for (int j = 0; j < i; ++j) {
+                sum -= lu[row + j] * work[j];
+            }
+            work[i] = sum;
+        }
+        for (int i = n - 1; i >= 0; --i) {
+            final int row = i * n;
+            double sum = work[i];
+            for (int j = i + 1; j < n; ++j) {
+                sum -= lu[row + j] * work[j];
+            }
+            work[i] = sum / lu[row + i];
+        }
+        for (int i = 0; i < n; ++i) {
+            dest.set(i, work[i]);
+        }
+    }
+}
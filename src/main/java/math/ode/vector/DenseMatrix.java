@@ -0,0 +1,94 @@
+package math.ode.vector;
+
+import java.util.Arrays;
+
+/**
+ * Dense matrix stored row by row in one array.
+ */
+final class DenseMatrix extends Matrix {
+
+    private final int n;
+
+    /**
+     * Elements, row i starting at i * n.
+     */
+    final double[] a;
+
+    /**
+     * Package Private Constructor.
+     *
+     * @param n number of rows and columns
+     */
+    DenseMatrix(int n) {
+        if (n < 0) throw new IllegalArgumentException("Size must be non-negative.");
+        this.n = n;
+        this.a = new double[n * n];
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public double get(int i, int j) {
+        return a[index(i, j)];
+    }
+
+    @Override
+    public void set(int i, int j, double value) {
+        a[index(i, j)] = value;
+    }
+
+    @Override
+    public Vector multiply(Vector x, Vector dest) {
+        return multiply(x, dest, a.length, (from, to) -> {
+            for (int i = from; i < to; ++i) {
+                final int row = i * n;
+                double sum = 0.0;
+                for (int j = 0; j < n; ++j) {
+                    sum += a[row + j] * x.get(j);
+                }
+                dest.set(i, sum);
+            }
+        });
+    }
+
+    @Override
+    void clear() {
+        Arrays.fill(a, 0.0);
+    }
+
+    @Override
+    Matrix like() {
+        return new DenseMatrix(n);
+    }
+
+    @Override
+    LUDecomposition decomposition() {
+        return new DenseLU(n);
+    }
+
+    @Override
+    void copyInto(Matrix dest) {
+        if (dest instanceof DenseMatrix) {
+            System.arraycopy(a, 0, ((DenseMatrix) dest).a, 0, a.length);
+            return;
+        }
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                if (a[i * n + j] != 0.0) {
+                    dest.set(i, j, a[i * n + j]);
+                }
+            }
+        }
+    }
+
+    private int index(int i, int j) {
+        if (i < 0 || i >= n || j < 0 || j >= n) {
+            String errorMessage = String.format("(%d, %d) is outside of the %dx%d matrix.", i, j, n, n);
+            throw new IndexOutOfBoundsException(errorMessage);
+        }
+        return i * n + j;
+    }
+}
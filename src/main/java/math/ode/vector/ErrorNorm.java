@@ -0,0 +1,88 @@
+package math.ode.vector;
+
+/**
+ * Enum that denotes how the weighted errors of the components are combined into the error ratio of a step. Each
+ * component's error is divided by its tolerance, atol + rtol * |x|, and a step is accepted while the norm of these
+ * ratios is less than 1.
+ */
+public enum ErrorNorm {
+
+    /**
+     * Enum denoting the largest ratio, so that every component meets its tolerance.
+     */
+    MAX {
+        @Override
+        double accumulate(double norm, double ratio) {
+            return Math.max(norm, ratio);
+        }
+
+        @Override
+        double finish(double norm, int n) {
+            return norm;
+        }
+
+        @Override
+        VectorExpression terms(VectorExpression ratios) {
+            return ratios;
+        }
+
+        @Override
+        double reduce(VectorExpression terms) {
+            return terms.max();
+        }
+    },
+
+    /**
+     * Enum denoting the root mean square of the ratios, which lets a few components exceed their tolerance while the
+     * others are well within theirs.
+     */
+    RMS {
+        @Override
+        double accumulate(double norm, double ratio) {
+            return norm + ratio * ratio;
+        }
+
+        @Override
+        double finish(double norm, int n) {
+            return Math.sqrt(norm / n);
+        }
+
+        @Override
+        VectorExpression terms(VectorExpression ratios) {
+            return ratios.mult(ratios);
+        }
+
+        @Override
+        double reduce(VectorExpression terms) {
+            return Math.sqrt(terms.sum() / terms.length());
+        }
+    };
+
+    /**
+     * Add one ratio to a running norm that starts at 0.
+     *
+     * @param norm  running norm
+     * @param ratio weighted error of one component
+     * @return updated running norm
+     */
+    abstract double accumulate(double norm, double ratio);
+
+    /**
+     * @param norm running norm after every component
+     * @param n    number of components
+     * @return norm of the ratios
+     */
+    abstract double finish(double norm, int n);
+
+    /**
+     * @param ratios expression of the weighted errors
+     * @return expression of the terms reduced by {@link #reduce(VectorExpression)}
+     */
+    abstract VectorExpression terms(VectorExpression ratios);
+
+    /**
+     * @param terms expression returned by {@link #terms(VectorExpression)}
+     * @return norm of the ratios, computed in one pass
+     */
+    abstract double reduce(VectorExpression terms);
+}
@@ -0,0 +1,159 @@
+package math.ode.vector;
+
+/**
+ * Jacobian of an ode estimated by forward differences, for solvers that are not given the Jacobian. A dense
+ * Jacobian costs one evaluation of the ode per column, a banded one one per diagonal of its band and a sparse one
+ * one per color of its pattern. Keeps its work vectors, so an estimate does not allocate.
+ */
+final class FiniteDifferenceJacobian {
+
+    /**
+     * Unit round-off, scaling the perturbations.
+     */
+    private static final double EPS = Math.ulp(1.0);
+
+    private final Vector xPerturbed;
+    private final Vector fPerturbed;
+    private final double[] weights;
+
+    /**
+     * Perturbation of each column, for banded and sparse Jacobians.
+     */
+    private double[] deltas;
+
+    /**
+     * Package Private Constructor.
+     *
+     * @param like vector whose length and storage the work vectors take
+     */
+    FiniteDifferenceJacobian(Vector like) {
+        this.xPerturbed = Vector.mutableLike(like);
+        this.fPerturbed = Vector.mutableLike(like);
+        this.weights = new double[2];
+    }
+
+    /**
+     * Estimate df/dx(x, t) into a zeroed matrix, setting only the nonzero elements.
+     *
+     * @param ode  in-place right-hand side
+     * @param x    dependent variables
+     * @param t    independent variable
+     * @param f    dx/dt(x, t), already evaluated
+     * @param dfdx zeroed matrix receiving the estimate
+     */
+    void estimate(VectorODE ode, Vector x, double t, Vector f, Matrix dfdx) {
+        if (dfdx instanceof SparseMatrix) {
+            estimateColored(ode, x, t, f, (SparseMatrix) dfdx);
+            return;
+        }
+        if (dfdx instanceof BandedMatrix) {
+            estimateBanded(ode, x, t, f, (BandedMatrix) dfdx);
+            return;
+        }
+        final int n = x.length();
+        xPerturbed.set(x);
+        for (int j = 0; j < n; ++j) {
+            final double xj = x.get(j);
+            // Perturbation of the classical Rosenbrock codes, made exactly representable
+            double delta = Math.sqrt(EPS * Math.max(1e-5, Math.abs(xj)));
+            delta = (xj + delta) - xj;
+            xPerturbed.set(j, xj + delta);
+            ode.apply(xPerturbed, t, fPerturbed);
+            for (int i = 0; i < n; ++i) {
+                double value = (fPerturbed.get(i) - f.get(i)) / delta;
+                if (value != 0.0) {
+                    dfdx.set(i, j, value);
+                }
+            }
+            xPerturbed.set(j, xj);
+        }
+    }
+
+    /**
+     * Estimate a sparse df/dx(x, t), perturbing all the columns of one color with each evaluation of the ode. The
+     * columns of a color have no row in common, so each difference in the result belongs to a single column.
+     *
+     * @param ode  in-place right-hand side
+     * @param x    dependent variables
+     * @param t    independent variable
+     * @param f    dx/dt(x, t), already evaluated
+     * @param dfdx zeroed matrix receiving the estimate
+     */
+    private void estimateColored(VectorODE ode, Vector x, double t, Vector f, SparseMatrix dfdx) {
+        final SparsityPattern pattern = dfdx.pattern;
+        final int n = x.length();
+        if (deltas == null) {
+            deltas = new double[n];
+        }
+        xPerturbed.set(x);
+        for (int c = 0; c < pattern.colors(); ++c) {
+            for (int k = pattern.colorStart[c]; k < pattern.colorStart[c + 1]; ++k) {
+                final int j = pattern.colored[k];
+                final double xj = x.get(j);
+                double delta = Math.sqrt(EPS * Math.max(1e-5, Math.abs(xj)));
+                deltas[j] = (xj + delta) - xj;
+                xPerturbed.set(j, xj + deltas[j]);
+            }
+            ode.apply(xPerturbed, t, fPerturbed);
+            for (int k = pattern.colorStart[c]; k < pattern.colorStart[c + 1]; ++k) {
+                final int j = pattern.colored[k];
+                for (int l = pattern.columnStart[j]; l < pattern.columnStart[j + 1]; ++l) {
+                    final int i = pattern.rows[l];
+                    dfdx.values[pattern.positions[l]] = (fPerturbed.get(i) - f.get(i)) / deltas[j];
+                }
+                xPerturbed.set(j, x.get(j));
+            }
+        }
+    }
+
+    /**
+     * Estimate a banded df/dx(x, t), perturbing every (lower + upper + 1)th column with each evaluation of the ode.
+     *
+     * @param ode  in-place right-hand side
+     * @param x    dependent variables
+     * @param t    independent variable
+     * @param f    dx/dt(x, t), already evaluated
+     * @param dfdx zeroed matrix receiving the estimate
+     */
+    private void estimateBanded(VectorODE ode, Vector x, double t, Vector f, BandedMatrix dfdx) {
+        final int n = x.length();
+        final int width = dfdx.lower + dfdx.upper + 1;
+        if (deltas == null) {
+            deltas = new double[n];
+        }
+        xPerturbed.set(x);
+        for (int c = 0; c < Math.min(width, n); ++c) {
+            for (int j = c; j < n; j += width) {
+                final double xj = x.get(j);
+                double delta = Math.sqrt(EPS * Math.max(1e-5, Math.abs(xj)));
+                deltas[j] = (xj + delta) - xj;
+                xPerturbed.set(j, xj + deltas[j]);
+            }
+            ode.apply(xPerturbed, t, fPerturbed);
+            for (int j = c; j < n; j += width) {
+                for (int i = Math.max(0, j - dfdx.upper); i <= Math.min(n - 1, j + dfdx.lower); ++i) {
+                    dfdx.a[i * width + j - i + dfdx.lower] = (fPerturbed.get(i) - f.get(i)) / deltas[j];
+                }
+                xPerturbed.set(j, x.get(j));
+            }
+        }
+    }
+
+    /**
+     * Estimate df/dt(x, t) with one more evaluation of the ode.
+     *
+     * @param ode  in-place right-hand side
+     * @param x    dependent variables
+     * @param t    independent variable
+     * @param f    dx/dt(x, t), already evaluated
+     * @param dfdt mutable vector receiving the estimate
+     */
+    void estimateTime(VectorODE ode, Vector x, double t, Vector f, Vector dfdt) {
+        double delta = Math.sqrt(EPS * Math.max(1e-5, Math.abs(t)));
+        delta = (t + delta) - t;
+        ode.apply(x, t + delta, fPerturbed);
+        weights[0] = 1.0 / delta;
+        weights[1] = -1.0 / delta;
+        Vector.linearCombination(dfdt, weights, fPerturbed, f);
+    }
+}
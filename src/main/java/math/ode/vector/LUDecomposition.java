@@ -0,0 +1,55 @@
+package math.ode.vector;
+
+/**
+ * LU decomposition of a square {@link Matrix}, used to solve linear systems with the same matrix many times.
+ * <p>
+ * The implicit solvers factor matrices of the form d * I + s * J, where J is the Jacobian, and refactor the same
+ * decomposition in place whenever the step size or the Jacobian changes.
+ */
+public abstract class LUDecomposition {
+
+    /**
+     * Package Private Constructor.
+     */
+    LUDecomposition() {
+    }
+
+    /**
+     * @return number of rows and columns of the factored matrix
+     */
+    public abstract int size();
+
+    /**
+     * Solve A * x = b without allocating.
+     *
+     * @param b    right-hand side
+     * @param dest mutable vector receiving x, may be b
+     * @return dest
+     */
+    public Vector solve(Vector b, Vector dest) {
+        if (dest.getType() == VectorType.IMMUTABLE) {
+            throw new IllegalAccessError("The vector is immutable and cannot be modified.");
+        }
+        if (b.length() != size() || dest.length() != size()) {
+            throw new IllegalArgumentException("Vector lengths must match the matrix size.");
+        }
+        solveInPlace(b, dest);
+        return dest;
+    }
+
+    /**
+     * Factor diagonal * I + scale * a in place of the previous factorization.
+     *
+     * @param a        matrix of the size and structure this decomposition was made for
+     * @param diagonal value added to the diagonal
+     * @param scale    factor applied to a
+     * @return false if the matrix is singular, in which case the decomposition cannot be used until refactored
+     */
+    abstract boolean factor(Matrix a, double diagonal, double scale);
+
+    /**
+     * @param b    right-hand side of the checked length
+     * @param dest mutable destination of the checked length, may be b
+     */
+    abstract void solveInPlace(Vector b, Vector dest);
+}
@@ -0,0 +1,302 @@
+package math.ode.vector;
+
+import math.ode.utils.ParallelLoop;
+
+import java.util.Arrays;
+
+/**
+ * Square matrix acting on vectors, used for the Jacobians df/dx of the implicit solvers and for linear odes
+ * dx/dt = A * x + b, see {@link VectorODE#linear(Matrix, Vector)}. Matrices are dense, banded or sparse in
+ * compressed sparse row form, and sparse ones are built from (row, column, value) triplets with the
+ * {@link Builder}.
+ * <p>
+ * Every matrix can be factored by an {@link LUDecomposition} that suits its structure, and the solvers keep one
+ * decomposition per integration that they refactor in place, so that a new step size or Jacobian does not allocate.
+ * A product runs its rows in parallel when the destination is a parallel vector and the matrix stores at least
+ * {@link Vector#getParallelThreshold()} elements.
+ */
+public abstract class Matrix {
+
+    /**
+     * Package Private Constructor.
+     */
+    Matrix() {
+    }
+
+    /**
+     * @param n number of rows and columns
+     * @return zeroed dense matrix
+     */
+    public static Matrix dense(int n) {
+        return new DenseMatrix(n);
+    }
+
+    /**
+     * @param pattern positions of the elements that may be nonzero
+     * @return zeroed sparse matrix in compressed sparse row form, setting a nonzero element outside of the pattern
+     * throws an {@link IllegalArgumentException}
+     */
+    public static Matrix sparse(SparsityPattern pattern) {
+        return new SparseMatrix(pattern);
+    }
+
+    /**
+     * @param n     number of rows and columns
+     * @param lower number of diagonals below the main diagonal
+     * @param upper number of diagonals above the main diagonal
+     * @return zeroed band matrix, setting a nonzero element outside of the band throws an
+     * {@link IllegalArgumentException}
+     */
+    public static Matrix banded(int n, int lower, int upper) {
+        return new BandedMatrix(n, lower, upper);
+    }
+
+    /**
+     * @param n        number of rows and columns
+     * @param sparsity sparsity pattern, or null
+     * @param lower    number of diagonals below the main diagonal, or negative if not banded
+     * @param upper    number of diagonals above the main diagonal
+     * @return zeroed Jacobian of the structure selected on a solver, dense if neither sparse nor banded
+     */
+    static Matrix jacobian(int n, SparsityPattern sparsity, int lower, int upper) {
+        if (sparsity != null) {
+            if (sparsity.size() != n) {
+                throw new IllegalArgumentException("Sparsity pattern size must match the initial value.");
+            }
+            return new SparseMatrix(sparsity);
+        }
+        return (lower >= 0) ? new BandedMatrix(n, lower, upper) : new DenseMatrix(n);
+    }
+
+    /**
+     * @return number of rows and columns
+     */
+    public abstract int size();
+
+    /**
+     * @param i row
+     * @param j column
+     * @return element at row i, column j
+     */
+    public abstract double get(int i, int j);
+
+    /**
+     * @param i     row
+     * @param j     column
+     * @param value new element at row i, column j
+     */
+    public abstract void set(int i, int j, double value);
+
+    /**
+     * Multiply a vector by this matrix without allocating.
+     *
+     * @param x    vector to multiply, of length {@link #size()}
+     * @param dest mutable vector receiving this * x, must not be x
+     * @return dest
+     */
+    public abstract Vector multiply(Vector x, Vector dest);
+
+    /**
+     * Factor this matrix.
+     *
+     * @return new decomposition of this matrix
+     * @throws IllegalArgumentException if the matrix is singular
+     */
+    public LUDecomposition lu() {
+        LUDecomposition lu = decomposition();
+        if (!lu.factor(this, 0.0, 1.0)) throw new IllegalArgumentException("The matrix is singular.");
+        return lu;
+    }
+
+    /**
+     * Set every element to zero, keeping the structure.
+     */
+    abstract void clear();
+
+    /**
+     * @return zeroed matrix of the same size and structure
+     */
+    abstract Matrix like();
+
+    /**
+     * @return unfactored decomposition for matrices of the same size and structure
+     */
+    abstract LUDecomposition decomposition();
+
+    /**
+     * Set the elements of a zeroed matrix of the same size to those of this matrix.
+     *
+     * @param dest zeroed matrix whose structure holds the nonzero elements of this matrix
+     */
+    abstract void copyInto(Matrix dest);
+
+    /**
+     * Check the operands of a product and run it over the rows, in parallel if dest is parallel and the matrix
+     * is large enough.
+     *
+     * @param x        vector to multiply
+     * @param dest     destination
+     * @param elements number of stored elements, the cost of the product
+     * @param rows     product of a range of rows
+     * @return dest
+     */
+    Vector multiply(Vector x, Vector dest, long elements, ParallelLoop.Body rows) {
+        checkMultiply(x, dest);
+        if (dest.getExecution() == VectorExecution.PARALLEL && elements >= Vector.getParallelThreshold()) {
+            ParallelLoop.forRange(size(), Vector.getParallelPool(), rows);
+        } else {
+            rows.apply(0, size());
+        }
+        return dest;
+    }
+
+    /**
+     * @param x    vector to multiply
+     * @param dest destination
+     */
+    void checkMultiply(Vector x, Vector dest) {
+        if (dest.getType() == VectorType.IMMUTABLE) {
+            throw new IllegalAccessError("The vector is immutable and cannot be modified.");
+        }
+        if (x.length() != size() || dest.length() != size()) {
+            throw new IllegalArgumentException("Vector lengths must match the matrix size.");
+        }
+        if (x == dest) throw new IllegalArgumentException("The destination cannot be the multiplied vector.");
+    }
+
+    /**
+     * Builder class for matrices from (row, column, value) triplets, adding the values of repeated positions.
+     */
+    public static class Builder {
+
+        /**
+         * Number of rows and columns.
+         */
+        private int n;
+
+        /**
+         * Rows of the triplets.
+         */
+        private int[] rows;
+
+        /**
+         * Columns of the triplets.
+         */
+        private int[] cols;
+
+        /**
+         * Values of the triplets.
+         */
+        private double[] values;
+
+        /**
+         * Number of triplets.
+         */
+        private int count;
+
+        /**
+         * Get a builder instance with default settings.
+         *
+         * @return builder
+         */
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        /**
+         * Private constructor.
+         */
+        private Builder() {
+            this.n = 0;
+            this.rows = new int[16];
+            this.cols = new int[16];
+            this.values = new double[16];
+            this.count = 0;
+        }
+
+        /**
+         * @param n number of rows and columns
+         * @return this
+         */
+        public Builder setSize(int n) {
+            if (n < 0) throw new IllegalArgumentException("Size must be non-negative.");
+            this.n = n;
+            return this;
+        }
+
+        /**
+         * Add a value to element (i, j).
+         *
+         * @param i     row
+         * @param j     column
+         * @param value value to add
+         * @return this
+         */
+        public Builder add(int i, int j, double value) {
+            if (i < 0 || j < 0) throw new IllegalArgumentException("Row and column must be non-negative.");
+            if (count == rows.length) {
+                rows = Arrays.copyOf(rows, 2 * count);
+                cols = Arrays.copyOf(cols, 2 * count);
+                values = Arrays.copyOf(values, 2 * count);
+            }
+            rows[count] = i;
+            cols[count] = j;
+            values[count] = value;
+            ++count;
+            return this;
+        }
+
+        /**
+         * @return sparse matrix in compressed sparse row form over the positions of the triplets
+         */
+        public Matrix build() {
+            SparsityPattern.Builder pattern = SparsityPattern.Builder.builder().setSize(n);
+            for (int k = 0; k < count; ++k) {
+                pattern.add(rows[k], cols[k]);
+            }
+            SparseMatrix out = new SparseMatrix(pattern.build());
+            for (int k = 0; k < count; ++k) {
+                out.values[out.pattern.index(rows[k], cols[k])] += values[k];
+            }
+            return out;
+        }
+
+        /**
+         * @return band matrix whose bandwidths are the smallest that hold the positions of the triplets
+         */
+        public Matrix buildBanded() {
+            int lower = 0;
+            int upper = 0;
+            for (int k = 0; k < count; ++k) {
+                checkIndex(k);
+                lower = Math.max(lower, rows[k] - cols[k]);
+                upper = Math.max(upper, cols[k] - rows[k]);
+            }
+            BandedMatrix out = new BandedMatrix(n, lower, upper);
+            for (int k = 0; k < count; ++k) {
+                out.a[rows[k] * (lower + upper + 1) + cols[k] - rows[k] + lower] += values[k];
+            }
+            return out;
+        }
+
+        /**
+         * @return dense matrix
+         */
+        public Matrix buildDense() {
+            DenseMatrix out = new DenseMatrix(n);
+            for (int k = 0; k < count; ++k) {
+                checkIndex(k);
+                out.a[rows[k] * n + cols[k]] += values[k];
+            }
+            return out;
+        }
+
+        private void checkIndex(int k) {
+            if (rows[k] >= n || cols[k] >= n) {
+                String errorMessage = String.format("(%d, %d) is outside of the %dx%d matrix.",
+                        rows[k], cols[k], n, n);
+                throw new IllegalArgumentException(errorMessage);
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package math.ode.vector;
+
+import java.util.Arrays;
+
+/**
+ * LU decomposition of a sparse matrix without pivoting, A = L * U, with L and U stored row by row in compressed
+ * sparse row form over the pattern of A, the diagonal and the fill-in of the elimination.
+ * <p>
+ * The fill-in is found once from the pattern, and each factorization only computes the values. Without pivoting,
+ * a pivot that is zero or negligible against its row reports the matrix as singular. The matrices
+ * I / (gamma * h) - J of the implicit solvers are dominated by their diagonal for small steps, so the solvers retry
+ * such a step with a smaller one.
+ */
+final class SparseLU extends LUDecomposition {
+
+    /**
+     * Unit round-off, bounding the relative size of a usable pivot.
+     */
+    private static final double EPS = Math.ulp(1.0);
+
+    /**
+     * Pattern of the factored matrices.
+     */
+    private final SparsityPattern pattern;
+
+    /**
+     * Start of each row of the factors, and the number of elements last.
+     */
+    private final int[] rowStart;
+
+    /**
+     * Columns of each row of the factors in increasing order.
+     */
+    private final int[] columns;
+
+    /**
+     * Position of the diagonal element of each row, L to its left with an implicit unit diagonal and U from it.
+     */
+    private final int[] diagonal;
+
+    /**
+     * Elements of the factors.
+     */
+    private final double[] lu;
+
+    /**
+     * Dense row being eliminated or solved.
+     */
+    private final double[] work;
+
+    /**
+     * Package Private Constructor.
+     *
+     * @param pattern pattern of the matrices to factor
+     */
+    SparseLU(SparsityPattern pattern) {
+        final int n = pattern.size();
+        this.pattern = pattern;
+        this.rowStart = new int[n + 1];
+        this.diagonal = new int[n];
+        this.columns = symbolic(pattern, rowStart, diagonal);
+        this.lu = new double[columns.length];
+        this.work = new double[n];
+    }
+
+    /**
+     * Find the pattern of the factors. Row i holds the pattern of row i of A and the diagonal, merged with the upper
+     * part of every row k of the factors for which column k is in row i, in increasing order of k.
+     *
+     * @param pattern  pattern of A
+     * @param rowStart destination of the start of each row of the factors
+     * @param diagonal destination of the position of each diagonal element
+     * @return columns of each row of the factors
+     */
+    private static int[] symbolic(SparsityPattern pattern, int[] rowStart, int[] diagonal) {
+        final int n = pattern.size();
+        int[] columns = new int[Math.max(16, pattern.nonZeros() + n)];
+        // Columns of the current row as a sorted linked list ending at n
+        int[] next = new int[n + 1];
+        int[] mark = new int[n];
+        Arrays.fill(mark, -1);
+        int size = 0;
+        for (int i = 0; i < n; ++i) {
+            next[n] = n;
+            mark[i] = i;
+            insert(next, n, i);
+            for (int k = pattern.rowStart[i]; k < pattern.rowStart[i + 1]; ++k) {
+                int j = pattern.columns[k];
+                if (mark[j] != i) {
+                    mark[j] = i;
+                    insert(next, n, j);
+                }
+            }
+            // Fill-in lies to the right of the row that creates it, so a single pass in order finds all of it
+            for (int k = next[n]; k < i; k = next[k]) {
+                int previous = k;
+                for (int l = diagonal[k] + 1; l < rowStart[k + 1]; ++l) {
+                    int j = columns[l];
+                    if (mark[j] != i) {
+                        mark[j] = i;
+                        // Insert after the last inserted column, the columns of row k being increasing
+                        while (next[previous] < j) {
+                            previous = next[previous];
+                        }
+                        next[j] = next[previous];
+                        next[previous] = j;
+                        previous = j;
+                    }
+                }
+            }
+            for (int j = next[n]; j < n; j = next[j]) {
+                if (size == columns.length) {
+                    columns = Arrays.copyOf(columns, 2 * size);
+                }
+                if (j == i) {
+                    diagonal[i] = size;
+                }
+                columns[size++] = j;
+            }
+            rowStart[i + 1] = size;
+        }
+        return Arrays.copyOf(columns, size);
+    }
+
+    /**
+     * Insert a column into a sorted linked list headed at n.
+     *
+     * @param next next column of each column, the head being n
+     * @param n    head of the list
+     * @param j    column to insert
+     */
+    private static void insert(int[] next, int n, int j) {
+        int previous = n;
+        while (next[previous] < j) {
+            previous = next[previous];
+        }
+        next[j] = next[previous];
+        next[previous] = j;
+    }
+
+    @Override
+    public int size() {
+        return pattern.size();
+    }
+
+    @Override
+    boolean factor(Matrix a, double diagonal, double scale) {
+        if (!(a instanceof SparseMatrix) || ((SparseMatrix) a).pattern != pattern) {
+            throw new IllegalArgumentException("Matrix structure must match the decomposition.");
+        }
+        final double[] values = ((SparseMatrix) a).values;
+        final int n = pattern.size();
+        for (int i = 0; i < n; ++i) {
+            for (int k = rowStart[i]; k < rowStart[i + 1]; ++k) {
+                work[columns[k]] = 0.0;
+            }
+            for (int k = pattern.rowStart[i]; k < pattern.rowStart[i + 1]; ++k) {
+                work[pattern.columns[k]] = scale * values[k];
+            }
+            work[i] += diagonal;
+            double largest = 0.0;
+            for (int k = rowStart[i]; k < rowStart[i + 1]; ++k) {
+                largest = Math.max(largest, Math.abs(work[columns[k]]));
+            }
+            for (int k = rowStart[i]; k < this.diagonal[i]; ++k) {
+                final int row = columns[k];
+                final double l = work[row] / lu[this.diagonal[row]];
+                lu[k] = l;
+                if (l != 0.0) {
+                    for (int m = this.diagonal[row] + 1; m < rowStart[row + 1]; ++m) {
+                        work[columns[m]] -= l * lu[m];
+                    }
+                }
+            }
+            for (int k = this.diagonal[i]; k < rowStart[i + 1]; ++k) {
+                lu[k] = work[columns[k]];
+            }
+            final double pivot = Math.abs(lu[this.diagonal[i]]);
+            if (!(pivot > EPS * largest) || Double.isInfinite(pivot)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    void solveInPlace(Vector b, Vector dest) {
+        final int n = pattern.size();
+        for (int i = 0; i < n; ++i) {
+            double sum = b.get(i);
+            for (int k = rowStart[i]; k < diagonal[i]; ++k) {
+                sum -= lu[k] * work[columns[k]];
+            }
+            work[i] = sum;
+        }
+        for (int i = n - 1; i >= 0; --i) {
+            double sum = work[i];
+            for (int k = diagonal[i] + 1; k < rowStart[i + 1]; ++k) {
+                sum -= lu[k] * work[columns[k]];
+            }
+            work[i] = sum / lu[diagonal[i]];
+        }
+        for (int i = 0; i < n; ++i) {
+            dest.set(i, work[i]);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package math.ode.vector;
+
+import java.util.Arrays;
+
+/**
+ * Sparse matrix in compressed sparse row form, storing only the elements of its {@link SparsityPattern}.
+ */
+final class SparseMatrix extends Matrix {
+
+    /**
+     * Positions of the stored elements.
+     */
+    final SparsityPattern pattern;
+
+    /**
+     * Stored elements in the order of the pattern.
+     */
+    final double[] values;
+
+    /**
+     * Package Private Constructor.
+     *
+     * @param pattern positions of the elements that may be nonzero
+     */
+    SparseMatrix(SparsityPattern pattern) {
+        if (pattern == null) throw new IllegalArgumentException("Sparsity pattern cannot be null.");
+        this.pattern = pattern;
+        this.values = new double[pattern.nonZeros()];
+    }
+
+    @Override
+    public int size() {
+        return pattern.size();
+    }
+
+    @Override
+    public double get(int i, int j) {
+        int index = pattern.index(i, j);
+        return (index >= 0) ? values[index] : 0.0;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a nonzero value is set outside of the pattern
+     */
+    @Override
+    public void set(int i, int j, double value) {
+        int index = pattern.index(i, j);
+        if (index >= 0) {
+            values[index] = value;
+        } else if (value != 0.0) {
+            String errorMessage = String.format("(%d, %d) is outside of the sparsity pattern.", i, j);
+            throw new IllegalArgumentException(errorMessage);
+        }
+    }
+
+    @Override
+    public Vector multiply(Vector x, Vector dest) {
+        final int[] rowStart = pattern.rowStart;
+        final int[] columns = pattern.columns;
+        return multiply(x, dest, values.length, (from, to) -> {
+            for (int i = from; i < to; ++i) {
+                double sum = 0.0;
+                for (int k = rowStart[i]; k < rowStart[i + 1]; ++k) {
+                    sum += values[k] * x.get(columns[k]);
+                }
+                dest.set(i, sum);
+            }
+        });
+    }
+
+    @Override
+    void clear() {
+        Arrays.fill(values, 0.0);
+    }
+
+    @Override
+    Matrix like() {
+        return new SparseMatrix(pattern);
+    }
+
+    @Override
+    LUDecomposition decomposition() {
+        return new SparseLU(pattern);
+    }
+
+    @Override
+    void copyInto(Matrix dest) {
+        if (dest instanceof SparseMatrix && ((SparseMatrix) dest).pattern == pattern) {
+            System.arraycopy(values, 0, ((SparseMatrix) dest).values, 0, values.length);
+            return;
+        }
+        for (int i = 0; i < pattern.size(); ++i) {
+            for (int k = pattern.rowStart[i]; k < pattern.rowStart[i + 1]; ++k) {
+                if (values[k] != 0.0) {
+                    dest.set(i, pattern.columns[k], values[k]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package math.ode.vector;
+
+import java.util.Arrays;
+
+/**
+ * Positions of the elements of a square matrix that may be nonzero, stored row by row in compressed sparse row form.
+ * <p>
+ * Given the pattern of a Jacobian, the implicit solvers keep it in a sparse {@link Matrix} and estimate it by
+ * finite differences over groups of columns: columns that have no nonzero row in common are colored alike by the
+ * greedy method of Curtis, Powell and Reid, and one evaluation of the ode perturbs every column of a color at once.
+ * A Jacobian then costs {@link #colors()} evaluations instead of {@link #size()}, three for a tridiagonal pattern of
+ * any size.
+ */
+public final class SparsityPattern {
+
+    private final int n;
+
+    /**
+     * Position in {@link #columns} of the first element of each row, and the number of elements last.
+     */
+    final int[] rowStart;
+
+    /**
+     * Columns of the elements of each row in increasing order.
+     */
+    final int[] columns;
+
+    /**
+     * Position in {@link #rows} of the first element of each column, and the number of elements last.
+     */
+    final int[] columnStart;
+
+    /**
+     * Rows of the elements of each column in increasing order.
+     */
+    final int[] rows;
+
+    /**
+     * Position in {@link #columns} of each element of {@link #rows}.
+     */
+    final int[] positions;
+
+    /**
+     * Color of each column, columns of the same color having no row in common.
+     */
+    final int[] color;
+
+    /**
+     * Position in {@link #colored} of the first column of each color, and the number of columns last.
+     */
+    final int[] colorStart;
+
+    /**
+     * Columns grouped by color.
+     */
+    final int[] colored;
+
+    /**
+     * Private Constructor.
+     *
+     * @param n        number of rows and columns
+     * @param rowStart start of each row
+     * @param columns  sorted columns of each row without duplicates
+     */
+    private SparsityPattern(int n, int[] rowStart, int[] columns) {
+        this.n = n;
+        this.rowStart = rowStart;
+        this.columns = columns;
+        this.columnStart = new int[n + 1];
+        for (int column : columns) {
+            columnStart[column + 1]++;
+        }
+        for (int j = 0; j < n; ++j) {
+            columnStart[j + 1] += columnStart[j];
+        }
+        this.rows = new int[columns.length];
+        this.positions = new int[columns.length];
+        int[] next = Arrays.copyOf(columnStart, n);
+        for (int i = 0; i < n; ++i) {
+            for (int k = rowStart[i]; k < rowStart[i + 1]; ++k) {
+                int index = next[columns[k]]++;
+                rows[index] = i;
+                positions[index] = k;
+            }
+        }
+        this.color = new int[n];
+        int colors = color();
+        this.colorStart = new int[colors + 1];
+        for (int j = 0; j < n; ++j) {
+            colorStart[color[j] + 1]++;
+        }
+        for (int c = 0; c < colors; ++c) {
+            colorStart[c + 1] += colorStart[c];
+        }
+        this.colored = new int[n];
+        next = Arrays.copyOf(colorStart, colors);
+        for (int j = 0; j < n; ++j) {
+            colored[next[color[j]]++] = j;
+        }
+    }
+
+    /**
+     * @param n     number of rows and columns
+     * @param lower number of diagonals below the main diagonal
+     * @param upper number of diagonals above the main diagonal
+     * @return pattern of a band matrix
+     */
+    public static SparsityPattern banded(int n, int lower, int upper) {
+        if (n < 0) throw new IllegalArgumentException("Size must be non-negative.");
+        if (lower < 0 || upper < 0) throw new IllegalArgumentException("Bandwidths must be non-negative.");
+        int[] rowStart = new int[n + 1];
+        for (int i = 0; i < n; ++i) {
+            rowStart[i + 1] = rowStart[i] + Math.min(n - 1, i + upper) - Math.max(0, i - lower) + 1;
+        }
+        int[] columns = new int[rowStart[n]];
+        for (int i = 0; i < n; ++i) {
+            int k = rowStart[i];
+            for (int j = Math.max(0, i - lower); j <= Math.min(n - 1, i + upper); ++j) {
+                columns[k++] = j;
+            }
+        }
+        return new SparsityPattern(n, rowStart, columns);
+    }
+
+    /**
+     * @return number of rows and columns
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * @return number of elements that may be nonzero
+     */
+    public int nonZeros() {
+        return columns.length;
+    }
+
+    /**
+     * @return number of groups of columns, and so of evaluations of the ode, that estimate a Jacobian
+     */
+    public int colors() {
+        return colorStart.length - 1;
+    }
+
+    /**
+     * @param i row
+     * @param j column
+     * @return true if element (i, j) may be nonzero
+     */
+    public boolean contains(int i, int j) {
+        return index(i, j) >= 0;
+    }
+
+    /**
+     * @param i row
+     * @param j column
+     * @return position of element (i, j) in {@link #columns}, or a negative value if it is not in the pattern
+     * @throws IndexOutOfBoundsException if the element is outside of the matrix
+     */
+    int index(int i, int j) {
+        if (i < 0 || i >= n || j < 0 || j >= n) {
+            String errorMessage = String.format("(%d, %d) is outside of the %dx%d matrix.", i, j, n, n);
+            throw new IndexOutOfBoundsException(errorMessage);
+        }
+        int index = Arrays.binarySearch(columns, rowStart[i], rowStart[i + 1], j);
+        return (index >= 0) ? index : -1;
+    }
+
+    /**
+     * Color the columns greedily in order, each taking the smallest color that no column sharing a row has taken.
+     *
+     * @return number of colors
+     */
+    private int color() {
+        // Colors taken by a neighbour of column j are marked with j
+        int[] taken = new int[n + 1];
+        Arrays.fill(taken, -1);
+        int colors = 0;
+        for (int j = 0; j < n; ++j) {
+            for (int k = columnStart[j]; k < columnStart[j + 1]; ++k) {
+                int row = rows[k];
+                for (int l = rowStart[row]; l < rowStart[row + 1] && columns[l] < j; ++l) {
+                    taken[color[columns[l]]] = j;
+                }
+            }
+            int c = 0;
+            while (taken[c] == j) {
+                ++c;
+            }
+            color[j] = c;
+            colors = Math.max(colors, c + 1);
+        }
+        return colors;
+    }
+
+    /**
+     * Builder class for the Sparsity Pattern class.
+     */
+    public static class Builder {
+
+        /**
+         * Number of rows and columns.
+         */
+        private int n;
+
+        /**
+         * Rows of the added elements.
+         */
+        private int[] rows;
+
+        /**
+         * Columns of the added elements.
+         */
+        private int[] cols;
+
+        /**
+         * Number of added elements.
+         */
+        private int count;
+
+        /**
+         * Get a builder instance with default settings.
+         *
+         * @return builder
+         */
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        /**
+         * Private constructor.
+         */
+        private Builder() {
+            this.n = 0;
+            this.rows = new int[16];
+            this.cols = new int[16];
+            this.count = 0;
+        }
+
+        /**
+         * @param n number of rows and columns
+         * @return this
+         */
+        public Builder setSize(int n) {
+            if (n < 0) throw new IllegalArgumentException("Size must be non-negative.");
+            this.n = n;
+            return this;
+        }
+
+        /**
+         * Add an element that may be nonzero, adding it again has no effect.
+         *
+         * @param i row
+         * @param j column
+         * @return this
+         */
+        public Builder add(int i, int j) {
+            if (i < 0 || j < 0) throw new IllegalArgumentException("Row and column must be non-negative.");
+            if (count == rows.length) {
+                rows = Arrays.copyOf(rows, 2 * count);
+                cols = Arrays.copyOf(cols, 2 * count);
+            }
+            rows[count] = i;
+            cols[count] = j;
+            ++count;
+            return this;
+        }
+
+        /**
+         * @return pattern of the added elements
+         */
+        public SparsityPattern build() {
+            int[] rowStart = new int[n + 1];
+            for (int k = 0; k < count; ++k) {
+                if (rows[k] >= n || cols[k] >= n) {
+                    String errorMessage = String.format("(%d, %d) is outside of the %dx%d matrix.",
+                            rows[k], cols[k], n, n);
+                    throw new IllegalArgumentException(errorMessage);
+                }
+                rowStart[rows[k] + 1]++;
+            }
+            for (int i = 0; i < n; ++i) {
+                rowStart[i + 1] += rowStart[i];
+            }
+            int[] columns = new int[count];
+            int[] next = Arrays.copyOf(rowStart, n);
+            for (int k = 0; k < count; ++k) {
+                columns[next[rows[k]]++] = cols[k];
+            }
+            // Sort each row and drop the duplicates
+            int size = 0;
+            int start = 0;
+            for (int i = 0; i < n; ++i) {
+                int end = rowStart[i + 1];
+                Arrays.sort(columns, start, end);
+                rowStart[i] = size;
+                for (int k = start; k < end; ++k) {
+                    if (k == start || columns[k] != columns[k - 1]) {
+                        columns[size++] = columns[k];
+                    }
+                }
+                start = end;
+            }
+            rowStart[n] = size;
+            return new SparsityPattern(n, rowStart, Arrays.copyOf(columns, size));
+        }
+    }
+}
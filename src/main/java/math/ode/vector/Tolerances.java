@@ -0,0 +1,104 @@
+package math.ode.vector;
+
+/**
+ * Relative and absolute tolerances of the components of an adaptive integration. The error of component i is
+ * compared to rtol_i * |x_i| + atol_i, with either tolerance the same for every component or given per component.
+ */
+final class Tolerances {
+
+    /**
+     * Relative tolerance of every component.
+     */
+    private final double relTol;
+
+    /**
+     * Relative tolerance of each component, or null to use relTol for all of them.
+     */
+    private final double[] relTols;
+
+    /**
+     * Absolute tolerance of every component.
+     */
+    private final double absTol;
+
+    /**
+     * Absolute tolerance of each component, or null to use absTol for all of them.
+     */
+    private final double[] absTols;
+
+    /**
+     * Package Private Constructor.
+     *
+     * @param relTol  relative tolerance of every component
+     * @param relTols relative tolerance of each component, or null
+     * @param absTol  absolute tolerance of every component
+     * @param absTols absolute tolerance of each component, or null
+     */
+    Tolerances(double relTol, double[] relTols, double absTol, double[] absTols) {
+        this.relTol = relTol;
+        this.relTols = relTols;
+        this.absTol = absTol;
+        this.absTols = absTols;
+    }
+
+    /**
+     * @param tols tolerance of each component
+     * @param name name of the tolerance in error messages
+     * @return copy of the tolerances
+     */
+    static double[] copy(Vector tols, String name) {
+        if (tols == null) throw new IllegalArgumentException(name + " cannot be null.");
+        double[] out = new double[tols.length()];
+        for (int i = 0; i < out.length; ++i) {
+            out[i] = tols.get(i);
+            if (!(out[i] >= 0.0)) throw new IllegalArgumentException(name + " must be non-negative.");
+        }
+        return out;
+    }
+
+    /**
+     * @return relative tolerance of every component, ignoring per component tolerances
+     */
+    double relative() {
+        return relTol;
+    }
+
+    /**
+     * @param n number of dependent variables being integrated
+     */
+    void check(int n) {
+        if ((relTols != null && relTols.length != n) || (absTols != null && absTols.length != n)) {
+            throw new IllegalArgumentException("Tolerance vector length must match the initial value.");
+        }
+    }
+
+    /**
+     * @param i    component
+     * @param size magnitude of the component
+     * @return error allowed for the component
+     */
+    double scale(int i, double size) {
+        double rtol = (relTols == null) ? relTol : relTols[i];
+        double atol = (absTols == null) ? absTol : absTols[i];
+        return rtol * size + atol;
+    }
+
+    /**
+     * Weighted norm of an error in one pass without allocating.
+     *
+     * @param norm  norm combining the components
+     * @param error error of each component
+     * @param x     state the error is relative to
+     * @param y     second state, the larger magnitude of x and y is used, may be x
+     * @return norm of error_i / scale_i
+     */
+    double norm(ErrorNorm norm, Vector error, Vector x, Vector y) {
+        final int n = error.length();
+        double out = 0.0;
+        for (int i = 0; i < n; ++i) {
+            double size = Math.max(Math.abs(x.get(i)), Math.abs(y.get(i)));
+            out = norm.accumulate(out, Math.abs(error.get(i)) / scale(i, size));
+        }
+        return norm.finish(out, n);
+    }
+}
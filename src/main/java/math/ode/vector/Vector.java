@@ -1,6 +1,9 @@
 package math.ode.vector;
 
+import math.ode.utils.ParallelLoop;
+
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 
 import static math.ode.vector.VectorType.IMMUTABLE;
@@ -10,7 +13,36 @@ public class Vector {
 
     private static final VectorType DEFAULT_TYPE = MUTABLE;
 
+    /**
+     * Elements processed per bulk copy when an operand is off-heap.
+     */
+    private static final int CHUNK = 4096;
+
+    /**
+     * Largest chunk of a parallel operation, so that three operands of a chunk fit in a 256 KiB L2 cache.
+     */
+    private static final int PARALLEL_GRAIN = 8192;
+
+    /**
+     * Loops over the heap arrays, explicitly vectorized when the JDK supports it.
+     */
+    private static final VectorKernels KERNELS = VectorKernels.get();
+
+    private static volatile VectorExecution defaultExecution = VectorExecution.SEQUENTIAL;
+    private static volatile int parallelThreshold = 1 << 17;
+    private static volatile ForkJoinPool parallelPool = ForkJoinPool.commonPool();
+
     private VectorType type;
+    private final VectorStorage storage;
+
+    /**
+     * Execution of this vector's operations, null to follow the default execution.
+     */
+    private VectorExecution execution;
+
+    /**
+     * Backing array of heap storage, null for off-heap storage.
+     */
     private final double[] x;
 
     public static Vector mutable(int size) {
@@ -31,6 +63,22 @@ public class Vector {
         return create(MUTABLE, x);
     }
 
+    /**
+     * @param storage elements of the vector, used without copying
+     * @return mutable vector over the storage
+     */
+    public static Vector mutable(VectorStorage storage) {
+        return create(MUTABLE, storage);
+    }
+
+    /**
+     * @param vector vector to take the length and kind of storage from
+     * @return zeroed mutable vector of the same length, off-heap if vector is off-heap
+     */
+    public static Vector mutableLike(Vector vector) {
+        return vector.like(MUTABLE);
+    }
+
     public static Vector immutable(int size) {
         return create(IMMUTABLE, new double[size]);
     }
@@ -48,9 +96,17 @@ public class Vector {
     public static Vector immutable(double... x) {
         return create(IMMUTABLE, x);
     }
+
+    /**
+     * @param storage elements of the vector, used without copying
+     * @return immutable vector over the storage
+     */
+    public static Vector immutable(VectorStorage storage) {
+        return create(IMMUTABLE, storage);
+    }
     
     public static Vector create(VectorType type, int size) {
-        return new Vector(type, new double[size]);
+        return new Vector(type, VectorStorage.heap(size));
     }
 
     public static Vector random(VectorType type, int size) {
@@ -62,27 +118,180 @@ public class Vector {
     }
 
     public static Vector create(VectorType type, double... x) {
-        return new Vector(type, x);
+        return new Vector(type, VectorStorage.wrap(x));
     }
 
-    private Vector(VectorType type, double[] x) {
+    public static Vector create(VectorType type, VectorStorage storage) {
+        return new Vector(type, storage);
+    }
+
+    private Vector(VectorType type, VectorStorage storage) {
         this.type = type;
-        this.x = x;
+        this.storage = storage;
+        this.x = storage.array();
+    }
+
+    /**
+     * @param type type of the new vector
+     * @return zeroed vector of the same length, storage and execution as this
+     */
+    private Vector like(VectorType type) {
+        Vector out = new Vector(type, storage.allocate(length()));
+        out.execution = execution;
+        return out;
+    }
+
+    private Vector copy(VectorType type) {
+        Vector out = like(type);
+        copy(this, out);
+        return out;
+    }
+
+    private static void copy(Vector from, Vector to) {
+        final int n = to.length();
+        if (from.x != null) {
+            to.storage.put(0, from.x, 0, n);
+        } else if (to.x != null) {
+            from.storage.get(0, to.x, 0, n);
+        } else {
+            double[] chunk = new double[Math.min(CHUNK, n)];
+            for (int i = 0; i < n; i += CHUNK) {
+                int length = Math.min(CHUNK, n - i);
+                from.storage.get(i, chunk, 0, length);
+                to.storage.put(i, chunk, 0, length);
+            }
+        }
+    }
+
+    /**
+     * Vector receiving the result of an element-wise operation.
+     *
+     * @param outType type of the result
+     * @return new vector of outType, or this if it is mutable and outType is MUTABLE
+     */
+    private Vector output(VectorType outType) {
+        return (outType == IMMUTABLE) ? like(IMMUTABLE) : (this.type == IMMUTABLE) ? like(MUTABLE) : this;
+    }
+
+    /**
+     * Set the execution of vectors that do not select their own. Vectors start out sequential.
+     *
+     * @param execution default execution
+     */
+    public static void setDefaultExecution(VectorExecution execution) {
+        if (execution == null) throw new IllegalArgumentException("Execution cannot be null.");
+        defaultExecution = execution;
+    }
+
+    public static VectorExecution getDefaultExecution() {
+        return defaultExecution;
+    }
+
+    /**
+     * Set the length below which parallel vectors still run their operations on the calling thread, because
+     * splitting would cost more than it saves.
+     *
+     * @param threshold smallest length run in parallel
+     */
+    public static void setParallelThreshold(int threshold) {
+        if (threshold < 1) throw new IllegalArgumentException("Parallel threshold must be positive.");
+        parallelThreshold = threshold;
+    }
+
+    public static int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * @param pool pool that runs the operations of parallel vectors, the common pool by default
+     */
+    public static void setParallelPool(ForkJoinPool pool) {
+        if (pool == null) throw new IllegalArgumentException("Pool cannot be null.");
+        parallelPool = pool;
+    }
+
+    public static ForkJoinPool getParallelPool() {
+        return parallelPool;
+    }
+
+    /**
+     * Select how this vector's operations are run, overriding the default execution. Vectors computed from this
+     * vector inherit the selection.
+     *
+     * @param execution execution, or null to follow the default execution
+     * @return this
+     */
+    public Vector setExecution(VectorExecution execution) {
+        this.execution = execution;
+        return this;
+    }
+
+    /**
+     * @return execution of this vector's operations
+     */
+    public VectorExecution getExecution() {
+        return (execution != null) ? execution : defaultExecution;
     }
 
-    private static double[] arrayCopy(double[] array) {
-        int n = array.length;
-        double[] out = new double[n];
-        System.arraycopy(array, 0, out, 0, n);
+    private boolean isParallel(int n) {
+        return n >= parallelThreshold && getExecution() == VectorExecution.PARALLEL;
+    }
+
+    /**
+     * Apply an element-wise kernel directly to heap arrays, or chunk by chunk through bulk copies when any operand
+     * is off-heap. Parallel vectors split the elements into cache sized chunks on the parallel pool.
+     *
+     * @param operation kernel
+     * @param vector    second operand, null for operations of one vector
+     * @param scalar    scalar operand
+     * @param out       output, may be this or vector
+     * @return out
+     */
+    private Vector apply(VectorOperation operation, Vector vector, double scalar, Vector out) {
+        final int n = length();
+        if (isParallel(n)) {
+            ParallelLoop.forRange(n, PARALLEL_GRAIN, parallelPool,
+                    (from, to) -> apply(operation, vector, scalar, out, from, to));
+        } else {
+            apply(operation, vector, scalar, out, 0, n);
+        }
         return out;
     }
 
+    private void apply(VectorOperation operation, Vector vector, double scalar, Vector out, int from, int to) {
+        if (x != null && out.x != null && (vector == null || vector.x != null)) {
+            KERNELS.apply(operation, x, (vector == null) ? null : vector.x, scalar, out.x, from, to);
+            return;
+        }
+        double[] a = new double[Math.min(CHUNK, to - from)];
+        double[] b = (vector == null) ? null : new double[a.length];
+        for (int i = from; i < to; i += CHUNK) {
+            int length = Math.min(CHUNK, to - i);
+            storage.get(i, a, 0, length);
+            if (b != null) {
+                vector.storage.get(i, b, 0, length);
+            }
+            KERNELS.apply(operation, a, b, scalar, a, 0, length);
+            out.storage.put(i, a, 0, length);
+        }
+    }
+
+    /**
+     * Start a lazy expression, evaluated in one pass without temporaries by a terminal operation such as
+     * {@link VectorExpression#max()} or {@link VectorExpression#into(Vector)}.
+     *
+     * @return expression of this vector's elements
+     */
+    public VectorExpression lazy() {
+        return VectorExpression.of(this);
+    }
+
     public Vector immutable() {
-        return (this.type == IMMUTABLE) ? this : new Vector(IMMUTABLE, arrayCopy(x));
+        return (this.type == IMMUTABLE) ? this : copy(IMMUTABLE);
     }
 
     public Vector mutable() {
-        return (this.type == MUTABLE) ? this :new Vector(MUTABLE, arrayCopy(x));
+        return (this.type == MUTABLE) ? this : copy(MUTABLE);
     }
 
     public Vector add(double scalar) {
@@ -90,13 +299,7 @@ public class Vector {
     }
 
     public Vector add(double scalar, VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = x[i] + scalar;
-        }
-        return out;
+        return apply(VectorOperation.ADD_SCALAR, null, scalar, output(outType));
     }
 
     public Vector add(Vector vector) {
@@ -104,13 +307,7 @@ public class Vector {
     }
 
     public Vector add(Vector vector, VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = x[i] + vector.x[i];
-        }
-        return out;
+        return apply(VectorOperation.ADD, vector, 0.0, output(outType));
     }
 
     public Vector sub(double scalar) {
@@ -118,13 +315,7 @@ public class Vector {
     }
 
     public Vector sub(double scalar, VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = x[i] - scalar;
-        }
-        return out;
+        return apply(VectorOperation.SUBTRACT_SCALAR, null, scalar, output(outType));
     }
 
     public Vector sub(Vector vector) {
@@ -132,13 +323,7 @@ public class Vector {
     }
 
     public Vector sub(Vector vector, VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = x[i] - vector.x[i];
-        }
-        return out;
+        return apply(VectorOperation.SUBTRACT, vector, 0.0, output(outType));
     }
 
     public Vector mult(double scalar) {
@@ -146,13 +331,7 @@ public class Vector {
     }
 
     public Vector mult(double scalar, VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = x[i] * scalar;
-        }
-        return out;
+        return apply(VectorOperation.MULTIPLY_SCALAR, null, scalar, output(outType));
     }
 
     public Vector mult(Vector vector) {
@@ -160,13 +339,7 @@ public class Vector {
     }
 
     public Vector mult(Vector vector, VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = x[i] * vector.x[i];
-        }
-        return out;
+        return apply(VectorOperation.MULTIPLY, vector, 0.0, output(outType));
     }
 
     public Vector div(double scalar) {
@@ -174,13 +347,7 @@ public class Vector {
     }
 
     public Vector div(double scalar, VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = x[i] / scalar;
-        }
-        return out;
+        return apply(VectorOperation.DIVIDE_SCALAR, null, scalar, output(outType));
     }
 
     public Vector div(Vector vector) {
@@ -188,13 +355,7 @@ public class Vector {
     }
 
     public Vector div(Vector vector, VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = x[i] / vector.x[i];
-        }
-        return out;
+        return apply(VectorOperation.DIVIDE, vector, 0.0, output(outType));
     }
 
     public Vector negate() {
@@ -202,13 +363,7 @@ public class Vector {
     }
 
     public Vector negate(VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = -x[i];
-        }
-        return out;
+        return apply(VectorOperation.NEGATE, null, 0.0, output(outType));
     }
 
     public Vector inverse() {
@@ -216,13 +371,7 @@ public class Vector {
     }
 
     public Vector inverse(VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = 1.0 / x[i];
-        }
-        return out;
+        return apply(VectorOperation.INVERSE, null, 0.0, output(outType));
     }
 
     public Vector apply(Function<Double, Double> function) {
@@ -230,11 +379,9 @@ public class Vector {
     }
 
     public Vector apply(Function<Double, Double> function, VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = function.apply(x[i]);
+        Vector out = output(outType);
+        for (int i = 0; i < length(); ++i) {
+            out.storage.set(i, function.apply(get(i)));
         }
         return out;
     }
@@ -244,13 +391,7 @@ public class Vector {
     }
 
     public Vector scalb(int scale, VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = Math.scalb(x[i], scale);
-        }
-        return out;
+        return apply(VectorOperation.SCALB, null, scale, output(outType));
     }
 
     public Vector pow(double exp) {
@@ -258,13 +399,7 @@ public class Vector {
     }
 
     public Vector pow(double exp, VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = Math.pow(x[i], exp);
-        }
-        return out;
+        return apply(VectorOperation.POW, null, exp, output(outType));
     }
 
     public Vector signum() {
@@ -272,13 +407,7 @@ public class Vector {
     }
 
     public Vector signum(VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = Math.signum(x[i]);
-        }
-        return out;
+        return apply(VectorOperation.SIGNUM, null, 0.0, output(outType));
     }
 
     public Vector abs() {
@@ -286,13 +415,7 @@ public class Vector {
     }
 
     public Vector abs(VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = Math.abs(x[i]);
-        }
-        return out;
+        return apply(VectorOperation.ABS, null, 0.0, output(outType));
     }
 
     public Vector exp() {
@@ -300,13 +423,7 @@ public class Vector {
     }
 
     public Vector exp(VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = Math.exp(x[i]);
-        }
-        return out;
+        return apply(VectorOperation.EXP, null, 0.0, output(outType));
     }
 
     public Vector expm1() {
@@ -314,13 +431,7 @@ public class Vector {
     }
 
     public Vector expm1(VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = Math.expm1(x[i]);
-        }
-        return out;
+        return apply(VectorOperation.EXPM1, null, 0.0, output(outType));
     }
 
     public Vector log() {
@@ -328,13 +439,7 @@ public class Vector {
     }
 
     public Vector log(VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = Math.log(x[i]);
-        }
-        return out;
+        return apply(VectorOperation.LOG, null, 0.0, output(outType));
     }
 
     public Vector log10() {
@@ -342,13 +447,7 @@ public class Vector {
     }
 
     public Vector log10(VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = Math.log10(x[i]);
-        }
-        return out;
+        return apply(VectorOperation.LOG10, null, 0.0, output(outType));
     }
 
     public Vector log1p() {
@@ -356,13 +455,7 @@ public class Vector {
     }
 
     public Vector log1p(VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = Math.log1p(x[i]);
-        }
-        return out;
+        return apply(VectorOperation.LOG1P, null, 0.0, output(outType));
     }
 
     public Vector cbrt() {
@@ -370,13 +463,7 @@ public class Vector {
     }
 
     public Vector cbrt(VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = Math.cbrt(x[i]);
-        }
-        return out;
+        return apply(VectorOperation.CBRT, null, 0.0, output(outType));
     }
 
     public Vector sqrt() {
@@ -384,13 +471,7 @@ public class Vector {
     }
 
     public Vector sqrt(VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = Math.sqrt(x[i]);
-        }
-        return out;
+        return apply(VectorOperation.SQRT, null, 0.0, output(outType));
     }
 
     public Vector sin() {
@@ -398,13 +479,7 @@ public class Vector {
     }
 
     public Vector sin(VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = Math.sin(x[i]);
-        }
-        return out;
+        return apply(VectorOperation.SIN, null, 0.0, output(outType));
     }
 
     public Vector asin() {
@@ -412,13 +487,7 @@ public class Vector {
     }
 
     public Vector asin(VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = Math.asin(x[i]);
-        }
-        return out;
+        return apply(VectorOperation.ASIN, null, 0.0, output(outType));
     }
 
     public Vector sinh() {
@@ -426,13 +495,7 @@ public class Vector {
     }
 
     public Vector sinh(VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = Math.sinh(x[i]);
-        }
-        return out;
+        return apply(VectorOperation.SINH, null, 0.0, output(outType));
     }
 
     public Vector cos() {
@@ -440,13 +503,7 @@ public class Vector {
     }
 
     public Vector cos(VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = Math.cos(x[i]);
-        }
-        return out;
+        return apply(VectorOperation.COS, null, 0.0, output(outType));
     }
 
     public Vector acos() {
@@ -454,13 +511,7 @@ public class Vector {
     }
 
     public Vector acos(VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = Math.acos(x[i]);
-        }
-        return out;
+        return apply(VectorOperation.ACOS, null, 0.0, output(outType));
     }
 
     public Vector cosh() {
@@ -468,13 +519,7 @@ public class Vector {
     }
 
     public Vector cosh(VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = Math.cosh(x[i]);
-        }
-        return out;
+        return apply(VectorOperation.COSH, null, 0.0, output(outType));
     }
 
     public Vector tan() {
@@ -482,13 +527,7 @@ public class Vector {
     }
 
     public Vector tan(VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = Math.tan(x[i]);
-        }
-        return out;
+        return apply(VectorOperation.TAN, null, 0.0, output(outType));
     }
 
     public Vector atan() {
@@ -496,13 +535,7 @@ public class Vector {
     }
 
     public Vector atan(VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = Math.atan(x[i]);
-        }
-        return out;
+        return apply(VectorOperation.ATAN, null, 0.0, output(outType));
     }
 
     public Vector tanh() {
@@ -510,35 +543,210 @@ public class Vector {
     }
 
     public Vector tanh(VectorType outType) {
-        Vector out = (outType == IMMUTABLE)
-                ? Vector.immutable(x.length)
-                : (this.type == IMMUTABLE) ? Vector.mutable(x.length) : this;
-        for (int i = 0; i < x.length; ++i) {
-            out.x[i] = Math.tanh(x[i]);
+        return apply(VectorOperation.TANH, null, 0.0, output(outType));
+    }
+
+    /**
+     * Fused y = a * x + y in a single pass.
+     *
+     * @param a scale applied to x
+     * @param x scaled vector
+     * @param y mutable vector to accumulate into
+     * @return y
+     */
+    public static Vector axpy(double a, Vector x, Vector y) {
+        checkDestination(y);
+        return y.apply(VectorOperation.ADD_SCALED, x, a, y);
+    }
+
+    /**
+     * Fused dest = x + scalar * y in a single pass.
+     *
+     * @param x      base vector
+     * @param scalar scale applied to y
+     * @param y      scaled vector
+     * @param dest   mutable destination, may be the same vector as x or y
+     * @return dest
+     */
+    public static Vector addScaled(Vector x, double scalar, Vector y, Vector dest) {
+        checkDestination(dest);
+        return x.apply(VectorOperation.ADD_SCALED, y, scalar, dest);
+    }
+
+    /**
+     * Fused linear combination sum(coeffs[k] * vs[k]) in a single pass, allocating the result.
+     *
+     * @param coeffs coefficients
+     * @param vs     vectors, one per coefficient
+     * @return new mutable vector holding the linear combination
+     */
+    public static Vector linearCombination(double[] coeffs, Vector... vs) {
+        if (vs.length == 0) throw new IllegalArgumentException("At least one vector is required.");
+        return linearCombination(Vector.mutableLike(vs[0]), coeffs, vs);
+    }
+
+    /**
+     * Fused dest = sum(coeffs[k] * vs[k]) in a single pass. Every element of the inputs is read once and every
+     * element of the destination is written once, so dest may be one of the vectors being combined.
+     *
+     * @param dest   mutable destination
+     * @param coeffs coefficients
+     * @param vs     vectors, one per coefficient
+     * @return dest
+     */
+    public static Vector linearCombination(Vector dest, double[] coeffs, Vector... vs) {
+        if (coeffs.length != vs.length) throw new IllegalArgumentException("There must be one coefficient per vector.");
+        checkDestination(dest);
+        final int n = dest.length();
+        boolean heap = (dest.x != null);
+        for (Vector v : vs) {
+            heap &= (v.x != null);
+        }
+        final boolean onHeap = heap;
+        if (dest.isParallel(n)) {
+            ParallelLoop.forRange(n, PARALLEL_GRAIN, parallelPool,
+                    (from, to) -> linearCombination(dest, coeffs, vs, onHeap, from, to));
+        } else {
+            linearCombination(dest, coeffs, vs, onHeap, 0, n);
+        }
+        return dest;
+    }
+
+    private static void linearCombination(Vector dest, double[] coeffs, Vector[] vs, boolean heap, int from, int to) {
+        if (!heap) {
+            linearCombinationChunked(dest, coeffs, vs, from, to);
+            return;
+        }
+        final double[] out = dest.x;
+        switch (vs.length) {
+            case 0:
+                Arrays.fill(out, from, to, 0.0);
+                break;
+            case 1:
+                KERNELS.linearCombination(out, from, to, coeffs[0], vs[0].x);
+                break;
+            case 2:
+                KERNELS.linearCombination(out, from, to, coeffs[0], vs[0].x, coeffs[1], vs[1].x);
+                break;
+            case 3:
+                KERNELS.linearCombination(out, from, to, coeffs[0], vs[0].x, coeffs[1], vs[1].x, coeffs[2], vs[2].x);
+                break;
+            case 4:
+                KERNELS.linearCombination(out, from, to, coeffs[0], vs[0].x, coeffs[1], vs[1].x, coeffs[2], vs[2].x,
+                        coeffs[3], vs[3].x);
+                break;
+            case 5:
+                KERNELS.linearCombination(out, from, to, coeffs[0], vs[0].x, coeffs[1], vs[1].x, coeffs[2], vs[2].x,
+                        coeffs[3], vs[3].x, coeffs[4], vs[4].x);
+                break;
+            default:
+                for (int i = from; i < to; ++i) {
+                    double sum = coeffs[0] * vs[0].x[i];
+                    for (int k = 1; k < vs.length; ++k) {
+                        sum += coeffs[k] * vs[k].x[i];
+                    }
+                    out[i] = sum;
+                }
+        }
+    }
+
+    private static void linearCombinationChunked(Vector dest, double[] coeffs, Vector[] vs, int from, int to) {
+        double[] sum = new double[Math.min(CHUNK, to - from)];
+        double[] term = new double[sum.length];
+        for (int i = from; i < to; i += CHUNK) {
+            int length = Math.min(CHUNK, to - i);
+            if (vs.length == 0) {
+                Arrays.fill(sum, 0.0);
+            } else {
+                vs[0].storage.get(i, sum, 0, length);
+                KERNELS.apply(VectorOperation.MULTIPLY_SCALAR, sum, null, coeffs[0], sum, 0, length);
+            }
+            for (int k = 1; k < vs.length; ++k) {
+                vs[k].storage.get(i, term, 0, length);
+                KERNELS.apply(VectorOperation.ADD_SCALED, sum, term, coeffs[k], sum, 0, length);
+            }
+            dest.storage.put(i, sum, 0, length);
+        }
+    }
+
+    private static void checkDestination(Vector dest) {
+        if (dest.type == IMMUTABLE) {
+            throw new IllegalAccessError("The vector is immutable and cannot be modified.");
         }
-        return out;
     }
 
+    /**
+     * Parallel vectors reduce cache sized chunks in parallel and add the partial sums as a binary tree, which is
+     * also more accurate than one running sum.
+     *
+     * @param vector other operand
+     * @return sum of the products of the elements
+     */
     public double dotProduct(Vector vector) {
+        final int n = length();
+        if (isParallel(n)) {
+            return ParallelLoop.reduce(n, PARALLEL_GRAIN, parallelPool, (from, to) -> dotProduct(vector, from, to),
+                    Double::sum);
+        }
+        return dotProduct(vector, 0, n);
+    }
+
+    private double dotProduct(Vector vector, int from, int to) {
+        if (x != null && vector.x != null) {
+            return KERNELS.dotProduct(x, vector.x, from, to);
+        }
+        double[] a = new double[Math.min(CHUNK, to - from)];
+        double[] b = new double[a.length];
         double out = 0.0;
-        for (int i = 0; i < x.length; ++i) {
-            out += x[i] * vector.x[i];
+        for (int i = from; i < to; i += CHUNK) {
+            int length = Math.min(CHUNK, to - i);
+            storage.get(i, a, 0, length);
+            vector.storage.get(i, b, 0, length);
+            out += KERNELS.dotProduct(a, b, 0, length);
         }
         return out;
     }
 
     public double max() {
-        double out = x[0];
-        for (int i = 1; i < x.length; ++i) {
-            out = (x[i] > out) ? x[i] : out;
+        final int n = length();
+        if (isParallel(n)) {
+            return ParallelLoop.reduce(n, PARALLEL_GRAIN, parallelPool, this::max, Math::max);
+        }
+        return max(0, n);
+    }
+
+    private double max(int from, int to) {
+        if (x != null) {
+            return KERNELS.max(x, from, to);
+        }
+        double[] a = new double[Math.min(CHUNK, to - from)];
+        double out = storage.get(from);
+        for (int i = from; i < to; i += CHUNK) {
+            int length = Math.min(CHUNK, to - i);
+            storage.get(i, a, 0, length);
+            out = Math.max(out, KERNELS.max(a, 0, length));
         }
         return out;
     }
 
     public double min() {
-        double out = x[0];
-        for (int i = 1; i < x.length; ++i) {
-            out = (x[i] < out) ? x[i] : out;
+        final int n = length();
+        if (isParallel(n)) {
+            return ParallelLoop.reduce(n, PARALLEL_GRAIN, parallelPool, this::min, Math::min);
+        }
+        return min(0, n);
+    }
+
+    private double min(int from, int to) {
+        if (x != null) {
+            return KERNELS.min(x, from, to);
+        }
+        double[] a = new double[Math.min(CHUNK, to - from)];
+        double out = storage.get(from);
+        for (int i = from; i < to; i += CHUNK) {
+            int length = Math.min(CHUNK, to - i);
+            storage.get(i, a, 0, length);
+            out = Math.min(out, KERNELS.min(a, 0, length));
         }
         return out;
     }
@@ -547,18 +755,37 @@ public class Vector {
         return type;
     }
 
+    /**
+     * @return storage of the elements
+     */
+    public VectorStorage getStorage() {
+        return storage;
+    }
+
     public double get(int index) {
-        return x[index];
+        return (x != null) ? x[index] : storage.get(index);
     }
 
     public void set(int index, double val) {
         if (type == IMMUTABLE) {
             throw new IllegalAccessError("The vector is immutable and cannot be modified.");
         }
-        x[index] = val;
+        if (x != null) {
+            x[index] = val;
+        } else {
+            storage.set(index, val);
+        }
+    }
+
+    public Vector set(Vector vector) {
+        if (type == IMMUTABLE) {
+            throw new IllegalAccessError("The vector is immutable and cannot be modified.");
+        }
+        copy(vector, this);
+        return this;
     }
 
     public int length() {
-        return x.length;
+        return (x != null) ? x.length : storage.length();
     }
 }
@@ -0,0 +1,528 @@
+package math.ode.vector;
+
+import math.ode.utils.AdamsWeights;
+
+import java.util.function.BiFunction;
+
+/**
+ * Vector First Order Variable Step, Variable Order Adams-Bashforth-Moulton Algorithm, for non-stiff odes whose
+ * right-hand side is expensive to evaluate.
+ * <p>
+ * Each step of order k predicts with the k step Adams-Bashforth formula, evaluates the ode, corrects with the
+ * Adams-Moulton formula of order k + 1 and evaluates the ode again at the corrected value (PECE), so a step costs two
+ * evaluations whatever the order and the size of the system. The derivatives of the last points are kept in a ring
+ * buffer and the formulas are integrated over their actual spacing, so the step size can change on every step. The
+ * difference between the prediction and the correction estimates the error of the step. The first points come from
+ * the Adaptive Runge-Kutta Algorithm with the same tolerances, after which the order is chosen by comparing the error
+ * estimates of the neighbouring orders.
+ */
+public class VectorAdamsBashforthMoulton implements VectorODESolver {
+
+    /**
+     * Highest order supported.
+     */
+    public static final int MAX_ORDER = 12;
+
+    /**
+     * Order started at once the Runge-Kutta steps have provided its points.
+     */
+    private static final int START_ORDER = 4;
+
+    /**
+     * Safety factor applied to the step size chosen from an error estimate.
+     */
+    private static final double SAFETY = 0.9;
+
+    /**
+     * Smallest factor applied to the step size after an error test failure.
+     */
+    private static final double MIN_FACTOR = 0.2;
+
+    /**
+     * Largest factor applied to the step size after an accepted step.
+     */
+    private static final double MAX_FACTOR = 2.0;
+
+    /**
+     * Points kept, the most any step uses plus the one being evaluated.
+     */
+    private static final int CAPACITY = MAX_ORDER + 1;
+
+    /**
+     * Tolerances of the components.
+     */
+    private final Tolerances tolerances;
+
+    /**
+     * Norm combining the weighted errors of the components.
+     */
+    private final ErrorNorm norm;
+
+    /**
+     * Highest order to use.
+     */
+    private final int maxOrder;
+
+    /**
+     * Maximum attempts before failing to reach the desired error.
+     */
+    private final int maxTry;
+
+    /**
+     * Solver of the first steps.
+     */
+    private final VectorRungeKuttaAdaptive starter;
+
+    /**
+     * Private Constructor.
+     *
+     * @param builder builder to set the parameters
+     */
+    private VectorAdamsBashforthMoulton(Builder builder) {
+        this.tolerances = new Tolerances(builder.err, builder.relTols, builder.absTol, builder.absTols);
+        this.norm = builder.norm;
+        this.maxOrder = builder.maxOrder;
+        this.maxTry = builder.maxTry;
+        VectorRungeKuttaAdaptive.Builder starterBuilder = VectorRungeKuttaAdaptive.Builder.builder()
+                .setLocalTruncationError(builder.err)
+                .setErrorNorm(builder.norm)
+                .setMaximumTries(builder.maxTry);
+        if (builder.relTols != null) {
+            starterBuilder.setRelativeTolerance(Vector.immutable(builder.relTols));
+        }
+        if (builder.absTols != null) {
+            starterBuilder.setAbsoluteTolerance(Vector.immutable(builder.absTols));
+        } else {
+            starterBuilder.setAbsoluteTolerance(builder.absTol);
+        }
+        if (builder.initialTau != 0.0) {
+            starterBuilder.setInitialStepSize(builder.initialTau);
+        }
+        this.starter = starterBuilder.build();
+    }
+
+    @Override
+    public VectorStepper stepper(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double t) {
+        return stepper((VectorODE) (x, tim, dxdt) -> dxdt.set(ode.apply(x, tim)), xi, ti, t);
+    }
+
+    @Override
+    public VectorStepper stepper(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double t, double tau) {
+        return stepper((VectorODE) (x, tim, dxdt) -> dxdt.set(ode.apply(x, tim)), xi, ti, t, tau);
+    }
+
+    @Override
+    public VectorStepper stepper(VectorODE ode, Vector xi, double ti, double t) {
+        tolerances.check(xi.length());
+        return new Stepper(ode, starter.stepper(ode, xi, ti, t), xi, t);
+    }
+
+    @Override
+    public VectorStepper stepper(VectorODE ode, Vector xi, double ti, double t, double tau) {
+        tolerances.check(xi.length());
+        return new Stepper(ode, starter.stepper(ode, xi, ti, t, tau), xi, t);
+    }
+
+    /**
+     * Multistep integration state updated in place, taking Runge-Kutta steps until it holds enough points for the
+     * starting order.
+     */
+    private final class Stepper implements VectorStepper {
+
+        private final VectorODE ode;
+        private final double tEnd;
+        private final int sign;
+        private final AdamsWeights adams;
+        /**
+         * Ring buffers of the times and derivatives of the last points, the newest at head. The derivative at the
+         * current point is evaluated into the slot after head, which the next step pushes.
+         */
+        private final double[] times;
+        private final Vector[] derivatives;
+        /**
+         * Node 1 for the end of the step, then the points from the newest back, in units of the step.
+         */
+        private final double[] nodes;
+        private final double[] predictor;
+        private final double[] corrector;
+        private Vector x;
+        private Vector xCorrect;
+        private final Vector xPredict;
+        private final Vector fPredict;
+        private final Vector error;
+        /**
+         * Coefficients and vectors of the linear combinations, row m holding m of each.
+         */
+        private final double[][] weights;
+        private final Vector[][] terms;
+        private VectorStepper starting;
+        private int head;
+        private int count;
+        private double t;
+        private double tau;
+        private boolean hasDerivative;
+        private int order;
+        private int stepsAtOrder;
+        private int rejected;
+
+        private Stepper(VectorODE ode, VectorStepper starting, Vector xi, double tEnd) {
+            this.ode = ode;
+            this.tEnd = tEnd;
+            this.sign = tEnd < starting.getT() ? -1 : 1;
+            this.adams = new AdamsWeights();
+            this.times = new double[CAPACITY];
+            this.derivatives = new Vector[CAPACITY];
+            for (int j = 0; j < CAPACITY; ++j) {
+                derivatives[j] = Vector.mutableLike(xi);
+            }
+            this.nodes = new double[CAPACITY + 1];
+            this.predictor = new double[CAPACITY + 1];
+            this.corrector = new double[CAPACITY + 1];
+            this.xCorrect = Vector.mutableLike(xi);
+            this.xPredict = Vector.mutableLike(xi);
+            this.fPredict = Vector.mutableLike(xi);
+            this.error = Vector.mutableLike(xi);
+            this.weights = new double[CAPACITY + 2][];
+            this.terms = new Vector[CAPACITY + 2][];
+            for (int m = 0; m < weights.length; ++m) {
+                weights[m] = new double[m];
+                terms[m] = new Vector[m];
+            }
+            this.starting = starting;
+            this.head = CAPACITY - 1;
+            this.x = starting.getX();
+            this.t = starting.getT();
+            this.tau = starting.getStepSize();
+            this.order = Math.min(START_ORDER, maxOrder);
+        }
+
+        @Override
+        public double getT() {
+            return t;
+        }
+
+        @Override
+        public Vector getX() {
+            return x;
+        }
+
+        @Override
+        public Vector getDerivative() {
+            if (starting != null) {
+                return starting.getDerivative();
+            }
+            final Vector f = derivatives[(head + 1) % CAPACITY];
+            if (!hasDerivative) {
+                ode.apply(x, t, f);
+                hasDerivative = true;
+            }
+            return f;
+        }
+
+        @Override
+        public double getStepSize() {
+            return tau;
+        }
+
+        @Override
+        public int getRejectedSteps() {
+            return rejected + ((starting != null) ? starting.getRejectedSteps() : 0);
+        }
+
+        @Override
+        public boolean isDone() {
+            return t == tEnd;
+        }
+
+        /**
+         * @param j number of points back from the newest
+         * @return index of the point in the ring buffers
+         */
+        private int point(int j) {
+            int index = head - j;
+            return (index < 0) ? index + CAPACITY : index;
+        }
+
+        /**
+         * dest = scale * (c_0 * fEnd + sum of (c_j - p_j) * f_j), the difference between the correction and the
+         * prediction of an order, or base + scale * sum of p_j * f_j when c is null.
+         *
+         * @param dest  destination
+         * @param base  vector added to the sum, or null
+         * @param c     corrector weights, or null
+         * @param p     predictor weights
+         * @param k     order
+         * @param scale factor of the weights
+         * @param fEnd  derivative at the end of the step, used with the corrector weights
+         */
+        private void combine(Vector dest, Vector base, double[] c, double[] p, int k, double scale, Vector fEnd) {
+            final double[] w = weights[k + 1];
+            final Vector[] v = terms[k + 1];
+            if (c == null) {
+                w[0] = 1.0;
+                v[0] = base;
+            } else {
+                w[0] = scale * c[0];
+                v[0] = fEnd;
+            }
+            for (int j = 1; j <= k; ++j) {
+                w[j] = scale * ((c == null) ? p[j] : c[j] - p[j]);
+                v[j] = derivatives[point(j - 1)];
+            }
+            Vector.linearCombination(dest, w, v);
+        }
+
+        /**
+         * Weighted error estimate of the formulas of an order, the difference between its prediction and correction.
+         *
+         * @param k    order
+         * @param h    step size
+         * @param fEnd derivative at the end of the step
+         * @return error ratio
+         */
+        private double estimate(int k, double h, Vector fEnd) {
+            adams.integrate(nodes, 1, k, predictor);
+            adams.integrate(nodes, 0, k + 1, corrector);
+            combine(error, null, corrector, predictor, k, h, fEnd);
+            return tolerances.norm(norm, error, xPredict, xCorrect);
+        }
+
+        @Override
+        public void step() {
+            if (isDone()) throw new IllegalStateException("The integration has already reached t.");
+            final int next = (head + 1) % CAPACITY;
+            if (starting != null) {
+                derivatives[next].set(starting.getDerivative());
+            } else {
+                getDerivative();
+            }
+            head = next;
+            times[head] = t;
+            count = Math.min(count + 1, CAPACITY);
+            if (starting != null) {
+                if (count < order) {
+                    starting.step();
+                    x = starting.getX();
+                    t = starting.getT();
+                    tau = starting.getStepSize();
+                    return;
+                }
+                x = Vector.mutableLike(xCorrect).set(starting.getX());
+                rejected = starting.getRejectedSteps();
+                starting = null;
+            }
+            final int k = order;
+            for (int iTry = 1; iTry <= maxTry; ++iTry) {
+                final boolean last = sign * (t + tau - tEnd) >= 0.0;
+                final double h = last ? tEnd - t : tau;
+                nodes[0] = 1.0;
+                for (int j = 0; j < Math.min(count, k + 1); ++j) {
+                    nodes[j + 1] = (times[point(j)] - t) / h;
+                }
+                adams.integrate(nodes, 1, k, predictor);
+                adams.integrate(nodes, 0, k + 1, corrector);
+                combine(xPredict, x, null, predictor, k, h, null);
+                ode.apply(xPredict, t + h, fPredict);
+                combine(error, null, corrector, predictor, k, h, fPredict);
+                Vector.addScaled(xPredict, 1.0, error, xCorrect);
+                final double errorRatio = tolerances.norm(norm, error, xPredict, xCorrect);
+                if (errorRatio <= 1.0) {
+                    ++stepsAtOrder;
+                    double factor = Math.pow(errorRatio, -1.0 / (k + 1));
+                    if (stepsAtOrder > k) {
+                        double lower = (k > 1) ? estimate(k - 1, h, fPredict) : Double.POSITIVE_INFINITY;
+                        double higher = (k < maxOrder && count > k)
+                                ? estimate(k + 1, h, fPredict)
+                                : Double.POSITIVE_INFINITY;
+                        double lowerFactor = Math.pow(lower, -1.0 / k);
+                        double higherFactor = Math.pow(higher, -1.0 / (k + 2));
+                        if (lowerFactor > factor) {
+                            factor = lowerFactor;
+                            order = k - 1;
+                        }
+                        if (higherFactor > factor) {
+                            factor = higherFactor;
+                            order = k + 1;
+                        }
+                        if (order != k) {
+                            stepsAtOrder = 0;
+                        }
+                    }
+                    tau = h * Math.min(MAX_FACTOR, SAFETY * factor);
+                    final Vector swap = x;
+                    x = xCorrect;
+                    xCorrect = swap;
+                    t = last ? tEnd : t + h;
+                    hasDerivative = false;
+                    return;
+                }
+                final double factor = SAFETY * Math.pow(errorRatio, -1.0 / (k + 1));
+                tau = h * ((factor > MIN_FACTOR) ? factor : MIN_FACTOR);
+                ++rejected;
+            }
+            String errorMessage = String.format("Adams-Bashforth-Moulton failed at ti = %f.", t);
+            throw new IllegalStateException(errorMessage);
+        }
+    }
+
+    /**
+     * Builder class for the Vector First Order Adams-Bashforth-Moulton class.
+     */
+    public static class Builder {
+
+        /**
+         * Desired local truncation error.
+         */
+        private double err;
+
+        /**
+         * Relative tolerance of each component.
+         */
+        private double[] relTols;
+
+        /**
+         * Absolute tolerance of every component.
+         */
+        private double absTol;
+
+        /**
+         * Absolute tolerance of each component.
+         */
+        private double[] absTols;
+
+        /**
+         * Norm combining the weighted errors of the components.
+         */
+        private ErrorNorm norm;
+
+        /**
+         * Highest order to use.
+         */
+        private int maxOrder;
+
+        /**
+         * Initial step size of the Runge-Kutta steps, or 0 to estimate it from the ode at the initial condition.
+         */
+        private double initialTau;
+
+        /**
+         * Maximum attempts before failing to reach the desired error.
+         */
+        private int maxTry;
+
+        /**
+         * Get a builder instance with default settings.
+         *
+         * @return builder
+         */
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        /**
+         * Private Constructor.
+         */
+        private Builder() {
+            this.err = 1e-6;
+            this.absTol = 1e-9;
+            this.norm = ErrorNorm.MAX;
+            this.maxOrder = MAX_ORDER;
+            this.initialTau = 0.0;
+            this.maxTry = 100;
+        }
+
+        /**
+         * @param err desired fractional local truncation error
+         * @return this
+         */
+        public Builder setLocalTruncationError(double err) {
+            if (!(err > 0.0)) throw new IllegalArgumentException("Local truncation error must be positive.");
+            this.err = err;
+            this.relTols = null;
+            return this;
+        }
+
+        /**
+         * @param relTols desired fractional local truncation error of each component
+         * @return this
+         */
+        public Builder setRelativeTolerance(Vector relTols) {
+            this.relTols = Tolerances.copy(relTols, "Relative tolerance");
+            return this;
+        }
+
+        /**
+         * @param absTol desired absolute local truncation error of every component
+         * @return this
+         */
+        public Builder setAbsoluteTolerance(double absTol) {
+            if (absTol < 0.0) throw new IllegalArgumentException("Absolute tolerance must be non-negative.");
+            this.absTol = absTol;
+            this.absTols = null;
+            return this;
+        }
+
+        /**
+         * @param absTols desired absolute local truncation error of each component
+         * @return this
+         */
+        public Builder setAbsoluteTolerance(Vector absTols) {
+            this.absTols = Tolerances.copy(absTols, "Absolute tolerance");
+            return this;
+        }
+
+        /**
+         * @param norm norm combining the weighted errors of the components
+         * @return this
+         */
+        public Builder setErrorNorm(ErrorNorm norm) {
+            if (norm == null) throw new IllegalArgumentException("Error norm cannot be null.");
+            this.norm = norm;
+            return this;
+        }
+
+        /**
+         * @param maxOrder highest order to use, from 1 to {@link #MAX_ORDER}
+         * @return this
+         */
+        public Builder setMaximumOrder(int maxOrder) {
+            if (maxOrder < 1 || maxOrder > MAX_ORDER) {
+                throw new IllegalArgumentException("Maximum order must be between 1 and " + MAX_ORDER + ".");
+            }
+            this.maxOrder = maxOrder;
+            return this;
+        }
+
+        /**
+         * Set the initial step size of the Runge-Kutta steps instead of estimating it from the ode at the initial
+         * condition.
+         *
+         * @param initialTau initial step size
+         * @return this
+         */
+        public Builder setInitialStepSize(double initialTau) {
+            if (initialTau == 0.0) throw new IllegalArgumentException("Initial step size cannot be zero.");
+            this.initialTau = initialTau;
+            return this;
+        }
+
+        /**
+         * @param maxTry maximum number of tries to converge on an acceptable step size
+         * @return this
+         */
+        public Builder setMaximumTries(int maxTry) {
+            if (maxTry < 0) throw new IllegalArgumentException("Maximum tries must be positive.");
+            this.maxTry = maxTry;
+            return this;
+        }
+
+        /**
+         * Build the Vector First Order Adams-Bashforth-Moulton class with this builder's parameters.
+         *
+         * @return abm instance
+         */
+        public VectorAdamsBashforthMoulton build() {
+            return new VectorAdamsBashforthMoulton(this);
+        }
+    }
+}
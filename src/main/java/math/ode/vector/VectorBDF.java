@@ -0,0 +1,727 @@
+package math.ode.vector;
+
+import java.util.function.BiFunction;
+
+/**
+ * Vector First Order Variable Order Backward Differentiation Formula(BDF) Algorithm for stiff ODEs, of orders 1 to 5.
+ * <p>
+ * The history is kept as backward differences of the solution, which are rescaled whenever the step size changes,
+ * and the implicit equation of each step is solved by a simplified Newton iteration with the matrix I - c * J. The
+ * factorization of that matrix is kept until the step size or the order changes, and the Jacobian J is kept for the
+ * whole integration, only evaluated again when the iteration fails to converge. The step size and the order are
+ * chosen after enough steps of the same size by comparing the error estimates of the neighbouring orders.
+ */
+public class VectorBDF implements VectorODESolver {
+
+    /**
+     * Highest order supported.
+     */
+    public static final int MAX_ORDER = 5;
+
+    /**
+     * Maximum Newton iterations per attempt.
+     */
+    private static final int NEWTON_ITERATIONS = 4;
+
+    /**
+     * Smallest factor applied to the step size after an error test failure.
+     */
+    private static final double MIN_FACTOR = 0.2;
+
+    /**
+     * Largest factor applied to the step size after an accepted step.
+     */
+    private static final double MAX_FACTOR = 10.0;
+
+    /**
+     * Coefficient of the differences of each order, the sum of 1/j for j = 1..k.
+     */
+    private static final double[] GAMMA = new double[MAX_ORDER + 2];
+
+    /**
+     * Error constant of each order, 1 / (k + 1).
+     */
+    private static final double[] ERROR_CONSTANT = new double[MAX_ORDER + 2];
+
+    static {
+        for (int k = 1; k <= MAX_ORDER + 1; ++k) {
+            GAMMA[k] = GAMMA[k - 1] + 1.0 / k;
+        }
+        for (int k = 0; k <= MAX_ORDER + 1; ++k) {
+            ERROR_CONSTANT[k] = 1.0 / (k + 1);
+        }
+    }
+
+    /**
+     * Tolerances of the components.
+     */
+    private final Tolerances tolerances;
+
+    /**
+     * Norm combining the weighted errors of the components.
+     */
+    private final ErrorNorm norm;
+
+    /**
+     * Jacobian of the ode, or null to estimate it by finite differences.
+     */
+    private final VectorJacobian jacobian;
+
+    /**
+     * Sparsity pattern of the Jacobian, or null for a dense Jacobian.
+     */
+    private final SparsityPattern sparsity;
+
+    /**
+     * Number of diagonals of a banded Jacobian below the main diagonal, or negative if not banded.
+     */
+    private final int lower;
+
+    /**
+     * Number of diagonals of a banded Jacobian above the main diagonal.
+     */
+    private final int upper;
+
+    /**
+     * Highest order to use.
+     */
+    private final int maxOrder;
+
+    /**
+     * Initial step size.
+     */
+    private final double initialTau;
+
+    /**
+     * Maximum attempts before failing to reach the desired error.
+     */
+    private final int maxTry;
+
+    /**
+     * Tolerance of the weighted norm of the Newton updates.
+     */
+    private final double newtonTol;
+
+    /**
+     * Private Constructor.
+     *
+     * @param builder builder to set the parameters
+     */
+    private VectorBDF(Builder builder) {
+        this.tolerances = new Tolerances(builder.err, builder.relTols, builder.absTol, builder.absTols);
+        this.norm = builder.norm;
+        this.jacobian = builder.jacobian;
+        this.sparsity = builder.sparsity;
+        this.lower = builder.lower;
+        this.upper = builder.upper;
+        this.maxOrder = builder.maxOrder;
+        this.initialTau = builder.initialTau;
+        this.maxTry = builder.maxTry;
+        double rtol = (builder.relTols == null) ? builder.err : minimum(builder.relTols);
+        this.newtonTol = Math.max(10.0 * Math.ulp(1.0) / rtol, Math.min(0.03, Math.sqrt(rtol)));
+    }
+
+    /**
+     * @param values non-empty values
+     * @return smallest value
+     */
+    private static double minimum(double[] values) {
+        double out = Double.POSITIVE_INFINITY;
+        for (double value : values) {
+            out = Math.min(out, value);
+        }
+        return out;
+    }
+
+    @Override
+    public VectorStepper stepper(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double t) {
+        return new Stepper((x, tim, dxdt) -> dxdt.set(ode.apply(x, tim)), xi, ti, t, initialTau);
+    }
+
+    @Override
+    public VectorStepper stepper(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double t, double tau) {
+        return new Stepper((x, tim, dxdt) -> dxdt.set(ode.apply(x, tim)), xi, ti, t, Math.abs(tau));
+    }
+
+    @Override
+    public VectorStepper stepper(VectorODE ode, Vector xi, double ti, double t) {
+        return new Stepper(ode, xi, ti, t, initialTau);
+    }
+
+    @Override
+    public VectorStepper stepper(VectorODE ode, Vector xi, double ti, double t, double tau) {
+        return new Stepper(ode, xi, ti, t, Math.abs(tau));
+    }
+
+    /**
+     * Adaptive integration state updated in place. The last step is shortened to land exactly on the desired value.
+     */
+    private final class Stepper implements VectorStepper {
+
+        private final VectorODE ode;
+        private final double tEnd;
+        private final int sign;
+        private final Matrix dfdx;
+        private final LUDecomposition lu;
+        private final FiniteDifferenceJacobian estimator;
+        /**
+         * Backward differences of the solution scaled by powers of the step size, the solution itself first.
+         */
+        private Vector[] differences;
+        private Vector[] spare;
+        private final Vector f;
+        private final Vector fNew;
+        private final Vector xPredict;
+        private final Vector xNew;
+        private final Vector psi;
+        private final Vector d;
+        private final Vector dy;
+        /**
+         * Coefficients and vectors of the linear combinations, row m holding m of each.
+         */
+        private final double[][] weights;
+        private final Vector[][] terms;
+        private final double[][] r;
+        private final double[][] u;
+        private final double[] newtonWeights;
+        private final Vector[] newtonTerms;
+        private double t;
+        private double hAbs;
+        private int order;
+        private int equalSteps;
+        private boolean hasDerivative;
+        private boolean factored;
+        private double factoredC;
+        private int rejected;
+
+        private Stepper(VectorODE ode, Vector xi, double ti, double tEnd, double tau) {
+            tolerances.check(xi.length());
+            this.ode = ode;
+            this.tEnd = tEnd;
+            this.sign = tEnd < ti ? -1 : 1;
+            this.dfdx = Matrix.jacobian(xi.length(), sparsity, lower, upper);
+            this.lu = dfdx.decomposition();
+            this.estimator = new FiniteDifferenceJacobian(xi);
+            this.differences = new Vector[MAX_ORDER + 3];
+            this.spare = new Vector[MAX_ORDER + 1];
+            for (int k = 0; k < differences.length; ++k) {
+                differences[k] = Vector.mutableLike(xi);
+            }
+            for (int k = 0; k < spare.length; ++k) {
+                spare[k] = Vector.mutableLike(xi);
+            }
+            this.f = Vector.mutableLike(xi);
+            this.fNew = Vector.mutableLike(xi);
+            this.xPredict = Vector.mutableLike(xi);
+            this.xNew = Vector.mutableLike(xi);
+            this.psi = Vector.mutableLike(xi);
+            this.d = Vector.mutableLike(xi);
+            this.dy = Vector.mutableLike(xi);
+            this.weights = new double[MAX_ORDER + 2][];
+            this.terms = new Vector[MAX_ORDER + 2][];
+            for (int m = 0; m < weights.length; ++m) {
+                weights[m] = new double[m];
+                terms[m] = new Vector[m];
+            }
+            this.r = new double[MAX_ORDER + 1][MAX_ORDER + 1];
+            this.u = new double[MAX_ORDER + 1][MAX_ORDER + 1];
+            this.newtonWeights = new double[]{0.0, -1.0, -1.0};
+            this.newtonTerms = new Vector[]{fNew, psi, d};
+            this.t = ti;
+            this.hAbs = tau;
+            this.order = 1;
+            differences[0].set(xi);
+            ode.apply(differences[0], t, f);
+            hasDerivative = true;
+            differences[1].set(f).mult(sign * hAbs, VectorType.MUTABLE);
+            updateJacobian(differences[0], t, f);
+        }
+
+        @Override
+        public double getT() {
+            return t;
+        }
+
+        @Override
+        public Vector getX() {
+            return differences[0];
+        }
+
+        @Override
+        public Vector getDerivative() {
+            if (!hasDerivative) {
+                ode.apply(differences[0], t, f);
+                hasDerivative = true;
+            }
+            return f;
+        }
+
+        @Override
+        public double getStepSize() {
+            return sign * hAbs;
+        }
+
+        @Override
+        public int getRejectedSteps() {
+            return rejected;
+        }
+
+        @Override
+        public boolean isDone() {
+            return t == tEnd;
+        }
+
+        /**
+         * Evaluate the Jacobian.
+         *
+         * @param x    dependent variables
+         * @param time independent variable
+         * @param fx   dx/dt(x, time)
+         */
+        private void updateJacobian(Vector x, double time, Vector fx) {
+            dfdx.clear();
+            if (jacobian != null) {
+                jacobian.apply(x, time, dfdx);
+            } else {
+                estimator.estimate(ode, x, time, fx, dfdx);
+            }
+            factored = false;
+        }
+
+        /**
+         * Fill the coefficients that rescale differences of the given order to a step size multiplied by factor.
+         *
+         * @param out    destination
+         * @param factor ratio of the new step size to the old one
+         */
+        private void rescaling(double[][] out, double factor) {
+            for (int j = 0; j <= order; ++j) {
+                out[0][j] = 1.0;
+            }
+            for (int i = 1; i <= order; ++i) {
+                out[i][0] = 0.0;
+                for (int j = 1; j <= order; ++j) {
+                    out[i][j] = out[i - 1][j] * (i - 1 - factor * j) / i;
+                }
+            }
+        }
+
+        /**
+         * Rescale the differences to a new step size.
+         *
+         * @param factor ratio of the new step size to the old one
+         */
+        private void changeStepSize(double factor) {
+            rescaling(r, factor);
+            rescaling(u, 1.0);
+            final double[] w = weights[order + 1];
+            final Vector[] v = terms[order + 1];
+            System.arraycopy(differences, 0, v, 0, order + 1);
+            for (int k = 0; k <= order; ++k) {
+                for (int m = 0; m <= order; ++m) {
+                    // Element (m, k) of r * u
+                    double ru = 0.0;
+                    for (int j = 0; j <= order; ++j) {
+                        ru += r[m][j] * u[j][k];
+                    }
+                    w[m] = ru;
+                }
+                Vector.linearCombination(spare[k], w, v);
+            }
+            for (int k = 0; k <= order; ++k) {
+                Vector swap = differences[k];
+                differences[k] = spare[k];
+                spare[k] = swap;
+            }
+            equalSteps = 0;
+        }
+
+        /**
+         * Predict the solution at the end of the step by extrapolating the differences, and compute the part psi of
+         * the implicit equation that only depends on the history.
+         */
+        private void predict() {
+            double[] w = weights[order + 1];
+            Vector[] v = terms[order + 1];
+            for (int k = 0; k <= order; ++k) {
+                w[k] = 1.0;
+                v[k] = differences[k];
+            }
+            Vector.linearCombination(xPredict, w, v);
+            w = weights[order];
+            v = terms[order];
+            for (int k = 1; k <= order; ++k) {
+                w[k - 1] = GAMMA[k] / GAMMA[order];
+                v[k - 1] = differences[k];
+            }
+            Vector.linearCombination(psi, w, v);
+        }
+
+        /**
+         * Solve the implicit equation of the step by simplified Newton iterations from the predictor.
+         *
+         * @param tNew end of the step
+         * @param c    step size divided by the leading coefficient
+         * @return number of iterations, or 0 if the iteration did not converge
+         */
+        private int newton(double tNew, double c) {
+            final int n = d.length();
+            Vector.linearCombination(d, weights[0], terms[0]);
+            xNew.set(xPredict);
+            double dyNormOld = 0.0;
+            for (int k = 0; k < NEWTON_ITERATIONS; ++k) {
+                ode.apply(xNew, tNew, fNew);
+                for (int i = 0; i < n; ++i) {
+                    if (!Double.isFinite(fNew.get(i))) return 0;
+                }
+                newtonWeights[0] = c;
+                Vector.linearCombination(dy, newtonWeights, newtonTerms);
+                lu.solve(dy, dy);
+                double dyNorm = tolerances.norm(norm, dy, xPredict, xPredict);
+                double rate = (k == 0) ? Double.NaN : dyNorm / dyNormOld;
+                if (k > 0 && (rate >= 1.0
+                        || Math.pow(rate, NEWTON_ITERATIONS - k) / (1.0 - rate) * dyNorm > newtonTol)) {
+                    return 0;
+                }
+                Vector.axpy(1.0, dy, xNew);
+                Vector.axpy(1.0, dy, d);
+                if (dyNorm == 0.0 || (k > 0 && rate / (1.0 - rate) * dyNorm < newtonTol)) {
+                    return k + 1;
+                }
+                dyNormOld = dyNorm;
+            }
+            return 0;
+        }
+
+        @Override
+        public void step() {
+            if (isDone()) throw new IllegalStateException("The integration has already reached t.");
+            final double minStep = 10.0 * Math.ulp(t);
+            boolean jacobianCurrent = false;
+            int iterations = 0;
+            double errorNorm = 0.0;
+            double tNew = t;
+            for (int iTry = 1; ; ++iTry) {
+                if (iTry > maxTry || hAbs < minStep) {
+                    String errorMessage = String.format("BDF failed at ti = %f.", t);
+                    throw new IllegalStateException(errorMessage);
+                }
+                tNew = t + sign * hAbs;
+                if (sign * (tNew - tEnd) >= 0.0) {
+                    tNew = tEnd;
+                    double factor = Math.abs(tNew - t) / hAbs;
+                    if (factor != 1.0) {
+                        changeStepSize(factor);
+                    }
+                    hAbs = Math.abs(tNew - t);
+                }
+                final double h = tNew - t;
+                predict();
+                final double c = h / GAMMA[order];
+                while (true) {
+                    if (!factored || c != factoredC) {
+                        factored = lu.factor(dfdx, 1.0, -c);
+                        factoredC = c;
+                    }
+                    iterations = factored ? newton(tNew, c) : 0;
+                    if (iterations > 0 || jacobianCurrent) break;
+                    ode.apply(xPredict, tNew, fNew);
+                    updateJacobian(xPredict, tNew, fNew);
+                    jacobianCurrent = true;
+                }
+                if (iterations == 0) {
+                    hAbs *= 0.5;
+                    changeStepSize(0.5);
+                    ++rejected;
+                    continue;
+                }
+                double safety = 0.9 * (2 * NEWTON_ITERATIONS + 1) / (2 * NEWTON_ITERATIONS + iterations);
+                errorNorm = ERROR_CONSTANT[order] * tolerances.norm(norm, d, xNew, xNew);
+                if (errorNorm > 1.0) {
+                    double factor = Math.max(MIN_FACTOR, safety * Math.pow(errorNorm, -1.0 / (order + 1)));
+                    hAbs *= factor;
+                    changeStepSize(factor);
+                    ++rejected;
+                    continue;
+                }
+                accept(tNew, safety, errorNorm);
+                return;
+            }
+        }
+
+        /**
+         * Update the differences with the accepted step and choose the next step size and order.
+         *
+         * @param tNew      end of the step
+         * @param safety    safety factor, smaller after slow convergence
+         * @param errorNorm weighted error estimate of the step
+         */
+        private void accept(double tNew, double safety, double errorNorm) {
+            ++equalSteps;
+            t = tNew;
+            hasDerivative = false;
+            // d is the difference of order + 1, the one above it is the change of d since the last step
+            weights[2][0] = 1.0;
+            weights[2][1] = -1.0;
+            terms[2][0] = d;
+            terms[2][1] = differences[order + 1];
+            Vector.linearCombination(differences[order + 2], weights[2], terms[2]);
+            differences[order + 1].set(d);
+            for (int k = order; k >= 0; --k) {
+                Vector.axpy(1.0, differences[k + 1], differences[k]);
+            }
+            if (equalSteps < order + 1) return;
+            Vector x = differences[0];
+            double lower = (order > 1)
+                    ? ERROR_CONSTANT[order - 1] * tolerances.norm(norm, differences[order], x, x)
+                    : Double.POSITIVE_INFINITY;
+            double higher = (order < maxOrder)
+                    ? ERROR_CONSTANT[order + 1] * tolerances.norm(norm, differences[order + 2], x, x)
+                    : Double.POSITIVE_INFINITY;
+            double lowerFactor = Math.pow(lower, -1.0 / order);
+            double sameFactor = Math.pow(errorNorm, -1.0 / (order + 1));
+            double higherFactor = Math.pow(higher, -1.0 / (order + 2));
+            double factor = sameFactor;
+            int newOrder = order;
+            if (lowerFactor > factor) {
+                factor = lowerFactor;
+                newOrder = order - 1;
+            }
+            if (higherFactor > factor) {
+                factor = higherFactor;
+                newOrder = order + 1;
+            }
+            order = newOrder;
+            factor = Math.min(MAX_FACTOR, safety * factor);
+            hAbs *= factor;
+            changeStepSize(factor);
+        }
+    }
+
+    /**
+     * Builder class for the Vector BDF class.
+     */
+    public static class Builder {
+
+        /**
+         * Desired local truncation error.
+         */
+        private double err;
+
+        /**
+         * Relative tolerance of each component.
+         */
+        private double[] relTols;
+
+        /**
+         * Absolute tolerance of every component.
+         */
+        private double absTol;
+
+        /**
+         * Absolute tolerance of each component.
+         */
+        private double[] absTols;
+
+        /**
+         * Norm combining the weighted errors of the components.
+         */
+        private ErrorNorm norm;
+
+        /**
+         * Jacobian of the ode.
+         */
+        private VectorJacobian jacobian;
+
+        /**
+         * Sparsity pattern of the Jacobian.
+         */
+        private SparsityPattern sparsity;
+
+        /**
+         * Number of diagonals of a banded Jacobian below the main diagonal.
+         */
+        private int lower;
+
+        /**
+         * Number of diagonals of a banded Jacobian above the main diagonal.
+         */
+        private int upper;
+
+        /**
+         * Highest order to use.
+         */
+        private int maxOrder;
+
+        /**
+         * Initial step size.
+         */
+        private double initialTau;
+
+        /**
+         * Maximum attempts before failing to reach the desired error.
+         */
+        private int maxTry;
+
+        /**
+         * Get a builder instance with default settings.
+         *
+         * @return builder
+         */
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        /**
+         * Private Constructor.
+         */
+        private Builder() {
+            this.err = 1e-6;
+            this.absTol = 1e-9;
+            this.lower = -1;
+            this.upper = -1;
+            this.norm = ErrorNorm.MAX;
+            this.maxOrder = MAX_ORDER;
+            this.initialTau = 1e-4;
+            this.maxTry = 100;
+        }
+
+        /**
+         * @param err desired fractional local truncation error
+         * @return this
+         */
+        public Builder setLocalTruncationError(double err) {
+            if (!(err > 0.0)) throw new IllegalArgumentException("Local truncation error must be positive.");
+            this.err = err;
+            this.relTols = null;
+            return this;
+        }
+
+        /**
+         * @param relTols desired fractional local truncation error of each component
+         * @return this
+         */
+        public Builder setRelativeTolerance(Vector relTols) {
+            double[] copy = Tolerances.copy(relTols, "Relative tolerance");
+            if (copy.length == 0 || !(minimum(copy) > 0.0)) {
+                throw new IllegalArgumentException("Relative tolerance must be positive.");
+            }
+            this.relTols = copy;
+            return this;
+        }
+
+        /**
+         * @param absTol desired absolute local truncation error of every component
+         * @return this
+         */
+        public Builder setAbsoluteTolerance(double absTol) {
+            if (absTol < 0.0) throw new IllegalArgumentException("Absolute tolerance must be non-negative.");
+            this.absTol = absTol;
+            this.absTols = null;
+            return this;
+        }
+
+        /**
+         * @param absTols desired absolute local truncation error of each component
+         * @return this
+         */
+        public Builder setAbsoluteTolerance(Vector absTols) {
+            this.absTols = Tolerances.copy(absTols, "Absolute tolerance");
+            return this;
+        }
+
+        /**
+         * @param norm norm combining the weighted errors of the components
+         * @return this
+         */
+        public Builder setErrorNorm(ErrorNorm norm) {
+            if (norm == null) throw new IllegalArgumentException("Error norm cannot be null.");
+            this.norm = norm;
+            return this;
+        }
+
+        /**
+         * @param jacobian Jacobian of the ode, or null to estimate it by finite differences
+         * @return this
+         */
+        public Builder setJacobian(VectorJacobian jacobian) {
+            this.jacobian = jacobian;
+            return this;
+        }
+
+        /**
+         * Keep the Jacobian in a sparse matrix with this pattern, estimated with one evaluation of the ode per color
+         * of the pattern when no Jacobian is set, and factored with the fill-in of the pattern only. Replaces a
+         * bandwidth.
+         *
+         * @param sparsity pattern of the nonzero elements of the Jacobian, or null for a dense Jacobian
+         * @return this
+         */
+        public Builder setSparsity(SparsityPattern sparsity) {
+            this.sparsity = sparsity;
+            if (sparsity != null) {
+                this.lower = -1;
+                this.upper = -1;
+            }
+            return this;
+        }
+
+        /**
+         * Keep the Jacobian in a band matrix, estimated with one evaluation of the ode per lower + upper + 1
+         * columns when no Jacobian is set, and factored with partial pivoting within the band. Replaces a sparsity
+         * pattern.
+         *
+         * @param lower number of diagonals below the main diagonal
+         * @param upper number of diagonals above the main diagonal
+         * @return this
+         */
+        public Builder setBandwidth(int lower, int upper) {
+            if (lower < 0 || upper < 0) throw new IllegalArgumentException("Bandwidths must be non-negative.");
+            this.lower = lower;
+            this.upper = upper;
+            this.sparsity = null;
+            return this;
+        }
+
+        /**
+         * @param maxOrder highest order to use, from 1 to {@link #MAX_ORDER}
+         * @return this
+         */
+        public Builder setMaximumOrder(int maxOrder) {
+            if (maxOrder < 1 || maxOrder > MAX_ORDER) {
+                throw new IllegalArgumentException("Maximum order must be between 1 and " + MAX_ORDER + ".");
+            }
+            this.maxOrder = maxOrder;
+            return this;
+        }
+
+        /**
+         * @param initialTau initial step size
+         * @return this
+         */
+        public Builder setInitialStepSize(double initialTau) {
+            if (initialTau == 0.0) throw new IllegalArgumentException("Initial step size cannot be zero.");
+            this.initialTau = initialTau;
+            return this;
+        }
+
+        /**
+         * @param maxTry maximum number of tries to converge on an acceptable step size
+         * @return this
+         */
+        public Builder setMaximumTries(int maxTry) {
+            if (maxTry < 0) throw new IllegalArgumentException("Maximum tries must be positive.");
+            this.maxTry = maxTry;
+            return this;
+        }
+
+        /**
+         * Build the Vector BDF class with this builder's parameters.
+         *
+         * @return bdf instance
+         */
+        public VectorBDF build() {
+            return new VectorBDF(this);
+        }
+    }
+}
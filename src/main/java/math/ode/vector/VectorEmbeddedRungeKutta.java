@@ -0,0 +1,489 @@
+package math.ode.vector;
+
+import math.ode.utils.ButcherTableau;
+import math.ode.utils.StepSizeController;
+
+import java.util.function.BiFunction;
+
+/**
+ * Vector First Order Adaptive Runge-Kutta Algorithm using an embedded pair for the error estimate.
+ */
+public class VectorEmbeddedRungeKutta implements VectorODESolver {
+
+    /**
+     * Default absolute tolerance, the smallest double value to avoid any divide by zero in the error ratio computation.
+     */
+    private static final double EPS = Math.ulp(1.0);
+
+    /**
+     * Stage times as fractions of the step size.
+     */
+    private final double[] c;
+
+    /**
+     * Stage coefficients.
+     */
+    private final double[][] a;
+
+    /**
+     * Solution weights.
+     */
+    private final double[] b;
+
+    /**
+     * Error estimate weights.
+     */
+    private final double[] e;
+
+    /**
+     * Whether the last stage is the first stage of the next step.
+     */
+    private final boolean fsal;
+
+    /**
+     * Exponent applied to the error ratio when choosing the next step size.
+     */
+    private final double exponent;
+
+    /**
+     * Desired local truncation error.
+     */
+    private final double err;
+
+    /**
+     * Relative tolerance of each component, or null to use err for all of them.
+     */
+    private final double[] relTols;
+
+    /**
+     * Absolute tolerance of every component.
+     */
+    private final double absTol;
+
+    /**
+     * Absolute tolerance of each component, or null to use absTol for all of them.
+     */
+    private final double[] absTols;
+
+    /**
+     * Norm combining the weighted errors of the components.
+     */
+    private final ErrorNorm norm;
+
+    /**
+     * Initial step size.
+     */
+    private final double initialTau;
+
+    /**
+     * Maximum attempts before failing to reach the desired error.
+     */
+    private final int maxTry;
+
+    /**
+     * Safety factor 1.
+     */
+    private final double safe1;
+
+    /**
+     * Safety factor 2.
+     */
+    private final double safe2;
+
+    /**
+     * Step size controller.
+     */
+    private final StepSizeController controller;
+
+    /**
+     * Private Constructor.
+     *
+     * @param builder builder to set the parameters
+     */
+    private VectorEmbeddedRungeKutta(Builder builder) {
+        this.c = builder.tableau.getC();
+        this.a = builder.tableau.getA();
+        this.b = builder.tableau.getB();
+        this.e = builder.tableau.getE();
+        this.fsal = builder.tableau.isFirstSameAsLast();
+        this.exponent = builder.tableau.getStepExponent();
+        this.err = builder.err;
+        this.relTols = builder.relTols;
+        this.absTol = builder.absTol;
+        this.absTols = builder.absTols;
+        this.norm = builder.norm;
+        this.initialTau = builder.initialTau;
+        this.maxTry = builder.maxTry;
+        this.safe1 = builder.safe1;
+        this.safe2 = builder.safe2;
+        this.controller = builder.controller;
+    }
+
+    @Override
+    public VectorStepper stepper(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double t) {
+        return new Stepper((x, tim, dxdt) -> dxdt.set(ode.apply(x, tim)), xi, ti, t, initialTau);
+    }
+
+    @Override
+    public VectorStepper stepper(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double t, double tau) {
+        return new Stepper((x, tim, dxdt) -> dxdt.set(ode.apply(x, tim)), xi, ti, t, Math.abs(tau));
+    }
+
+    @Override
+    public VectorStepper stepper(VectorODE ode, Vector xi, double ti, double t) {
+        return new Stepper(ode, xi, ti, t, initialTau);
+    }
+
+    @Override
+    public VectorStepper stepper(VectorODE ode, Vector xi, double ti, double t, double tau) {
+        return new Stepper(ode, xi, ti, t, Math.abs(tau));
+    }
+
+    /**
+     * Adaptive integration state updated in place. The last step is shortened to land exactly on the desired value.
+     */
+    private final class Stepper implements VectorStepper {
+
+        private final VectorODE ode;
+        private final double tEnd;
+        private final int sign;
+        private final Vector[] k;
+        private final Vector xTemp;
+        private final double[][] weights;
+        private final Vector[][] terms;
+        private final StepSizeController.Control control;
+        private Vector x;
+        private Vector xNew;
+        private double t;
+        private double tau;
+        private boolean hasDerivative;
+
+        private Stepper(VectorODE ode, Vector xi, double ti, double tEnd, double tau) {
+            if ((relTols != null && relTols.length != xi.length())
+                    || (absTols != null && absTols.length != xi.length())) {
+                throw new IllegalArgumentException("Tolerance vector length must match the initial value.");
+            }
+            this.ode = ode;
+            this.tEnd = tEnd;
+            this.sign = tEnd < ti ? -1 : 1;
+            this.k = new Vector[c.length];
+            for (int s = 0; s < k.length; ++s) {
+                k[s] = Vector.mutableLike(xi);
+            }
+            this.xTemp = Vector.mutableLike(xi);
+            // Row s combines x and the first s stages into stage s, the last row gives the new solution
+            this.weights = new double[k.length + 1][];
+            this.terms = new Vector[k.length + 1][];
+            for (int s = 1; s <= k.length; ++s) {
+                weights[s] = new double[s + 1];
+                weights[s][0] = 1.0;
+                terms[s] = new Vector[s + 1];
+            }
+            this.x = Vector.mutableLike(xi).set(xi);
+            this.xNew = Vector.mutableLike(xi);
+            this.t = ti;
+            this.tau = sign * tau;
+            this.control = controller.start(-exponent, safe1, safe2);
+        }
+
+        /**
+         * @param s number of stages to combine with x
+         * @return x followed by the first s stages
+         */
+        private Vector[] stageTerms(int s) {
+            Vector[] row = terms[s];
+            row[0] = x;
+            System.arraycopy(k, 0, row, 1, s);
+            return row;
+        }
+
+        @Override
+        public double getT() {
+            return t;
+        }
+
+        @Override
+        public Vector getX() {
+            return x;
+        }
+
+        @Override
+        public Vector getDerivative() {
+            if (!hasDerivative) {
+                ode.apply(x, t, k[0]);
+                hasDerivative = true;
+            }
+            return k[0];
+        }
+
+        @Override
+        public double getStepSize() {
+            return tau;
+        }
+
+        @Override
+        public int getRejectedSteps() {
+            return control.getRejectedSteps();
+        }
+
+        @Override
+        public boolean isDone() {
+            return t == tEnd;
+        }
+
+        @Override
+        public void step() {
+            if (isDone()) throw new IllegalStateException("The integration has already reached t.");
+            final int stages = k.length;
+            final int n = x.length();
+            getDerivative();
+            for (int iTry = 1; iTry <= maxTry; ++iTry) {
+                final boolean last = sign * (t + tau - tEnd) >= 0.0;
+                final double h = last ? tEnd - t : tau;
+                for (int s = 1; s < stages; ++s) {
+                    for (int j = 0; j < s; ++j) {
+                        weights[s][j + 1] = h * a[s][j];
+                    }
+                    ode.apply(Vector.linearCombination(xTemp, weights[s], stageTerms(s)), t + c[s] * h, k[s]);
+                }
+                for (int s = 0; s < stages; ++s) {
+                    weights[stages][s + 1] = h * b[s];
+                }
+                Vector.linearCombination(xNew, weights[stages], stageTerms(stages));
+                double errorRatio = 0.0;
+                for (int i = 0; i < n; ++i) {
+                    double error = 0.0;
+                    for (int s = 0; s < stages; ++s) {
+                        error += e[s] * k[s].get(i);
+                    }
+                    double rtol = (relTols == null) ? err : relTols[i];
+                    double atol = (absTols == null) ? absTol : absTols[i];
+                    double scale = rtol * (Math.abs(x.get(i)) + Math.abs(xNew.get(i))) / 2.0 + atol;
+                    errorRatio = norm.accumulate(errorRatio, Math.abs(h * error) / scale);
+                }
+                errorRatio = norm.finish(errorRatio, n);
+                tau = h * control.factor(errorRatio);
+                if (errorRatio < 1.0) {
+                    t = last ? tEnd : t + h;
+                    Vector swap = x;
+                    x = xNew;
+                    xNew = swap;
+                    if (fsal) {
+                        swap = k[0];
+                        k[0] = k[stages - 1];
+                        k[stages - 1] = swap;
+                    }
+                    hasDerivative = fsal;
+                    return;
+                }
+            }
+            String errorMessage = String.format("Embedded Runge-Kutta failed at ti = %f.", t);
+            throw new IllegalStateException(errorMessage);
+        }
+    }
+
+    /**
+     * Builder class for the Vector Embedded Runge-Kutta class.
+     */
+    public static class Builder {
+
+        /**
+         * Embedded pair.
+         */
+        private ButcherTableau tableau;
+
+        /**
+         * Desired local truncation error.
+         */
+        private double err;
+
+        /**
+         * Relative tolerance of each component.
+         */
+        private double[] relTols;
+
+        /**
+         * Absolute tolerance of every component.
+         */
+        private double absTol;
+
+        /**
+         * Absolute tolerance of each component.
+         */
+        private double[] absTols;
+
+        /**
+         * Norm combining the weighted errors of the components.
+         */
+        private ErrorNorm norm;
+
+        /**
+         * Initial step size.
+         */
+        private double initialTau;
+
+        /**
+         * Maximum attempts before failing to reach the desired error.
+         */
+        private int maxTry;
+
+        /**
+         * Safety factor 1.
+         */
+        private double safe1;
+
+        /**
+         * Safety factor 2.
+         */
+        private double safe2;
+
+        /**
+         * Step size controller.
+         */
+        private StepSizeController controller;
+
+        /**
+         * Get a builder instance with default settings.
+         *
+         * @return builder
+         */
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        /**
+         * Private Constructor.
+         */
+        private Builder() {
+            this.tableau = ButcherTableau.DORMAND_PRINCE_54;
+            this.err = 1e-12;
+            this.absTol = EPS;
+            this.norm = ErrorNorm.MAX;
+            this.initialTau = 0.1;
+            this.safe1 = 0.9;
+            this.safe2 = 4.0;
+            this.controller = StepSizeController.INTEGRAL;
+            this.maxTry = 100;
+        }
+
+        /**
+         * @param tableau embedded pair
+         * @return this
+         */
+        public Builder setTableau(ButcherTableau tableau) {
+            if (tableau == null) throw new IllegalArgumentException("Tableau cannot be null.");
+            this.tableau = tableau;
+            return this;
+        }
+
+        /**
+         * @param err desired fractional local truncation error
+         * @return this
+         */
+        public Builder setLocalTruncationError(double err) {
+            if (err < 0) throw new IllegalArgumentException("Local truncation error must be positive.");
+            this.err = err;
+            this.relTols = null;
+            return this;
+        }
+
+        /**
+         * @param relTols desired fractional local truncation error of each component
+         * @return this
+         */
+        public Builder setRelativeTolerance(Vector relTols) {
+            this.relTols = Tolerances.copy(relTols, "Relative tolerance");
+            return this;
+        }
+
+        /**
+         * @param absTol desired absolute local truncation error of every component
+         * @return this
+         */
+        public Builder setAbsoluteTolerance(double absTol) {
+            if (absTol < 0.0) throw new IllegalArgumentException("Absolute tolerance must be non-negative.");
+            this.absTol = absTol;
+            this.absTols = null;
+            return this;
+        }
+
+        /**
+         * @param absTols desired absolute local truncation error of each component
+         * @return this
+         */
+        public Builder setAbsoluteTolerance(Vector absTols) {
+            this.absTols = Tolerances.copy(absTols, "Absolute tolerance");
+            return this;
+        }
+
+        /**
+         * @param norm norm combining the weighted errors of the components
+         * @return this
+         */
+        public Builder setErrorNorm(ErrorNorm norm) {
+            if (norm == null) throw new IllegalArgumentException("Error norm cannot be null.");
+            this.norm = norm;
+            return this;
+        }
+
+        /**
+         * @param initialTau initial step size
+         * @return this
+         */
+        public Builder setInitialStepSize(double initialTau) {
+            if (initialTau == 0.0) throw new IllegalArgumentException("Initial step size cannot be zero.");
+            this.initialTau = initialTau;
+            return this;
+        }
+
+        /**
+         * @param maxTry maximum number of tries to converge on an acceptable step size
+         * @return this
+         */
+        public Builder setMaximumTries(int maxTry) {
+            if (maxTry < 0) throw new IllegalArgumentException("Maximum tries must be positive.");
+            this.maxTry = maxTry;
+            return this;
+        }
+
+        /**
+         * @param safe1 safety factor 1 (value must be non-negative and less than 1.0)
+         * @return this
+         */
+        public Builder setSafetyFactor1(double safe1) {
+            if (safe1 < 0.0) throw new IllegalArgumentException("Safety Factor 1 must be non-negative.");
+            if (safe1 >= 1.0) throw new IllegalArgumentException("Safety Factor 1 must be less than 1.0.");
+            this.safe1 = safe1;
+            return this;
+        }
+
+        /**
+         * @param safe2 safety factor 2 (value must be greater than 1.0)
+         * @return this
+         */
+        public Builder setSafetyFactor2(double safe2) {
+            if (safe2 <= 1.0) throw new IllegalArgumentException("Safety Factor 2 must be greater than 1.0.");
+            this.safe2 = safe2;
+            return this;
+        }
+
+        /**
+         * @param controller step size controller
+         * @return this
+         */
+        public Builder setStepSizeController(StepSizeController controller) {
+            if (controller == null) throw new IllegalArgumentException("Step size controller cannot be null.");
+            this.controller = controller;
+            return this;
+        }
+
+        /**
+         * Build the Vector Embedded Runge-Kutta class with this builder's parameters.
+         *
+         * @return rka instance
+         */
+        public VectorEmbeddedRungeKutta build() {
+            return new VectorEmbeddedRungeKutta(this);
+        }
+    }
+}
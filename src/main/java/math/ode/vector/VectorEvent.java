@@ -0,0 +1,51 @@
+package math.ode.vector;
+
+import math.ode.utils.EventAction;
+
+/**
+ * Event of a Vector First Order ODE integration, occurring where the event function g(t, x) crosses zero. The
+ * function is checked after every accepted step and crossings are located on the step's interpolant, so events
+ * cost no evaluations of the ode. A function that crosses zero twice within one step is not seen.
+ * <p>
+ * By default an event stops the integration. The vectors passed to the methods belong to the integration and may
+ * be overwritten once they return, copy them to keep them.
+ */
+@FunctionalInterface
+public interface VectorEvent {
+
+    /**
+     * @param t independent variable
+     * @param x dependent variables
+     * @return value of the event function, changing sign at the event
+     */
+    double g(double t, Vector x);
+
+    /**
+     * @return 1 to only detect crossings where g increases along the integration, -1 for crossings where it
+     * decreases, 0 for both
+     */
+    default int getDirection() {
+        return 0;
+    }
+
+    /**
+     * Called at each located event.
+     *
+     * @param t independent variable at the event
+     * @param x dependent variables at the event
+     * @return how the integration carries on
+     */
+    default EventAction handle(double t, Vector x) {
+        return EventAction.STOP;
+    }
+
+    /**
+     * Called after {@link #handle(double, Vector)} returns {@link EventAction#RESET}. A reset event should
+     * usually detect a single direction, so that a new state left just short of zero is not taken for a crossing.
+     *
+     * @param t independent variable at the event
+     * @param x mutable dependent variables at the event, overwritten with the state to restart the integration from
+     */
+    default void reset(double t, Vector x) {
+    }
+}
@@ -0,0 +1,177 @@
+package math.ode.vector;
+
+import math.ode.utils.EventAction;
+import math.ode.utils.RootFinder;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Integration of a Vector First Order ODE checking event functions after every accepted step. A crossing is located
+ * by {@link RootFinder#illinois} on the cubic Hermite interpolant of the step's end states and derivatives, which the
+ * steppers keep for the next step anyway, so locating it costs no evaluations of the ode.
+ */
+final class VectorEvents {
+
+    /**
+     * Start of an integration from a state, used again after each reset.
+     */
+    @FunctionalInterface
+    interface StepperFactory {
+
+        /**
+         * @param xi  initial condition of the dependent variables
+         * @param ti  initial condition of the independent variable
+         * @param tau suggested first step size
+         * @return stepper positioned at the initial condition
+         */
+        VectorStepper stepper(Vector xi, double ti, double tau);
+    }
+
+    /**
+     * Fraction of a step after its start where event functions that are zero at the start are evaluated.
+     */
+    private static final double NUDGE = 1e-9;
+
+    /**
+     * Private Constructor.
+     */
+    private VectorEvents() {
+    }
+
+    /**
+     * @param stepper integration positioned at the initial condition
+     * @param factory start of an integration towards t, used after each reset
+     * @param t       desired value of independent variable
+     * @param events  events to detect
+     * @return state at t, or at the event that stopped the integration
+     */
+    static VectorStep solve(VectorStepper stepper, StepperFactory factory, double t, List<VectorEvent> events) {
+        if (events == null) throw new IllegalArgumentException("Events cannot be null.");
+        final int m = events.size();
+        final double[] tStart = new double[m];
+        final double[] gStart = new double[m];
+        final double[] gEnd = new double[m];
+        for (int i = 0; i < m; ++i) {
+            gStart[i] = events.get(i).g(stepper.getT(), stepper.getX());
+        }
+        final Vector x0 = Vector.mutableLike(stepper.getX());
+        final Vector f0 = Vector.mutableLike(x0);
+        final Vector xEvent = Vector.mutableLike(x0);
+        while (!stepper.isDone()) {
+            final double t0 = stepper.getT();
+            x0.set(stepper.getX());
+            f0.set(stepper.getDerivative());
+            stepper.step();
+            final double t1 = stepper.getT();
+            final Vector x1 = stepper.getX();
+            final Vector f1 = stepper.getDerivative();
+            final double sign = (t1 > t0) ? 1.0 : -1.0;
+            for (int i = 0; i < m; ++i) {
+                gEnd[i] = events.get(i).g(t1, x1);
+            }
+            Arrays.fill(tStart, t0);
+            // An event function left at zero, as after a reset or a crossing ending a step, takes its sign from
+            // just after the start, so a step that leaves zero and returns across it is not missed
+            final double nudge = t0 + (t1 - t0) * NUDGE;
+            for (int i = 0; i < m; ++i) {
+                if (gStart[i] == 0.0 && nudge != t0) {
+                    tStart[i] = nudge;
+                    gStart[i] = events.get(i).g(nudge, hermite(nudge, t0, x0, f0, t1, x1, f1, xEvent));
+                }
+            }
+            boolean restarted = false;
+            while (!restarted) {
+                // Earliest crossing, which the later ones may depend on
+                int first = -1;
+                double tEvent = t1;
+                for (int i = 0; i < m; ++i) {
+                    if (!crosses(events.get(i), gStart[i], gEnd[i])) {
+                        continue;
+                    }
+                    final VectorEvent event = events.get(i);
+                    final double root = RootFinder.illinois(
+                            time -> event.g(time, hermite(time, t0, x0, f0, t1, x1, f1, xEvent)),
+                            tStart[i], gStart[i], t1, gEnd[i], 4.0 * Math.ulp(Math.max(Math.abs(t0), Math.abs(t1))));
+                    if (first < 0 || sign * (root - tEvent) < 0.0) {
+                        first = i;
+                        tEvent = root;
+                    }
+                }
+                if (first < 0) {
+                    System.arraycopy(gEnd, 0, gStart, 0, m);
+                    break;
+                }
+                final VectorEvent event = events.get(first);
+                if (tEvent == t1) {
+                    xEvent.set(x1);
+                } else {
+                    hermite(tEvent, t0, x0, f0, t1, x1, f1, xEvent);
+                }
+                EventAction action = event.handle(tEvent, xEvent);
+                if (action == EventAction.STOP) {
+                    return new VectorStep(tEvent, xEvent);
+                }
+                if (action == EventAction.RESET) {
+                    event.reset(tEvent, xEvent);
+                    if (tEvent == t) {
+                        return new VectorStep(tEvent, xEvent);
+                    }
+                    stepper = factory.stepper(xEvent, tEvent, stepper.getStepSize());
+                    for (int i = 0; i < m; ++i) {
+                        gStart[i] = events.get(i).g(tEvent, xEvent);
+                    }
+                    restarted = true;
+                } else {
+                    // The other events have not crossed before this one, so their brackets still hold
+                    tStart[first] = tEvent;
+                    gStart[first] = event.g(tEvent, xEvent);
+                }
+            }
+        }
+        return new VectorStep(stepper.getT(), stepper.getX());
+    }
+
+    /**
+     * @param event  event to check
+     * @param gStart value of the event function at the start of the interval
+     * @param gEnd   value of the event function at the end of the interval
+     * @return true if the event function crosses zero in the detected direction
+     */
+    private static boolean crosses(VectorEvent event, double gStart, double gEnd) {
+        if (gStart == 0.0 || ((gStart > 0.0) == (gEnd > 0.0) && gEnd != 0.0)) {
+            return false;
+        }
+        final int direction = event.getDirection();
+        return direction == 0 || (direction > 0) == (gStart < 0.0);
+    }
+
+    /**
+     * Cubic Hermite interpolation of a step without allocating.
+     *
+     * @param time independent variable within the step
+     * @param t0   start of the step
+     * @param x0   dependent variables at the start
+     * @param f0   derivatives at the start
+     * @param t1   end of the step
+     * @param x1   dependent variables at the end
+     * @param f1   derivatives at the end
+     * @param dest mutable vector receiving x(time)
+     * @return dest
+     */
+    private static Vector hermite(double time, double t0, Vector x0, Vector f0, double t1, Vector x1, Vector f1,
+                                  Vector dest) {
+        double h = t1 - t0;
+        double s = (time - t0) / h;
+        double s2 = s * s;
+        double s3 = s2 * s;
+        double h00 = 2.0 * s3 - 3.0 * s2 + 1.0;
+        double h10 = (s3 - 2.0 * s2 + s) * h;
+        double h01 = -2.0 * s3 + 3.0 * s2;
+        double h11 = (s3 - s2) * h;
+        for (int j = 0; j < dest.length(); ++j) {
+            dest.set(j, h00 * x0.get(j) + h10 * f0.get(j) + h01 * x1.get(j) + h11 * f1.get(j));
+        }
+        return dest;
+    }
+}
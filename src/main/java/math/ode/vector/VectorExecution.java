@@ -0,0 +1,17 @@
+package math.ode.vector;
+
+/**
+ * Enum that denotes how the element-wise operations of a vector are run.
+ */
+public enum VectorExecution {
+
+    /**
+     * Enum denoting operations that run on the calling thread.
+     */
+    SEQUENTIAL,
+
+    /**
+     * Enum denoting operations that are split into chunks on a ForkJoinPool once the vector is large enough.
+     */
+    PARALLEL
+}
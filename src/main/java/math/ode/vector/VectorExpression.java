@@ -0,0 +1,409 @@
+package math.ode.vector;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lazily evaluated element-wise expression of vectors.
+ * <p>
+ * Chaining operations only builds an expression tree. A terminal operation, {@link #max()}, {@link #min()},
+ * {@link #sum()}, {@link #into(Vector)} or {@link #evaluate()}, then runs the whole tree in one pass over the
+ * elements, block by block, so that no vector sized temporaries are created. On its first evaluation the tree is
+ * flattened into a list of kernels over block sized buffers, with a node that appears several times computed once,
+ * and the buffers are kept. This makes an expression cheap to evaluate repeatedly, for example over mutable vectors
+ * that change between steps, but not safe to evaluate from several threads at once.
+ */
+public abstract class VectorExpression {
+
+    /**
+     * Elements evaluated at a time, small enough for the buffers of a whole tree to stay in the L1 cache.
+     */
+    static final int BLOCK = 256;
+
+    private static final VectorKernels KERNELS = VectorKernels.get();
+
+    /**
+     * Number of elements.
+     */
+    private final int length;
+
+    /**
+     * Flattened tree, compiled on the first evaluation.
+     */
+    private Program program;
+
+    /**
+     * Package Private Constructor.
+     *
+     * @param length number of elements
+     */
+    VectorExpression(int length) {
+        this.length = length;
+    }
+
+    /**
+     * @param vector vector to read the elements of at evaluation time
+     * @return expression of the vector's elements
+     */
+    public static VectorExpression of(Vector vector) {
+        Leaf leaf = new Leaf(vector.length());
+        leaf.bind(vector);
+        return leaf;
+    }
+
+    /**
+     * Leaf to bind a vector to before each evaluation, so that a solver can build its expressions once and evaluate
+     * them on the vectors of every step without allocating.
+     *
+     * @param length number of elements
+     * @return unbound leaf
+     */
+    static Leaf variable(int length) {
+        return new Leaf(length);
+    }
+
+    /**
+     * Add the kernels computing this node to a program, after those of its operands.
+     *
+     * @param program program being compiled
+     * @return buffer holding this node's block
+     */
+    abstract int compile(Program program);
+
+    public int length() {
+        return length;
+    }
+
+    public VectorExpression add(double scalar) {
+        return new Unary(VectorOperation.ADD_SCALAR, this, scalar);
+    }
+
+    public VectorExpression add(Vector vector) {
+        return add(of(vector));
+    }
+
+    public VectorExpression add(VectorExpression expression) {
+        return new Binary(VectorOperation.ADD, this, expression);
+    }
+
+    public VectorExpression sub(double scalar) {
+        return new Unary(VectorOperation.SUBTRACT_SCALAR, this, scalar);
+    }
+
+    public VectorExpression sub(Vector vector) {
+        return sub(of(vector));
+    }
+
+    public VectorExpression sub(VectorExpression expression) {
+        return new Binary(VectorOperation.SUBTRACT, this, expression);
+    }
+
+    public VectorExpression mult(double scalar) {
+        return new Unary(VectorOperation.MULTIPLY_SCALAR, this, scalar);
+    }
+
+    public VectorExpression mult(Vector vector) {
+        return mult(of(vector));
+    }
+
+    public VectorExpression mult(VectorExpression expression) {
+        return new Binary(VectorOperation.MULTIPLY, this, expression);
+    }
+
+    public VectorExpression div(double scalar) {
+        return new Unary(VectorOperation.DIVIDE_SCALAR, this, scalar);
+    }
+
+    public VectorExpression div(Vector vector) {
+        return div(of(vector));
+    }
+
+    public VectorExpression div(VectorExpression expression) {
+        return new Binary(VectorOperation.DIVIDE, this, expression);
+    }
+
+    public VectorExpression negate() {
+        return new Unary(VectorOperation.NEGATE, this, 0.0);
+    }
+
+    public VectorExpression abs() {
+        return new Unary(VectorOperation.ABS, this, 0.0);
+    }
+
+    public VectorExpression sqrt() {
+        return new Unary(VectorOperation.SQRT, this, 0.0);
+    }
+
+    public VectorExpression pow(double exp) {
+        return new Unary(VectorOperation.POW, this, exp);
+    }
+
+    /**
+     * @return largest element
+     */
+    public double max() {
+        if (length == 0) throw new IllegalStateException("The expression has no elements.");
+        Program program = program();
+        double out = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < length; i += BLOCK) {
+            int n = Math.min(BLOCK, length - i);
+            out = Math.max(out, KERNELS.max(program.run(i, n), 0, n));
+        }
+        return out;
+    }
+
+    /**
+     * @return smallest element
+     */
+    public double min() {
+        if (length == 0) throw new IllegalStateException("The expression has no elements.");
+        Program program = program();
+        double out = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < length; i += BLOCK) {
+            int n = Math.min(BLOCK, length - i);
+            out = Math.min(out, KERNELS.min(program.run(i, n), 0, n));
+        }
+        return out;
+    }
+
+    /**
+     * @return sum of the elements
+     */
+    public double sum() {
+        Program program = program();
+        double out = 0.0;
+        for (int i = 0; i < length; i += BLOCK) {
+            int n = Math.min(BLOCK, length - i);
+            double[] block = program.run(i, n);
+            for (int j = 0; j < n; ++j) {
+                out += block[j];
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Write the elements into a vector. Each block is read before it is written, so dest may be one of the vectors
+     * of the expression.
+     *
+     * @param dest mutable destination
+     * @return dest
+     */
+    public Vector into(Vector dest) {
+        if (dest.getType() == VectorType.IMMUTABLE) {
+            throw new IllegalAccessError("The vector is immutable and cannot be modified.");
+        }
+        if (dest.length() != length) throw new IllegalArgumentException("Destination length must match.");
+        Program program = program();
+        for (int i = 0; i < length; i += BLOCK) {
+            int n = Math.min(BLOCK, length - i);
+            dest.getStorage().put(i, program.run(i, n), 0, n);
+        }
+        return dest;
+    }
+
+    /**
+     * @return new mutable vector holding the elements
+     */
+    public Vector evaluate() {
+        return into(Vector.mutable(length));
+    }
+
+    private Program program() {
+        if (program == null) {
+            program = new Program(this);
+        }
+        return program;
+    }
+
+    /**
+     * Elements of a vector.
+     */
+    static final class Leaf extends VectorExpression {
+
+        private VectorStorage storage;
+        private double[] array;
+
+        private Leaf(int length) {
+            super(length);
+        }
+
+        /**
+         * @param vector vector to read the elements of from now on
+         */
+        void bind(Vector vector) {
+            if (vector.length() != length()) throw new IllegalArgumentException("Vector lengths must match.");
+            this.storage = vector.getStorage();
+            this.array = storage.array();
+        }
+
+        @Override
+        int compile(Program program) {
+            return program.addLeaf(this);
+        }
+    }
+
+    /**
+     * Kernel applied to one expression and a scalar.
+     */
+    private static final class Unary extends VectorExpression {
+
+        private final VectorOperation operation;
+        private final VectorExpression operand;
+        private final double scalar;
+
+        private Unary(VectorOperation operation, VectorExpression operand, double scalar) {
+            super(operand.length());
+            this.operation = operation;
+            this.operand = operand;
+            this.scalar = scalar;
+        }
+
+        @Override
+        int compile(Program program) {
+            return program.addKernel(operation, program.compile(operand), Program.NONE, scalar);
+        }
+    }
+
+    /**
+     * Kernel applied to two expressions of the same length.
+     */
+    private static final class Binary extends VectorExpression {
+
+        private final VectorOperation operation;
+        private final VectorExpression left;
+        private final VectorExpression right;
+
+        private Binary(VectorOperation operation, VectorExpression left, VectorExpression right) {
+            super(left.length());
+            if (right.length() != left.length()) throw new IllegalArgumentException("Vector lengths must match.");
+            this.operation = operation;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int compile(Program program) {
+            return program.addKernel(operation, program.compile(left), program.compile(right), 0.0);
+        }
+    }
+
+    /**
+     * Expression tree flattened into kernels over block buffers, ordered so that every operand is computed before it
+     * is used. For each block the leaves are loaded first, then the kernels run in order, each into its own buffer,
+     * and the buffer of the root holds the block of the expression.
+     * <p>
+     * While compiling, leaves are numbered 0, 1, ... and kernels -2, -3, ..., as the number of leaves is not known
+     * until the whole tree has been seen. Afterwards the leaves come first in the buffers and the kernels after them.
+     */
+    static final class Program {
+
+        /**
+         * Number of the missing second operand of a unary kernel.
+         */
+        static final int NONE = -1;
+
+        private final Map<VectorExpression, Integer> compiled = new IdentityHashMap<>();
+        private final List<Leaf> leafList = new ArrayList<>();
+        private final List<Kernel> kernelList = new ArrayList<>();
+        private final int blockLength;
+        private final int root;
+        private final Leaf[] leaves;
+        private final Kernel[] kernels;
+        private final double[][] buffers;
+        private final double[][] blocks;
+
+        private Program(VectorExpression expression) {
+            this.blockLength = Math.min(BLOCK, Math.max(expression.length(), 1));
+            this.root = compile(expression);
+            this.leaves = leafList.toArray(new Leaf[0]);
+            this.kernels = kernelList.toArray(new Kernel[0]);
+            this.buffers = new double[leaves.length + kernels.length][];
+            this.blocks = new double[buffers.length][];
+            // Leaf buffers are only needed once a leaf cannot be read in place, so those are allocated on demand
+            for (int k = leaves.length; k < buffers.length; ++k) {
+                buffers[k] = new double[blockLength];
+            }
+        }
+
+        private int compile(VectorExpression node) {
+            Integer number = compiled.get(node);
+            if (number == null) {
+                number = node.compile(this);
+                compiled.put(node, number);
+            }
+            return number;
+        }
+
+        private int addLeaf(Leaf leaf) {
+            leafList.add(leaf);
+            return leafList.size() - 1;
+        }
+
+        private int addKernel(VectorOperation operation, int a, int b, double scalar) {
+            kernelList.add(new Kernel(operation, a, b, scalar));
+            return -kernelList.size() - 1;
+        }
+
+        /**
+         * @param number number given while compiling
+         * @return index into the buffers
+         */
+        private int index(int number) {
+            return (number >= 0) ? number : leaves.length - number - 2;
+        }
+
+        /**
+         * Evaluate one block.
+         *
+         * @param from   first element
+         * @param length number of elements, at most {@link #BLOCK}
+         * @return array holding the block from index 0
+         */
+        double[] run(int from, int length) {
+            for (int l = 0; l < leaves.length; ++l) {
+                Leaf leaf = leaves[l];
+                if (leaf.storage == null) throw new IllegalStateException("No vector is bound to the expression.");
+                // The buffers are indexed from the start of the block, so only the first block of a heap vector can
+                // be read in place
+                if (from == 0 && leaf.array != null) {
+                    blocks[l] = leaf.array;
+                } else {
+                    if (buffers[l] == null) {
+                        buffers[l] = new double[blockLength];
+                    }
+                    leaf.storage.get(from, buffers[l], 0, length);
+                    blocks[l] = buffers[l];
+                }
+            }
+            for (int k = 0; k < kernels.length; ++k) {
+                Kernel kernel = kernels[k];
+                double[] out = buffers[leaves.length + k];
+                double[] b = (kernel.b == NONE) ? null : blocks[index(kernel.b)];
+                KERNELS.apply(kernel.operation, blocks[index(kernel.a)], b, kernel.scalar, out, 0, length);
+                blocks[leaves.length + k] = out;
+            }
+            return blocks[index(root)];
+        }
+    }
+
+    /**
+     * One kernel of a program, reading the buffers numbered a and b.
+     */
+    private static final class Kernel {
+
+        private final VectorOperation operation;
+        private final int a;
+        private final int b;
+        private final double scalar;
+
+        private Kernel(VectorOperation operation, int a, int b, double scalar) {
+            this.operation = operation;
+            this.a = a;
+            this.b = b;
+            this.scalar = scalar;
+        }
+    }
+}
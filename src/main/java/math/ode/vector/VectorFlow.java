@@ -0,0 +1,20 @@
+package math.ode.vector;
+
+/**
+ * Flow of one part of an ode split in two, advancing positions q and momenta p in place over a substep, for the
+ * splitting schemes of {@link VectorSymplectic}. The flow is exact or a symplectic approximation, such as the drift
+ * q += h * dq/dt(p) or the kick p += h * dp/dt(q) of a separable Hamiltonian.
+ */
+@FunctionalInterface
+public interface VectorFlow {
+
+    /**
+     * Advance the state over a substep.
+     *
+     * @param q positions, updated in place
+     * @param p momenta, updated in place
+     * @param t independent variable at the start of the substep
+     * @param h substep, negative when integrating backwards
+     */
+    void apply(Vector q, Vector p, double t, double h);
+}
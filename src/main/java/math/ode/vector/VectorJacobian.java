@@ -0,0 +1,26 @@
+package math.ode.vector;
+
+/**
+ * Jacobian df/dx(x, t) of the right-hand side of a Vector First Order ODE, for the implicit solvers.
+ */
+@FunctionalInterface
+public interface VectorJacobian {
+
+    /**
+     * Evaluate the Jacobian into a matrix, with element (i, j) the derivative of dx_i/dt with respect to x_j.
+     *
+     * @param x    dependent variables (read only)
+     * @param t    independent variable
+     * @param dfdx matrix receiving df/dx(x, t), zeroed before each call so only nonzero elements need to be set
+     */
+    void apply(Vector x, double t, Matrix dfdx);
+
+    /**
+     * @param a constant Jacobian, such as the matrix of a linear ode
+     * @return Jacobian copying a into the solver's matrix, whose structure must hold the nonzero elements of a
+     */
+    static VectorJacobian constant(Matrix a) {
+        if (a == null) throw new IllegalArgumentException("Matrix cannot be null.");
+        return (x, t, dfdx) -> a.copyInto(dfdx);
+    }
+}
@@ -0,0 +1,123 @@
+package math.ode.vector;
+
+/**
+ * Loops over primitive arrays behind the heap {@link Vector} operations.
+ * <p>
+ * This class holds the portable scalar loops, which are left to the JIT auto-vectorizer. On JDK 17+ the
+ * multi-release jar also contains {@code SimdKernels}, which overrides the arithmetic, abs, max, min and
+ * dotProduct loops with explicit SIMD code from the {@code jdk.incubator.vector} module. It is
+ * selected when the module is resolved, for example with {@code --add-modules jdk.incubator.vector}, unless the
+ * {@value #SIMD_PROPERTY} system property is false. Element-wise results are identical to the scalar loops, and
+ * only the order of the additions in dotProduct differs: each product is rounded before it is added, as in the
+ * scalar loop, rather than fused.
+ */
+class VectorKernels {
+
+    /**
+     * System property that disables the SIMD kernels when set to false.
+     */
+    static final String SIMD_PROPERTY = "math.ode.vector.simd";
+
+    private static final VectorKernels SCALAR = new VectorKernels();
+
+    private static final VectorKernels SELECTED = select();
+
+    /**
+     * Package Private Constructor.
+     */
+    VectorKernels() {
+    }
+
+    /**
+     * @return portable scalar kernels
+     */
+    static VectorKernels scalar() {
+        return SCALAR;
+    }
+
+    /**
+     * @return SIMD kernels if available and enabled, else the scalar kernels
+     */
+    static VectorKernels get() {
+        return SELECTED;
+    }
+
+    private static VectorKernels select() {
+        if (!Boolean.parseBoolean(System.getProperty(SIMD_PROPERTY, "true"))) {
+            return SCALAR;
+        }
+        try {
+            // Loaded reflectively, as the class only exists in the JDK 17 part of the multi-release jar
+            Class<?> simd = Class.forName("math.ode.vector.SimdKernels");
+            return (VectorKernels) simd.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Older JDK, or the incubator module is not resolved
+            return SCALAR;
+        }
+    }
+
+    /**
+     * @return whether the kernels use explicit SIMD instructions
+     */
+    boolean isVectorized() {
+        return false;
+    }
+
+    /**
+     * @param operation element-wise kernel
+     * @param a         first operand
+     * @param b         second operand, null for operations of one array
+     * @param s         scalar operand
+     * @param out       output, may be a or b
+     * @param from      first index, inclusive
+     * @param to        last index, exclusive
+     */
+    void apply(VectorOperation operation, double[] a, double[] b, double s, double[] out, int from, int to) {
+        operation.apply(a, b, s, out, from, to);
+    }
+
+    double dotProduct(double[] a, double[] b, int from, int to) {
+        return VectorOperation.dotProduct(a, b, from, to);
+    }
+
+    double max(double[] a, int from, int to) {
+        return VectorOperation.max(a, from, to);
+    }
+
+    double min(double[] a, int from, int to) {
+        return VectorOperation.min(a, from, to);
+    }
+
+    void linearCombination(double[] out, int from, int to, double c0, double[] v0) {
+        for (int i = from; i < to; ++i) {
+            out[i] = c0 * v0[i];
+        }
+    }
+
+    void linearCombination(double[] out, int from, int to, double c0, double[] v0, double c1, double[] v1) {
+        for (int i = from; i < to; ++i) {
+            out[i] = c0 * v0[i] + c1 * v1[i];
+        }
+    }
+
+    void linearCombination(double[] out, int from, int to, double c0, double[] v0, double c1, double[] v1,
+                           double c2, double[] v2) {
+        for (int i = from; i < to; ++i) {
+            out[i] = c0 * v0[i] + c1 * v1[i] + c2 * v2[i];
+        }
+    }
+
+    void linearCombination(double[] out, int from, int to, double c0, double[] v0, double c1, double[] v1,
+                           double c2, double[] v2, double c3, double[] v3) {
+        for (int i = from; i < to; ++i) {
+            out[i] = c0 * v0[i] + c1 * v1[i] + c2 * v2[i] + c3 * v3[i];
+        }
+    }
+
+    void linearCombination(double[] out, int from, int to, double c0, double[] v0, double c1, double[] v1,
+                           double c2, double[] v2, double c3, double[] v3, double c4, double[] v4) {
+        for (int i = from; i < to; ++i) {
+            out[i] = c0 * v0[i] + c1 * v1[i] + c2 * v2[i] + c3 * v3[i] + c4 * v4[i];
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package math.ode.vector;
+
+import java.util.function.BiFunction;
+
+/**
+ * In-place right-hand side dx/dt(x, t) of a Vector First Order Ordinary Differential Equation(ODE).
+ * <p>
+ * The ode writes its result into a caller-provided vector instead of returning a new one, which lets the solvers
+ * keep their stage vectors across steps. Implementations must not modify {@code x}. Extends {@link BiFunction} so
+ * an in-place ode can also be passed to any method expecting an allocating ode.
+ */
+@FunctionalInterface
+public interface VectorODE extends BiFunction<Vector, Double, Vector> {
+
+    /**
+     * Evaluate the right-hand side of the ode into {@code dxdt}.
+     *
+     * @param x    dependent variables (read only)
+     * @param t    independent variable
+     * @param dxdt mutable vector receiving dx/dt(x, t)
+     */
+    void apply(Vector x, double t, Vector dxdt);
+
+    /**
+     * @param a matrix of the linear ode
+     * @return ode dx/dt = a * x
+     */
+    static VectorODE linear(Matrix a) {
+        return linear(a, null);
+    }
+
+    /**
+     * @param a matrix of the linear ode
+     * @param b constant term, or null for none
+     * @return ode dx/dt = a * x + b
+     */
+    static VectorODE linear(Matrix a, Vector b) {
+        if (a == null) throw new IllegalArgumentException("Matrix cannot be null.");
+        if (b != null && b.length() != a.size()) {
+            throw new IllegalArgumentException("Vector lengths must match the matrix size.");
+        }
+        return (x, t, dxdt) -> {
+            a.multiply(x, dxdt);
+            if (b != null) {
+                dxdt.add(b, VectorType.MUTABLE);
+            }
+        };
+    }
+
+    @Override
+    default Vector apply(Vector x, Double t) {
+        Vector dxdt = Vector.mutableLike(x);
+        apply(x, t, dxdt);
+        return dxdt;
+    }
+}
@@ -1,13 +1,79 @@
 package math.ode.vector;
 
+import math.ode.utils.ParallelLoop;
+import math.ode.utils.SolverStatistics;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Interface that represents a Numerical Method for Solving Vector First Order Ordinary Differential Equations(ODEs).
  */
 public interface VectorODESolver {
 
+    /**
+     * Start a step by step integration of the Vector First Order ODE.
+     *
+     * @param ode right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial condition of the dependent variables
+     * @param ti  initial condition of the independent variable
+     * @param t   desired value of independent variable
+     * @return stepper positioned at the initial condition
+     */
+    VectorStepper stepper(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double t);
+
+    /**
+     * Start a step by step integration of the Vector First Order ODE given an in-place right-hand side.
+     * Solvers that keep reusable stage vectors override this; by default the ode allocates its result.
+     *
+     * @param ode in-place right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial condition of the dependent variables
+     * @param ti  initial condition of the independent variable
+     * @param t   desired value of independent variable
+     * @return stepper positioned at the initial condition
+     */
+    default VectorStepper stepper(VectorODE ode, Vector xi, double ti, double t) {
+        return stepper((BiFunction<Vector, Double, Vector>) ode, xi, ti, t);
+    }
+
+    /**
+     * Start a step by step integration of the Vector First Order ODE with a suggested first step size, such as the
+     * last accepted step size of an earlier integration being resumed. Fixed step solvers ignore it.
+     *
+     * @param ode right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial condition of the dependent variables
+     * @param ti  initial condition of the independent variable
+     * @param t   desired value of independent variable
+     * @param tau suggested first step size
+     * @return stepper positioned at the initial condition
+     */
+    default VectorStepper stepper(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double t, double tau) {
+        return stepper(ode, xi, ti, t);
+    }
+
+    /**
+     * Start a step by step integration of the Vector First Order ODE given an in-place right-hand side with a
+     * suggested first step size. Fixed step solvers ignore it.
+     *
+     * @param ode in-place right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial condition of the dependent variables
+     * @param ti  initial condition of the independent variable
+     * @param t   desired value of independent variable
+     * @param tau suggested first step size
+     * @return stepper positioned at the initial condition
+     */
+    default VectorStepper stepper(VectorODE ode, Vector xi, double ti, double t, double tau) {
+        return stepper(ode, xi, ti, t);
+    }
+
     /**
      * Computations for solving the Vector First Order Vector ODE.
      *
@@ -17,10 +83,303 @@ public interface VectorODESolver {
      * @param t   desired value of independent variable
      * @return computed value of x(t)
      */
-    Vector solve(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double t);
+    default Vector solve(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double t) {
+        VectorStepper stepper = stepper(ode, xi, ti, t);
+        while (!stepper.isDone()) {
+            stepper.step();
+        }
+        return stepper.getX();
+    }
 
     /**
-     * Get the solution function for the Vector ODE.
+     * Computations for solving the Vector First Order Vector ODE given an in-place right-hand side.
+     *
+     * @param ode in-place right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial condition of the dependent variables
+     * @param ti  initial condition of the independent variable
+     * @param t   desired value of independent variable
+     * @return computed value of x(t)
+     */
+    default Vector solve(VectorODE ode, Vector xi, double ti, double t) {
+        VectorStepper stepper = stepper(ode, xi, ti, t);
+        while (!stepper.isDone()) {
+            stepper.step();
+        }
+        return stepper.getX();
+    }
+
+    /**
+     * Solve the Vector First Order ODE recording the work done and calling a listener after every accepted step.
+     * Without statistics the ode is not wrapped and the clock is not read, without a listener nothing is called, so
+     * with neither the integration costs what {@link #solve(BiFunction, Vector, double, double)} does.
+     *
+     * @param ode        right-hand side of the first order ode dx/dt(x, t)
+     * @param xi         initial condition of the dependent variables
+     * @param ti         initial condition of the independent variable
+     * @param t          desired value of independent variable
+     * @param statistics statistics to fill in, or null for none
+     * @param listener   listener to call after every accepted step, or null for none
+     * @return computed value of x(t)
+     */
+    default Vector solve(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double t,
+                         SolverStatistics statistics, VectorStepListener listener) {
+        if (statistics == null && listener == null) {
+            return solve(ode, xi, ti, t);
+        }
+        if (statistics != null) {
+            statistics.start();
+        }
+        VectorStepper stepper = null;
+        try {
+            BiFunction<Vector, Double, Vector> counted = (statistics == null)
+                    ? ode
+                    : new CountingVectorODE.Boxed(ode, statistics);
+            stepper = stepper(counted, xi, ti, t);
+            return VectorODESolver.finish(stepper, statistics, listener);
+        } finally {
+            if (statistics != null) {
+                statistics.stop((stepper == null) ? 0 : stepper.getRejectedSteps());
+            }
+        }
+    }
+
+    /**
+     * Solve the Vector First Order ODE given an in-place right-hand side recording the work done and calling a
+     * listener after every accepted step.
+     *
+     * @param ode        in-place right-hand side of the first order ode dx/dt(x, t)
+     * @param xi         initial condition of the dependent variables
+     * @param ti         initial condition of the independent variable
+     * @param t          desired value of independent variable
+     * @param statistics statistics to fill in, or null for none
+     * @param listener   listener to call after every accepted step, or null for none
+     * @return computed value of x(t)
+     */
+    default Vector solve(VectorODE ode, Vector xi, double ti, double t, SolverStatistics statistics,
+                         VectorStepListener listener) {
+        if (statistics == null && listener == null) {
+            return solve(ode, xi, ti, t);
+        }
+        if (statistics != null) {
+            statistics.start();
+        }
+        VectorStepper stepper = null;
+        try {
+            VectorODE counted = (statistics == null) ? ode : new CountingVectorODE(ode, statistics);
+            stepper = stepper(counted, xi, ti, t);
+            return VectorODESolver.finish(stepper, statistics, listener);
+        } finally {
+            if (statistics != null) {
+                statistics.stop((stepper == null) ? 0 : stepper.getRejectedSteps());
+            }
+        }
+    }
+
+    /**
+     * @param stepper    integration to finish
+     * @param statistics statistics to count the accepted steps in, or null for none
+     * @param listener   listener to call after every accepted step, or null for none
+     * @return value of x at the end of the integration
+     */
+    static Vector finish(VectorStepper stepper, SolverStatistics statistics, VectorStepListener listener) {
+        while (!stepper.isDone()) {
+            final double tOld = stepper.getT();
+            stepper.step();
+            if (statistics != null) {
+                statistics.countStep(stepper.getT() - tOld);
+            }
+            if (listener != null) {
+                listener.onStep(stepper);
+            }
+        }
+        return stepper.getX();
+    }
+
+    /**
+     * Solve the Vector First Order ODE checking event functions after every accepted step. Each crossing is located
+     * on the step's interpolant without evaluating the ode and handled in order, stopping the integration, carrying
+     * on, or restarting it from a reset state.
+     *
+     * @param ode    right-hand side of the first order ode dx/dt(x, t)
+     * @param xi     initial condition of the dependent variables
+     * @param ti     initial condition of the independent variable
+     * @param t      desired value of independent variable
+     * @param events events to detect
+     * @return state at t, or at the event that stopped the integration
+     */
+    default VectorStep solve(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double t,
+                             List<VectorEvent> events) {
+        return VectorEvents.solve(stepper(ode, xi, ti, t), (x, time, tau) -> stepper(ode, x, time, t, tau), t,
+                events);
+    }
+
+    /**
+     * Solve the Vector First Order ODE given an in-place right-hand side checking event functions after every
+     * accepted step.
+     *
+     * @param ode    in-place right-hand side of the first order ode dx/dt(x, t)
+     * @param xi     initial condition of the dependent variables
+     * @param ti     initial condition of the independent variable
+     * @param t      desired value of independent variable
+     * @param events events to detect
+     * @return state at t, or at the event that stopped the integration
+     */
+    default VectorStep solve(VectorODE ode, Vector xi, double ti, double t, List<VectorEvent> events) {
+        return VectorEvents.solve(stepper(ode, xi, ti, t), (x, time, tau) -> stepper(ode, x, time, t, tau), t,
+                events);
+    }
+
+    /**
+     * Lazily stream the state after every accepted step, starting with the initial condition and ending at t.
+     * Each step is only taken when the stream pulls the next element, so a consumer that stops early, for example
+     * with {@code limit} or {@code takeWhile}, stops the integration, and no steps are buffered.
+     *
+     * @param ode right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial condition of the dependent variables
+     * @param ti  initial condition of the independent variable
+     * @param t   desired value of independent variable
+     * @return sequential ordered stream of steps
+     */
+    default Stream<VectorStep> steps(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double t) {
+        return VectorODESolver.steps(stepper(ode, xi, ti, t));
+    }
+
+    /**
+     * Lazily stream the state after every accepted step given an in-place right-hand side.
+     *
+     * @param ode in-place right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial condition of the dependent variables
+     * @param ti  initial condition of the independent variable
+     * @param t   desired value of independent variable
+     * @return sequential ordered stream of steps
+     */
+    default Stream<VectorStep> steps(VectorODE ode, Vector xi, double ti, double t) {
+        return VectorODESolver.steps(stepper(ode, xi, ti, t));
+    }
+
+    /**
+     * @param stepper integration to take a step of each time an element is pulled
+     * @return sequential ordered stream of steps
+     */
+    static Stream<VectorStep> steps(VectorStepper stepper) {
+        Spliterator<VectorStep> spliterator = new Spliterators.AbstractSpliterator<VectorStep>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE) {
+
+            private boolean started;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super VectorStep> action) {
+                if (started) {
+                    if (stepper.isDone()) {
+                        return false;
+                    }
+                    stepper.step();
+                }
+                started = true;
+                action.accept(new VectorStep(stepper.getT(), stepper.getX()));
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    /**
+     * Solve the Vector First Order ODE for every initial condition of an ensemble in parallel on the common
+     * {@link ForkJoinPool}. Members are stored one after the other, n values each.
+     *
+     * @param ode right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial conditions of the dependent variables, n per member
+     * @param n   number of dependent variables
+     * @param ti  initial condition of the independent variable
+     * @param t   desired value of independent variable
+     * @return computed values of x(t), in the layout of xi
+     */
+    default double[] solveAll(BiFunction<Vector, Double, Vector> ode, double[] xi, int n, double ti, double t) {
+        return solveAll(ode, xi, n, ti, t, new double[xi.length], ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Solve the Vector First Order ODE for every initial condition of an ensemble in parallel into a preallocated
+     * array. Members are split into chunks that idle workers steal, so members of very different cost still keep
+     * every worker busy.
+     *
+     * @param ode      right-hand side of the first order ode dx/dt(x, t)
+     * @param xi       initial conditions of the dependent variables, n per member
+     * @param n        number of dependent variables
+     * @param ti       initial condition of the independent variable
+     * @param t        desired value of independent variable
+     * @param x        array receiving the computed values of x(t), may be xi itself
+     * @param executor executor to solve on
+     * @return x
+     */
+    default double[] solveAll(BiFunction<Vector, Double, Vector> ode, double[] xi, int n, double ti, double t,
+                              double[] x, Executor executor) {
+        if (n <= 0 || xi.length % n != 0) throw new IllegalArgumentException("Length of xi must be a multiple of n.");
+        if (x.length != xi.length) throw new IllegalArgumentException("Output length must match xi.");
+        ParallelLoop.forRange(xi.length / n, executor, (from, to) -> {
+            Vector member = Vector.mutable(n);
+            for (int i = from; i < to; ++i) {
+                for (int j = 0; j < n; ++j) {
+                    member.set(j, xi[i * n + j]);
+                }
+                Vector result = solve(ode, member, ti, t);
+                for (int j = 0; j < n; ++j) {
+                    x[i * n + j] = result.get(j);
+                }
+            }
+        });
+        return x;
+    }
+
+    /**
+     * Solve the Vector First Order ODE given an in-place right-hand side for every initial condition of an
+     * ensemble in parallel on the common {@link ForkJoinPool}.
+     *
+     * @param ode in-place right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial conditions of the dependent variables, n per member
+     * @param n   number of dependent variables
+     * @param ti  initial condition of the independent variable
+     * @param t   desired value of independent variable
+     * @return computed values of x(t), in the layout of xi
+     */
+    default double[] solveAll(VectorODE ode, double[] xi, int n, double ti, double t) {
+        return solveAll(ode, xi, n, ti, t, new double[xi.length], ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Solve the Vector First Order ODE given an in-place right-hand side for every initial condition of an
+     * ensemble in parallel into a preallocated array.
+     *
+     * @param ode      in-place right-hand side of the first order ode dx/dt(x, t)
+     * @param xi       initial conditions of the dependent variables, n per member
+     * @param n        number of dependent variables
+     * @param ti       initial condition of the independent variable
+     * @param t        desired value of independent variable
+     * @param x        array receiving the computed values of x(t), may be xi itself
+     * @param executor executor to solve on
+     * @return x
+     */
+    default double[] solveAll(VectorODE ode, double[] xi, int n, double ti, double t, double[] x, Executor executor) {
+        if (n <= 0 || xi.length % n != 0) throw new IllegalArgumentException("Length of xi must be a multiple of n.");
+        if (x.length != xi.length) throw new IllegalArgumentException("Output length must match xi.");
+        ParallelLoop.forRange(xi.length / n, executor, (from, to) -> {
+            Vector member = Vector.mutable(n);
+            for (int i = from; i < to; ++i) {
+                for (int j = 0; j < n; ++j) {
+                    member.set(j, xi[i * n + j]);
+                }
+                Vector result = solve(ode, member, ti, t);
+                for (int j = 0; j < n; ++j) {
+                    x[i * n + j] = result.get(j);
+                }
+            }
+        });
+        return x;
+    }
+
+    /**
+     * Get the solution function for the Vector ODE. The function keeps a small, bounded cache of checkpoints and
+     * resumes each query from the nearest one between ti and the queried value. It is safe to share between threads.
      *
      * @param ode right-hand side of the first order ode dx/dt(x, t)
      * @param xi  initial condition of the dependent variables
@@ -28,6 +387,45 @@ public interface VectorODESolver {
      * @return function x(t)
      */
     default Function<Double, Vector> solution(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti) {
-        return t -> solve(ode, xi, ti, t);
+        return new VectorSolution(this, ode, xi, ti, VectorSolution.DEFAULT_CHECKPOINTS);
+    }
+
+    /**
+     * Get the solution function for the Vector ODE given an in-place right-hand side.
+     *
+     * @param ode in-place right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial condition of the dependent variables
+     * @param ti  initial condition of the independent variable
+     * @return function x(t)
+     */
+    default Function<Double, Vector> solution(VectorODE ode, Vector xi, double ti) {
+        return new VectorSolution(this, ode, xi, ti, VectorSolution.DEFAULT_CHECKPOINTS);
+    }
+
+    /**
+     * Integrate the Vector ODE once and keep every accepted step, so that the solution can be evaluated anywhere
+     * between ti and t without integrating again.
+     *
+     * @param ode right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial condition of the dependent variables
+     * @param ti  initial condition of the independent variable
+     * @param t   final value of independent variable
+     * @return interpolating trajectory over [ti, t]
+     */
+    default VectorTrajectory trajectory(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double t) {
+        return VectorTrajectory.record(stepper(ode, xi, ti, t));
+    }
+
+    /**
+     * Integrate the Vector ODE once given an in-place right-hand side and keep every accepted step.
+     *
+     * @param ode in-place right-hand side of the first order ode dx/dt(x, t)
+     * @param xi  initial condition of the dependent variables
+     * @param ti  initial condition of the independent variable
+     * @param t   final value of independent variable
+     * @return interpolating trajectory over [ti, t]
+     */
+    default VectorTrajectory trajectory(VectorODE ode, Vector xi, double ti, double t) {
+        return VectorTrajectory.record(stepper(ode, xi, ti, t));
     }
 }
@@ -0,0 +1,436 @@
+package math.ode.vector;
+
+/**
+ * Element-wise kernels behind the {@link Vector} operations, applied to a range of primitive arrays. Operands
+ * a, b and the output share indices, out may be the same array as a or b, and unused operands may be null.
+ * Each constant is one tight loop, so the kernel is dispatched once per range rather than once per element.
+ */
+enum VectorOperation {
+
+    /**
+     * Element-wise a + b.
+     */
+    ADD {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = a[i] + b[i];
+            }
+        }
+    },
+
+    /**
+     * Element-wise a - b.
+     */
+    SUBTRACT {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = a[i] - b[i];
+            }
+        }
+    },
+
+    /**
+     * Element-wise a * b.
+     */
+    MULTIPLY {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = a[i] * b[i];
+            }
+        }
+    },
+
+    /**
+     * Element-wise a / b.
+     */
+    DIVIDE {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = a[i] / b[i];
+            }
+        }
+    },
+
+    /**
+     * Element-wise a + s * b.
+     */
+    ADD_SCALED {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = a[i] + s * b[i];
+            }
+        }
+    },
+
+    /**
+     * Element-wise a + s.
+     */
+    ADD_SCALAR {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = a[i] + s;
+            }
+        }
+    },
+
+    /**
+     * Element-wise a - s.
+     */
+    SUBTRACT_SCALAR {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = a[i] - s;
+            }
+        }
+    },
+
+    /**
+     * Element-wise a * s.
+     */
+    MULTIPLY_SCALAR {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = a[i] * s;
+            }
+        }
+    },
+
+    /**
+     * Element-wise a / s.
+     */
+    DIVIDE_SCALAR {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = a[i] / s;
+            }
+        }
+    },
+
+    /**
+     * Element-wise -a.
+     */
+    NEGATE {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = -a[i];
+            }
+        }
+    },
+
+    /**
+     * Element-wise 1 / a.
+     */
+    INVERSE {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = 1.0 / a[i];
+            }
+        }
+    },
+
+    /**
+     * Element-wise a * 2^s, with s an int.
+     */
+    SCALB {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = Math.scalb(a[i], (int) s);
+            }
+        }
+    },
+
+    /**
+     * Element-wise a^s.
+     */
+    POW {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = Math.pow(a[i], s);
+            }
+        }
+    },
+
+    /**
+     * Element-wise Math.signum(a).
+     */
+    SIGNUM {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = Math.signum(a[i]);
+            }
+        }
+    },
+
+    /**
+     * Element-wise Math.abs(a).
+     */
+    ABS {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = Math.abs(a[i]);
+            }
+        }
+    },
+
+    /**
+     * Element-wise Math.exp(a).
+     */
+    EXP {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = Math.exp(a[i]);
+            }
+        }
+    },
+
+    /**
+     * Element-wise Math.expm1(a).
+     */
+    EXPM1 {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = Math.expm1(a[i]);
+            }
+        }
+    },
+
+    /**
+     * Element-wise Math.log(a).
+     */
+    LOG {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = Math.log(a[i]);
+            }
+        }
+    },
+
+    /**
+     * Element-wise Math.log10(a).
+     */
+    LOG10 {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = Math.log10(a[i]);
+            }
+        }
+    },
+
+    /**
+     * Element-wise Math.log1p(a).
+     */
+    LOG1P {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = Math.log1p(a[i]);
+            }
+        }
+    },
+
+    /**
+     * Element-wise Math.cbrt(a).
+     */
+    CBRT {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = Math.cbrt(a[i]);
+            }
+        }
+    },
+
+    /**
+     * Element-wise Math.sqrt(a).
+     */
+    SQRT {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = Math.sqrt(a[i]);
+            }
+        }
+    },
+
+    /**
+     * Element-wise Math.sin(a).
+     */
+    SIN {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = Math.sin(a[i]);
+            }
+        }
+    },
+
+    /**
+     * Element-wise Math.asin(a).
+     */
+    ASIN {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = Math.asin(a[i]);
+            }
+        }
+    },
+
+    /**
+     * Element-wise Math.sinh(a).
+     */
+    SINH {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = Math.sinh(a[i]);
+            }
+        }
+    },
+
+    /**
+     * Element-wise Math.cos(a).
+     */
+    COS {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = Math.cos(a[i]);
+            }
+        }
+    },
+
+    /**
+     * Element-wise Math.acos(a).
+     */
+    ACOS {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = Math.acos(a[i]);
+            }
+        }
+    },
+
+    /**
+     * Element-wise Math.cosh(a).
+     */
+    COSH {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = Math.cosh(a[i]);
+            }
+        }
+    },
+
+    /**
+     * Element-wise Math.tan(a).
+     */
+    TAN {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = Math.tan(a[i]);
+            }
+        }
+    },
+
+    /**
+     * Element-wise Math.atan(a).
+     */
+    ATAN {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = Math.atan(a[i]);
+            }
+        }
+    },
+
+    /**
+     * Element-wise Math.tanh(a).
+     */
+    TANH {
+        @Override
+        void apply(double[] a, double[] b, double s, double[] out, int from, int to) {
+            for (int i = from; i < to; ++i) {
+                out[i] = Math.tanh(a[i]);
+            }
+        }
+    };
+
+    /**
+     * Apply the kernel to the range [from, to) of the operands.
+     *
+     * @param a    first operand
+     * @param b    second operand, null for operations of one vector
+     * @param s    scalar operand
+     * @param out  output
+     * @param from first index, inclusive
+     * @param to   last index, exclusive
+     */
+    abstract void apply(double[] a, double[] b, double s, double[] out, int from, int to);
+
+    /**
+     * @param a    first operand
+     * @param b    second operand
+     * @param from first index, inclusive
+     * @param to   last index, exclusive
+     * @return sum of a[i] * b[i] over the range
+     */
+    static double dotProduct(double[] a, double[] b, int from, int to) {
+        double out = 0.0;
+        for (int i = from; i < to; ++i) {
+            out += a[i] * b[i];
+        }
+        return out;
+    }
+
+    /**
+     * @param a    operand
+     * @param from first index, inclusive
+     * @param to   last index, exclusive, greater than from
+     * @return largest element of the range
+     */
+    static double max(double[] a, int from, int to) {
+        double out = a[from];
+        for (int i = from + 1; i < to; ++i) {
+            out = (a[i] > out) ? a[i] : out;
+        }
+        return out;
+    }
+
+    /**
+     * @param a    operand
+     * @param from first index, inclusive
+     * @param to   last index, exclusive, greater than from
+     * @return smallest element of the range
+     */
+    static double min(double[] a, int from, int to) {
+        double out = a[from];
+        for (int i = from + 1; i < to; ++i) {
+            out = (a[i] < out) ? a[i] : out;
+        }
+        return out;
+    }
+}
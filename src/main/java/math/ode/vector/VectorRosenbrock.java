@@ -0,0 +1,627 @@
+package math.ode.vector;
+
+import math.ode.utils.RosenbrockTableau;
+
+import java.util.function.BiFunction;
+
+/**
+ * Vector First Order Adaptive Rosenbrock Algorithm for stiff ODEs, using an embedded pair for the error estimate.
+ * <p>
+ * Each stage solves a linear system with the matrix I / (gamma * h) - J instead of iterating to convergence, so a
+ * step costs one LU factorization at most. With a W-method, the default, the Jacobian J is kept across accepted
+ * steps and only evaluated again once a step has been rejected with a Jacobian of an earlier step or has been
+ * accepted with an error asking for a smaller step. The factorization is kept until the step size changes, and the
+ * step size is kept when it would only grow slightly. Other methods need the Jacobian of every step.
+ */
+public class VectorRosenbrock implements VectorODESolver {
+
+    /**
+     * Largest growth of the step size that is ignored to keep the factorization.
+     */
+    private static final double HOLD = 1.2;
+
+    /**
+     * Diagonal coefficient of the method.
+     */
+    private final double gamma;
+
+    /**
+     * Stage times as fractions of the step size.
+     */
+    private final double[] c;
+
+    /**
+     * Coefficients of the stage states.
+     */
+    private final double[][] a;
+
+    /**
+     * Coefficients of the previous stages in the right-hand side of the linear systems, divided by h.
+     */
+    private final double[][] coupling;
+
+    /**
+     * Coefficients of df/dt in the right-hand side of the linear systems, multiplied by h.
+     */
+    private final double[] d;
+
+    /**
+     * Solution weights.
+     */
+    private final double[] m;
+
+    /**
+     * Error estimate weights.
+     */
+    private final double[] e;
+
+    /**
+     * Whether each stage evaluates the ode, stages at the same point as the previous one reuse its evaluation.
+     */
+    private final boolean[] evaluate;
+
+    /**
+     * Exponent applied to the error ratio when choosing the next step size.
+     */
+    private final double exponent;
+
+    /**
+     * Whether the Jacobian may be kept across steps.
+     */
+    private final boolean reuseJacobian;
+
+    /**
+     * Tolerances of the components.
+     */
+    private final Tolerances tolerances;
+
+    /**
+     * Norm combining the weighted errors of the components.
+     */
+    private final ErrorNorm norm;
+
+    /**
+     * Jacobian of the ode, or null to estimate it by finite differences.
+     */
+    private final VectorJacobian jacobian;
+
+    /**
+     * Sparsity pattern of the Jacobian, or null for a dense Jacobian.
+     */
+    private final SparsityPattern sparsity;
+
+    /**
+     * Number of diagonals of a banded Jacobian below the main diagonal, or negative if not banded.
+     */
+    private final int lower;
+
+    /**
+     * Number of diagonals of a banded Jacobian above the main diagonal.
+     */
+    private final int upper;
+
+    /**
+     * Initial step size.
+     */
+    private final double initialTau;
+
+    /**
+     * Maximum attempts before failing to reach the desired error.
+     */
+    private final int maxTry;
+
+    /**
+     * Safety factor 1.
+     */
+    private final double safe1;
+
+    /**
+     * Safety factor 2.
+     */
+    private final double safe2;
+
+    /**
+     * Private Constructor.
+     *
+     * @param builder builder to set the parameters
+     */
+    private VectorRosenbrock(Builder builder) {
+        this.gamma = builder.tableau.getGamma();
+        this.c = builder.tableau.getC();
+        this.a = builder.tableau.getA();
+        this.coupling = builder.tableau.getCoupling();
+        this.d = builder.tableau.getD();
+        this.m = builder.tableau.getM();
+        this.e = builder.tableau.getE();
+        this.evaluate = new boolean[c.length];
+        for (int s = 1; s < c.length; ++s) {
+            boolean same = (c[s] == c[s - 1]) && (a[s][s - 1] == 0.0);
+            for (int j = 0; j < s - 1; ++j) {
+                same &= (a[s][j] == a[s - 1][j]);
+            }
+            evaluate[s] = !same;
+        }
+        this.exponent = builder.tableau.getStepExponent();
+        this.reuseJacobian = builder.tableau.isW();
+        this.tolerances = new Tolerances(builder.err, builder.relTols, builder.absTol, builder.absTols);
+        this.norm = builder.norm;
+        this.jacobian = builder.jacobian;
+        this.sparsity = builder.sparsity;
+        this.lower = builder.lower;
+        this.upper = builder.upper;
+        this.initialTau = builder.initialTau;
+        this.maxTry = builder.maxTry;
+        this.safe1 = builder.safe1;
+        this.safe2 = builder.safe2;
+    }
+
+    @Override
+    public VectorStepper stepper(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double t) {
+        return new Stepper((x, tim, dxdt) -> dxdt.set(ode.apply(x, tim)), xi, ti, t, initialTau);
+    }
+
+    @Override
+    public VectorStepper stepper(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double t, double tau) {
+        return new Stepper((x, tim, dxdt) -> dxdt.set(ode.apply(x, tim)), xi, ti, t, Math.abs(tau));
+    }
+
+    @Override
+    public VectorStepper stepper(VectorODE ode, Vector xi, double ti, double t) {
+        return new Stepper(ode, xi, ti, t, initialTau);
+    }
+
+    @Override
+    public VectorStepper stepper(VectorODE ode, Vector xi, double ti, double t, double tau) {
+        return new Stepper(ode, xi, ti, t, Math.abs(tau));
+    }
+
+    /**
+     * Adaptive integration state updated in place. The last step is shortened to land exactly on the desired value.
+     */
+    private final class Stepper implements VectorStepper {
+
+        private final VectorODE ode;
+        private final double tEnd;
+        private final int sign;
+        private final Matrix dfdx;
+        private final LUDecomposition lu;
+        private final FiniteDifferenceJacobian estimator;
+        private final Vector dfdt;
+        private final Vector f;
+        private final Vector fStage;
+        private final Vector xStage;
+        private final Vector[] u;
+        private final Vector error;
+        private final double[][] weights;
+        private final Vector[][] terms;
+        private final double[] solutionWeights;
+        private final Vector[] solutionTerms;
+        private Vector x;
+        private Vector xNew;
+        private double t;
+        private double tau;
+        private boolean hasDerivative;
+        private boolean hasJacobian;
+        private boolean jacobianCurrent;
+        private double factoredStep;
+        private int rejected;
+
+        private Stepper(VectorODE ode, Vector xi, double ti, double tEnd, double tau) {
+            tolerances.check(xi.length());
+            this.ode = ode;
+            this.tEnd = tEnd;
+            this.sign = tEnd < ti ? -1 : 1;
+            this.dfdx = Matrix.jacobian(xi.length(), sparsity, lower, upper);
+            this.lu = dfdx.decomposition();
+            this.estimator = new FiniteDifferenceJacobian(xi);
+            this.dfdt = Vector.mutableLike(xi);
+            this.f = Vector.mutableLike(xi);
+            this.fStage = Vector.mutableLike(xi);
+            this.xStage = Vector.mutableLike(xi);
+            this.u = new Vector[m.length];
+            for (int s = 0; s < u.length; ++s) {
+                u[s] = Vector.mutableLike(xi);
+            }
+            this.error = Vector.mutableLike(xi);
+            // Row 2s combines x and the first s solutions into stage s, row 2s + 1 the right-hand side of stage s
+            this.weights = new double[2 * u.length][];
+            this.terms = new Vector[2 * u.length][];
+            Vector evaluation = f;
+            for (int s = 0; s < u.length; ++s) {
+                if (evaluate[s]) {
+                    evaluation = fStage;
+                }
+                weights[2 * s] = new double[s + 1];
+                weights[2 * s][0] = 1.0;
+                terms[2 * s] = new Vector[s + 1];
+                weights[2 * s + 1] = new double[s + 2];
+                weights[2 * s + 1][0] = 1.0;
+                terms[2 * s + 1] = new Vector[s + 2];
+                terms[2 * s + 1][0] = evaluation;
+                System.arraycopy(u, 0, terms[2 * s + 1], 1, s);
+                terms[2 * s + 1][s + 1] = dfdt;
+            }
+            this.solutionWeights = new double[u.length + 1];
+            this.solutionWeights[0] = 1.0;
+            System.arraycopy(m, 0, solutionWeights, 1, m.length);
+            this.solutionTerms = new Vector[u.length + 1];
+            System.arraycopy(u, 0, solutionTerms, 1, u.length);
+            this.x = Vector.mutableLike(xi).set(xi);
+            this.xNew = Vector.mutableLike(xi);
+            this.t = ti;
+            this.tau = sign * tau;
+            this.factoredStep = Double.NaN;
+        }
+
+        @Override
+        public double getT() {
+            return t;
+        }
+
+        @Override
+        public Vector getX() {
+            return x;
+        }
+
+        @Override
+        public Vector getDerivative() {
+            if (!hasDerivative) {
+                ode.apply(x, t, f);
+                hasDerivative = true;
+            }
+            return f;
+        }
+
+        @Override
+        public double getStepSize() {
+            return tau;
+        }
+
+        @Override
+        public int getRejectedSteps() {
+            return rejected;
+        }
+
+        @Override
+        public boolean isDone() {
+            return t == tEnd;
+        }
+
+        /**
+         * Evaluate the Jacobian and df/dt at the current state.
+         */
+        private void updateJacobian() {
+            dfdx.clear();
+            if (jacobian != null) {
+                jacobian.apply(x, t, dfdx);
+            } else {
+                estimator.estimate(ode, x, t, f, dfdx);
+            }
+            estimator.estimateTime(ode, x, t, f, dfdt);
+            hasJacobian = true;
+            jacobianCurrent = true;
+            factoredStep = Double.NaN;
+        }
+
+        @Override
+        public void step() {
+            if (isDone()) throw new IllegalStateException("The integration has already reached t.");
+            getDerivative();
+            for (int iTry = 1; iTry <= maxTry; ++iTry) {
+                final boolean last = sign * (t + tau - tEnd) >= 0.0;
+                final double h = last ? tEnd - t : tau;
+                if (!hasJacobian) {
+                    updateJacobian();
+                }
+                if (h != factoredStep) {
+                    if (!lu.factor(dfdx, 1.0 / (gamma * h), -1.0)) {
+                        factoredStep = Double.NaN;
+                        tau = h / safe2;
+                        ++rejected;
+                        continue;
+                    }
+                    factoredStep = h;
+                }
+                for (int s = 0; s < u.length; ++s) {
+                    if (s > 0) {
+                        terms[2 * s][0] = x;
+                        System.arraycopy(u, 0, terms[2 * s], 1, s);
+                        System.arraycopy(a[s], 0, weights[2 * s], 1, s);
+                        Vector.linearCombination(xStage, weights[2 * s], terms[2 * s]);
+                        if (evaluate[s]) {
+                            ode.apply(xStage, t + c[s] * h, fStage);
+                        }
+                    }
+                    double[] row = weights[2 * s + 1];
+                    for (int j = 0; j < s; ++j) {
+                        row[j + 1] = coupling[s][j] / h;
+                    }
+                    row[s + 1] = d[s] * h;
+                    Vector.linearCombination(u[s], row, terms[2 * s + 1]);
+                    lu.solve(u[s], u[s]);
+                }
+                solutionTerms[0] = x;
+                Vector.linearCombination(xNew, solutionWeights, solutionTerms);
+                Vector.linearCombination(error, e, u);
+                double errorRatio = tolerances.norm(norm, error, x, xNew);
+                double factor = Math.min(Math.max(safe1 * Math.pow(errorRatio, exponent), 1.0 / safe2), safe2);
+                if (errorRatio < 1.0) {
+                    boolean hold = factor >= 1.0 && factor <= HOLD;
+                    tau = hold ? h : h * factor;
+                    t = last ? tEnd : t + h;
+                    Vector swap = x;
+                    x = xNew;
+                    xNew = swap;
+                    hasDerivative = false;
+                    jacobianCurrent = false;
+                    // An error asking for a smaller step is taken as the Jacobian having gone stale
+                    hasJacobian = reuseJacobian && factor >= 1.0;
+                    return;
+                }
+                tau = h * factor;
+                ++rejected;
+                // A rejected step with a Jacobian of an earlier step refreshes it before the next try
+                if (!jacobianCurrent) {
+                    hasJacobian = false;
+                }
+            }
+            String errorMessage = String.format("Rosenbrock failed at ti = %f.", t);
+            throw new IllegalStateException(errorMessage);
+        }
+
+    }
+
+    /**
+     * Builder class for the Vector Rosenbrock class.
+     */
+    public static class Builder {
+
+        /**
+         * Embedded Rosenbrock method.
+         */
+        private RosenbrockTableau tableau;
+
+        /**
+         * Desired local truncation error.
+         */
+        private double err;
+
+        /**
+         * Relative tolerance of each component.
+         */
+        private double[] relTols;
+
+        /**
+         * Absolute tolerance of every component.
+         */
+        private double absTol;
+
+        /**
+         * Absolute tolerance of each component.
+         */
+        private double[] absTols;
+
+        /**
+         * Norm combining the weighted errors of the components.
+         */
+        private ErrorNorm norm;
+
+        /**
+         * Jacobian of the ode.
+         */
+        private VectorJacobian jacobian;
+
+        /**
+         * Sparsity pattern of the Jacobian.
+         */
+        private SparsityPattern sparsity;
+
+        /**
+         * Number of diagonals of a banded Jacobian below the main diagonal.
+         */
+        private int lower;
+
+        /**
+         * Number of diagonals of a banded Jacobian above the main diagonal.
+         */
+        private int upper;
+
+        /**
+         * Initial step size.
+         */
+        private double initialTau;
+
+        /**
+         * Maximum attempts before failing to reach the desired error.
+         */
+        private int maxTry;
+
+        /**
+         * Safety factor 1.
+         */
+        private double safe1;
+
+        /**
+         * Safety factor 2.
+         */
+        private double safe2;
+
+        /**
+         * Get a builder instance with default settings.
+         *
+         * @return builder
+         */
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        /**
+         * Private Constructor.
+         */
+        private Builder() {
+            this.tableau = RosenbrockTableau.ROS34PW2;
+            this.err = 1e-6;
+            this.absTol = 1e-9;
+            this.lower = -1;
+            this.upper = -1;
+            this.norm = ErrorNorm.MAX;
+            this.initialTau = 1e-4;
+            this.safe1 = 0.9;
+            this.safe2 = 4.0;
+            this.maxTry = 100;
+        }
+
+        /**
+         * @param tableau embedded Rosenbrock method
+         * @return this
+         */
+        public Builder setTableau(RosenbrockTableau tableau) {
+            if (tableau == null) throw new IllegalArgumentException("Tableau cannot be null.");
+            this.tableau = tableau;
+            return this;
+        }
+
+        /**
+         * @param err desired fractional local truncation error
+         * @return this
+         */
+        public Builder setLocalTruncationError(double err) {
+            if (err < 0) throw new IllegalArgumentException("Local truncation error must be positive.");
+            this.err = err;
+            this.relTols = null;
+            return this;
+        }
+
+        /**
+         * @param relTols desired fractional local truncation error of each component
+         * @return this
+         */
+        public Builder setRelativeTolerance(Vector relTols) {
+            this.relTols = Tolerances.copy(relTols, "Relative tolerance");
+            return this;
+        }
+
+        /**
+         * @param absTol desired absolute local truncation error of every component
+         * @return this
+         */
+        public Builder setAbsoluteTolerance(double absTol) {
+            if (absTol < 0.0) throw new IllegalArgumentException("Absolute tolerance must be non-negative.");
+            this.absTol = absTol;
+            this.absTols = null;
+            return this;
+        }
+
+        /**
+         * @param absTols desired absolute local truncation error of each component
+         * @return this
+         */
+        public Builder setAbsoluteTolerance(Vector absTols) {
+            this.absTols = Tolerances.copy(absTols, "Absolute tolerance");
+            return this;
+        }
+
+        /**
+         * @param norm norm combining the weighted errors of the components
+         * @return this
+         */
+        public Builder setErrorNorm(ErrorNorm norm) {
+            if (norm == null) throw new IllegalArgumentException("Error norm cannot be null.");
+            this.norm = norm;
+            return this;
+        }
+
+        /**
+         * @param jacobian Jacobian of the ode, or null to estimate it by finite differences
+         * @return this
+         */
+        public Builder setJacobian(VectorJacobian jacobian) {
+            this.jacobian = jacobian;
+            return this;
+        }
+
+        /**
+         * Keep the Jacobian in a sparse matrix with this pattern, estimated with one evaluation of the ode per color
+         * of the pattern when no Jacobian is set, and factored with the fill-in of the pattern only. Replaces a
+         * bandwidth.
+         *
+         * @param sparsity pattern of the nonzero elements of the Jacobian, or null for a dense Jacobian
+         * @return this
+         */
+        public Builder setSparsity(SparsityPattern sparsity) {
+            this.sparsity = sparsity;
+            if (sparsity != null) {
+                this.lower = -1;
+                this.upper = -1;
+            }
+            return this;
+        }
+
+        /**
+         * Keep the Jacobian in a band matrix, estimated with one evaluation of the ode per lower + upper + 1
+         * columns when no Jacobian is set, and factored with partial pivoting within the band. Replaces a sparsity
+         * pattern.
+         *
+         * @param lower number of diagonals below the main diagonal
+         * @param upper number of diagonals above the main diagonal
+         * @return this
+         */
+        public Builder setBandwidth(int lower, int upper) {
+            if (lower < 0 || upper < 0) throw new IllegalArgumentException("Bandwidths must be non-negative.");
+            this.lower = lower;
+            this.upper = upper;
+            this.sparsity = null;
+            return this;
+        }
+
+        /**
+         * @param initialTau initial step size
+         * @return this
+         */
+        public Builder setInitialStepSize(double initialTau) {
+            if (initialTau == 0.0) throw new IllegalArgumentException("Initial step size cannot be zero.");
+            this.initialTau = initialTau;
+            return this;
+        }
+
+        /**
+         * @param maxTry maximum number of tries to converge on an acceptable step size
+         * @return this
+         */
+        public Builder setMaximumTries(int maxTry) {
+            if (maxTry < 0) throw new IllegalArgumentException("Maximum tries must be positive.");
+            this.maxTry = maxTry;
+            return this;
+        }
+
+        /**
+         * @param safe1 safety factor 1 (value must be non-negative and less than 1.0)
+         * @return this
+         */
+        public Builder setSafetyFactor1(double safe1) {
+            if (safe1 < 0.0) throw new IllegalArgumentException("Safety Factor 1 must be non-negative.");
+            if (safe1 >= 1.0) throw new IllegalArgumentException("Safety Factor 1 must be less than 1.0.");
+            this.safe1 = safe1;
+            return this;
+        }
+
+        /**
+         * @param safe2 safety factor 2 (value must be greater than 1.0)
+         * @return this
+         */
+        public Builder setSafetyFactor2(double safe2) {
+            if (safe2 <= 1.0) throw new IllegalArgumentException("Safety Factor 2 must be greater than 1.0.");
+            this.safe2 = safe2;
+            return this;
+        }
+
+        /**
+         * Build the Vector Rosenbrock class with this builder's parameters.
+         *
+         * @return rosenbrock instance
+         */
+        public VectorRosenbrock build() {
+            return new VectorRosenbrock(this);
+        }
+    }
+}
@@ -31,25 +31,215 @@ public class VectorRungeKutta4 implements VectorODESolver {
      * @return new value of x after step size tau
      */
     static Vector rk4(BiFunction<Vector, Double, Vector> ode, Vector x, double t, double tau) {
+        return rk4(ode, x, t, tau, ode.apply(x, t).immutable());
+    }
+
+    /**
+     * Single step Vector 4th Order Runge-Kutta computation with the derivative at the start of the step known.
+     *
+     * @param ode right-hand side of first order ode: dx/dt = ode(x, t)
+     * @param x   current vector of the dependant variable(s)
+     * @param t   independent variable
+     * @param tau step size
+     * @param f1  immutable dx/dt(x, t)
+     * @return new value of x after step size tau
+     */
+    static Vector rk4(BiFunction<Vector, Double, Vector> ode, Vector x, double t, double tau, Vector f1) {
+        double halfTau = 0.5 * tau;
+        double tHalf = t + halfTau;
+        Vector xTemp = Vector.mutableLike(x);
+        Vector f2 = ode.apply(Vector.addScaled(x, halfTau, f1, xTemp), tHalf).immutable();
+        Vector f3 = ode.apply(Vector.addScaled(x, halfTau, f2, xTemp), tHalf).immutable();
+        Vector f4 = ode.apply(Vector.addScaled(x, tau, f3, xTemp), t + tau).immutable();
+        return Vector.linearCombination(new double[]{1.0, tau / 6.0, tau / 3.0, tau / 3.0, tau / 6.0},
+                x, f1, f2, f3, f4);
+    }
+
+    /**
+     * Single in-place step Vector 4th Order Runge-Kutta computation.
+     *
+     * @param ode       in-place right-hand side of first order ode: dx/dt = ode(x, t)
+     * @param x         current vector of the dependant variable(s), overwritten with the value after step size tau
+     * @param t         independent variable
+     * @param tau       step size
+     * @param workspace preallocated stage vectors, f1 must already hold dx/dt(x, t)
+     */
+    static void rk4(VectorODE ode, Vector x, double t, double tau, Workspace workspace) {
         double halfTau = 0.5 * tau;
         double tHalf = t + halfTau;
-        Vector f1 = ode.apply(x, t).immutable();
-        Vector f2 = ode.apply(f1.mult(halfTau).add(x), tHalf).immutable();
-        Vector f3 = ode.apply(f2.mult(halfTau).add(x), tHalf).immutable();
-        Vector f4 = ode.apply(f3.mult(tau).add(x), t + tau).immutable();
-        return f2.add(f3).mult(2.0).add(f1).add(f4).mult(tau / 6.0).add(x);
+        Vector xTemp = workspace.xTemp;
+        Vector.addScaled(x, halfTau, workspace.f1, xTemp);
+        ode.apply(xTemp, tHalf, workspace.f2);
+        Vector.addScaled(x, halfTau, workspace.f2, xTemp);
+        ode.apply(xTemp, tHalf, workspace.f3);
+        Vector.addScaled(x, tau, workspace.f3, xTemp);
+        ode.apply(xTemp, t + tau, workspace.f4);
+        double[] weights = workspace.weights;
+        weights[1] = tau / 6.0;
+        weights[2] = tau / 3.0;
+        weights[3] = tau / 3.0;
+        weights[4] = tau / 6.0;
+        workspace.terms[0] = x;
+        Vector.linearCombination(x, weights, workspace.terms);
     }
 
     @Override
-    public Vector solve(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double t) {
-        xi = xi.immutable();
-        double dt = t < ti ? -1.0 * tau : tau;
-        final double iterations = (t - ti) / dt;
-        for (int i = 0; i < iterations; ++i) {
-            xi = rk4(ode, xi, ti, dt);
-            ti += dt;
-        }
-        return t != ti ? rk4(ode, xi, ti, t - ti) : xi;
+    public VectorStepper stepper(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double t) {
+        return new Stepper(ode, xi, ti, t);
+    }
+
+    @Override
+    public VectorStepper stepper(VectorODE ode, Vector xi, double ti, double t) {
+        return new InPlaceStepper(ode, xi, ti, t);
+    }
+
+    /**
+     * Fixed step integration state. The last step is shortened to land exactly on the desired value.
+     */
+    private final class Stepper implements VectorStepper {
+
+        private final BiFunction<Vector, Double, Vector> ode;
+        private final double tEnd;
+        private final double dt;
+        private Vector x;
+        private double t;
+        private Vector f;
+
+        private Stepper(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double tEnd) {
+            this.ode = ode;
+            this.tEnd = tEnd;
+            this.dt = tEnd < ti ? -1.0 * tau : tau;
+            this.x = xi.immutable();
+            this.t = ti;
+        }
+
+        @Override
+        public double getT() {
+            return t;
+        }
+
+        @Override
+        public Vector getX() {
+            return x;
+        }
+
+        @Override
+        public Vector getDerivative() {
+            if (f == null) {
+                f = ode.apply(x, t).immutable();
+            }
+            return f;
+        }
+
+        @Override
+        public double getStepSize() {
+            return dt;
+        }
+
+        @Override
+        public boolean isDone() {
+            return t == tEnd;
+        }
+
+        @Override
+        public void step() {
+            if (isDone()) throw new IllegalStateException("The integration has already reached t.");
+            final boolean last = (dt > 0.0) ? t + dt >= tEnd : t + dt <= tEnd;
+            final double h = last ? tEnd - t : dt;
+            x = rk4(ode, x, t, h, getDerivative());
+            t = last ? tEnd : t + h;
+            f = null;
+        }
+    }
+
+    /**
+     * Fixed step integration state updated in place, allocating only its workspace.
+     */
+    private final class InPlaceStepper implements VectorStepper {
+
+        private final VectorODE ode;
+        private final double tEnd;
+        private final double dt;
+        private final Vector x;
+        private final Workspace workspace;
+        private double t;
+        private boolean hasDerivative;
+
+        private InPlaceStepper(VectorODE ode, Vector xi, double ti, double tEnd) {
+            this.ode = ode;
+            this.tEnd = tEnd;
+            this.dt = tEnd < ti ? -1.0 * tau : tau;
+            this.x = Vector.mutableLike(xi).set(xi);
+            this.workspace = new Workspace(xi);
+            this.t = ti;
+        }
+
+        @Override
+        public double getT() {
+            return t;
+        }
+
+        @Override
+        public Vector getX() {
+            return x;
+        }
+
+        @Override
+        public Vector getDerivative() {
+            if (!hasDerivative) {
+                ode.apply(x, t, workspace.f1);
+                hasDerivative = true;
+            }
+            return workspace.f1;
+        }
+
+        @Override
+        public double getStepSize() {
+            return dt;
+        }
+
+        @Override
+        public boolean isDone() {
+            return t == tEnd;
+        }
+
+        @Override
+        public void step() {
+            if (isDone()) throw new IllegalStateException("The integration has already reached t.");
+            final boolean last = (dt > 0.0) ? t + dt >= tEnd : t + dt <= tEnd;
+            final double h = last ? tEnd - t : dt;
+            getDerivative();
+            rk4(ode, x, t, h, workspace);
+            t = last ? tEnd : t + h;
+            hasDerivative = false;
+        }
+    }
+
+    /**
+     * Stage vectors allocated once per in-place integration and reused by every step.
+     */
+    static final class Workspace {
+
+        final Vector f1;
+        final Vector f2;
+        final Vector f3;
+        final Vector f4;
+        final Vector xTemp;
+        final double[] weights;
+        final Vector[] terms;
+
+        /**
+         * @param like vector whose length and storage the work vectors match
+         */
+        Workspace(Vector like) {
+            this.f1 = Vector.mutableLike(like);
+            this.f2 = Vector.mutableLike(like);
+            this.f3 = Vector.mutableLike(like);
+            this.f4 = Vector.mutableLike(like);
+            this.xTemp = Vector.mutableLike(like);
+            this.weights = new double[]{1.0, 0.0, 0.0, 0.0, 0.0};
+            this.terms = new Vector[]{null, f1, f2, f3, f4};
+        }
     }
 
     /**
@@ -1,5 +1,7 @@
 package math.ode.vector;
 
+import math.ode.utils.StepSizeController;
+
 import java.util.function.BiFunction;
 
 import static math.ode.vector.VectorRungeKutta4.rk4;
@@ -10,7 +12,7 @@ import static math.ode.vector.VectorRungeKutta4.rk4;
 public class VectorRungeKuttaAdaptive implements VectorODESolver {
 
     /**
-     * Smallest double value to avoid any divide by zero in the error ratio computation.
+     * Default absolute tolerance, the smallest double value to avoid any divide by zero in the error ratio computation.
      */
     private static final double EPS = Math.ulp(1.0);
 
@@ -20,7 +22,27 @@ public class VectorRungeKuttaAdaptive implements VectorODESolver {
     private final double err;
 
     /**
-     * Initial step size.
+     * Relative tolerance of each component, or null to use err for all of them.
+     */
+    private final double[] relTols;
+
+    /**
+     * Absolute tolerance of every component.
+     */
+    private final double absTol;
+
+    /**
+     * Absolute tolerance of each component, or null to use absTol for all of them.
+     */
+    private final double[] absTols;
+
+    /**
+     * Norm combining the weighted errors of the components.
+     */
+    private final ErrorNorm norm;
+
+    /**
+     * Initial step size, or 0 to estimate it from the ode at the initial condition.
      */
     private final double initialTau;
 
@@ -39,6 +61,11 @@ public class VectorRungeKuttaAdaptive implements VectorODESolver {
      */
     private final double safe2;
 
+    /**
+     * Step size controller.
+     */
+    private final StepSizeController controller;
+
     /**
      * Private Constructor.
      *
@@ -46,48 +73,175 @@ public class VectorRungeKuttaAdaptive implements VectorODESolver {
      */
     private VectorRungeKuttaAdaptive(Builder builder) {
         this.err = builder.err;
+        this.relTols = builder.relTols;
+        this.absTol = builder.absTol;
+        this.absTols = builder.absTols;
+        this.norm = builder.norm;
         this.initialTau = builder.initialTau;
         this.maxTry = builder.maxTry;
         this.safe1 = builder.safe1;
         this.safe2 = builder.safe2;
+        this.controller = builder.controller;
     }
 
     @Override
-    public Vector solve(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double t) {
-        final int sign = t < ti ? -1 : 1;
-        double tau = sign * initialTau;
-        boolean done = false;
-        while (!done) {
-            int iTry;
-            for (iTry = 1; iTry <= maxTry; ++iTry) {
+    public VectorStepper stepper(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double t) {
+        return new Stepper(ode, xi, ti, t, initialTau);
+    }
+
+    @Override
+    public VectorStepper stepper(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double t, double tau) {
+        return new Stepper(ode, xi, ti, t, Math.abs(tau));
+    }
+
+    /**
+     * @param tols tolerance of each component
+     * @param xi   initial state
+     * @return tolerances as a vector
+     */
+    private static Vector tolerances(double[] tols, Vector xi) {
+        if (tols.length != xi.length()) {
+            throw new IllegalArgumentException("Tolerance vector length must match the initial value.");
+        }
+        return Vector.immutable(tols);
+    }
+
+    /**
+     * Adaptive integration state. Once a step would pass the desired value, a final unchecked step lands on it.
+     */
+    private final class Stepper implements VectorStepper {
+
+        private final BiFunction<Vector, Double, Vector> ode;
+        private final double tEnd;
+        private final int sign;
+        private Vector x;
+        private double t;
+        private double tau;
+        private Vector f;
+        private final VectorExpression.Leaf xSmallLeaf;
+        private final VectorExpression.Leaf xBigLeaf;
+        private final VectorExpression errorTerms;
+        private final StepSizeController.Control control;
+
+        private Stepper(BiFunction<Vector, Double, Vector> ode, Vector xi, double ti, double tEnd, double tau) {
+            this.ode = ode;
+            this.tEnd = tEnd;
+            this.sign = tEnd < ti ? -1 : 1;
+            this.x = xi.immutable();
+            this.t = ti;
+            this.tau = sign * tau;
+            this.control = controller.start(0.2, safe1, safe2);
+            // Built once and evaluated in one pass on the vectors bound at each try
+            this.xSmallLeaf = VectorExpression.variable(xi.length());
+            this.xBigLeaf = VectorExpression.variable(xi.length());
+            VectorExpression size = xSmallLeaf.abs().add(xBigLeaf.abs());
+            VectorExpression scale = (relTols == null)
+                    ? size.mult(err / 2.0)
+                    : size.mult(tolerances(relTols, xi)).div(2.0);
+            scale = (absTols == null) ? scale.add(absTol) : scale.add(tolerances(absTols, xi));
+            this.errorTerms = norm.terms(xSmallLeaf.sub(xBigLeaf).abs().div(scale));
+            if (tau == 0.0 && ti != tEnd) {
+                this.tau = sign * estimateStepSize();
+            }
+        }
+
+        /**
+         * Estimate the initial step size as Hairer, Norsett and Wanner do, from the norms of x and dx/dt weighted by
+         * the error allowed and from the change of dx/dt over a small explicit Euler step. This costs one evaluation
+         * of the ode besides the derivative at the initial condition, which the first step reuses.
+         *
+         * @return magnitude of the first step to try
+         */
+        private double estimateStepSize() {
+            final Tolerances tolerances = new Tolerances(err, relTols, absTol, absTols);
+            final double interval = Math.abs(tEnd - t);
+            final Vector f0 = getDerivative();
+            final double d0 = weightedNorm(tolerances, x);
+            final double d1 = weightedNorm(tolerances, f0);
+            final double h0 = Math.min((d0 < 1e-5 || d1 < 1e-5) ? 1e-6 : 0.01 * d0 / d1, interval);
+            final Vector f1 = ode.apply(x.add(f0.mult(sign * h0)), t + sign * h0);
+            final double d2 = weightedNorm(tolerances, f0.sub(f1)) / h0;
+            final double dMax = Math.max(d1, d2);
+            final double h1 = (dMax <= 1e-15) ? Math.max(1e-6, 1e-3 * h0) : Math.pow(0.01 / dMax, 0.2);
+            return Math.min(Math.min(100.0 * h0, h1), interval);
+        }
+
+        /**
+         * @param tolerances tolerances of the components
+         * @param v          vector to weigh
+         * @return norm of v_i divided by the error allowed at x_i, at least EPS so zero tolerances stay finite
+         */
+        private double weightedNorm(Tolerances tolerances, Vector v) {
+            double out = 0.0;
+            for (int i = 0; i < v.length(); ++i) {
+                double scale = Math.max(tolerances.scale(i, Math.abs(x.get(i))), EPS);
+                out = norm.accumulate(out, Math.abs(v.get(i)) / scale);
+            }
+            return norm.finish(out, v.length());
+        }
+
+        @Override
+        public double getT() {
+            return t;
+        }
+
+        @Override
+        public Vector getX() {
+            return x;
+        }
+
+        @Override
+        public Vector getDerivative() {
+            if (f == null) {
+                f = ode.apply(x, t).immutable();
+            }
+            return f;
+        }
+
+        @Override
+        public double getStepSize() {
+            return tau;
+        }
+
+        @Override
+        public int getRejectedSteps() {
+            return control.getRejectedSteps();
+        }
+
+        @Override
+        public boolean isDone() {
+            return t == tEnd;
+        }
+
+        @Override
+        public void step() {
+            if (isDone()) throw new IllegalStateException("The integration has already reached t.");
+            final Vector f1 = getDerivative();
+            for (int iTry = 1; iTry <= maxTry; ++iTry) {
                 double halfTau = 0.5 * tau;
-                Vector xSmall = rk4(ode, rk4(ode, xi, ti, halfTau), ti + halfTau, halfTau).immutable();
-                Vector xBig = rk4(ode, xi, ti, tau).immutable();
-                double errorRatio = xSmall.sub(xBig).abs()
-                        .div(xSmall.abs().add(xBig.abs()).mult(err / 2.0).add(EPS))
-                        .max();
+                Vector xSmall = rk4(ode, rk4(ode, x, t, halfTau, f1), t + halfTau, halfTau).immutable();
+                Vector xBig = rk4(ode, x, t, tau, f1).immutable();
+                xSmallLeaf.bind(xSmall);
+                xBigLeaf.bind(xBig);
+                double errorRatio = norm.reduce(errorTerms);
                 double tauOld = tau;
-                tau = (sign >= 0.0)
-                        ? Math.min(Math.max(safe1 * tau * Math.pow(errorRatio, -0.2), tauOld / safe2), safe2 * tauOld)
-                        : Math.max(Math.min(safe1 * tau * Math.pow(errorRatio, -0.2), tauOld / safe2), safe2 * tauOld);
+                tau = tauOld * control.factor(errorRatio);
                 if (errorRatio < 1.0) {
-                    double tDiff = sign * (t - (ti + tauOld));
+                    double tDiff = sign * (tEnd - (t + tauOld));
                     if (tDiff < 0.0) {
-                        done = true;
+                        x = rk4(ode, x, t, tEnd - t, f1).immutable();
+                        t = tEnd;
                     } else {
-                        xi = xSmall;
-                        ti = ti + tauOld;
-                        done = (tDiff == 0.0);
+                        x = xSmall;
+                        t = (tDiff == 0.0) ? tEnd : t + tauOld;
                     }
-                    break;
+                    f = null;
+                    return;
                 }
             }
-            if (iTry > maxTry) {
-                String errorMessage = String.format("Adaptive Runge-Kutta failed at ti = %f.", ti);
-                throw new IllegalStateException(errorMessage);
-            }
+            String errorMessage = String.format("Adaptive Runge-Kutta failed at ti = %f.", t);
+            throw new IllegalStateException(errorMessage);
         }
-        return t != ti ? rk4(ode, xi, ti, t - ti) : xi;
     }
 
     /**
@@ -101,7 +255,27 @@ public class VectorRungeKuttaAdaptive implements VectorODESolver {
         private double err;
 
         /**
-         * Initial step size.
+         * Relative tolerance of each component.
+         */
+        private double[] relTols;
+
+        /**
+         * Absolute tolerance of every component.
+         */
+        private double absTol;
+
+        /**
+         * Absolute tolerance of each component.
+         */
+        private double[] absTols;
+
+        /**
+         * Norm combining the weighted errors of the components.
+         */
+        private ErrorNorm norm;
+
+        /**
+         * Initial step size, or 0 to estimate it from the ode at the initial condition.
          */
         private double initialTau;
 
@@ -120,6 +294,11 @@ public class VectorRungeKuttaAdaptive implements VectorODESolver {
          */
         private double safe2;
 
+        /**
+         * Step size controller.
+         */
+        private StepSizeController controller;
+
         /**
          * Get a builder instance with default settings.
          *
@@ -134,9 +313,12 @@ public class VectorRungeKuttaAdaptive implements VectorODESolver {
          */
         private Builder() {
             this.err = 1e-12;
-            this.initialTau = 0.1;
+            this.absTol = EPS;
+            this.norm = ErrorNorm.MAX;
+            this.initialTau = 0.0;
             this.safe1 = 0.9;
             this.safe2 = 4.0;
+            this.controller = StepSizeController.INTEGRAL;
             this.maxTry = 100;
         }
 
@@ -147,10 +329,52 @@ public class VectorRungeKuttaAdaptive implements VectorODESolver {
         public Builder setLocalTruncationError(double err) {
             if (err < 0) throw new IllegalArgumentException("Local truncation error must be positive.");
             this.err = err;
+            this.relTols = null;
+            return this;
+        }
+
+        /**
+         * @param relTols desired fractional local truncation error of each component
+         * @return this
+         */
+        public Builder setRelativeTolerance(Vector relTols) {
+            this.relTols = Tolerances.copy(relTols, "Relative tolerance");
             return this;
         }
 
         /**
+         * @param absTol desired absolute local truncation error of every component
+         * @return this
+         */
+        public Builder setAbsoluteTolerance(double absTol) {
+            if (absTol < 0.0) throw new IllegalArgumentException("Absolute tolerance must be non-negative.");
+            this.absTol = absTol;
+            this.absTols = null;
+            return this;
+        }
+
+        /**
+         * @param absTols desired absolute local truncation error of each component
+         * @return this
+         */
+        public Builder setAbsoluteTolerance(Vector absTols) {
+            this.absTols = Tolerances.copy(absTols, "Absolute tolerance");
+            return this;
+        }
+
+        /**
+         * @param norm norm combining the weighted errors of the components
+         * @return this
+         */
+        public Builder setErrorNorm(ErrorNorm norm) {
+            if (norm == null) throw new IllegalArgumentException("Error norm cannot be null.");
+            this.norm = norm;
+            return this;
+        }
+
+        /**
+         * Set the initial step size instead of estimating it from the ode at the initial condition.
+         *
          * @param initialTau initial step size
          * @return this
          */
@@ -191,6 +415,16 @@ public class VectorRungeKuttaAdaptive implements VectorODESolver {
             return this;
         }
 
+        /**
+         * @param controller step size controller
+         * @return this
+         */
+        public Builder setStepSizeController(StepSizeController controller) {
+            if (controller == null) throw new IllegalArgumentException("Step size controller cannot be null.");
+            this.controller = controller;
+            return this;
+        }
+
         /**
          * Build the Vector First Order Adaptive Runge-Kutta class with this builder's parameters.
          *
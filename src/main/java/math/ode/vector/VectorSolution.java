@@ -0,0 +1,173 @@
+package math.ode.vector;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Solution function of a Vector First Order ODE that keeps a bounded cache of integration checkpoints. A query
+ * resumes from the checkpoint nearest to it between the initial condition and the queried value, so mostly
+ * increasing or clustered queries do not integrate from the initial condition each time.
+ * <p>
+ * Thread safe: the cache is guarded by a lock that is never held while integrating, and checkpoints hold immutable
+ * copies of the state. Since a query may resume from any earlier query, results can differ from a single
+ * integration by the solver's local truncation error.
+ */
+final class VectorSolution implements Function<Double, Vector> {
+
+    /**
+     * Default maximum number of checkpoints kept.
+     */
+    static final int DEFAULT_CHECKPOINTS = 16;
+
+    private final VectorODESolver solver;
+    private final BiFunction<Vector, Double, Vector> ode;
+    private final VectorODE inPlaceOde;
+    private final Vector xi;
+    private final double ti;
+    private final int maximumCheckpoints;
+
+    /**
+     * Checkpoints keyed by their value of the independent variable, guarded by this.
+     */
+    private final TreeMap<Double, Checkpoint> checkpoints;
+
+    /**
+     * Logical clock ordering checkpoint uses for least recently used eviction, guarded by this.
+     */
+    private long clock;
+
+    /**
+     * Package Private Constructor.
+     *
+     * @param solver             solver to integrate with
+     * @param ode                right-hand side of the first order ode dx/dt(x, t)
+     * @param xi                 initial condition of the dependent variables
+     * @param ti                 initial condition of the independent variable
+     * @param maximumCheckpoints maximum number of checkpoints kept
+     */
+    VectorSolution(VectorODESolver solver, BiFunction<Vector, Double, Vector> ode, Vector xi, double ti,
+                   int maximumCheckpoints) {
+        this(solver, ode, null, xi, ti, maximumCheckpoints);
+    }
+
+    /**
+     * Package Private Constructor.
+     *
+     * @param solver             solver to integrate with
+     * @param ode                in-place right-hand side of the first order ode dx/dt(x, t)
+     * @param xi                 initial condition of the dependent variables
+     * @param ti                 initial condition of the independent variable
+     * @param maximumCheckpoints maximum number of checkpoints kept
+     */
+    VectorSolution(VectorODESolver solver, VectorODE ode, Vector xi, double ti, int maximumCheckpoints) {
+        this(solver, ode, ode, xi, ti, maximumCheckpoints);
+    }
+
+    private VectorSolution(VectorODESolver solver, BiFunction<Vector, Double, Vector> ode, VectorODE inPlaceOde,
+                           Vector xi, double ti, int maximumCheckpoints) {
+        if (maximumCheckpoints < 1) throw new IllegalArgumentException("Maximum checkpoints must be positive.");
+        this.solver = solver;
+        this.ode = ode;
+        this.inPlaceOde = inPlaceOde;
+        this.xi = xi.immutable();
+        this.ti = ti;
+        this.maximumCheckpoints = maximumCheckpoints;
+        this.checkpoints = new TreeMap<>();
+    }
+
+    @Override
+    public Vector apply(Double time) {
+        final double t = time;
+        Checkpoint start = (t == ti) ? null : nearest(t);
+        VectorStepper stepper = stepper(start, t);
+        double proposed = stepper.getStepSize();
+        while (!stepper.isDone()) {
+            proposed = stepper.getStepSize();
+            stepper.step();
+        }
+        Vector x = stepper.getX();
+        if (t != ti && (start == null || start.t != t)) {
+            // Not the size proposed after a last step shortened to land on t, which can be far too small to resume
+            double tau = (Math.abs(proposed) > Math.abs(stepper.getStepSize())) ? proposed : stepper.getStepSize();
+            put(new Checkpoint(t, x.immutable(), tau));
+        }
+        return x;
+    }
+
+    /**
+     * @param start checkpoint to resume from, or null to start from the initial condition
+     * @param t     desired value of the independent variable
+     * @return stepper positioned at the start
+     */
+    private VectorStepper stepper(Checkpoint start, double t) {
+        if (inPlaceOde != null) {
+            return (start == null)
+                    ? solver.stepper(inPlaceOde, xi, ti, t)
+                    : solver.stepper(inPlaceOde, start.x, start.t, t, start.tau);
+        }
+        return (start == null)
+                ? solver.stepper(ode, xi, ti, t)
+                : solver.stepper(ode, start.x, start.t, t, start.tau);
+    }
+
+    /**
+     * Find the checkpoint between the initial condition and a value of the independent variable nearest to it.
+     *
+     * @param t queried value of the independent variable
+     * @return checkpoint, or null to start from the initial condition
+     */
+    private synchronized Checkpoint nearest(double t) {
+        Map.Entry<Double, Checkpoint> entry = (t > ti) ? checkpoints.floorEntry(t) : checkpoints.ceilingEntry(t);
+        if (entry == null || (t > ti ? entry.getKey() <= ti : entry.getKey() >= ti)) {
+            return null;
+        }
+        Checkpoint checkpoint = entry.getValue();
+        checkpoint.lastUsed = ++clock;
+        return checkpoint;
+    }
+
+    /**
+     * Add a checkpoint, evicting the least recently used one when full.
+     *
+     * @param checkpoint checkpoint to add
+     */
+    private synchronized void put(Checkpoint checkpoint) {
+        checkpoint.lastUsed = ++clock;
+        checkpoints.put(checkpoint.t, checkpoint);
+        if (checkpoints.size() > maximumCheckpoints) {
+            Checkpoint eldest = null;
+            for (Checkpoint candidate : checkpoints.values()) {
+                if (eldest == null || candidate.lastUsed < eldest.lastUsed) {
+                    eldest = candidate;
+                }
+            }
+            checkpoints.remove(eldest.t);
+        }
+    }
+
+    /**
+     * @return number of checkpoints currently kept
+     */
+    synchronized int checkpointCount() {
+        return checkpoints.size();
+    }
+
+    /**
+     * Integration state that a query can resume from.
+     */
+    private static final class Checkpoint {
+
+        private final double t;
+        private final Vector x;
+        private final double tau;
+        private long lastUsed;
+
+        private Checkpoint(double t, Vector x, double tau) {
+            this.t = t;
+            this.x = x;
+            this.tau = tau;
+        }
+    }
+}
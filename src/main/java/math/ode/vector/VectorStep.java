@@ -0,0 +1,42 @@
+package math.ode.vector;
+
+/**
+ * State of a Vector First Order ODE integration after an accepted step.
+ */
+public final class VectorStep {
+
+    /**
+     * Independent variable.
+     */
+    private final double t;
+
+    /**
+     * Immutable copy of the dependent variables.
+     */
+    private final Vector x;
+
+    /**
+     * Package Private Constructor.
+     *
+     * @param t independent variable
+     * @param x dependent variables, copied unless already immutable
+     */
+    VectorStep(double t, Vector x) {
+        this.t = t;
+        this.x = x.immutable();
+    }
+
+    /**
+     * @return independent variable
+     */
+    public double getT() {
+        return t;
+    }
+
+    /**
+     * @return immutable dependent variables
+     */
+    public Vector getX() {
+        return x;
+    }
+}
@@ -0,0 +1,17 @@
+package math.ode.vector;
+
+/**
+ * Listener called after every accepted step of a Vector First Order ODE integration, for example to log progress or
+ * record the step sizes. Integrations without a listener do not pay for the hook.
+ */
+@FunctionalInterface
+public interface VectorStepListener {
+
+    /**
+     * Called after an accepted step. The listener may read the stepper, but must not advance it or modify the
+     * vectors it returns.
+     *
+     * @param stepper integration positioned after the step
+     */
+    void onStep(VectorStepper stepper);
+}
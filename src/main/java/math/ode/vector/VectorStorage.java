@@ -0,0 +1,341 @@
+package math.ode.vector;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntFunction;
+
+/**
+ * Storage of the elements of a {@link Vector}.
+ * <p>
+ * Heap storage is a plain {@code double[]}. Direct storage lives outside of the Java heap, so it adds no garbage
+ * collection pressure, and mapped storage lives in a file mapped into memory, so it can exceed the heap and
+ * outlive the process. Results computed from mapped storage are mapped as well, onto scratch files that are
+ * deleted once closed, so neither the heap nor the direct memory limit bounds the size of a mapped vector.
+ * Off-heap storage is split into segments of at most 2^27 elements, so a vector may hold
+ * more than 2 GiB of elements, up to the int index limit of {@link Vector}. Off-heap elements use the native
+ * byte order.
+ */
+public abstract class VectorStorage {
+
+    /**
+     * Number of elements of an off-heap segment, as a power of two.
+     */
+    static final int SEGMENT_SHIFT = 27;
+
+    /**
+     * Package Private Constructor.
+     */
+    VectorStorage() {
+    }
+
+    /**
+     * @param length number of elements
+     * @return zeroed storage on the Java heap
+     */
+    public static VectorStorage heap(int length) {
+        return wrap(new double[length]);
+    }
+
+    /**
+     * @param length number of elements
+     * @return zeroed storage in direct memory, outside of the Java heap
+     */
+    public static VectorStorage direct(int length) {
+        if (length < 0) throw new IllegalArgumentException("Length must be non-negative.");
+        DoubleBuffer[] segments = new DoubleBuffer[segmentCount(length)];
+        for (int s = 0; s < segments.length; ++s) {
+            segments[s] = ByteBuffer.allocateDirect(Double.BYTES * segmentLength(length, s))
+                    .order(ByteOrder.nativeOrder())
+                    .asDoubleBuffer();
+        }
+        return new Buffers(length, segments, VectorStorage::direct);
+    }
+
+    /**
+     * Map a region of a file as storage. Writes to the storage are written to the file, and the mapping stays
+     * valid after the channel is closed. Results computed from the storage are mapped onto scratch files in the
+     * default temporary directory.
+     *
+     * @param channel  channel opened for reading and writing
+     * @param position byte offset of the first element in the file
+     * @param length   number of elements
+     * @return storage mapped onto the file, the file grows if it is too short
+     * @throws IOException if the region cannot be mapped
+     */
+    public static VectorStorage mapped(FileChannel channel, long position, int length) throws IOException {
+        return mapped(channel, position, length, null);
+    }
+
+    /**
+     * @param channel   channel opened for reading and writing
+     * @param position  byte offset of the first element in the file
+     * @param length    number of elements
+     * @param directory directory of the scratch files of results, null for the default temporary directory
+     * @return storage mapped onto the file
+     * @throws IOException if the region cannot be mapped
+     */
+    private static VectorStorage mapped(FileChannel channel, long position, int length, Path directory)
+            throws IOException {
+        if (length < 0) throw new IllegalArgumentException("Length must be non-negative.");
+        DoubleBuffer[] segments = new DoubleBuffer[segmentCount(length)];
+        for (int s = 0; s < segments.length; ++s) {
+            long offset = position + ((long) Double.BYTES << SEGMENT_SHIFT) * s;
+            long size = (long) Double.BYTES * segmentLength(length, s);
+            segments[s] = channel.map(FileChannel.MapMode.READ_WRITE, offset, size)
+                    .order(ByteOrder.nativeOrder())
+                    .asDoubleBuffer();
+        }
+        return new Buffers(length, segments, n -> scratch(directory, n));
+    }
+
+    /**
+     * Map a file as storage, creating it if needed. Existing elements of the file are kept. Results computed from
+     * the storage are mapped onto scratch files next to it.
+     *
+     * @param path   file to map
+     * @param length number of elements
+     * @return storage mapped onto the file
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public static VectorStorage mapped(Path path, int length) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return mapped(channel, 0L, length, path.toAbsolutePath().getParent());
+        }
+    }
+
+    /**
+     * Map a new file that is deleted once closed, so that it only lives as long as the mapping.
+     *
+     * @param directory directory of the file, null for the default temporary directory
+     * @param length    number of elements
+     * @return zeroed storage mapped onto the file
+     */
+    private static VectorStorage scratch(Path directory, int length) {
+        try {
+            Path file = (directory == null) ? Files.createTempFile("vector", ".scratch")
+                    : Files.createTempFile(directory, "vector", ".scratch");
+            try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+                return mapped(channel, 0L, length, directory);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map a scratch file for a vector.", e);
+        }
+    }
+
+    /**
+     * @param x array to use as storage without copying
+     * @return heap storage backed by x
+     */
+    static VectorStorage wrap(double[] x) {
+        return new Heap(x);
+    }
+
+    private static int segmentCount(int length) {
+        return (int) (((long) length + (1L << SEGMENT_SHIFT) - 1) >>> SEGMENT_SHIFT);
+    }
+
+    private static int segmentLength(int length, int segment) {
+        return Math.min(1 << SEGMENT_SHIFT, length - (segment << SEGMENT_SHIFT));
+    }
+
+    /**
+     * @return number of elements
+     */
+    public abstract int length();
+
+    /**
+     * @param index element index
+     * @return element value
+     */
+    public abstract double get(int index);
+
+    /**
+     * @param index element index
+     * @param value element value
+     */
+    public abstract void set(int index, double value);
+
+    /**
+     * @return true if the elements are outside of the Java heap
+     */
+    public abstract boolean isOffHeap();
+
+    /**
+     * Copy consecutive elements into an array.
+     *
+     * @param from   index of the first element
+     * @param dst    destination array
+     * @param offset index in dst of the first element
+     * @param length number of elements
+     */
+    abstract void get(int from, double[] dst, int offset, int length);
+
+    /**
+     * Copy consecutive elements from an array.
+     *
+     * @param from   index of the first element
+     * @param src    source array
+     * @param offset index in src of the first element
+     * @param length number of elements
+     */
+    abstract void put(int from, double[] src, int offset, int length);
+
+    /**
+     * @return backing array of heap storage, null for off-heap storage
+     */
+    abstract double[] array();
+
+    /**
+     * Allocate storage for results computed from this storage. Heap storage allocates on the heap, direct storage
+     * allocates direct memory and mapped storage maps scratch files, so that large intermediate results stay off
+     * the heap as well.
+     *
+     * @param length number of elements
+     * @return zeroed storage
+     */
+    abstract VectorStorage allocate(int length);
+
+    /**
+     * Elements in a heap array.
+     */
+    private static final class Heap extends VectorStorage {
+
+        private final double[] x;
+
+        private Heap(double[] x) {
+            this.x = x;
+        }
+
+        @Override
+        public int length() {
+            return x.length;
+        }
+
+        @Override
+        public double get(int index) {
+            return x[index];
+        }
+
+        @Override
+        public void set(int index, double value) {
+            x[index] = value;
+        }
+
+        @Override
+        public boolean isOffHeap() {
+            return false;
+        }
+
+        @Override
+        void get(int from, double[] dst, int offset, int length) {
+            System.arraycopy(x, from, dst, offset, length);
+        }
+
+        @Override
+        void put(int from, double[] src, int offset, int length) {
+            System.arraycopy(src, offset, x, from, length);
+        }
+
+        @Override
+        double[] array() {
+            return x;
+        }
+
+        @Override
+        VectorStorage allocate(int length) {
+            return heap(length);
+        }
+    }
+
+    /**
+     * Elements in direct or mapped buffers, one per segment. Bulk copies use duplicates of the buffers, so
+     * concurrent copies of disjoint ranges are safe.
+     */
+    private static final class Buffers extends VectorStorage {
+
+        private static final int MASK = (1 << SEGMENT_SHIFT) - 1;
+
+        private final int length;
+        private final DoubleBuffer[] segments;
+
+        /**
+         * Storage of the same kind for results.
+         */
+        private final IntFunction<VectorStorage> allocator;
+
+        private Buffers(int length, DoubleBuffer[] segments, IntFunction<VectorStorage> allocator) {
+            this.length = length;
+            this.segments = segments;
+            this.allocator = allocator;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public double get(int index) {
+            if (index < 0 || index >= length) throw new IndexOutOfBoundsException("Index: " + index);
+            return segments[index >>> SEGMENT_SHIFT].get(index & MASK);
+        }
+
+        @Override
+        public void set(int index, double value) {
+            if (index < 0 || index >= length) throw new IndexOutOfBoundsException("Index: " + index);
+            segments[index >>> SEGMENT_SHIFT].put(index & MASK, value);
+        }
+
+        @Override
+        public boolean isOffHeap() {
+            return true;
+        }
+
+        @Override
+        void get(int from, double[] dst, int offset, int length) {
+            while (length > 0) {
+                DoubleBuffer segment = segments[from >>> SEGMENT_SHIFT].duplicate();
+                int position = from & MASK;
+                int count = Math.min(length, segment.limit() - position);
+                segment.position(position);
+                segment.get(dst, offset, count);
+                from += count;
+                offset += count;
+                length -= count;
+            }
+        }
+
+        @Override
+        void put(int from, double[] src, int offset, int length) {
+            while (length > 0) {
+                DoubleBuffer segment = segments[from >>> SEGMENT_SHIFT].duplicate();
+                int position = from & MASK;
+                int count = Math.min(length, segment.limit() - position);
+                segment.position(position);
+                segment.put(src, offset, count);
+                from += count;
+                offset += count;
+                length -= count;
+            }
+        }
+
+        @Override
+        double[] array() {
+            return null;
+        }
+
+        @Override
+        VectorStorage allocate(int length) {
+            return allocator.apply(length);
+        }
+    }
+}
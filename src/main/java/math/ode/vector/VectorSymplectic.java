@@ -0,0 +1,294 @@
+package math.ode.vector;
+
+import math.ode.utils.SolverStatistics;
+import math.ode.utils.SplittingScheme;
+
+/**
+ * Vector Fixed Step Splitting Algorithm for odes split in two parts whose flows are computed separately, updating
+ * separate position and momentum vectors in place.
+ * <p>
+ * For a separable Hamiltonian H(q, p) = T(p) + V(q), with dq/dt = dT/dp and dp/dt = -dV/dq, the parts are the drift
+ * of the positions and the kick of the momenta, each of which is exact and symplectic. Their compositions by a
+ * {@link SplittingScheme} are symplectic too, so the energy error stays bounded instead of drifting, and long runs
+ * can take steps as large as accuracy allows. Each evaluation of a part is kept until the state it depends on
+ * changes, so the merged kicks of consecutive velocity Verlet steps cost one evaluation of the force.
+ */
+public class VectorSymplectic {
+
+    /**
+     * Step size.
+     */
+    private final double tau;
+
+    /**
+     * Fractions of the step of the flows of the first part.
+     */
+    private final double[] a;
+
+    /**
+     * Fractions of the step of the flows of the second part.
+     */
+    private final double[] b;
+
+    /**
+     * Index of the last flow of the first part, which ends the step.
+     */
+    private final int lastA;
+
+    /**
+     * Private Constructor.
+     *
+     * @param builder builder to set the parameters
+     */
+    private VectorSymplectic(Builder builder) {
+        this.tau = builder.tau;
+        this.a = builder.a;
+        this.b = builder.b;
+        int last = 0;
+        for (int i = 0; i < a.length; ++i) {
+            if (a[i] != 0.0) {
+                last = i;
+            }
+        }
+        this.lastA = last;
+    }
+
+    /**
+     * Integrate a separable Hamiltonian system in place.
+     *
+     * @param velocity in-place dq/dt(p, t), the derivative of the kinetic energy
+     * @param force    in-place dp/dt(q, t), minus the derivative of the potential energy
+     * @param q        mutable positions at ti, overwritten with the positions at t
+     * @param p        mutable momenta at ti, overwritten with the momenta at t
+     * @param ti       initial value of the independent variable
+     * @param t        desired value of the independent variable, the last step being shortened to land on it
+     */
+    public void solve(VectorODE velocity, VectorODE force, Vector q, Vector p, double ti, double t) {
+        solve(velocity, force, q, p, ti, t, null);
+    }
+
+    /**
+     * Integrate a separable Hamiltonian system in place recording the work done, each evaluation of the velocity or
+     * the force counting as one evaluation.
+     *
+     * @param velocity   in-place dq/dt(p, t), the derivative of the kinetic energy
+     * @param force      in-place dp/dt(q, t), minus the derivative of the potential energy
+     * @param q          mutable positions at ti, overwritten with the positions at t
+     * @param p          mutable momenta at ti, overwritten with the momenta at t
+     * @param ti         initial value of the independent variable
+     * @param t          desired value of the independent variable, the last step being shortened to land on it
+     * @param statistics statistics to fill in, or null for none
+     */
+    public void solve(VectorODE velocity, VectorODE force, Vector q, Vector p, double ti, double t,
+                      SolverStatistics statistics) {
+        if (velocity == null || force == null) throw new IllegalArgumentException("Ode cannot be null.");
+        Separable separable = (statistics == null)
+                ? new Separable(velocity, force, q, p)
+                : new Separable(new CountingVectorODE(velocity, statistics), new CountingVectorODE(force, statistics),
+                        q, p);
+        solve(separable::drift, separable::kick, q, p, ti, t, statistics);
+    }
+
+    /**
+     * Integrate an ode split in two parts in place.
+     *
+     * @param flowA flow of the first part
+     * @param flowB flow of the second part
+     * @param q     mutable positions at ti, overwritten with the positions at t
+     * @param p     mutable momenta at ti, overwritten with the momenta at t
+     * @param ti    initial value of the independent variable
+     * @param t     desired value of the independent variable, the last step being shortened to land on it
+     */
+    public void solve(VectorFlow flowA, VectorFlow flowB, Vector q, Vector p, double ti, double t) {
+        solve(flowA, flowB, q, p, ti, t, null);
+    }
+
+    /**
+     * Integrate an ode split in two parts in place recording the steps taken. The flows are opaque, so no
+     * evaluations are counted.
+     *
+     * @param flowA      flow of the first part
+     * @param flowB      flow of the second part
+     * @param q          mutable positions at ti, overwritten with the positions at t
+     * @param p          mutable momenta at ti, overwritten with the momenta at t
+     * @param ti         initial value of the independent variable
+     * @param t          desired value of the independent variable, the last step being shortened to land on it
+     * @param statistics statistics to fill in, or null for none
+     */
+    public void solve(VectorFlow flowA, VectorFlow flowB, Vector q, Vector p, double ti, double t,
+                      SolverStatistics statistics) {
+        if (flowA == null || flowB == null) throw new IllegalArgumentException("Flow cannot be null.");
+        if (q.getType() == VectorType.IMMUTABLE || p.getType() == VectorType.IMMUTABLE) {
+            throw new IllegalAccessError("The vector is immutable and cannot be modified.");
+        }
+        if (statistics != null) {
+            statistics.start();
+        }
+        try {
+            final double dt = t < ti ? -1.0 * tau : tau;
+            double time = ti;
+            while (time != t) {
+                final boolean last = (dt > 0.0) ? time + dt >= t : time + dt <= t;
+                final double h = last ? t - time : dt;
+                final double end = last ? t : time + h;
+                // The first part advances the independent variable, exactly to the end of the step with its last flow
+                double substep = time;
+                for (int i = 0; i < a.length; ++i) {
+                    if (a[i] != 0.0) {
+                        flowA.apply(q, p, substep, a[i] * h);
+                        substep = (i == lastA) ? end : substep + a[i] * h;
+                    }
+                    if (b[i] != 0.0) {
+                        flowB.apply(q, p, substep, b[i] * h);
+                    }
+                }
+                time = end;
+                if (statistics != null) {
+                    statistics.countStep(h);
+                }
+            }
+        } finally {
+            if (statistics != null) {
+                statistics.stop(0);
+            }
+        }
+    }
+
+    /**
+     * Drift and kick of a separable Hamiltonian, each keeping its evaluation until the other part has moved the
+     * state it depends on.
+     */
+    private static final class Separable {
+
+        private final VectorODE velocity;
+        private final VectorODE force;
+        private final Vector dqdt;
+        private final Vector dpdt;
+        private boolean hasVelocity;
+        private boolean hasForce;
+        private double tVelocity;
+        private double tForce;
+
+        private Separable(VectorODE velocity, VectorODE force, Vector q, Vector p) {
+            this.velocity = velocity;
+            this.force = force;
+            this.dqdt = Vector.mutableLike(q);
+            this.dpdt = Vector.mutableLike(p);
+        }
+
+        private void drift(Vector q, Vector p, double t, double h) {
+            if (!hasVelocity || tVelocity != t) {
+                velocity.apply(p, t, dqdt);
+                hasVelocity = true;
+                tVelocity = t;
+            }
+            Vector.axpy(h, dqdt, q);
+            hasForce = false;
+        }
+
+        private void kick(Vector q, Vector p, double t, double h) {
+            if (!hasForce || tForce != t) {
+                force.apply(q, t, dpdt);
+                hasForce = true;
+                tForce = t;
+            }
+            Vector.axpy(h, dpdt, p);
+            hasVelocity = false;
+        }
+    }
+
+    /**
+     * Builder class for the Vector Symplectic class.
+     */
+    public static class Builder {
+
+        /**
+         * Step size.
+         */
+        private double tau;
+
+        /**
+         * Fractions of the step of the flows of the first part.
+         */
+        private double[] a;
+
+        /**
+         * Fractions of the step of the flows of the second part.
+         */
+        private double[] b;
+
+        /**
+         * Get a builder instance with default settings.
+         *
+         * @return builder
+         */
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        /**
+         * Private constructor.
+         */
+        private Builder() {
+            this.tau = 0.1;
+            this.a = SplittingScheme.VERLET.getA();
+            this.b = SplittingScheme.VERLET.getB();
+        }
+
+        /**
+         * @param tau step size
+         * @return this
+         */
+        public Builder setStepSize(double tau) {
+            if (tau == 0.0) throw new IllegalArgumentException("Step size cannot be zero.");
+            this.tau = (tau > 0.0) ? tau : -tau;
+            return this;
+        }
+
+        /**
+         * @param scheme splitting scheme
+         * @return this
+         */
+        public Builder setScheme(SplittingScheme scheme) {
+            if (scheme == null) throw new IllegalArgumentException("Scheme cannot be null.");
+            this.a = scheme.getA();
+            this.b = scheme.getB();
+            return this;
+        }
+
+        /**
+         * Use a custom splitting scheme, applying the flows A(a_1 * h), B(b_1 * h), A(a_2 * h), ... in turn.
+         *
+         * @param a fractions of the step of the flows of the first part, summing to one
+         * @param b fractions of the step of the flows of the second part, summing to one
+         * @return this
+         */
+        public Builder setCoefficients(double[] a, double[] b) {
+            if (a == null || b == null) throw new IllegalArgumentException("Coefficients cannot be null.");
+            if (a.length != b.length) throw new IllegalArgumentException("Coefficient lengths must match.");
+            if (Math.abs(sum(a) - 1.0) > 1e-12 || Math.abs(sum(b) - 1.0) > 1e-12) {
+                throw new IllegalArgumentException("Coefficients must sum to one.");
+            }
+            this.a = a.clone();
+            this.b = b.clone();
+            return this;
+        }
+
+        private static double sum(double[] values) {
+            double out = 0.0;
+            for (double value : values) {
+                out += value;
+            }
+            return out;
+        }
+
+        /**
+         * Build the Vector Symplectic class with this builder's parameters.
+         *
+         * @return symplectic instance
+         */
+        public VectorSymplectic build() {
+            return new VectorSymplectic(this);
+        }
+    }
+}
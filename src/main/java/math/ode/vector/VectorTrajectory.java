@@ -0,0 +1,196 @@
+package math.ode.vector;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Solution of a Vector First Order ODE recorded at every accepted step of one integration. Values between the
+ * steps are given by cubic Hermite interpolation of the recorded states and derivatives, found by binary search.
+ */
+public class VectorTrajectory implements Function<Double, Vector> {
+
+    /**
+     * Number of dependent variables.
+     */
+    private final int n;
+
+    /**
+     * Values of the independent variable at the recorded steps, monotonic.
+     */
+    private double[] t;
+
+    /**
+     * Values of the dependent variables at the recorded steps, n per step.
+     */
+    private double[] x;
+
+    /**
+     * Derivatives at the recorded steps, n per step.
+     */
+    private double[] f;
+
+    /**
+     * Number of recorded steps.
+     */
+    private int size;
+
+    /**
+     * Package Private Constructor.
+     *
+     * @param n number of dependent variables
+     */
+    VectorTrajectory(int n) {
+        this.n = n;
+        this.t = new double[16];
+        this.x = new double[16 * n];
+        this.f = new double[16 * n];
+    }
+
+    /**
+     * Record the state at an accepted step.
+     *
+     * @param time       independent variable
+     * @param value      dependent variables
+     * @param derivative dx/dt at the state
+     */
+    void add(double time, Vector value, Vector derivative) {
+        if (size == t.length) {
+            t = Arrays.copyOf(t, 2 * size);
+            x = Arrays.copyOf(x, 2 * size * n);
+            f = Arrays.copyOf(f, 2 * size * n);
+        }
+        t[size] = time;
+        final int offset = size * n;
+        for (int j = 0; j < n; ++j) {
+            x[offset + j] = value.get(j);
+            f[offset + j] = derivative.get(j);
+        }
+        ++size;
+    }
+
+    /**
+     * Record every step of an integration.
+     *
+     * @param stepper integration to run to completion
+     * @return trajectory of the integration
+     */
+    static VectorTrajectory record(VectorStepper stepper) {
+        VectorTrajectory trajectory = new VectorTrajectory(stepper.getX().length());
+        trajectory.add(stepper.getT(), stepper.getX(), stepper.getDerivative());
+        while (!stepper.isDone()) {
+            stepper.step();
+            trajectory.add(stepper.getT(), stepper.getX(), stepper.getDerivative());
+        }
+        return trajectory;
+    }
+
+    /**
+     * Find the recorded step interval containing a value of the independent variable.
+     *
+     * @param time independent variable
+     * @return index of the first step of the interval
+     */
+    private int interval(double time) {
+        final boolean forward = t[size - 1] >= t[0];
+        if (forward ? (time < t[0] || time > t[size - 1]) : (time > t[0] || time < t[size - 1])) {
+            String errorMessage = String.format("t = %f is outside of the trajectory [%f, %f].", time, t[0], t[size - 1]);
+            throw new IllegalArgumentException(errorMessage);
+        }
+        int lo = 0;
+        int hi = size - 1;
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            if (forward ? t[mid] <= time : t[mid] >= time) {
+                lo = mid;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Interpolate the dependent variables without allocating.
+     *
+     * @param time independent variable within the trajectory
+     * @param dest mutable vector receiving x(time)
+     * @return dest
+     */
+    public Vector interpolate(double time, Vector dest) {
+        int i = interval(time);
+        final int offset = i * n;
+        if (size == 1) {
+            for (int j = 0; j < n; ++j) {
+                dest.set(j, x[j]);
+            }
+            return dest;
+        }
+        double h = t[i + 1] - t[i];
+        double s = (time - t[i]) / h;
+        double s2 = s * s;
+        double s3 = s2 * s;
+        double h00 = 2.0 * s3 - 3.0 * s2 + 1.0;
+        double h10 = (s3 - 2.0 * s2 + s) * h;
+        double h01 = -2.0 * s3 + 3.0 * s2;
+        double h11 = (s3 - s2) * h;
+        for (int j = 0; j < n; ++j) {
+            dest.set(j, h00 * x[offset + j] + h10 * f[offset + j] + h01 * x[offset + n + j] + h11 * f[offset + n + j]);
+        }
+        return dest;
+    }
+
+    /**
+     * Interpolate the derivatives without allocating.
+     *
+     * @param time independent variable within the trajectory
+     * @param dest mutable vector receiving dx/dt(time)
+     * @return dest
+     */
+    public Vector interpolateDerivative(double time, Vector dest) {
+        int i = interval(time);
+        final int offset = i * n;
+        if (size == 1) {
+            for (int j = 0; j < n; ++j) {
+                dest.set(j, f[j]);
+            }
+            return dest;
+        }
+        double h = t[i + 1] - t[i];
+        double s = (time - t[i]) / h;
+        double s2 = s * s;
+        double d00 = (6.0 * s2 - 6.0 * s) / h;
+        double d10 = 3.0 * s2 - 4.0 * s + 1.0;
+        double d01 = (-6.0 * s2 + 6.0 * s) / h;
+        double d11 = 3.0 * s2 - 2.0 * s;
+        for (int j = 0; j < n; ++j) {
+            dest.set(j, d00 * x[offset + j] + d10 * f[offset + j] + d01 * x[offset + n + j] + d11 * f[offset + n + j]);
+        }
+        return dest;
+    }
+
+    @Override
+    public Vector apply(Double time) {
+        return interpolate(time, Vector.mutable(n));
+    }
+
+    /**
+     * @return initial value of the independent variable
+     */
+    public double getInitialTime() {
+        return t[0];
+    }
+
+    /**
+     * @return final value of the independent variable
+     */
+    public double getFinalTime() {
+        return t[size - 1];
+    }
+
+    /**
+     * @return number of recorded steps, including the initial condition
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -1,5 +1,6 @@
 package math.ode.scalar;
 
+import math.ode.utils.SolverStatistics;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -81,4 +82,60 @@ public class MemoizedScalarRungeKutta4Test {
             Assert.assertEquals(actual, expected, 1e-6);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testBoxedOdeHits() {
+        MemoizedScalarRungeKutta4 solver = MemoizedScalarRungeKutta4.Builder.builder()
+                .setStepSize(0.1)
+                .build();
+        BiFunction<Double, Double, Double> dx = (x, t) -> x * t / 10.0;
+        double first = solver.solve(dx, 1.0, 0.0, 1.0);
+        long misses = solver.getMemoizer().missCount();
+        // Every step of the second call is found again although each call adapts the boxed ode anew
+        double second = solver.solve(dx, 1.0, 0.0, 1.0);
+        Assert.assertEquals(second, first);
+        Assert.assertEquals(solver.getMemoizer().missCount(), misses);
+        Assert.assertEquals(solver.getMemoizer().hitCount(), misses);
+    }
+
+    @Test
+    public void testStatisticsHits() {
+        MemoizedScalarRungeKutta4 solver = MemoizedScalarRungeKutta4.Builder.builder()
+                .setStepSize(0.1)
+                .build();
+        ScalarODE dx = (x, t) -> x * t / 10.0;
+        SolverStatistics statistics = new SolverStatistics();
+        double first = solver.solve(dx, 1.0, 0.0, 1.0, statistics, null);
+        long misses = solver.getMemoizer().missCount();
+        Assert.assertEquals(statistics.getEvaluations(), 4 * misses);
+        // Counting the evaluations keeps the ode the steps are cached under, so nothing is evaluated again
+        Assert.assertEquals(solver.solve(dx, 1.0, 0.0, 1.0), first);
+        Assert.assertEquals(solver.solve(dx, 1.0, 0.0, 1.0, statistics, null), first);
+        Assert.assertEquals(solver.getMemoizer().missCount(), misses);
+        Assert.assertEquals(solver.getMemoizer().hitCount(), 2 * misses);
+        Assert.assertEquals(statistics.getEvaluations(), 0);
+        Assert.assertEquals(statistics.getAcceptedSteps(), misses);
+    }
+
+    @Test
+    public void testDerivativeCached() {
+        int[] calls = new int[1];
+        ScalarODE dx = (x, t) -> {
+            calls[0]++;
+            return x * t / 10.0;
+        };
+        ScalarStepper stepper = MemoizedScalarRungeKutta4.Builder.builder()
+                .setStepSize(0.1)
+                .build()
+                .stepper(dx, 1.0, 0.0, 1.0);
+        double f = stepper.getDerivative();
+        Assert.assertEquals(stepper.getDerivative(), f);
+        Assert.assertEquals(calls[0], 1);
+        stepper.step();
+        calls[0] = 0;
+        // The derivative at the new point is evaluated once however often it is asked for
+        Assert.assertEquals(stepper.getDerivative(), stepper.getX() * 0.1 / 10.0, 1e-15);
+        stepper.getDerivative();
+        Assert.assertEquals(calls[0], 1);
+    }
+}
@@ -0,0 +1,107 @@
+package math.ode.scalar;
+
+import math.ode.utils.SolverStatistics;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+public class ScalarAdamsBashforthMoultonTest {
+
+    /**
+     * x' = x * cos(t), whose solution exp(sin(t)) keeps changing its time scale.
+     */
+    private static final ScalarODE PERIODIC = (x, t) -> x * Math.cos(t);
+
+    @DataProvider
+    public Object[][] createSolveTests() {
+        return new Object[][]{
+                {(BiFunction<Double, Double, Double>) (x, t) -> t,
+                        (Function<Double, Double>) (t) -> t * t / 2.0,
+                        8.0, -4.0},
+                {(BiFunction<Double, Double, Double>) (x, t) -> x * t / 10.0,
+                        (Function<Double, Double>) (t) -> -20 * Math.exp(t * t / 20.0),
+                        -20.0, 0.0},
+                {(BiFunction<Double, Double, Double>) (x, t) -> Math.sqrt(x) * t,
+                        (Function<Double, Double>) (t) -> Math.pow(Math.pow(t, 2.0) + 4.0, 2) / 16.0,
+                        25.0, 4.0}
+        };
+    }
+
+    @Test(dataProvider = "createSolveTests")
+    public void testSolution(BiFunction<Double, Double, Double> dx, Function<Double, Double> xExp, double xi, double ti) {
+        Function<Double, Double> xAct = ScalarAdamsBashforthMoulton.Builder.builder()
+                .setLocalTruncationError(1e-12)
+                .build()
+                .solution(dx, xi, ti);
+        for (double time = -10.0; time <= 10.0; time += 1.0) {
+            double expected = xExp.apply(time);
+            double actual = xAct.apply(time);
+            Assert.assertEquals(actual, expected, 1e-6);
+        }
+    }
+
+    @DataProvider
+    public Object[][] createOrders() {
+        return IntStream.rangeClosed(1, ScalarAdamsBashforthMoulton.MAX_ORDER)
+                .mapToObj(order -> new Object[]{order})
+                .toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "createOrders")
+    public void testPeriodic(int maxOrder) {
+        ScalarAdamsBashforthMoulton solver = ScalarAdamsBashforthMoulton.Builder.builder()
+                .setLocalTruncationError(1e-8)
+                .setMaximumOrder(maxOrder)
+                .build();
+        for (double t = 5.0; t <= 30.0; t += 5.0) {
+            double expected = Math.exp(Math.sin(t));
+            Assert.assertEquals(solver.solve(PERIODIC, 1.0, 0.0, t), expected, 1e-5 * expected);
+        }
+    }
+
+    @Test
+    public void testBackward() {
+        ScalarAdamsBashforthMoulton solver = ScalarAdamsBashforthMoulton.Builder.builder().build();
+        double x = solver.solve(PERIODIC, Math.exp(Math.sin(20.0)), 20.0, 0.0);
+        Assert.assertEquals(x, 1.0, 1e-8);
+    }
+
+    @Test
+    public void testFewerEvaluations() {
+        SolverStatistics multistep = new SolverStatistics();
+        double x = ScalarAdamsBashforthMoulton.Builder.builder()
+                .setLocalTruncationError(1e-10)
+                .build()
+                .solve(PERIODIC, 1.0, 0.0, 30.0, multistep, null);
+        SolverStatistics rungeKutta = new SolverStatistics();
+        double y = ScalarRungeKuttaAdaptive.Builder.builder()
+                .setLocalTruncationError(1e-10)
+                .build()
+                .solve(PERIODIC, 1.0, 0.0, 30.0, rungeKutta, null);
+        double expected = Math.exp(Math.sin(30.0));
+        Assert.assertEquals(x, expected, 1e-8 * expected);
+        Assert.assertEquals(y, expected, 1e-8 * expected);
+        // Two evaluations per step once started, against eleven per step doubling
+        Assert.assertTrue(multistep.getEvaluations() < 2.5 * multistep.getAcceptedSteps(), multistep.toString());
+        Assert.assertTrue(4 * multistep.getEvaluations() < rungeKutta.getEvaluations(),
+                multistep.getEvaluations() + " against " + rungeKutta.getEvaluations());
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        ScalarAdamsBashforthMoulton.Builder builder = ScalarAdamsBashforthMoulton.Builder.builder();
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setLocalTruncationError(0.0));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setMaximumOrder(0));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> builder.setMaximumOrder(ScalarAdamsBashforthMoulton.MAX_ORDER + 1));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setInitialStepSize(0.0));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setMaximumTries(-1));
+        ScalarStepper stepper = builder.build().stepper(PERIODIC, 1.0, 0.0, 0.0);
+        Assert.assertTrue(stepper.isDone());
+        Assert.assertThrows(IllegalStateException.class, stepper::step);
+    }
+}
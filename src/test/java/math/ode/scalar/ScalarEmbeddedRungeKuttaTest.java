@@ -0,0 +1,162 @@
+package math.ode.scalar;
+
+import math.ode.utils.ButcherTableau;
+import math.ode.utils.StepSizeController;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+public class ScalarEmbeddedRungeKuttaTest {
+
+    private static final Object[][] SOLVE_CASES = {
+            {(BiFunction<Double, Double, Double>) (x, t) -> t,
+                    (Function<Double, Double>) (t) -> t * t / 2.0,
+                    8.0, -4.0},
+            {(BiFunction<Double, Double, Double>) (x, t) -> x * t / 10.0,
+                    (Function<Double, Double>) (t) -> -20 * Math.exp(t * t / 20.0),
+                    -20.0, 0.0},
+            {(BiFunction<Double, Double, Double>) (x, t) -> Math.sqrt(x) * t,
+                    (Function<Double, Double>) (t) -> Math.pow(Math.pow(t, 2.0) + 4.0, 2) / 16.0,
+                    25.0, 4.0}
+    };
+
+    @DataProvider
+    public Object[][] createSolveTests() {
+        return Arrays.stream(ButcherTableau.values())
+                .flatMap(tableau -> Arrays.stream(SOLVE_CASES).map(row -> new Object[]{tableau, row[0], row[1], row[2], row[3]}))
+                .toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "createSolveTests")
+    public void testSolution(ButcherTableau tableau, BiFunction<Double, Double, Double> dx, Function<Double, Double> xExp,
+                             double xi, double ti) {
+        Function<Double, Double> xAct = ScalarEmbeddedRungeKutta.Builder.builder()
+                .setTableau(tableau)
+                .setLocalTruncationError(1e-12)
+                .setInitialStepSize(0.03)
+                .setMaximumTries(100)
+                .setSafetyFactor1(0.9)
+                .setSafetyFactor2(4.0)
+                .build()
+                .solution(dx, xi, ti);
+        for (double time = -10.0; time <= 10.0; time += 1.0) {
+            double expected = xExp.apply(time);
+            double actual = xAct.apply(time);
+            Assert.assertEquals(actual, expected, 1e-6);
+        }
+    }
+
+    @Test
+    public void testFewerEvaluationsThanStepDoubling() {
+        AtomicInteger embeddedCalls = new AtomicInteger();
+        AtomicInteger doublingCalls = new AtomicInteger();
+        double embedded = ScalarEmbeddedRungeKutta.Builder.builder()
+                .setLocalTruncationError(1e-10)
+                .build()
+                .solve((x, t) -> {
+                    embeddedCalls.incrementAndGet();
+                    return -x * Math.cos(t);
+                }, 1.0, 0.0, 20.0);
+        double doubling = ScalarRungeKuttaAdaptive.Builder.builder()
+                .setLocalTruncationError(1e-10)
+                .build()
+                .solve((x, t) -> {
+                    doublingCalls.incrementAndGet();
+                    return -x * Math.cos(t);
+                }, 1.0, 0.0, 20.0);
+        Assert.assertEquals(embedded, Math.exp(-Math.sin(20.0)), 1e-8);
+        Assert.assertEquals(doubling, Math.exp(-Math.sin(20.0)), 1e-8);
+        Assert.assertTrue(2 * embeddedCalls.get() < doublingCalls.get());
+    }
+
+    private static Object[] randomMotionCase(Random rand) {
+        // Initial parameters
+        double a = (rand.nextDouble() - 0.5) * 20.0;
+        double vi = (rand.nextDouble() - 0.5) * 100.0;
+        double xi = (rand.nextDouble() - 0.5) * 200.0;
+        double ti = (rand.nextDouble() - 0.5) * 20.0;
+        // Expected equation of motion
+        Function<Double, Double> xExp = t -> xi + vi * (t - ti) + 0.5 * a * (t - ti) * (t - ti);
+        return new Object[]{xExp, a, vi, xi, ti};
+    }
+
+    @DataProvider
+    public Object[][] createMotionTests() {
+        Random rand = new Random();
+        rand.setSeed(94789234);
+        final int numTests = 5;
+        return IntStream.range(0, numTests)
+                .mapToObj(i -> randomMotionCase(rand))
+                .toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "createMotionTests")
+    public void testMotion(Function<Double, Double> xExp, double a, double vi, double xi, double ti) {
+        // Velocity function
+        Function<Double, Double> v = ScalarEmbeddedRungeKutta.Builder.builder()
+                .setInitialStepSize(0.1)
+                .build()
+                .solution((vel, t) -> a, vi, ti);
+        // Position function
+        Function<Double, Double> x = ScalarEmbeddedRungeKutta.Builder.builder()
+                .setInitialStepSize(0.1)
+                .build()
+                .solution((xPos, t) -> v.apply(t), xi, ti);
+        // Assert that the position function matches the expected
+        for (double time = -10.0; time <= 10.0; time += 1.0) {
+            double actual = x.apply(time);
+            double expected = xExp.apply(time);
+            Assert.assertEquals(actual, expected, 1e-6);
+        }
+    }
+
+    @DataProvider
+    public Object[][] createStepSizeControllers() {
+        return Arrays.stream(StepSizeController.values())
+                .map(controller -> new Object[]{controller})
+                .toArray(Object[][]::new);
+    }
+
+    /**
+     * @param controller step size controller
+     * @return stepper having relaxed towards 2 + cos(t) until t = 20, at the stability limit of an explicit method
+     */
+    private static ScalarStepper relax(StepSizeController controller) {
+        ScalarStepper stepper = ScalarEmbeddedRungeKutta.Builder.builder()
+                .setLocalTruncationError(1e-4)
+                .setStepSizeController(controller)
+                .build()
+                .stepper((x, t) -> -200.0 * (x - 2.0 - Math.cos(t)), 3.0, 0.0, 20.0);
+        while (!stepper.isDone()) {
+            stepper.step();
+        }
+        return stepper;
+    }
+
+    @Test(dataProvider = "createStepSizeControllers")
+    public void testStepSizeController(StepSizeController controller) {
+        double expected = 2.0 + (40000.0 * Math.cos(20.0) + 200.0 * Math.sin(20.0)) / 40001.0;
+        Assert.assertEquals(relax(controller).getX(), expected, 1e-3);
+    }
+
+    @Test
+    public void testFewerRejections() {
+        int integral = relax(StepSizeController.INTEGRAL).getRejectedSteps();
+        int pi = relax(StepSizeController.PI).getRejectedSteps();
+        Assert.assertTrue(integral > 0);
+        Assert.assertTrue(pi < integral, pi + " against " + integral);
+    }
+
+    @Test
+    public void testInvalidStepSizeController() {
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> ScalarEmbeddedRungeKutta.Builder.builder().setStepSizeController(null));
+    }
+}
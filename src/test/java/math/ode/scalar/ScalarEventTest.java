@@ -0,0 +1,186 @@
+package math.ode.scalar;
+
+import math.ode.utils.EventAction;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ScalarEventTest {
+
+    /**
+     * Event recording its occurrences and carrying on.
+     */
+    private static final class Crossing implements ScalarEvent {
+
+        private final double level;
+        private final int direction;
+        private final List<Double> times = new ArrayList<>();
+
+        private Crossing(double level, int direction) {
+            this.level = level;
+            this.direction = direction;
+        }
+
+        @Override
+        public double g(double t, double x) {
+            return x - level;
+        }
+
+        @Override
+        public int getDirection() {
+            return direction;
+        }
+
+        @Override
+        public EventAction handle(double t, double x) {
+            times.add(t);
+            return EventAction.CONTINUE;
+        }
+    }
+
+    @DataProvider
+    public Object[][] createSolvers() {
+        return new Object[][]{
+                {ScalarRungeKutta4.Builder.builder().setStepSize(0.01).build()},
+                {ScalarRungeKuttaAdaptive.Builder.builder().setLocalTruncationError(1e-10).build()},
+                {ScalarEmbeddedRungeKutta.Builder.builder().setLocalTruncationError(1e-10).build()},
+                {MemoizedScalarRungeKutta4.Builder.builder().setStepSize(0.01).build()},
+                {MemoizedScalarRungeKuttaAdaptive.Builder.builder().setLocalTruncationError(1e-10).build()}
+        };
+    }
+
+    @Test(dataProvider = "createSolvers")
+    public void testStop(ScalarODESolver solver) {
+        // x = exp(-t) reaches 0.25 at ln 4
+        ScalarStep step = solver.solve((ScalarODE) (x, t) -> -x, 1.0, 0.0, 5.0,
+                Collections.singletonList((t, x) -> x - 0.25));
+        Assert.assertEquals(step.getT(), Math.log(4.0), 1e-7);
+        Assert.assertEquals(step.getX(), 0.25, 1e-7);
+    }
+
+    @Test(dataProvider = "createSolvers")
+    public void testContinue(ScalarODESolver solver) {
+        // x = sin(t) crosses zero at multiples of pi, not counting the initial condition
+        Crossing any = new Crossing(0.0, 0);
+        Crossing decreasing = new Crossing(0.0, -1);
+        ScalarStep step = solver.solve((ScalarODE) (x, t) -> Math.cos(t), 0.0, 0.0, 10.0,
+                Arrays.asList(any, decreasing));
+        Assert.assertEquals(step.getT(), 10.0);
+        Assert.assertEquals(step.getX(), Math.sin(10.0), 1e-6);
+        Assert.assertEquals(any.times.size(), 3);
+        for (int k = 0; k < 3; ++k) {
+            Assert.assertEquals(any.times.get(k), (k + 1) * Math.PI, 1e-6);
+        }
+        Assert.assertEquals(decreasing.times.size(), 2);
+        Assert.assertEquals(decreasing.times.get(0), Math.PI, 1e-6);
+        Assert.assertEquals(decreasing.times.get(1), 3.0 * Math.PI, 1e-6);
+    }
+
+    @Test(dataProvider = "createSolvers")
+    public void testNoExtraEvaluations(ScalarODESolver solver) {
+        int[] calls = new int[1];
+        ScalarODE ode = (x, t) -> {
+            calls[0]++;
+            return -x * Math.cos(t);
+        };
+        double expected = solver.solve(ode, 1.0, 0.0, 20.0);
+        final int plainCalls = calls[0];
+        calls[0] = 0;
+        Crossing crossing = new Crossing(1.0, 0);
+        ScalarStep step = solver.solve(ode, 1.0, 0.0, 20.0, Collections.singletonList(crossing));
+        Assert.assertEquals(step.getX(), expected);
+        Assert.assertEquals(crossing.times.size(), 6);
+        // Only the derivative at the last state, which a plain solve never needs
+        Assert.assertTrue(calls[0] <= plainCalls + 1, calls[0] + " against " + plainCalls);
+    }
+
+    @Test(dataProvider = "createSolvers")
+    public void testReset(ScalarODESolver solver) {
+        // Sawtooth: x = t, reset to zero on reaching one
+        ScalarEvent sawtooth = new ScalarEvent() {
+            @Override
+            public double g(double t, double x) {
+                return x - 1.0;
+            }
+
+            @Override
+            public int getDirection() {
+                return 1;
+            }
+
+            @Override
+            public EventAction handle(double t, double x) {
+                return EventAction.RESET;
+            }
+
+            @Override
+            public double reset(double t, double x) {
+                return 0.0;
+            }
+        };
+        ScalarStep step = solver.solve((ScalarODE) (x, t) -> 1.0, 0.0, 0.0, 3.5,
+                Collections.singletonList(sawtooth));
+        Assert.assertEquals(step.getT(), 3.5);
+        Assert.assertEquals(step.getX(), 0.5, 1e-9);
+    }
+
+    @Test(dataProvider = "createSolvers")
+    public void testBackward(ScalarODESolver solver) {
+        // x = t^2 / 2 backwards from t = 4, reaching 2 at t = 2
+        Crossing crossing = new Crossing(2.0, -1);
+        ScalarStep step = solver.solve((ScalarODE) (x, t) -> t, 8.0, 4.0, 0.0,
+                Arrays.asList(crossing, (t, x) -> x - 0.5));
+        Assert.assertEquals(crossing.times.size(), 1);
+        Assert.assertEquals(crossing.times.get(0), 2.0, 1e-9);
+        Assert.assertEquals(step.getT(), 1.0, 1e-9);
+    }
+
+    @Test
+    public void testSeveralEventsInOneStep() {
+        // Handled in order within a single step
+        List<String> order = new ArrayList<>();
+        ScalarEvent first = new ScalarEvent() {
+            @Override
+            public double g(double t, double x) {
+                return x - 0.3;
+            }
+
+            @Override
+            public EventAction handle(double t, double x) {
+                order.add("first");
+                return EventAction.CONTINUE;
+            }
+        };
+        ScalarEvent second = new ScalarEvent() {
+            @Override
+            public double g(double t, double x) {
+                return x - 0.6;
+            }
+
+            @Override
+            public EventAction handle(double t, double x) {
+                order.add("second");
+                return EventAction.STOP;
+            }
+        };
+        ScalarStep step = ScalarRungeKutta4.Builder.builder()
+                .setStepSize(1.0)
+                .build()
+                .solve((ScalarODE) (x, t) -> 1.0, 0.0, 0.0, 2.0, Arrays.asList(second, first));
+        Assert.assertEquals(order, Arrays.asList("first", "second"));
+        Assert.assertEquals(step.getT(), 0.6, 1e-15);
+        Assert.assertEquals(step.getX(), 0.6, 1e-15);
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        ScalarODESolver solver = ScalarRungeKutta4.Builder.builder().build();
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> solver.solve((ScalarODE) (x, t) -> x, 1.0, 0.0, 1.0, null));
+    }
+}
@@ -1,12 +1,17 @@
 package math.ode.scalar;
 
+import math.ode.utils.SolverStatistics;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 public class ScalarRungeKutta4Test {
@@ -41,6 +46,116 @@ public class ScalarRungeKutta4Test {
         }
     }
 
+    @Test(dataProvider = "createSolveTests")
+    public void testPrimitiveMatchesBoxed(BiFunction<Double, Double, Double> dx, Function<Double, Double> xExp, double xi, double ti) {
+        ScalarODESolver solver = ScalarRungeKutta4.Builder.builder()
+                .setStepSize(0.009)
+                .build();
+        ScalarODE primitive = (x, t) -> dx.apply(x, t);
+        // Assert that the primitive and boxed right-hand sides take the same steps
+        for (double time = -10.0; time <= 10.0; time += 1.0) {
+            Assert.assertEquals(solver.solve(primitive, xi, ti, time), solver.solve(dx, xi, ti, time));
+        }
+    }
+
+    @Test(dataProvider = "createSolveTests")
+    public void testTrajectory(BiFunction<Double, Double, Double> dx, Function<Double, Double> xExp, double xi, double ti) {
+        ScalarODESolver solver = ScalarRungeKutta4.Builder.builder()
+                .setStepSize(0.009)
+                .build();
+        // Integrate once in each direction and interpolate between the recorded steps
+        ScalarTrajectory forward = solver.trajectory(dx, xi, ti, 10.0);
+        ScalarTrajectory backward = solver.trajectory(dx, xi, ti, -10.0);
+        for (double time = -10.0; time <= 10.0; time += 0.05) {
+            double expected = xExp.apply(time);
+            double actual = (time >= ti) ? forward.apply(time) : backward.apply(time);
+            Assert.assertEquals(actual, expected, 1e-6);
+        }
+        Assert.assertEquals(forward.getInitialTime(), ti);
+        Assert.assertEquals(forward.getFinalTime(), 10.0);
+        Assert.assertEquals(backward.getFinalTime(), -10.0);
+        Assert.assertThrows(IllegalArgumentException.class, () -> forward.apply(10.5));
+        Assert.assertThrows(IllegalArgumentException.class, () -> backward.apply(ti + 0.5));
+    }
+
+    @Test
+    public void testLockstepMatchesSolve() {
+        ScalarRungeKutta4 rk4 = ScalarRungeKutta4.Builder.builder()
+                .setStepSize(0.009)
+                .build();
+        // Parameter study over the decay rate, one member per rate
+        int members = 2 * ScalarRungeKutta4.BLOCK_SIZE + 17;
+        double[] k = IntStream.range(0, members).mapToDouble(i -> 0.01 * i).toArray();
+        double[] xi = IntStream.range(0, members).mapToDouble(i -> 1.0 + 0.1 * i).toArray();
+        ScalarBatchODE decay = (x, t, dxdt, offset) -> {
+            for (int i = 0; i < x.length; ++i) {
+                dxdt[i] = -k[offset + i] * x[i] + Math.sin(t);
+            }
+        };
+        for (double t : new double[]{3.7, -2.05}) {
+            double[] x = rk4.solveAll(decay, xi, 0.5, t);
+            for (int i = 0; i < members; ++i) {
+                final double rate = k[i];
+                Assert.assertEquals(x[i], rk4.solve((xx, tt) -> -rate * xx + Math.sin(tt), xi[i], 0.5, t));
+            }
+        }
+        double[] x = rk4.solveAll(ScalarBatchODE.of((xx, t) -> t), new double[]{8.0}, -4.0, 10.0);
+        Assert.assertEquals(x[0], 50.0, 1e-6);
+    }
+
+    @Test
+    public void testSteps() {
+        AtomicLong evaluations = new AtomicLong();
+        ScalarODE dx = (x, t) -> {
+            evaluations.incrementAndGet();
+            return t;
+        };
+        ScalarRungeKutta4 rk4 = ScalarRungeKutta4.Builder.builder()
+                .setStepSize(0.3)
+                .build();
+        List<ScalarStep> steps = rk4.steps(dx, 8.0, -4.0, 10.0).collect(Collectors.toList());
+        // Initial condition, 46 full steps and a shortened last step
+        Assert.assertEquals(steps.size(), 48);
+        Assert.assertEquals(steps.get(0).getT(), -4.0);
+        Assert.assertEquals(steps.get(0).getX(), 8.0);
+        Assert.assertEquals(steps.get(47).getT(), 10.0);
+        Assert.assertEquals(steps.get(47).getX(), rk4.solve(dx, 8.0, -4.0, 10.0));
+        for (ScalarStep step : steps) {
+            Assert.assertEquals(step.getX(), step.getT() * step.getT() / 2.0, 1e-9);
+        }
+        // Steps are only taken as they are pulled
+        evaluations.set(0);
+        Assert.assertEquals(rk4.steps(dx, 8.0, -4.0, 1e9).limit(3).count(), 3);
+        Assert.assertEquals(evaluations.get(), 8);
+    }
+
+    @Test
+    public void testStatistics() {
+        AtomicLong evaluations = new AtomicLong();
+        ScalarODE dx = (x, t) -> {
+            evaluations.incrementAndGet();
+            return t;
+        };
+        ScalarRungeKutta4 rk4 = ScalarRungeKutta4.Builder.builder()
+                .setStepSize(0.3)
+                .build();
+        SolverStatistics statistics = new SolverStatistics();
+        List<Double> times = new ArrayList<>();
+        double x = rk4.solve(dx, 8.0, -4.0, 10.0, statistics, stepper -> times.add(stepper.getT()));
+        Assert.assertEquals(statistics.getEvaluations(), evaluations.get());
+        Assert.assertEquals(x, rk4.solve(dx, 8.0, -4.0, 10.0));
+        // 46 full steps and a shortened last step, each evaluation of the ode counted
+        Assert.assertEquals(statistics.getAcceptedSteps(), 47);
+        Assert.assertEquals(statistics.getRejectedSteps(), 0);
+        Assert.assertEquals(statistics.getMaxStepSize(), 0.3, 1e-12);
+        Assert.assertEquals(statistics.getMinStepSize(), 0.2, 1e-12);
+        Assert.assertEquals(statistics.getLastStepSize(), 0.2, 1e-12);
+        Assert.assertEquals(times.size(), 47);
+        Assert.assertEquals((double) times.get(46), 10.0);
+        // Neither statistics nor a listener
+        Assert.assertEquals(rk4.solve(dx, 8.0, -4.0, 10.0, null, null), x);
+    }
+
     private static Object[] randomMotionCase(Random rand) {
         // Initial parameters
         double a = (rand.nextDouble() - 0.5) * 20.0;
@@ -1,10 +1,16 @@
 package math.ode.scalar;
 
+import math.ode.utils.SolverStatistics;
+import math.ode.utils.StepSizeController;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.IntStream;
@@ -43,6 +49,79 @@ public class ScalarRungeKuttaAdaptiveTest {
         }
     }
 
+    @Test(dataProvider = "createSolveTests")
+    public void testPrimitiveMatchesBoxed(BiFunction<Double, Double, Double> dx, Function<Double, Double> xExp, double xi, double ti) {
+        ScalarODESolver solver = ScalarRungeKuttaAdaptive.Builder.builder()
+                .setInitialStepSize(0.03)
+                .build();
+        ScalarODE primitive = (x, t) -> dx.apply(x, t);
+        // Assert that the primitive and boxed right-hand sides take the same steps
+        for (double time = -10.0; time <= 10.0; time += 1.0) {
+            Assert.assertEquals(solver.solve(primitive, xi, ti, time), solver.solve(dx, xi, ti, time));
+        }
+    }
+
+    @Test(dataProvider = "createSolveTests")
+    public void testTrajectory(BiFunction<Double, Double, Double> dx, Function<Double, Double> xExp, double xi, double ti) {
+        ScalarODESolver solver = ScalarRungeKuttaAdaptive.Builder.builder()
+                .setInitialStepSize(0.03)
+                .build();
+        // Integrate once in each direction and interpolate between the recorded steps
+        ScalarTrajectory forward = solver.trajectory(dx, xi, ti, 10.0);
+        ScalarTrajectory backward = solver.trajectory(dx, xi, ti, -10.0);
+        for (double time = -10.0; time <= 10.0; time += 0.05) {
+            double expected = xExp.apply(time);
+            double actual = (time >= ti) ? forward.apply(time) : backward.apply(time);
+            Assert.assertEquals(actual, expected, 1e-6);
+        }
+        Assert.assertEquals(forward.getInitialTime(), ti);
+        Assert.assertEquals(forward.getFinalTime(), 10.0);
+        Assert.assertEquals(backward.getFinalTime(), -10.0);
+        Assert.assertThrows(IllegalArgumentException.class, () -> forward.apply(10.5));
+        Assert.assertThrows(IllegalArgumentException.class, () -> backward.apply(ti + 0.5));
+    }
+
+    @Test(dataProvider = "createSolveTests")
+    public void testSolveAll(BiFunction<Double, Double, Double> dx, Function<Double, Double> xExp, double xi, double ti) {
+        ScalarODESolver solver = ScalarRungeKuttaAdaptive.Builder.builder()
+                .setInitialStepSize(0.03)
+                .build();
+        // Ensemble of initial conditions around xi, solved in parallel
+        double[] ensemble = IntStream.range(0, 1000).mapToDouble(i -> xi * (1.0 + i * 1e-3)).toArray();
+        double[] x = solver.solveAll(dx, ensemble, ti, 10.0);
+        for (int i = 0; i < ensemble.length; ++i) {
+            Assert.assertEquals(x[i], solver.solve(dx, ensemble[i], ti, 10.0));
+        }
+        // Solve in place on a caller supplied executor
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            solver.solveAll(dx, ensemble, ti, 10.0, ensemble, executor);
+        } finally {
+            executor.shutdown();
+        }
+        for (int i = 0; i < ensemble.length; ++i) {
+            Assert.assertEquals(ensemble[i], x[i]);
+        }
+    }
+
+    @Test(dataProvider = "createSolveTests")
+    public void testSteps(BiFunction<Double, Double, Double> dx, Function<Double, Double> xExp, double xi, double ti) {
+        ScalarODESolver solver = ScalarRungeKuttaAdaptive.Builder.builder()
+                .setInitialStepSize(0.03)
+                .build();
+        Iterator<ScalarStep> steps = solver.steps(dx, xi, ti, -10.0).iterator();
+        ScalarStep previous = steps.next();
+        Assert.assertEquals(previous.getT(), ti);
+        while (steps.hasNext()) {
+            ScalarStep step = steps.next();
+            Assert.assertTrue(step.getT() < previous.getT());
+            Assert.assertEquals(step.getX(), xExp.apply(step.getT()), 1e-6);
+            previous = step;
+        }
+        Assert.assertEquals(previous.getT(), -10.0);
+        Assert.assertEquals(previous.getX(), solver.solve(dx, xi, ti, -10.0));
+    }
+
     private static Object[] randomMotionCase(Random rand) {
         // Initial parameters
         double a = (rand.nextDouble() - 0.5) * 20.0;
@@ -83,4 +162,92 @@ public class ScalarRungeKuttaAdaptiveTest {
             Assert.assertEquals(actual, expected, 1e-6);
         }
     }
-}
\ No newline at end of file
+
+    @DataProvider
+    public Object[][] createStepSizeControllers() {
+        return Arrays.stream(StepSizeController.values())
+                .map(controller -> new Object[]{controller})
+                .toArray(Object[][]::new);
+    }
+
+    /**
+     * @param controller step size controller
+     * @return stepper having relaxed towards 2 + cos(t) until t = 20, at the stability limit of an explicit method
+     */
+    private static ScalarStepper relax(StepSizeController controller) {
+        ScalarStepper stepper = ScalarRungeKuttaAdaptive.Builder.builder()
+                .setLocalTruncationError(1e-4)
+                .setStepSizeController(controller)
+                .build()
+                .stepper((x, t) -> -200.0 * (x - 2.0 - Math.cos(t)), 3.0, 0.0, 20.0);
+        while (!stepper.isDone()) {
+            stepper.step();
+        }
+        return stepper;
+    }
+
+    @Test(dataProvider = "createStepSizeControllers")
+    public void testStepSizeController(StepSizeController controller) {
+        double expected = 2.0 + (40000.0 * Math.cos(20.0) + 200.0 * Math.sin(20.0)) / 40001.0;
+        Assert.assertEquals(relax(controller).getX(), expected, 1e-3);
+    }
+
+    @Test
+    public void testFewerRejections() {
+        int integral = relax(StepSizeController.INTEGRAL).getRejectedSteps();
+        int pi = relax(StepSizeController.PI).getRejectedSteps();
+        Assert.assertTrue(integral > 0);
+        Assert.assertTrue(pi < integral, pi + " against " + integral);
+    }
+
+    @Test
+    public void testStatistics() {
+        ScalarODE relaxation = (x, t) -> -200.0 * (x - 2.0 - Math.cos(t));
+        ScalarRungeKuttaAdaptive solver = ScalarRungeKuttaAdaptive.Builder.builder()
+                .setLocalTruncationError(1e-4)
+                .build();
+        SolverStatistics statistics = new SolverStatistics();
+        double x = solver.solve(relaxation, 3.0, 0.0, 20.0, statistics, null);
+        Assert.assertEquals(x, relax(StepSizeController.INTEGRAL).getX());
+        Assert.assertEquals(statistics.getRejectedSteps(), relax(StepSizeController.INTEGRAL).getRejectedSteps());
+        Assert.assertTrue(statistics.getRejectedSteps() > 0);
+        Assert.assertTrue(statistics.getMinStepSize() <= statistics.getLastStepSize());
+        Assert.assertTrue(statistics.getLastStepSize() <= statistics.getMaxStepSize());
+        // Every accepted step advances by at most the largest step size, the last one landing on t
+        Assert.assertTrue(statistics.getAcceptedSteps() * statistics.getMaxStepSize() >= 20.0);
+    }
+
+    @Test
+    public void testInitialStepSize() {
+        int[] calls = new int[1];
+        ScalarODE fast = (x, t) -> {
+            calls[0]++;
+            return -1e8 * (x - 2.0);
+        };
+        ScalarRungeKuttaAdaptive.Builder builder = ScalarRungeKuttaAdaptive.Builder.builder()
+                .setLocalTruncationError(1e-6);
+        // The estimate costs the derivative, which the first step reuses, and one more evaluation
+        ScalarStepper stepper = builder.build().stepper(fast, 1.0, 0.0, 5e-8);
+        Assert.assertEquals(calls[0], 2);
+        Assert.assertTrue(stepper.getStepSize() > 0.0 && stepper.getStepSize() < 5e-8);
+        Assert.assertTrue(builder.build().stepper(fast, 1.0, 0.0, -5e-8).getStepSize() < 0.0);
+        SolverStatistics estimated = new SolverStatistics();
+        double x = builder.build().solve(fast, 1.0, 0.0, 5e-8, estimated, null);
+        Assert.assertEquals(x, 2.0 - Math.exp(-5.0), 1e-6);
+        // A step size set explicitly overrides the estimate, here one far too large for the time scale
+        ScalarRungeKuttaAdaptive explicit = builder.setInitialStepSize(0.1).build();
+        Assert.assertEquals(explicit.stepper(fast, 1.0, 0.0, 5e-8).getStepSize(), 0.1);
+        SolverStatistics set = new SolverStatistics();
+        explicit.solve(fast, 1.0, 0.0, 5e-8, set, null);
+        Assert.assertTrue(estimated.getRejectedSteps() < set.getRejectedSteps(),
+                estimated.getRejectedSteps() + " against " + set.getRejectedSteps());
+        Assert.assertTrue(estimated.getEvaluations() < set.getEvaluations(),
+                estimated.getEvaluations() + " against " + set.getEvaluations());
+    }
+
+    @Test
+    public void testInvalidStepSizeController() {
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> ScalarRungeKuttaAdaptive.Builder.builder().setStepSizeController(null));
+    }
+}
@@ -0,0 +1,95 @@
+package math.ode.scalar;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+public class ScalarSolutionTest {
+
+    @DataProvider
+    public Object[][] createSolvers() {
+        return new Object[][]{
+                {ScalarRungeKutta4.Builder.builder().setStepSize(0.009).build()},
+                {ScalarRungeKuttaAdaptive.Builder.builder().setInitialStepSize(0.03).build()},
+                {ScalarEmbeddedRungeKutta.Builder.builder().setInitialStepSize(0.03).build()}
+        };
+    }
+
+    @Test(dataProvider = "createSolvers")
+    public void testResumesFromCheckpoints(ScalarODESolver solver) {
+        AtomicLong cached = new AtomicLong();
+        AtomicLong uncached = new AtomicLong();
+        Function<Double, Double> x = solver.solution((ScalarODE) (xx, t) -> {
+            cached.incrementAndGet();
+            return xx * t / 10.0;
+        }, -20.0, 0.0);
+        ScalarODE counted = (xx, t) -> {
+            uncached.incrementAndGet();
+            return xx * t / 10.0;
+        };
+        // Increasing queries on both sides of the initial condition
+        for (double time = 0.25; time <= 10.0; time += 0.25) {
+            Assert.assertEquals(x.apply(time), -20.0 * Math.exp(time * time / 20.0), 1e-6);
+            Assert.assertEquals(x.apply(-time), -20.0 * Math.exp(time * time / 20.0), 1e-6);
+            solver.solve(counted, -20.0, 0.0, time);
+            solver.solve(counted, -20.0, 0.0, -time);
+        }
+        Assert.assertTrue(cached.get() * 5 < uncached.get());
+        Assert.assertEquals((double) x.apply(0.0), -20.0);
+    }
+
+    @DataProvider
+    public Object[][] createShrinkingSolvers() {
+        return new Object[][]{
+                {ScalarEmbeddedRungeKutta.Builder.builder().build()},
+                {ScalarAdamsBashforthMoulton.Builder.builder().build()}
+        };
+    }
+
+    @Test(dataProvider = "createShrinkingSolvers")
+    public void testResumeAfterShortenedStep(ScalarODESolver solver) {
+        AtomicLong evaluations = new AtomicLong();
+        ScalarODE decay = (xx, t) -> {
+            evaluations.incrementAndGet();
+            return -xx * Math.cos(t);
+        };
+        Function<Double, Double> x = solver.solution(decay, 1.0, 0.0);
+        Function<Double, Double> y = solver.solution(decay, 1.0, 0.0);
+        x.apply(1.0);
+        y.apply(1.0);
+        // Ends on a very short step, after which the solver proposes a step about as short
+        x.apply(1.0 + 1e-9);
+        evaluations.set(0);
+        x.apply(5.0);
+        long afterShortStep = evaluations.getAndSet(0);
+        y.apply(5.0);
+        Assert.assertTrue(afterShortStep <= evaluations.get() + 10, afterShortStep + " against " + evaluations.get());
+    }
+
+    @Test
+    public void testCheckpointsBounded() {
+        ScalarSolution x = new ScalarSolution(ScalarRungeKutta4.Builder.builder().build(),
+                (xx, t) -> t, 0.0, 0.0, 4);
+        for (double time = 1.0; time <= 10.0; time += 1.0) {
+            Assert.assertEquals(x.apply(time), time * time / 2.0, 1e-9);
+            Assert.assertEquals(x.apply(time - 0.5), (time - 0.5) * (time - 0.5) / 2.0, 1e-9);
+        }
+        Assert.assertEquals(x.checkpointCount(), 4);
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> new ScalarSolution(ScalarRungeKutta4.Builder.builder().build(), (xx, t) -> t, 0.0, 0.0, 0));
+    }
+
+    @Test(dataProvider = "createSolvers")
+    public void testConcurrentQueries(ScalarODESolver solver) {
+        Function<Double, Double> x = solver.solution((ScalarODE) (xx, t) -> Math.sqrt(xx) * t, 25.0, 4.0);
+        IntStream.range(0, 2000).parallel().forEach(i -> {
+            double time = 4.0 + (i % 200) * 0.05;
+            double expected = Math.pow(time * time + 4.0, 2) / 16.0;
+            Assert.assertEquals(x.apply(time), expected, 1e-6);
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package math.ode.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class AdamsWeightsTest {
+
+    @Test
+    public void testConstantStep() {
+        AdamsWeights adams = new AdamsWeights();
+        double[] weights = new double[5];
+        // Fourth order Adams-Bashforth on the current and three past points
+        adams.integrate(new double[]{1.0, 0.0, -1.0, -2.0, -3.0}, 1, 4, weights);
+        double[] bashforth = {55.0 / 24.0, -59.0 / 24.0, 37.0 / 24.0, -9.0 / 24.0};
+        for (int j = 0; j < bashforth.length; ++j) {
+            Assert.assertEquals(weights[j + 1], bashforth[j], 1e-14);
+        }
+        // Fourth order Adams-Moulton adding the end of the step
+        adams.integrate(new double[]{1.0, 0.0, -1.0, -2.0, -3.0}, 0, 4, weights);
+        double[] moulton = {9.0 / 24.0, 19.0 / 24.0, -5.0 / 24.0, 1.0 / 24.0};
+        for (int j = 0; j < moulton.length; ++j) {
+            Assert.assertEquals(weights[j], moulton[j], 1e-14);
+        }
+    }
+
+    @DataProvider
+    public Object[][] createCounts() {
+        return IntStream.rangeClosed(1, AdamsWeights.MAX_NODES)
+                .mapToObj(count -> new Object[]{count})
+                .toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "createCounts")
+    public void testPolynomials(int count) {
+        // Nodes 1, 0 and past points spaced by random step sizes, as a variable step history
+        Random rand = new Random(count);
+        double[] nodes = new double[count];
+        nodes[0] = 1.0;
+        for (int j = 2; j < count; ++j) {
+            nodes[j] = nodes[j - 1] - (0.5 + rand.nextDouble());
+        }
+        double[] weights = new double[count];
+        new AdamsWeights().integrate(nodes, 0, count, weights);
+        // The weights integrate every polynomial of degree below count over [0, 1] exactly
+        for (int p = 0; p < count; ++p) {
+            double sum = 0.0;
+            double scale = 0.0;
+            for (int j = 0; j < count; ++j) {
+                double term = weights[j] * Math.pow(nodes[j], p);
+                sum += term;
+                scale += Math.abs(term);
+            }
+            Assert.assertEquals(sum, 1.0 / (p + 1), 1e-13 * Math.max(1.0, scale));
+        }
+    }
+
+    @Test
+    public void testOffset() {
+        AdamsWeights adams = new AdamsWeights();
+        double[] nodes = {1.0, 0.0, -0.5, -1.25};
+        double[] weights = {7.0, 7.0, 7.0, 7.0};
+        adams.integrate(nodes, 1, 3, weights);
+        Assert.assertEquals(weights[0], 7.0);
+        double[] expected = new double[3];
+        adams.integrate(new double[]{0.0, -0.5, -1.25}, 0, 3, expected);
+        for (int j = 0; j < expected.length; ++j) {
+            Assert.assertEquals(weights[j + 1], expected[j], 1e-15);
+        }
+    }
+
+    @Test
+    public void testInvalidCount() {
+        AdamsWeights adams = new AdamsWeights();
+        double[] nodes = new double[AdamsWeights.MAX_NODES + 1];
+        double[] weights = new double[nodes.length];
+        Assert.assertThrows(IllegalArgumentException.class, () -> adams.integrate(nodes, 0, 0, weights));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> adams.integrate(nodes, 0, AdamsWeights.MAX_NODES + 1, weights));
+    }
+}
@@ -0,0 +1,168 @@
+package math.ode.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+public class MemoizerTest {
+
+    @Test
+    public void testUnboundedCounts() {
+        Memoizer<Integer, Integer> memoizer = new Memoizer<>();
+        AtomicInteger calls = new AtomicInteger();
+        Function<Integer, Integer> square = memoizer.doMemoize(i -> {
+            calls.incrementAndGet();
+            return i * i;
+        });
+        for (int repeat = 0; repeat < 3; ++repeat) {
+            for (int i = 0; i < 10; ++i) {
+                Assert.assertEquals((int) square.apply(i), i * i);
+            }
+        }
+        Assert.assertEquals(calls.get(), 10);
+        Assert.assertEquals(memoizer.missCount(), 10);
+        Assert.assertEquals(memoizer.hitCount(), 20);
+        Assert.assertEquals(memoizer.evictionCount(), 0);
+        Assert.assertEquals(memoizer.size(), 10);
+    }
+
+    @DataProvider
+    public Object[][] createPolicies() {
+        return new Object[][]{{EvictionPolicy.LRU}, {EvictionPolicy.TINY_LFU}};
+    }
+
+    @Test(dataProvider = "createPolicies")
+    public void testBoundedSize(EvictionPolicy policy) {
+        Memoizer<Integer, Integer> memoizer = Memoizer.Builder.<Integer, Integer>builder()
+                .setMaximumSize(100)
+                .setEvictionPolicy(policy)
+                .build();
+        Function<Integer, Integer> negate = memoizer.doMemoize(i -> -i);
+        for (int i = 0; i < 10000; ++i) {
+            Assert.assertEquals((int) negate.apply(i), -i);
+            Assert.assertTrue(memoizer.size() <= 100);
+        }
+        Assert.assertEquals(memoizer.missCount(), 10000);
+        Assert.assertEquals(memoizer.evictionCount(), 10000 - memoizer.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        Memoizer<Integer, Integer> memoizer = Memoizer.Builder.<Integer, Integer>builder()
+                .setMaximumSize(2)
+                .setConcurrencyLevel(1)
+                .setEvictionPolicy(EvictionPolicy.LRU)
+                .build();
+        Function<Integer, Integer> identity = memoizer.doMemoize(i -> i);
+        identity.apply(1);
+        identity.apply(2);
+        identity.apply(1);
+        identity.apply(3);
+        long misses = memoizer.missCount();
+        identity.apply(1);
+        Assert.assertEquals(memoizer.missCount(), misses);
+        identity.apply(2);
+        Assert.assertEquals(memoizer.missCount(), misses + 1);
+    }
+
+    @Test
+    public void testBufferedHitsReplayed() {
+        Memoizer<Integer, Integer> memoizer = Memoizer.Builder.<Integer, Integer>builder()
+                .setMaximumSize(2)
+                .setConcurrencyLevel(1)
+                .setEvictionPolicy(EvictionPolicy.LRU)
+                .build();
+        Function<Integer, Integer> identity = memoizer.doMemoize(i -> i);
+        identity.apply(1);
+        identity.apply(2);
+        // More hits than the read buffer holds, so some are replayed as it fills and the rest on the next write
+        for (int i = 0; i < 100; ++i) {
+            identity.apply(2);
+            identity.apply(1);
+        }
+        identity.apply(3);
+        long misses = memoizer.missCount();
+        identity.apply(1);
+        Assert.assertEquals(memoizer.missCount(), misses);
+        identity.apply(2);
+        Assert.assertEquals(memoizer.missCount(), misses + 1);
+        Assert.assertEquals(memoizer.hitCount(), 201);
+    }
+
+    private static long hotMisses(EvictionPolicy policy) {
+        Memoizer<Integer, Integer> memoizer = Memoizer.Builder.<Integer, Integer>builder()
+                .setMaximumSize(1000)
+                .setEvictionPolicy(policy)
+                .build();
+        Function<Integer, Integer> identity = memoizer.doMemoize(i -> i);
+        long misses = 0;
+        for (int round = 0; round < 20; ++round) {
+            // A hot set requested every round, separated by scans of keys requested only once
+            long before = memoizer.missCount();
+            IntStream.range(0, 500).forEach(identity::apply);
+            misses = memoizer.missCount() - before;
+            int scanStart = 1000000 + 2000 * round;
+            IntStream.range(scanStart, scanStart + 2000).forEach(identity::apply);
+        }
+        return misses;
+    }
+
+    @Test
+    public void testFrequentEntriesSurviveScans() {
+        Assert.assertEquals(hotMisses(EvictionPolicy.LRU), 500);
+        Assert.assertTrue(hotMisses(EvictionPolicy.TINY_LFU) < 100);
+    }
+
+    @Test
+    public void testExpiry() {
+        AtomicLong now = new AtomicLong();
+        Memoizer<Integer, Integer> memoizer = Memoizer.Builder.<Integer, Integer>builder()
+                .setExpireAfterWrite(10, TimeUnit.SECONDS)
+                .setTicker(now::get)
+                .build();
+        Function<Integer, Integer> identity = memoizer.doMemoize(i -> i);
+        identity.apply(1);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        identity.apply(1);
+        Assert.assertEquals(memoizer.hitCount(), 1);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        identity.apply(1);
+        Assert.assertEquals(memoizer.hitCount(), 1);
+        Assert.assertEquals(memoizer.evictionCount(), 1);
+        // Entries which are never read again are swept by later writes
+        now.addAndGet(TimeUnit.SECONDS.toNanos(20));
+        IntStream.range(100, 1000).forEach(identity::apply);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(20));
+        IntStream.range(1000, 3000).forEach(identity::apply);
+        Assert.assertTrue(memoizer.size() < 2900);
+    }
+
+    @Test
+    public void testRecursion() {
+        Memoizer<Integer, Long> memoizer = Memoizer.Builder.<Integer, Long>builder()
+                .setMaximumSize(1000)
+                .build();
+        AtomicReference<Function<Integer, Long>> fibonacci = new AtomicReference<>();
+        fibonacci.set(memoizer.doMemoize(
+                n -> (n < 2) ? (long) n : fibonacci.get().apply(n - 1) + fibonacci.get().apply(n - 2)));
+        Assert.assertEquals((long) fibonacci.get().apply(80), 23416728348467685L);
+    }
+
+    @Test
+    public void testConcurrentAccess() {
+        Memoizer<Integer, Integer> memoizer = Memoizer.Builder.<Integer, Integer>builder()
+                .setMaximumSize(500)
+                .build();
+        Function<Integer, Integer> twice = memoizer.doMemoize(i -> 2 * i);
+        IntStream.range(0, 200000).parallel().forEach(i -> Assert.assertEquals((int) twice.apply(i % 2000), 2 * (i % 2000)));
+        Assert.assertEquals(memoizer.hitCount() + memoizer.missCount(), 200000);
+        Assert.assertTrue(memoizer.size() <= 500);
+    }
+}
@@ -0,0 +1,185 @@
+package math.ode.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class ParallelLoopTest {
+
+    private static final ExecutorService FIXED = Executors.newFixedThreadPool(3, runnable -> {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @DataProvider
+    public Object[][] createExecutors() {
+        return new Object[][]{{ForkJoinPool.commonPool()}, {new ForkJoinPool(2)}, {FIXED}, {(Executor) Runnable::run}};
+    }
+
+    @Test(dataProvider = "createExecutors")
+    public void testEveryIndexOnce(Executor executor) {
+        for (int size : new int[]{0, 1, 7, 1000, 100003}) {
+            AtomicIntegerArray visits = new AtomicIntegerArray(size);
+            ParallelLoop.forRange(size, executor, (from, to) -> {
+                Assert.assertTrue(from < to);
+                for (int i = from; i < to; ++i) {
+                    visits.incrementAndGet(i);
+                }
+            });
+            for (int i = 0; i < size; ++i) {
+                Assert.assertEquals(visits.get(i), 1);
+            }
+        }
+    }
+
+    @Test(dataProvider = "createExecutors")
+    public void testFailurePropagates(Executor executor) {
+        Assert.assertThrows(IllegalStateException.class, () -> ParallelLoop.forRange(1000, executor, (from, to) -> {
+            if (from <= 500 && 500 < to) throw new IllegalStateException("failed");
+        }));
+    }
+
+    @Test
+    public void testFailureWaitsForChunks() {
+        // The first chunk fails at once, while the workers have stolen the right halves and are still running them
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            AtomicInteger running = new AtomicInteger();
+            Assert.assertThrows(IllegalStateException.class, () -> ParallelLoop.forRange(1000, 10, pool,
+                    (from, to) -> {
+                        running.incrementAndGet();
+                        try {
+                            if (from == 0) throw new IllegalStateException("failed");
+                            spin(1_000_000L);
+                        } finally {
+                            running.decrementAndGet();
+                        }
+                    }));
+            Assert.assertEquals(running.get(), 0);
+            Assert.assertThrows(IllegalStateException.class, () -> ParallelLoop.reduce(1000, 10, pool, (from, to) -> {
+                running.incrementAndGet();
+                try {
+                    if (from == 0) throw new IllegalStateException("failed");
+                    spin(1_000_000L);
+                    return 0.0;
+                } finally {
+                    running.decrementAndGet();
+                }
+            }, Double::sum));
+            Assert.assertEquals(running.get(), 0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testInterruptWaitsForChunks() {
+        AtomicInteger running = new AtomicInteger();
+        Thread.currentThread().interrupt();
+        try {
+            Assert.assertThrows(IllegalStateException.class, () -> ParallelLoop.forRange(1000, FIXED, (from, to) -> {
+                running.incrementAndGet();
+                spin(1_000_000L);
+                running.decrementAndGet();
+            }));
+            Assert.assertEquals(running.get(), 0);
+        } finally {
+            Assert.assertTrue(Thread.interrupted());
+        }
+    }
+
+    /**
+     * Busy wait, which unlike sleeping ignores interrupts.
+     *
+     * @param nanos time to wait
+     */
+    private static void spin(long nanos) {
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < nanos) {
+            Thread.yield();
+        }
+    }
+
+    @Test
+    public void testRejectedWorkers() {
+        // Accepts one worker, then rejects the rest as a saturated or shut down executor would
+        AtomicInteger submitted = new AtomicInteger();
+        Executor saturated = task -> {
+            if (submitted.getAndIncrement() > 0) throw new RejectedExecutionException("saturated");
+            FIXED.execute(task);
+        };
+        final int size = 1000;
+        AtomicIntegerArray visits = new AtomicIntegerArray(size);
+        AtomicInteger running = new AtomicInteger();
+        ParallelLoop.forRange(size, saturated, (from, to) -> {
+            running.incrementAndGet();
+            for (int i = from; i < to; ++i) {
+                visits.incrementAndGet(i);
+            }
+            Thread.yield();
+            running.decrementAndGet();
+        });
+        Assert.assertEquals(running.get(), 0);
+        for (int i = 0; i < size; ++i) {
+            Assert.assertEquals(visits.get(i), 1);
+        }
+    }
+
+    @Test
+    public void testReduce() {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            for (int size : new int[]{1, 7, 1000, 100003}) {
+                double sum = ParallelLoop.reduce(size, 64, pool, (from, to) -> {
+                    Assert.assertTrue(to - from <= 64);
+                    double out = 0.0;
+                    for (int i = from; i < to; ++i) {
+                        out += i;
+                    }
+                    return out;
+                }, Double::sum);
+                Assert.assertEquals(sum, size * (size - 1.0) / 2.0);
+                double max = ParallelLoop.reduce(size, 64, pool, (from, to) -> to - 1, Math::max);
+                Assert.assertEquals(max, size - 1.0);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testFixedGrain() {
+        AtomicIntegerArray visits = new AtomicIntegerArray(1000);
+        ParallelLoop.forRange(1000, 10, ForkJoinPool.commonPool(), (from, to) -> {
+            Assert.assertTrue(to - from <= 10);
+            for (int i = from; i < to; ++i) {
+                visits.incrementAndGet(i);
+            }
+        });
+        for (int i = 0; i < 1000; ++i) {
+            Assert.assertEquals(visits.get(i), 1);
+        }
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        Assert.assertThrows(IllegalArgumentException.class, () -> ParallelLoop.forRange(-1, FIXED, (from, to) -> {
+        }));
+        Assert.assertThrows(IllegalArgumentException.class, () -> ParallelLoop.forRange(1, null, (from, to) -> {
+        }));
+        Assert.assertThrows(IllegalArgumentException.class, () -> ParallelLoop.forRange(1, 0, ForkJoinPool.commonPool(),
+                (from, to) -> {
+                }));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> ParallelLoop.reduce(0, 1, ForkJoinPool.commonPool(), (from, to) -> 0.0, Double::sum));
+    }
+}
@@ -0,0 +1,49 @@
+package math.ode.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class RootFinderTest {
+
+    @Test
+    public void testIllinois() {
+        int[] calls = new int[1];
+        double root = RootFinder.illinois(x -> {
+            calls[0]++;
+            return x * x * x - 2.0;
+        }, 0.0, -2.0, 2.0, 6.0, 1e-15);
+        Assert.assertEquals(root, Math.cbrt(2.0), 1e-14);
+        Assert.assertTrue(calls[0] < 30, "Calls " + calls[0]);
+    }
+
+    @Test
+    public void testReversedBracket() {
+        // The returned point is on the side of b, where the function has the sign of gb
+        double root = RootFinder.illinois(Math::cos, 2.0, Math.cos(2.0), 1.0, Math.cos(1.0), 1e-14);
+        Assert.assertEquals(root, 0.5 * Math.PI, 1e-13);
+        Assert.assertTrue(Math.cos(root) >= 0.0);
+        root = RootFinder.illinois(Math::cos, 1.0, Math.cos(1.0), 2.0, Math.cos(2.0), 1e-14);
+        Assert.assertEquals(root, 0.5 * Math.PI, 1e-13);
+        Assert.assertTrue(Math.cos(root) <= 0.0);
+    }
+
+    @Test
+    public void testRootAtEnd() {
+        Assert.assertEquals(RootFinder.illinois(x -> x - 1.0, 0.0, -1.0, 1.0, 0.0, 1e-14), 1.0);
+    }
+
+    @Test
+    public void testTolerance() {
+        double root = RootFinder.illinois(x -> Math.exp(x) - 2.0, 0.0, -1.0, 1.0, Math.E - 2.0, 1e-3);
+        Assert.assertEquals(root, Math.log(2.0), 1e-3);
+        Assert.assertTrue(root >= Math.log(2.0));
+    }
+
+    @Test
+    public void testInvalidBracket() {
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> RootFinder.illinois(x -> x * x + 1.0, -1.0, 2.0, 1.0, 2.0, 1e-14));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> RootFinder.illinois(x -> x, 0.0, 0.0, 1.0, 1.0, 1e-14));
+    }
+}
@@ -0,0 +1,187 @@
+package math.ode.utils;
+
+import math.ode.scalar.ScalarAdamsBashforthMoulton;
+import math.ode.scalar.ScalarODE;
+import math.ode.scalar.ScalarODESolver;
+import math.ode.scalar.ScalarRungeKuttaAdaptive;
+import math.ode.vector.Vector;
+import math.ode.vector.VectorAdamsBashforthMoulton;
+import math.ode.vector.VectorBDF;
+import math.ode.vector.VectorODE;
+import math.ode.vector.VectorODESolver;
+import math.ode.vector.VectorRosenbrock;
+import math.ode.vector.VectorRungeKuttaAdaptive;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+public class SolverStatisticsTest {
+
+    /**
+     * x' = -200 * (x - 2 - cos(t)), stiff enough for an explicit solver to reject steps.
+     */
+    private static final ScalarODE RELAXATION = (x, t) -> -200.0 * (x - 2.0 - Math.cos(t));
+
+    /**
+     * x' = x * cos(t), whose solution exp(sin(t)) keeps changing its time scale.
+     */
+    private static final ScalarODE PERIODIC = (x, t) -> x * Math.cos(t);
+
+    private static final VectorODE VAN_DER_POL = (x, t, dxdt) -> {
+        dxdt.set(0, x.get(1));
+        dxdt.set(1, 20.0 * (1.0 - x.get(0) * x.get(0)) * x.get(1) - x.get(0));
+    };
+
+    private static final VectorODE KAPS = (x, t, dxdt) -> {
+        dxdt.set(0, -1002.0 * x.get(0) + 1000.0 * x.get(1) * x.get(1));
+        dxdt.set(1, x.get(0) - x.get(1) - x.get(1) * x.get(1));
+    };
+
+    /**
+     * Kepler problem of eccentricity 0.5, starting at the pericenter with a period of 2 * pi.
+     */
+    private static final VectorODE KEPLER = (x, t, dxdt) -> {
+        double r3 = Math.pow(x.get(0) * x.get(0) + x.get(1) * x.get(1), 1.5);
+        dxdt.set(0, x.get(2));
+        dxdt.set(1, x.get(3));
+        dxdt.set(2, -x.get(0) / r3);
+        dxdt.set(3, -x.get(1) / r3);
+    };
+
+    /**
+     * Integration of a fixed problem by a solver, with and without statistics.
+     */
+    interface Integration {
+
+        /**
+         * @return accepted steps, counted from the step stream of the solver
+         */
+        long countSteps();
+
+        /**
+         * @param statistics statistics to fill in
+         * @param listener   called after every accepted step
+         * @return evaluations of the ode
+         */
+        int solve(SolverStatistics statistics, Runnable listener);
+    }
+
+    private static Integration scalar(Supplier<ScalarODESolver> factory, ScalarODE ode, double xi, double t) {
+        return new Integration() {
+            @Override
+            public long countSteps() {
+                return factory.get().steps(ode, xi, 0.0, t).count() - 1;
+            }
+
+            @Override
+            public int solve(SolverStatistics statistics, Runnable listener) {
+                int[] calls = new int[1];
+                ScalarODE counted = (x, s) -> {
+                    calls[0]++;
+                    return ode.applyAsDouble(x, s);
+                };
+                factory.get().solve(counted, xi, 0.0, t, statistics, stepper -> listener.run());
+                return calls[0];
+            }
+        };
+    }
+
+    private static Integration vector(Supplier<VectorODESolver> factory, VectorODE ode, Vector xi, double t) {
+        return new Integration() {
+            @Override
+            public long countSteps() {
+                return factory.get().steps(ode, xi, 0.0, t).count() - 1;
+            }
+
+            @Override
+            public int solve(SolverStatistics statistics, Runnable listener) {
+                int[] calls = new int[1];
+                VectorODE counted = (x, s, dxdt) -> {
+                    calls[0]++;
+                    ode.apply(x, s, dxdt);
+                };
+                factory.get().solve(counted, xi, 0.0, t, statistics, stepper -> listener.run());
+                return calls[0];
+            }
+        };
+    }
+
+    @DataProvider
+    public Object[][] createIntegrations() {
+        Stream<Object[]> rosenbrock = Arrays.stream(RosenbrockTableau.values())
+                .map(tableau -> new Object[]{"rosenbrock " + tableau, vector(
+                        () -> VectorRosenbrock.Builder.builder().setTableau(tableau).build(),
+                        KAPS, Vector.immutable(1.0, 1.0), 5.0)});
+        return Stream.concat(Stream.of(
+                new Object[]{"scalar runge-kutta adaptive", scalar(
+                        () -> ScalarRungeKuttaAdaptive.Builder.builder().setLocalTruncationError(1e-4).build(),
+                        RELAXATION, 3.0, 20.0)},
+                new Object[]{"vector runge-kutta adaptive", vector(
+                        () -> VectorRungeKuttaAdaptive.Builder.builder().setLocalTruncationError(1e-3).build(),
+                        VAN_DER_POL, Vector.immutable(2.0, 0.0), 40.0)},
+                new Object[]{"scalar adams-bashforth-moulton", scalar(
+                        () -> ScalarAdamsBashforthMoulton.Builder.builder().build(),
+                        PERIODIC, 1.0, 30.0)},
+                new Object[]{"vector adams-bashforth-moulton", vector(
+                        () -> VectorAdamsBashforthMoulton.Builder.builder().build(),
+                        KEPLER, Vector.immutable(0.5, 0.0, 0.0, Math.sqrt(3.0)), 5.0)},
+                new Object[]{"bdf", vector(
+                        () -> VectorBDF.Builder.builder().build(),
+                        KAPS, Vector.immutable(1.0, 1.0), 5.0)}), rosenbrock)
+                .toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "createIntegrations")
+    public void testSolverCounts(String name, Integration integration) {
+        long steps = integration.countSteps();
+        SolverStatistics statistics = new SolverStatistics();
+        int[] listened = new int[1];
+        int calls = integration.solve(statistics, () -> listened[0]++);
+        // Every evaluation is counted, including those estimating a Jacobian
+        Assert.assertEquals(statistics.getEvaluations(), calls, name);
+        Assert.assertEquals(statistics.getAcceptedSteps(), steps, name);
+        Assert.assertEquals(listened[0], steps, name);
+    }
+
+    @Test
+    public void testCounts() {
+        SolverStatistics statistics = new SolverStatistics();
+        statistics.start();
+        for (int i = 0; i < 5; ++i) {
+            statistics.countEvaluation();
+        }
+        statistics.countStep(0.5);
+        statistics.countStep(-2.0);
+        statistics.countStep(0.25);
+        statistics.countStep(-1.0);
+        statistics.stop(3);
+        Assert.assertEquals(statistics.getEvaluations(), 5);
+        Assert.assertEquals(statistics.getAcceptedSteps(), 4);
+        Assert.assertEquals(statistics.getRejectedSteps(), 3);
+        // Sizes are magnitudes, whichever way the integration went
+        Assert.assertEquals(statistics.getMinStepSize(), 0.25);
+        Assert.assertEquals(statistics.getMaxStepSize(), 2.0);
+        Assert.assertEquals(statistics.getLastStepSize(), 1.0);
+        Assert.assertTrue(statistics.getWallTimeNanos() >= 0);
+    }
+
+    @Test
+    public void testStartResets() {
+        SolverStatistics statistics = new SolverStatistics();
+        statistics.countEvaluation();
+        statistics.countStep(1.0);
+        statistics.stop(2);
+        statistics.start();
+        statistics.stop(0);
+        Assert.assertEquals(statistics.getEvaluations(), 0);
+        Assert.assertEquals(statistics.getAcceptedSteps(), 0);
+        Assert.assertEquals(statistics.getRejectedSteps(), 0);
+        Assert.assertEquals(statistics.getMinStepSize(), 0.0);
+        Assert.assertEquals(statistics.getMaxStepSize(), 0.0);
+        Assert.assertEquals(statistics.getLastStepSize(), 0.0);
+    }
+}
@@ -0,0 +1,79 @@
+package math.ode.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+public class StepSizeControllerTest {
+
+    @DataProvider
+    public Object[][] createControllers() {
+        return Arrays.stream(StepSizeController.values())
+                .map(controller -> new Object[]{controller})
+                .toArray(Object[][]::new);
+    }
+
+    @Test
+    public void testIntegral() {
+        // The elementary controller of the adaptive solvers
+        StepSizeController.Control control = StepSizeController.INTEGRAL.start(0.2, 0.9, 4.0);
+        for (double ratio : new double[]{0.5, 1e-3, 2.0, 0.9, 50.0, 1e-9}) {
+            double expected = Math.min(Math.max(0.9 * Math.pow(ratio, -0.2), 0.25), 4.0);
+            Assert.assertEquals(control.factor(ratio), expected, 1e-15);
+        }
+        Assert.assertEquals(control.getAcceptedSteps(), 4);
+        Assert.assertEquals(control.getRejectedSteps(), 2);
+    }
+
+    @Test(dataProvider = "createControllers")
+    public void testSteadyState(StepSizeController controller) {
+        // Every controller keeps the step size at the error ratio safe1^k
+        StepSizeController.Control control = controller.start(0.2, 0.9, 4.0);
+        final double ratio = Math.pow(0.9, 5.0);
+        for (int i = 0; i < 5; ++i) {
+            Assert.assertEquals(control.factor(ratio), 1.0, 1e-14);
+        }
+    }
+
+    @Test(dataProvider = "createControllers")
+    public void testRejection(StepSizeController controller) {
+        StepSizeController.Control control = controller.start(0.2, 0.9, 4.0);
+        control.factor(0.5);
+        control.factor(0.5);
+        // Rejected tries are retried with the integral step
+        Assert.assertEquals(control.factor(3.0), 0.9 * Math.pow(3.0, -0.2), 1e-15);
+        Assert.assertEquals(control.factor(1.0), 0.9, 1e-15);
+        Assert.assertEquals(control.getRejectedSteps(), 2);
+        // A small error right after the rejections only lets the limited controllers keep the step size
+        double factor = control.factor(1e-3);
+        if (controller == StepSizeController.INTEGRAL) {
+            Assert.assertTrue(factor > 1.0);
+        } else {
+            Assert.assertEquals(factor, 1.0);
+        }
+        Assert.assertTrue(control.factor(1e-3) > 1.0);
+        Assert.assertEquals(control.getAcceptedSteps(), 4);
+    }
+
+    @Test(dataProvider = "createControllers")
+    public void testExactStep(StepSizeController controller) {
+        // A step without error grows the step size as much as allowed, and does not stall the next ones
+        StepSizeController.Control control = controller.start(0.2, 0.9, 4.0);
+        Assert.assertEquals(control.factor(0.0), 4.0);
+        Assert.assertEquals(control.factor(0.0), 4.0);
+        double factor = control.factor(0.5);
+        Assert.assertTrue(factor >= 0.25 && factor <= 4.0, "Factor " + factor);
+    }
+
+    @Test
+    public void testSmoothing() {
+        // After an error jump, the proportional term cuts the step size more than the integral controller
+        StepSizeController.Control integral = StepSizeController.INTEGRAL.start(0.2, 0.9, 4.0);
+        StepSizeController.Control pi = StepSizeController.PI.start(0.2, 0.9, 4.0);
+        integral.factor(0.1);
+        pi.factor(0.1);
+        Assert.assertTrue(pi.factor(0.8) < integral.factor(0.8));
+    }
+}
@@ -0,0 +1,359 @@
+package math.ode.vector;
+
+import math.ode.utils.SolverStatistics;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class MatrixTest {
+
+    /**
+     * Stiff solver whose Jacobian is kept in a matrix of a given structure.
+     */
+    @FunctionalInterface
+    interface StiffSolverFactory {
+
+        /**
+         * @param sparsity  sparsity pattern of the Jacobian, or null
+         * @param bandwidth number of diagonals of a banded Jacobian on each side of the main diagonal, or negative
+         * @param jacobian  Jacobian of the ode, or null to estimate it
+         * @return solver
+         */
+        VectorODESolver build(SparsityPattern sparsity, int bandwidth, VectorJacobian jacobian);
+    }
+
+    @DataProvider
+    public Object[][] createStiffSolvers() {
+        StiffSolverFactory bdf = (sparsity, bandwidth, jacobian) -> {
+            VectorBDF.Builder builder = VectorBDF.Builder.builder().setSparsity(sparsity).setJacobian(jacobian);
+            return ((bandwidth < 0) ? builder : builder.setBandwidth(bandwidth, bandwidth)).build();
+        };
+        StiffSolverFactory rosenbrock = (sparsity, bandwidth, jacobian) -> {
+            VectorRosenbrock.Builder builder = VectorRosenbrock.Builder.builder()
+                    .setSparsity(sparsity)
+                    .setJacobian(jacobian);
+            return ((bandwidth < 0) ? builder : builder.setBandwidth(bandwidth, bandwidth)).build();
+        };
+        return new Object[][]{{bdf}, {rosenbrock}};
+    }
+
+    @DataProvider
+    public Object[][] createSizes() {
+        return new Object[][]{{1}, {2}, {7}, {40}};
+    }
+
+    @Test(dataProvider = "createSizes")
+    public void testSolve(int n) {
+        Random rand = new Random(n);
+        Matrix a = Matrix.dense(n);
+        Vector x = Vector.mutable(n);
+        for (int i = 0; i < n; ++i) {
+            x.set(i, rand.nextDouble() - 0.5);
+            for (int j = 0; j < n; ++j) {
+                a.set(i, j, rand.nextDouble() - 0.5);
+            }
+        }
+        Vector b = a.multiply(x, Vector.mutable(n));
+        for (int i = 0; i < n; ++i) {
+            double expected = 0.0;
+            for (int j = 0; j < n; ++j) {
+                expected += a.get(i, j) * x.get(j);
+            }
+            Assert.assertEquals(b.get(i), expected, 1e-14);
+        }
+        LUDecomposition lu = a.lu();
+        Assert.assertEquals(lu.size(), n);
+        Vector actual = lu.solve(b, Vector.mutable(n));
+        for (int i = 0; i < n; ++i) {
+            Assert.assertEquals(actual.get(i), x.get(i), 1e-9);
+        }
+        // The solution may overwrite the right-hand side
+        Assert.assertSame(lu.solve(b, b), b);
+        for (int i = 0; i < n; ++i) {
+            Assert.assertEquals(b.get(i), x.get(i), 1e-9);
+        }
+    }
+
+    @Test(dataProvider = "createSizes")
+    public void testSparseSolve(int n) {
+        // Diagonally dominant with scattered elements, so the elimination fills in without pivoting
+        Random rand = new Random(n);
+        SparsityPattern.Builder builder = SparsityPattern.Builder.builder().setSize(n);
+        for (int k = 0; k < 3 * n; ++k) {
+            builder.add(rand.nextInt(n), rand.nextInt(n));
+        }
+        for (int i = 0; i < n; ++i) {
+            builder.add(i, 0).add(0, i);
+        }
+        SparsityPattern pattern = builder.build();
+        Matrix sparse = Matrix.sparse(pattern);
+        Matrix dense = Matrix.dense(n);
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                if (pattern.contains(i, j)) {
+                    double value = rand.nextDouble() - 0.5;
+                    sparse.set(i, j, value);
+                    dense.set(i, j, value);
+                }
+            }
+        }
+        Vector x = Vector.mutable(n);
+        for (int i = 0; i < n; ++i) {
+            x.set(i, rand.nextDouble() - 0.5);
+        }
+        Vector b = sparse.multiply(x, Vector.mutable(n));
+        Vector expected = dense.multiply(x, Vector.mutable(n));
+        for (int i = 0; i < n; ++i) {
+            Assert.assertEquals(b.get(i), expected.get(i), 1e-14);
+        }
+        // Solve (n * I + 0.5 * a) * y = b as the implicit solvers do
+        LUDecomposition lu = sparse.decomposition();
+        Assert.assertTrue(lu.factor(sparse, n, 0.5));
+        Vector actual = lu.solve(b, Vector.mutable(n));
+        LUDecomposition denseLU = dense.decomposition();
+        Assert.assertTrue(denseLU.factor(dense, n, 0.5));
+        expected = denseLU.solve(b, Vector.mutable(n));
+        for (int i = 0; i < n; ++i) {
+            Assert.assertEquals(actual.get(i), expected.get(i), 1e-12);
+        }
+        Assert.assertSame(lu.solve(b, b), b);
+        for (int i = 0; i < n; ++i) {
+            Assert.assertEquals(b.get(i), expected.get(i), 1e-12);
+        }
+    }
+
+    @Test
+    public void testSparseInvalidArguments() {
+        Matrix a = Matrix.sparse(SparsityPattern.banded(3, 1, 0));
+        Assert.assertThrows(IllegalArgumentException.class, () -> a.set(0, 2, 1.0));
+        a.set(0, 2, 0.0);
+        Assert.assertEquals(a.get(0, 2), 0.0);
+        Assert.assertThrows(IndexOutOfBoundsException.class, () -> a.get(3, 0));
+        // Zero pivot without pivoting
+        a.set(1, 0, 1.0);
+        Assert.assertThrows(IllegalArgumentException.class, a::lu);
+        Assert.assertThrows(IllegalArgumentException.class, () -> a.decomposition().factor(Matrix.dense(3), 1.0, 1.0));
+        Assert.assertThrows(IllegalArgumentException.class, () -> Matrix.sparse(null));
+    }
+
+    @DataProvider
+    public Object[][] createBands() {
+        return new Object[][]{{1, 0, 0}, {10, 1, 1}, {30, 2, 0}, {30, 0, 3}, {50, 3, 2}, {8, 10, 10}};
+    }
+
+    @Test(dataProvider = "createBands")
+    public void testBandedSolve(int n, int lower, int upper) {
+        // Small diagonal below nonzero subdiagonals, so the elimination needs row interchanges
+        Random rand = new Random(31L * n + lower);
+        final double diagonal = (lower > 0) ? 1e-3 : 1.0;
+        Matrix banded = Matrix.banded(n, lower, upper);
+        Matrix dense = Matrix.dense(n);
+        for (int i = 0; i < n; ++i) {
+            for (int j = Math.max(0, i - lower); j <= Math.min(n - 1, i + upper); ++j) {
+                double value = (i == j) ? diagonal * (1.0 + rand.nextDouble()) : rand.nextDouble() - 0.5;
+                banded.set(i, j, value);
+                dense.set(i, j, value);
+            }
+        }
+        Vector x = Vector.mutable(n);
+        for (int i = 0; i < n; ++i) {
+            x.set(i, rand.nextDouble() - 0.5);
+            for (int j = 0; j < n; ++j) {
+                Assert.assertEquals(banded.get(i, j), dense.get(i, j));
+            }
+        }
+        Vector b = banded.multiply(x, Vector.mutable(n));
+        Vector expected = dense.multiply(x, Vector.mutable(n));
+        for (int i = 0; i < n; ++i) {
+            Assert.assertEquals(b.get(i), expected.get(i), 1e-14);
+        }
+        Vector actual = banded.lu().solve(b, Vector.mutable(n));
+        expected = dense.lu().solve(b, Vector.mutable(n));
+        for (int i = 0; i < n; ++i) {
+            Assert.assertEquals(actual.get(i), expected.get(i), 1e-9 * (1.0 + Math.abs(expected.get(i))));
+        }
+        LUDecomposition lu = banded.decomposition();
+        Assert.assertTrue(lu.factor(banded, 2.0, -0.5));
+        LUDecomposition denseLU = dense.decomposition();
+        Assert.assertTrue(denseLU.factor(dense, 2.0, -0.5));
+        expected = denseLU.solve(b, Vector.mutable(n));
+        actual = lu.solve(b, b);
+        for (int i = 0; i < n; ++i) {
+            Assert.assertEquals(actual.get(i), expected.get(i), 1e-10);
+        }
+    }
+
+    @Test
+    public void testBuilder() {
+        Matrix.Builder builder = Matrix.Builder.builder()
+                .setSize(4)
+                .add(0, 0, 2.0)
+                .add(1, 0, -1.0)
+                .add(1, 1, 2.0)
+                .add(2, 3, 0.5)
+                .add(3, 1, 1.0)
+                .add(1, 1, 1.0);
+        Matrix sparse = builder.build();
+        Matrix banded = builder.buildBanded();
+        Matrix dense = builder.buildDense();
+        for (int i = 0; i < 4; ++i) {
+            for (int j = 0; j < 4; ++j) {
+                Assert.assertEquals(sparse.get(i, j), dense.get(i, j));
+                Assert.assertEquals(banded.get(i, j), dense.get(i, j));
+            }
+        }
+        Assert.assertEquals(dense.get(1, 1), 3.0);
+        Assert.assertEquals(dense.get(2, 1), 0.0);
+        Assert.assertThrows(IllegalArgumentException.class, () -> banded.set(0, 3, 1.0));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.add(-1, 0, 1.0));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setSize(3).build());
+        Assert.assertThrows(IllegalArgumentException.class, builder::buildBanded);
+        Assert.assertThrows(IllegalArgumentException.class, () -> Matrix.banded(3, -1, 0));
+    }
+
+    @Test
+    public void testParallelMultiply() {
+        int threshold = Vector.getParallelThreshold();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Vector.setParallelThreshold(1);
+        Vector.setParallelPool(pool);
+        try {
+            final int n = 2000;
+            Random rand = new Random(n);
+            Matrix.Builder builder = Matrix.Builder.builder().setSize(n);
+            for (int i = 0; i < n; ++i) {
+                for (int j = Math.max(0, i - 2); j <= Math.min(n - 1, i + 1); ++j) {
+                    builder.add(i, j, rand.nextDouble() - 0.5);
+                }
+            }
+            Vector x = Vector.randomImmutable(n);
+            for (Matrix a : new Matrix[]{builder.build(), builder.buildBanded()}) {
+                Vector sequential = a.multiply(x, Vector.mutable(n));
+                Vector parallel = a.multiply(x, Vector.mutable(n).setExecution(VectorExecution.PARALLEL));
+                for (int i = 0; i < n; ++i) {
+                    Assert.assertEquals(parallel.get(i), sequential.get(i));
+                }
+            }
+        } finally {
+            Vector.setParallelThreshold(threshold);
+            Vector.setParallelPool(ForkJoinPool.commonPool());
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testShiftedFactor() {
+        // Factor I - 0.5 * a, as the implicit solvers do
+        Matrix a = Matrix.dense(2);
+        a.set(0, 0, -4.0);
+        a.set(0, 1, 2.0);
+        a.set(1, 0, 0.0);
+        a.set(1, 1, -2.0);
+        LUDecomposition lu = a.lu();
+        Assert.assertTrue(lu.factor(a, 1.0, -0.5));
+        // I - 0.5 * a = [[3, -1], [0, 2]]
+        Vector x = lu.solve(Vector.immutable(5.0, 4.0), Vector.mutable(2));
+        Assert.assertEquals(x.get(0), 7.0 / 3.0, 1e-15);
+        Assert.assertEquals(x.get(1), 2.0, 1e-15);
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        Matrix a = Matrix.dense(2);
+        a.set(0, 0, 1.0);
+        a.set(1, 0, 1.0);
+        Assert.assertThrows(IllegalArgumentException.class, a::lu);
+        Assert.assertThrows(IndexOutOfBoundsException.class, () -> a.get(2, 0));
+        Assert.assertThrows(IllegalArgumentException.class, () -> a.multiply(Vector.mutable(3), Vector.mutable(2)));
+        Assert.assertThrows(IllegalAccessError.class, () -> a.multiply(Vector.mutable(2), Vector.immutable(0.0, 0.0)));
+        Vector x = Vector.mutable(2);
+        Assert.assertThrows(IllegalArgumentException.class, () -> a.multiply(x, x));
+        Assert.assertThrows(IllegalArgumentException.class, () -> Matrix.dense(-1));
+    }
+
+    @Test(dataProvider = "createStiffSolvers")
+    public void testLinearOde(StiffSolverFactory factory) {
+        // Heat equation whose initial value is an eigenvector of the tridiagonal second difference
+        final int n = 50;
+        Matrix.Builder builder = Matrix.Builder.builder().setSize(n);
+        for (int i = 0; i < n; ++i) {
+            builder.add(i, i, -2.0 * n * n);
+            if (i > 0) {
+                builder.add(i, i - 1, n * n);
+                builder.add(i - 1, i, n * n);
+            }
+        }
+        Matrix a = builder.buildBanded();
+        double lambda = -4.0 * n * n * Math.pow(Math.sin(Math.PI / (2.0 * (n + 1))), 2);
+        Vector xi = Vector.mutable(n);
+        for (int i = 0; i < n; ++i) {
+            xi.set(i, Math.sin(Math.PI * (i + 1) / (n + 1)));
+        }
+        VectorODESolver[] solvers = {
+                factory.build(null, 1, null),
+                factory.build(null, 1, VectorJacobian.constant(a)),
+                factory.build(null, -1, VectorJacobian.constant(builder.build())),
+                factory.build(SparsityPattern.banded(n, 1, 1), -1, VectorJacobian.constant(builder.build()))};
+        for (VectorODESolver solver : solvers) {
+            Vector x = solver.solve(VectorODE.linear(a), xi, 0.0, 0.1);
+            for (int i = 0; i < n; ++i) {
+                Assert.assertEquals(x.get(i), xi.get(i) * Math.exp(lambda * 0.1), 1e-6);
+            }
+        }
+        // Constant term, with the steady state x = -a^-1 * b
+        Vector b = Vector.mutable(n, 1.0);
+        Vector steady = a.lu().solve(b, Vector.mutable(n)).mult(-1.0);
+        Vector x = solvers[0].solve(VectorODE.linear(a, b), steady, 0.0, 1.0);
+        for (int i = 0; i < n; ++i) {
+            Assert.assertEquals(x.get(i), steady.get(i), 1e-9);
+        }
+    }
+
+    @Test(dataProvider = "createStiffSolvers")
+    public void testSparseOde(StiffSolverFactory factory) {
+        final int n = 100;
+        VectorODE diffusion = SparsityPatternTest.diffusion(n);
+        Vector xi = Vector.mutable(n);
+        for (int i = 0; i < n; ++i) {
+            xi.set(i, Math.sin(Math.PI * (i + 1) / (n + 1)));
+        }
+        SparsityPattern pattern = SparsityPattern.banded(n, 1, 1);
+        // The same finite differences given as a Jacobian, so that both integrations take the same steps
+        FiniteDifferenceJacobian estimator = new FiniteDifferenceJacobian(xi);
+        Vector f = Vector.mutable(n);
+        int[] jacobians = new int[1];
+        VectorJacobian given = (x, t, dfdx) -> {
+            jacobians[0]++;
+            diffusion.apply(x, t, f);
+            estimator.estimate(diffusion, x, t, f, dfdx);
+        };
+        Vector[] results = new Vector[2];
+        SparsityPattern[] sparsities = {null, pattern};
+        for (int k = 0; k < sparsities.length; ++k) {
+            jacobians[0] = 0;
+            SolverStatistics withJacobian = new SolverStatistics();
+            Vector expected = factory.build(sparsities[k], -1, given)
+                    .solve(diffusion, xi, 0.0, 0.1, withJacobian, null);
+            SolverStatistics estimating = new SolverStatistics();
+            results[k] = factory.build(sparsities[k], -1, null)
+                    .solve(diffusion, xi, 0.0, 0.1, estimating, null);
+            // Each Jacobian costs one evaluation per column, or per color of the pattern
+            int cost = (sparsities[k] == null) ? n : pattern.colors();
+            Assert.assertTrue(jacobians[0] > 0);
+            Assert.assertEquals(estimating.getAcceptedSteps(), withJacobian.getAcceptedSteps());
+            long estimates = estimating.getEvaluations() - withJacobian.getEvaluations();
+            Assert.assertEquals(estimates, (long) jacobians[0] * cost);
+            for (int i = 0; i < n; ++i) {
+                Assert.assertEquals(results[k].get(i), expected.get(i));
+            }
+        }
+        for (int i = 0; i < n; ++i) {
+            Assert.assertEquals(results[1].get(i), results[0].get(i), 1e-6);
+        }
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> factory.build(SparsityPattern.banded(n + 1, 1, 1), -1, null).solve(diffusion, xi, 0.0, 0.1));
+    }
+}
@@ -0,0 +1,118 @@
+package math.ode.vector;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+public class SparsityPatternTest {
+
+    /**
+     * Discretized nonlinear diffusion x_i' = (x_{i-1} - 2 * x_i + x_{i+1}) * n^2 - x_i^3 with zero boundaries.
+     */
+    static VectorODE diffusion(int n) {
+        return (x, t, dxdt) -> {
+            for (int i = 0; i < n; ++i) {
+                double left = (i > 0) ? x.get(i - 1) : 0.0;
+                double right = (i < n - 1) ? x.get(i + 1) : 0.0;
+                double xi = x.get(i);
+                dxdt.set(i, (left - 2.0 * xi + right) * n * n - xi * xi * xi);
+            }
+        };
+    }
+
+    @Test
+    public void testBuilder() {
+        SparsityPattern pattern = SparsityPattern.Builder.builder()
+                .setSize(4)
+                .add(3, 1)
+                .add(0, 0)
+                .add(3, 0)
+                .add(3, 1)
+                .add(1, 2)
+                .build();
+        Assert.assertEquals(pattern.size(), 4);
+        Assert.assertEquals(pattern.nonZeros(), 4);
+        Assert.assertTrue(pattern.contains(3, 1));
+        Assert.assertTrue(pattern.contains(1, 2));
+        Assert.assertFalse(pattern.contains(2, 1));
+        Assert.assertFalse(pattern.contains(2, 2));
+        Assert.assertThrows(IndexOutOfBoundsException.class, () -> pattern.contains(4, 0));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> SparsityPattern.Builder.builder().setSize(2).add(0, 2).build());
+        Assert.assertThrows(IllegalArgumentException.class, () -> SparsityPattern.Builder.builder().add(-1, 0));
+        Assert.assertThrows(IllegalArgumentException.class, () -> SparsityPattern.banded(3, -1, 0));
+    }
+
+    @DataProvider
+    public Object[][] createBands() {
+        return new Object[][]{{10, 0, 0}, {10, 1, 1}, {1000, 1, 1}, {50, 2, 3}, {5, 10, 0}};
+    }
+
+    @Test(dataProvider = "createBands")
+    public void testBandedColors(int n, int lower, int upper) {
+        SparsityPattern pattern = SparsityPattern.banded(n, lower, upper);
+        // Columns further apart than the bandwidth share no row
+        Assert.assertEquals(pattern.colors(), Math.min(n, lower + upper + 1));
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                Assert.assertEquals(pattern.contains(i, j), j >= i - lower && j <= i + upper);
+            }
+        }
+    }
+
+    @Test
+    public void testColoring() {
+        Random rand = new Random(73451);
+        final int n = 60;
+        SparsityPattern.Builder builder = SparsityPattern.Builder.builder().setSize(n);
+        for (int k = 0; k < 200; ++k) {
+            builder.add(rand.nextInt(n), rand.nextInt(n));
+        }
+        SparsityPattern pattern = builder.build();
+        Assert.assertTrue(pattern.colors() < n);
+        // No two columns of the same color have a row in common
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                for (int k = j + 1; k < n; ++k) {
+                    if (pattern.contains(i, j) && pattern.contains(i, k)) {
+                        Assert.assertNotEquals(pattern.color[j], pattern.color[k]);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testColoredEstimate() {
+        final int n = 100;
+        int[] calls = new int[1];
+        VectorODE diffusion = diffusion(n);
+        VectorODE ode = (x, t, dxdt) -> {
+            calls[0]++;
+            diffusion.apply(x, t, dxdt);
+        };
+        Vector x = Vector.mutable(n);
+        for (int i = 0; i < n; ++i) {
+            x.set(i, Math.sin(Math.PI * (i + 1) / (n + 1)));
+        }
+        Vector f = Vector.mutable(n);
+        ode.apply(x, 0.0, f);
+        Matrix dense = Matrix.dense(n);
+        Matrix sparse = Matrix.sparse(SparsityPattern.banded(n, 1, 1));
+        FiniteDifferenceJacobian estimator = new FiniteDifferenceJacobian(x);
+        calls[0] = 0;
+        estimator.estimate(ode, x, 0.0, f, sparse);
+        Assert.assertEquals(calls[0], 3);
+        estimator.estimate(ode, x, 0.0, f, dense);
+        Assert.assertEquals(calls[0], 3 + n);
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                Assert.assertEquals(sparse.get(i, j), dense.get(i, j), 0.0);
+            }
+            double exact = -2.0 * n * n - 3.0 * x.get(i) * x.get(i);
+            Assert.assertEquals(sparse.get(i, i), exact, 1e-5 * Math.abs(exact));
+        }
+    }
+}
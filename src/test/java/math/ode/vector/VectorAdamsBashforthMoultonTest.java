@@ -0,0 +1,168 @@
+package math.ode.vector;
+
+import math.ode.utils.SolverStatistics;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+public class VectorAdamsBashforthMoultonTest {
+
+    /**
+     * Kepler problem of eccentricity 0.5, starting at the pericenter with a period of 2 * pi.
+     */
+    private static final VectorODE KEPLER = (x, t, dxdt) -> {
+        double r3 = Math.pow(x.get(0) * x.get(0) + x.get(1) * x.get(1), 1.5);
+        dxdt.set(0, x.get(2));
+        dxdt.set(1, x.get(3));
+        dxdt.set(2, -x.get(0) / r3);
+        dxdt.set(3, -x.get(1) / r3);
+    };
+
+    private static final Vector KEPLER_INITIAL = Vector.immutable(0.5, 0.0, 0.0, Math.sqrt(3.0));
+
+    @DataProvider
+    public Object[][] createOrders() {
+        return IntStream.rangeClosed(1, VectorAdamsBashforthMoulton.MAX_ORDER)
+                .mapToObj(order -> new Object[]{order})
+                .toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "createOrders")
+    public void testSpring(int maxOrder) {
+        final double omega = 3.0;
+        VectorODE spring = (x, t, dxdt) -> {
+            dxdt.set(0, -omega * omega * x.get(1));
+            dxdt.set(1, x.get(0));
+        };
+        VectorAdamsBashforthMoulton solver = VectorAdamsBashforthMoulton.Builder.builder()
+                .setLocalTruncationError(1e-9)
+                .setMaximumOrder(maxOrder)
+                .build();
+        for (double t = 1.0; t <= 5.0; t += 1.0) {
+            Vector x = solver.solve(spring, Vector.immutable(0.0, 1.0), 0.0, t);
+            Assert.assertEquals(x.get(1), Math.cos(omega * t), 1e-5);
+        }
+    }
+
+    @Test
+    public void testKepler() {
+        VectorAdamsBashforthMoulton solver = VectorAdamsBashforthMoulton.Builder.builder()
+                .setLocalTruncationError(1e-10)
+                .setAbsoluteTolerance(1e-12)
+                .build();
+        // Back to the pericenter after three orbits, through the fast passes near it
+        Vector x = solver.solve(KEPLER, KEPLER_INITIAL, 0.0, 6.0 * Math.PI);
+        for (int i = 0; i < 4; ++i) {
+            Assert.assertEquals(x.get(i), KEPLER_INITIAL.get(i), 1e-6);
+        }
+    }
+
+    @Test
+    public void testBiFunction() {
+        VectorAdamsBashforthMoulton solver = VectorAdamsBashforthMoulton.Builder.builder().build();
+        Vector expected = solver.solve(KEPLER, KEPLER_INITIAL, 0.0, 2.0);
+        Vector actual = solver.solve((x, t) -> KEPLER.apply(x, t), KEPLER_INITIAL, 0.0, 2.0);
+        for (int i = 0; i < 4; ++i) {
+            Assert.assertEquals(actual.get(i), expected.get(i));
+        }
+    }
+
+    @Test
+    public void testBackward() {
+        VectorAdamsBashforthMoulton solver = VectorAdamsBashforthMoulton.Builder.builder().build();
+        Vector x = solver.solve((y, t, dydt) -> dydt.set(0, -y.get(0)), Vector.immutable(Math.exp(-2.0)), 2.0, 0.0);
+        Assert.assertEquals(x.get(0), 1.0, 1e-5);
+    }
+
+    @Test
+    public void testTrajectory() {
+        VectorAdamsBashforthMoulton solver = VectorAdamsBashforthMoulton.Builder.builder()
+                .setLocalTruncationError(1e-10)
+                .build();
+        VectorTrajectory trajectory = solver.trajectory(KEPLER, KEPLER_INITIAL, 0.0, 2.0 * Math.PI);
+        // The recorded points are copies, not the state the stepper keeps updating in place
+        Vector start = trajectory.apply(0.0);
+        for (int i = 0; i < 4; ++i) {
+            Assert.assertEquals(start.get(i), KEPLER_INITIAL.get(i));
+        }
+        for (double t = 0.5; t < 2.0 * Math.PI; t += 0.5) {
+            Vector x = trajectory.apply(t);
+            Vector y = solver.solve(KEPLER, KEPLER_INITIAL, 0.0, t);
+            for (int i = 0; i < 4; ++i) {
+                Assert.assertEquals(x.get(i), y.get(i), 1e-4);
+            }
+        }
+    }
+
+    @Test
+    public void testFewerEvaluations() {
+        SolverStatistics multistep = new SolverStatistics();
+        VectorAdamsBashforthMoulton.Builder.builder()
+                .setLocalTruncationError(1e-10)
+                .build()
+                .solve(KEPLER, KEPLER_INITIAL, 0.0, 2.0 * Math.PI, multistep, null);
+        SolverStatistics rungeKutta = new SolverStatistics();
+        VectorRungeKuttaAdaptive.Builder.builder()
+                .setLocalTruncationError(1e-10)
+                .build()
+                .solve(KEPLER, KEPLER_INITIAL, 0.0, 2.0 * Math.PI, rungeKutta, null);
+        // Two evaluations per step once started, against eleven per step doubling
+        Assert.assertTrue(multistep.getEvaluations() < 2.5 * multistep.getAcceptedSteps(), multistep.toString());
+        Assert.assertTrue(2 * multistep.getEvaluations() < rungeKutta.getEvaluations(),
+                multistep.getEvaluations() + " against " + rungeKutta.getEvaluations());
+    }
+
+    @Test
+    public void testComponentTolerances() {
+        // Loose on the velocities, tight on the positions
+        Vector relTols = Vector.immutable(1e-10, 1e-10, 1e-3, 1e-3);
+        Vector x = VectorAdamsBashforthMoulton.Builder.builder()
+                .setRelativeTolerance(relTols)
+                .setAbsoluteTolerance(Vector.immutable(1e-12, 1e-12, 1e-3, 1e-3))
+                .build()
+                .solve(KEPLER, KEPLER_INITIAL, 0.0, 2.0 * Math.PI);
+        Assert.assertEquals(x.get(0), 0.5, 1e-2);
+        Assert.assertThrows(IllegalArgumentException.class, () -> VectorAdamsBashforthMoulton.Builder.builder()
+                .setRelativeTolerance(relTols)
+                .build()
+                .solve(KEPLER, Vector.immutable(1.0, 0.0), 0.0, 1.0));
+    }
+
+    @DataProvider
+    public Object[][] createErrorNorms() {
+        return Arrays.stream(ErrorNorm.values())
+                .map(norm -> new Object[]{norm})
+                .toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "createErrorNorms")
+    public void testErrorNorm(ErrorNorm norm) {
+        Vector x = VectorAdamsBashforthMoulton.Builder.builder()
+                .setLocalTruncationError(1e-10)
+                .setErrorNorm(norm)
+                .build()
+                .solve(KEPLER, KEPLER_INITIAL, 0.0, 2.0 * Math.PI);
+        for (int i = 0; i < 4; ++i) {
+            Assert.assertEquals(x.get(i), KEPLER_INITIAL.get(i), 1e-5);
+        }
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        VectorAdamsBashforthMoulton.Builder builder = VectorAdamsBashforthMoulton.Builder.builder();
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setLocalTruncationError(0.0));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> builder.setRelativeTolerance(Vector.immutable(1e-6, -1e-6)));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setAbsoluteTolerance(-1.0));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setAbsoluteTolerance((Vector) null));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setErrorNorm(null));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setMaximumOrder(0));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> builder.setMaximumOrder(VectorAdamsBashforthMoulton.MAX_ORDER + 1));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setInitialStepSize(0.0));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setMaximumTries(-1));
+    }
+}
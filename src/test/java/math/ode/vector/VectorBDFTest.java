@@ -0,0 +1,90 @@
+package math.ode.vector;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.stream.IntStream;
+
+public class VectorBDFTest {
+
+    @DataProvider
+    public Object[][] createOrders() {
+        return IntStream.rangeClosed(1, VectorBDF.MAX_ORDER)
+                .mapToObj(order -> new Object[]{order})
+                .toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "createOrders")
+    public void testKaps(int maxOrder) {
+        // Backward Euler alone accumulates a larger global error
+        double delta = maxOrder == 1 ? 1e-3 : 1e-5;
+        for (VectorJacobian jacobian : new VectorJacobian[]{null, VectorRosenbrockTest.KAPS_JACOBIAN}) {
+            VectorBDF solver = VectorBDF.Builder.builder()
+                    .setMaximumOrder(maxOrder)
+                    .setJacobian(jacobian)
+                    .build();
+            for (double t = 0.5; t <= 3.0; t += 0.5) {
+                Vector x = solver.solve(VectorRosenbrockTest.KAPS, Vector.immutable(1.0, 1.0), 0.0, t);
+                Assert.assertEquals(x.get(0), Math.exp(-2.0 * t), delta);
+                Assert.assertEquals(x.get(1), Math.exp(-t), delta);
+            }
+        }
+    }
+
+    @Test
+    public void testRobertson() {
+        VectorBDF solver = VectorBDF.Builder.builder().build();
+        Vector x = solver.solve(VectorRosenbrockTest.ROBERTSON, Vector.immutable(1.0, 0.0, 0.0), 0.0, 40.0);
+        for (int i = 0; i < 3; ++i) {
+            Assert.assertEquals(x.get(i), VectorRosenbrockTest.ROBERTSON_40[i],
+                    1e-4 * VectorRosenbrockTest.ROBERTSON_40[i]);
+        }
+        Assert.assertEquals(x.get(0) + x.get(1) + x.get(2), 1.0, 1e-9);
+    }
+
+    @Test
+    public void testForced() {
+        VectorBDF solver = VectorBDF.Builder.builder().build();
+        for (double t = 0.25; t <= 2.0; t += 0.25) {
+            Vector x = solver.solve(VectorRosenbrockTest.FORCED, Vector.immutable(0.0), 0.0, t);
+            Assert.assertEquals(x.get(0), VectorRosenbrockTest.forced(t), 1e-6);
+        }
+    }
+
+    @Test
+    public void testBackward() {
+        VectorBDF solver = VectorBDF.Builder.builder().build();
+        Vector x = solver.solve((y, t, dydt) -> dydt.set(0, -y.get(0)), Vector.immutable(Math.exp(-2.0)), 2.0, 0.0);
+        Assert.assertEquals(x.get(0), 1.0, 1e-4);
+    }
+
+    @Test
+    public void testJacobianReuse() {
+        int[] calls = new int[1];
+        VectorBDF solver = VectorBDF.Builder.builder()
+                .setJacobian((x, t, dfdx) -> {
+                    calls[0]++;
+                    VectorRosenbrockTest.KAPS_JACOBIAN.apply(x, t, dfdx);
+                })
+                .build();
+        long steps = solver.steps(VectorRosenbrockTest.KAPS, Vector.immutable(1.0, 1.0), 0.0, 5.0).count();
+        calls[0] = 0;
+        solver.solve(VectorRosenbrockTest.KAPS, Vector.immutable(1.0, 1.0), 0.0, 5.0);
+        Assert.assertTrue(calls[0] < steps / 2, calls[0] + " Jacobians for " + steps + " steps");
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        VectorBDF.Builder builder = VectorBDF.Builder.builder();
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setLocalTruncationError(0.0));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> builder.setRelativeTolerance(Vector.immutable(1e-6, 0.0)));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setAbsoluteTolerance(-1.0));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setErrorNorm(null));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setMaximumOrder(0));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setMaximumOrder(VectorBDF.MAX_ORDER + 1));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setInitialStepSize(0.0));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setMaximumTries(-1));
+    }
+}
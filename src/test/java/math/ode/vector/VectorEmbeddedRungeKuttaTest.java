@@ -0,0 +1,188 @@
+package math.ode.vector;
+
+import math.ode.utils.ButcherTableau;
+import math.ode.utils.StepSizeController;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+public class VectorEmbeddedRungeKuttaTest {
+
+    private static Object[] randomMotionCase(Random rand) {
+        // Initial parameters
+        int n = 3;
+        Vector a = Vector.mutable(n);
+        Vector vi = Vector.mutable(n);
+        Vector xi = Vector.mutable(n);
+        for (int i = 0; i < n; ++i) {
+            a.set(i, (rand.nextDouble() - 0.5) * 20.0);
+            vi.set(i, (rand.nextDouble() - 0.5) * 100.0);
+            xi.set(i, (rand.nextDouble() - 0.5) * 200.0);
+        }
+        double ti = (rand.nextDouble() - 0.5) * 20.0;
+        // Expected equation of motion
+        Function<Double, Vector> xExp = t -> xi.immutable()
+                .add(vi.immutable().mult(t - ti))
+                .add(a.immutable().mult((t - ti) * (t - ti)).div(2.0));
+        return new Object[]{xExp, a, vi, xi, ti};
+    }
+
+    @DataProvider
+    public Object[][] createMotionTests() {
+        Random rand = new Random();
+        rand.setSeed(94789234);
+        final int numTests = 5;
+        return IntStream.range(0, numTests)
+                .mapToObj(i -> randomMotionCase(rand))
+                .toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "createMotionTests")
+    public void testMotion(Function<Double, Vector> xExp, Vector a, Vector vi, Vector xi, double ti) {
+        // Velocity function
+        Function<Double, Vector> v = VectorEmbeddedRungeKutta.Builder.builder()
+                .setInitialStepSize(0.1)
+                .setLocalTruncationError(1e-9)
+                .build()
+                .solution((vel, t) -> a, vi, ti);
+        // Position function
+        Function<Double, Vector> x = VectorEmbeddedRungeKutta.Builder.builder()
+                .setInitialStepSize(0.1)
+                .setLocalTruncationError(1e-9)
+                .build()
+                .solution((xPos, t) -> v.apply(t), xi, ti);
+        // Assert that the position function matches the expected
+        for (double time = -10.0; time <= 10.0; time += 1.0) {
+            Vector actual = x.apply(time);
+            Vector expected = xExp.apply(time);
+            Assert.assertEquals(actual.get(0), expected.get(0), 1e-6);
+            Assert.assertEquals(actual.get(1), expected.get(1), 1e-6);
+            Assert.assertEquals(actual.get(2), expected.get(2), 1e-6);
+        }
+    }
+
+    private static Object[] randomSpringCase(Random rand) {
+        // Initial parameters
+        double period = rand.nextDouble() * 10.0 + 0.1;
+        double omega = 2.0 * Math.PI / period;
+        double ti = (rand.nextDouble() - 0.5) * 20.0;
+        double vi = (rand.nextDouble() - 0.5) * 10.0;
+        double xi = (rand.nextDouble() - 0.5) * 10.0;
+        double phi = Math.atan(omega * xi / vi);
+        double A = xi / Math.sin(phi);
+        // Expected equation of motion
+        Function<Double, Double> xExp = t -> A * Math.sin(omega * (t - ti) + phi);
+        return new Object[]{xExp, omega, xi, vi, ti};
+    }
+
+    @DataProvider
+    public Object[][] createSpringTests() {
+        Random rand = new Random();
+        rand.setSeed(94789234);
+        final int numTests = 5;
+        return Arrays.stream(ButcherTableau.values())
+                .flatMap(tableau -> IntStream.range(0, numTests)
+                        .mapToObj(i -> randomSpringCase(rand))
+                        .map(row -> new Object[]{tableau, row[0], row[1], row[2], row[3], row[4]}))
+                .toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "createSpringTests")
+    public void testSpring(ButcherTableau tableau, Function<Double, Double> xExp, double omega, double xi, double vi,
+                           double ti) {
+        Vector vxi = Vector.mutable(vi, xi);
+        // Velocity/Position function
+        Function<Double, Vector> vx = VectorEmbeddedRungeKutta.Builder.builder()
+                .setTableau(tableau)
+                .setInitialStepSize(0.01)
+                .setLocalTruncationError(1e-9)
+                .build()
+                .solution((vec, tim) -> Vector.mutable(-omega * omega * vec.get(1), vec.get(0)), vxi, ti);
+        // Assert that the position function matches the expected
+        for (double time = -10.0; time <= 10.0; time += 0.1) {
+            Vector actual = vx.apply(time);
+            double expected = xExp.apply(time);
+            Assert.assertEquals(actual.get(1), expected, 1e-6);
+        }
+    }
+
+    @Test
+    public void testComponentTolerances() {
+        // The second component decays towards zero, where a purely relative tolerance keeps shrinking the step
+        VectorODE decay = (x, t, dxdt) -> {
+            dxdt.set(0, x.get(1));
+            dxdt.set(1, -x.get(1));
+        };
+        Vector xi = Vector.immutable(0.0, 1.0);
+        VectorEmbeddedRungeKutta scalar = VectorEmbeddedRungeKutta.Builder.builder()
+                .setLocalTruncationError(1e-8)
+                .build();
+        VectorEmbeddedRungeKutta loose = VectorEmbeddedRungeKutta.Builder.builder()
+                .setLocalTruncationError(1e-8)
+                .setAbsoluteTolerance(Vector.immutable(0.0, 1e-6))
+                .build();
+        long scalarSteps = scalar.steps(decay, xi, 0.0, 30.0).count();
+        long looseSteps = loose.steps(decay, xi, 0.0, 30.0).count();
+        Assert.assertTrue(looseSteps < scalarSteps, looseSteps + " >= " + scalarSteps);
+        Assert.assertEquals(loose.solve(decay, xi, 0.0, 30.0).get(0), 1.0 - Math.exp(-30.0), 1e-6);
+        // Tolerance vectors holding the scalar settings take the same steps
+        VectorEmbeddedRungeKutta vectors = VectorEmbeddedRungeKutta.Builder.builder()
+                .setRelativeTolerance(Vector.immutable(1e-8, 1e-8))
+                .setAbsoluteTolerance(Vector.immutable(Math.ulp(1.0), Math.ulp(1.0)))
+                .build();
+        Assert.assertEquals(vectors.steps(decay, xi, 0.0, 30.0).count(), scalarSteps);
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> vectors.solve(decay, Vector.immutable(1.0), 0.0, 1.0));
+    }
+
+    @DataProvider
+    public Object[][] createErrorNorms() {
+        return new Object[][]{{ErrorNorm.MAX}, {ErrorNorm.RMS}};
+    }
+
+    @Test(dataProvider = "createErrorNorms")
+    public void testErrorNorm(ErrorNorm norm) {
+        double omega = 2.0;
+        VectorODE spring = (x, t, dxdt) -> {
+            dxdt.set(0, -omega * omega * x.get(1));
+            dxdt.set(1, x.get(0));
+        };
+        Vector actual = VectorEmbeddedRungeKutta.Builder.builder()
+                .setLocalTruncationError(1e-10)
+                .setErrorNorm(norm)
+                .build()
+                .solve(spring, Vector.immutable(0.0, 1.0), 0.0, 5.0);
+        Assert.assertEquals(actual.get(1), Math.cos(omega * 5.0), 1e-6);
+    }
+
+    @Test
+    public void testInvalidTolerances() {
+        VectorEmbeddedRungeKutta.Builder builder = VectorEmbeddedRungeKutta.Builder.builder();
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setAbsoluteTolerance(-1.0));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setAbsoluteTolerance((Vector) null));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> builder.setRelativeTolerance(Vector.immutable(1e-6, -1e-6)));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> builder.setAbsoluteTolerance(Vector.immutable(Double.NaN)));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setErrorNorm(null));
+    }
+
+    @Test
+    public void testFewerRejections() {
+        int integral = VectorRungeKuttaAdaptiveTest.vanDerPolRejections(VectorEmbeddedRungeKutta.Builder.builder()
+                .setLocalTruncationError(1e-3)
+                .build());
+        int pi = VectorRungeKuttaAdaptiveTest.vanDerPolRejections(VectorEmbeddedRungeKutta.Builder.builder()
+                .setLocalTruncationError(1e-3)
+                .setStepSizeController(StepSizeController.PI)
+                .build());
+        Assert.assertTrue(pi < integral, pi + " against " + integral);
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> VectorEmbeddedRungeKutta.Builder.builder().setStepSizeController(null));
+    }
+}
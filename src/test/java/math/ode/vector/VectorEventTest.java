@@ -0,0 +1,181 @@
+package math.ode.vector;
+
+import math.ode.utils.EventAction;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+
+public class VectorEventTest {
+
+    private static final double GRAVITY = 9.81;
+
+    private static final double RESTITUTION = 0.8;
+
+    /**
+     * Falling ball, height and velocity.
+     */
+    private static final VectorODE BALL = (x, t, dxdt) -> {
+        dxdt.set(0, x.get(1));
+        dxdt.set(1, -GRAVITY);
+    };
+
+    /**
+     * Harmonic oscillator, position and velocity.
+     */
+    private static final VectorODE SPRING = (x, t, dxdt) -> {
+        dxdt.set(0, x.get(1));
+        dxdt.set(1, -x.get(0));
+    };
+
+    /**
+     * Impact of the ball with the ground, reversing and damping its velocity.
+     */
+    private static final class Bounce implements VectorEvent {
+
+        private final List<Double> times = new ArrayList<>();
+
+        @Override
+        public double g(double t, Vector x) {
+            return x.get(0);
+        }
+
+        @Override
+        public int getDirection() {
+            return -1;
+        }
+
+        @Override
+        public EventAction handle(double t, Vector x) {
+            times.add(t);
+            return EventAction.RESET;
+        }
+
+        @Override
+        public void reset(double t, Vector x) {
+            x.set(0, 0.0);
+            x.set(1, -RESTITUTION * x.get(1));
+        }
+    }
+
+    /**
+     * Section of the oscillator where the velocity decreases through zero, recording the positions.
+     */
+    private static final class Section implements VectorEvent {
+
+        private final List<Double> positions = new ArrayList<>();
+
+        @Override
+        public double g(double t, Vector x) {
+            return x.get(1);
+        }
+
+        @Override
+        public int getDirection() {
+            return -1;
+        }
+
+        @Override
+        public EventAction handle(double t, Vector x) {
+            positions.add(x.get(0));
+            return EventAction.CONTINUE;
+        }
+    }
+
+    @DataProvider
+    public Object[][] createSolvers() {
+        return new Object[][]{
+                {VectorRungeKutta4.Builder.builder().setStepSize(0.01).build(), 1e-7},
+                {VectorRungeKuttaAdaptive.Builder.builder().setLocalTruncationError(1e-10).build(), 1e-7},
+                {VectorEmbeddedRungeKutta.Builder.builder().setLocalTruncationError(1e-10).build(), 1e-7},
+                {VectorRosenbrock.Builder.builder().setLocalTruncationError(1e-8).build(), 1e-5},
+                {VectorBDF.Builder.builder().setLocalTruncationError(1e-8).build(), 1e-5}
+        };
+    }
+
+    @Test(dataProvider = "createSolvers")
+    public void testBouncingBall(VectorODESolver solver, double tolerance) {
+        Bounce bounce = new Bounce();
+        VectorStep step = solver.solve(BALL, Vector.immutable(1.0, 0.0), 0.0, 3.0,
+                Collections.singletonList(bounce));
+        // Each flight lasts the restitution times the previous one
+        double impact = Math.sqrt(2.0 / GRAVITY);
+        double flight = 2.0 * RESTITUTION * impact;
+        List<Double> expected = new ArrayList<>();
+        while (impact < 3.0) {
+            expected.add(impact);
+            impact += flight;
+            flight *= RESTITUTION;
+        }
+        Assert.assertEquals(bounce.times.size(), expected.size());
+        for (int k = 0; k < expected.size(); ++k) {
+            Assert.assertEquals(bounce.times.get(k), expected.get(k), tolerance);
+        }
+        Assert.assertEquals(step.getT(), 3.0);
+        Assert.assertTrue(step.getX().get(0) >= -tolerance);
+    }
+
+    @Test(dataProvider = "createSolvers")
+    public void testPoincareSection(VectorODESolver solver, double tolerance) {
+        Section section = new Section();
+        solver.solve(SPRING, Vector.immutable(0.0, 1.0), 0.0, 20.0 * Math.PI + 1.0,
+                Collections.singletonList(section));
+        Assert.assertEquals(section.positions.size(), 10);
+        for (double position : section.positions) {
+            Assert.assertEquals(position, 1.0, 100.0 * tolerance);
+        }
+    }
+
+    @Test(dataProvider = "createSolvers")
+    public void testStop(VectorODESolver solver, double tolerance) {
+        // Ball dropped from one reaches half its height at sqrt(1 / g)
+        VectorStep step = solver.solve(BALL, Vector.immutable(1.0, 0.0), 0.0, 5.0,
+                Collections.singletonList((t, x) -> x.get(0) - 0.5));
+        Assert.assertEquals(step.getT(), Math.sqrt(1.0 / GRAVITY), tolerance);
+        Assert.assertEquals(step.getX().get(0), 0.5, tolerance);
+        Assert.assertEquals(step.getX().get(1), -Math.sqrt(GRAVITY), tolerance);
+    }
+
+    @Test
+    public void testStopBoxed() {
+        BiFunction<Vector, Double, Vector> ball = (x, t) -> Vector.immutable(x.get(1), -GRAVITY);
+        VectorStep step = VectorRungeKutta4.Builder.builder()
+                .setStepSize(0.1)
+                .build()
+                .solve(ball, Vector.immutable(1.0, 0.0), 0.0, 5.0, Collections.singletonList((t, x) -> x.get(0)));
+        Assert.assertEquals(step.getT(), Math.sqrt(2.0 / GRAVITY), 1e-14);
+        Assert.assertEquals(step.getX().get(1), -Math.sqrt(2.0 * GRAVITY), 1e-12);
+    }
+
+    @Test
+    public void testNoExtraEvaluations() {
+        int[] calls = new int[1];
+        VectorODE spring = (x, t, dxdt) -> {
+            calls[0]++;
+            SPRING.apply(x, t, dxdt);
+        };
+        VectorODESolver solver = VectorEmbeddedRungeKutta.Builder.builder().setLocalTruncationError(1e-10).build();
+        Vector expected = solver.solve(spring, Vector.immutable(0.0, 1.0), 0.0, 30.0);
+        final int plainCalls = calls[0];
+        calls[0] = 0;
+        Section section = new Section();
+        VectorStep step = solver.solve(spring, Vector.immutable(0.0, 1.0), 0.0, 30.0,
+                Collections.singletonList(section));
+        Assert.assertEquals(section.positions.size(), 5);
+        Assert.assertEquals(step.getX().get(0), expected.get(0));
+        Assert.assertEquals(step.getX().get(1), expected.get(1));
+        // Only the derivative at the last state, which a plain solve never needs
+        Assert.assertTrue(calls[0] <= plainCalls + 1, calls[0] + " against " + plainCalls);
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        VectorODESolver solver = VectorRungeKutta4.Builder.builder().build();
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> solver.solve(SPRING, Vector.immutable(0.0, 1.0), 0.0, 1.0, null));
+    }
+}
@@ -0,0 +1,89 @@
+package math.ode.vector;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class VectorExpressionTest {
+
+    @DataProvider
+    public Object[][] createLengths() {
+        // Lengths around and across the block size
+        return new Object[][]{{1}, {7}, {VectorExpression.BLOCK}, {VectorExpression.BLOCK + 1}, {1000}};
+    }
+
+    @Test(dataProvider = "createLengths")
+    public void testMatchesEagerOperations(int length) {
+        Vector a = Vector.randomImmutable(length);
+        Vector b = Vector.randomImmutable(length).add(0.5, VectorType.IMMUTABLE);
+        VectorExpression lazy = a.lazy().sub(b).abs().div(a.lazy().abs().add(b.lazy().abs()).mult(0.5).add(1e-3));
+        Vector eager = a.sub(b).abs().div(a.abs().add(b.abs()).mult(0.5).add(1e-3));
+        Vector actual = lazy.evaluate();
+        for (int i = 0; i < length; ++i) {
+            Assert.assertEquals(actual.get(i), eager.get(i));
+        }
+        Assert.assertEquals(lazy.max(), eager.max());
+        Assert.assertEquals(lazy.min(), eager.min());
+        Assert.assertEquals(lazy.sum(), eager.dotProduct(Vector.immutable(length, 1.0)), 1e-12 * length);
+        // Reusable after the first evaluation
+        Assert.assertEquals(lazy.max(), eager.max());
+    }
+
+    @Test
+    public void testScalarAndUnaryOperations() {
+        Vector a = Vector.immutable(1.0, 4.0, 9.0);
+        Vector actual = a.lazy().sqrt().mult(2.0).sub(1.0).div(Vector.immutable(1.0, 3.0, 5.0)).negate()
+                .pow(2.0).evaluate();
+        Assert.assertEquals(actual.get(0), 1.0);
+        Assert.assertEquals(actual.get(1), 1.0);
+        Assert.assertEquals(actual.get(2), 1.0);
+    }
+
+    @Test
+    public void testReadsCurrentElements() {
+        Vector x = Vector.mutable(1.0, 2.0);
+        VectorExpression doubled = x.lazy().mult(2.0);
+        Assert.assertEquals(doubled.max(), 4.0);
+        x.set(1, 5.0);
+        Assert.assertEquals(doubled.max(), 10.0);
+    }
+
+    @Test
+    public void testIntoAliasedDestination() {
+        Vector x = Vector.mutable(VectorStorage.direct(600));
+        for (int i = 0; i < x.length(); ++i) {
+            x.set(i, i);
+        }
+        Assert.assertSame(x.lazy().mult(x).add(x).into(x), x);
+        for (int i = 0; i < x.length(); ++i) {
+            Assert.assertEquals(x.get(i), (double) i * i + i);
+        }
+    }
+
+    @Test
+    public void testVariableLeaves() {
+        VectorExpression.Leaf a = VectorExpression.variable(300);
+        VectorExpression.Leaf b = VectorExpression.variable(300);
+        // a is used twice and computed once per block
+        VectorExpression expression = a.mult(a).sub(b);
+        Assert.assertThrows(IllegalStateException.class, expression::max);
+        for (int k = 1; k <= 3; ++k) {
+            Vector x = Vector.mutable(300, k);
+            Vector y = Vector.mutable(VectorStorage.direct(300)).set(Vector.immutable(300, 1.0));
+            a.bind(x);
+            b.bind(y);
+            Assert.assertEquals(expression.max(), k * k - 1.0);
+            Assert.assertEquals(expression.sum(), 300.0 * (k * k - 1.0));
+        }
+        Assert.assertThrows(IllegalArgumentException.class, () -> a.bind(Vector.mutable(3)));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        Vector x = Vector.immutable(1.0, 2.0);
+        Assert.assertThrows(IllegalArgumentException.class, () -> x.lazy().add(Vector.immutable(1.0)));
+        Assert.assertThrows(IllegalArgumentException.class, () -> x.lazy().into(Vector.mutable(3)));
+        Assert.assertThrows(IllegalAccessError.class, () -> x.lazy().into(x));
+        Assert.assertThrows(IllegalStateException.class, () -> Vector.mutable(0).lazy().max());
+    }
+}
@@ -0,0 +1,101 @@
+package math.ode.vector;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+public class VectorKernelsTest {
+
+    private static final VectorKernels SCALAR = VectorKernels.scalar();
+
+    private static final VectorKernels SELECTED = VectorKernels.get();
+
+    @DataProvider
+    public Object[][] createOperations() {
+        VectorOperation[] operations = VectorOperation.values();
+        Object[][] out = new Object[operations.length][];
+        for (int i = 0; i < operations.length; ++i) {
+            out[i] = new Object[]{operations[i]};
+        }
+        return out;
+    }
+
+    @Test(dataProvider = "createOperations")
+    public void testApplyMatchesScalar(VectorOperation operation) {
+        // Ranges that start and end off the lane boundaries
+        for (int length : new int[]{0, 1, 3, 17, 1029}) {
+            double[] a = random(length + 5, 1);
+            double[] b = random(length + 5, 2);
+            double[] expected = new double[a.length];
+            double[] actual = new double[a.length];
+            SCALAR.apply(operation, a, b, 0.75, expected, 3, 3 + length);
+            SELECTED.apply(operation, a, b, 0.75, actual, 3, 3 + length);
+            for (int i = 0; i < a.length; ++i) {
+                Assert.assertEquals(Double.doubleToLongBits(actual[i]), Double.doubleToLongBits(expected[i]));
+            }
+        }
+    }
+
+    @Test
+    public void testReductionsMatchScalar() {
+        for (int length : new int[]{1, 3, 17, 1029}) {
+            double[] a = random(length + 5, 3);
+            double[] b = random(length + 5, 4);
+            Assert.assertEquals(SELECTED.dotProduct(a, b, 2, 2 + length), SCALAR.dotProduct(a, b, 2, 2 + length),
+                    1e-12 * length);
+            Assert.assertEquals(SELECTED.max(a, 2, 2 + length), SCALAR.max(a, 2, 2 + length));
+            Assert.assertEquals(SELECTED.min(a, 2, 2 + length), SCALAR.min(a, 2, 2 + length));
+        }
+    }
+
+    @Test
+    public void testLinearCombinationMatchesScalar() {
+        int n = 1029;
+        double[] c = {0.5, -1.25, 2.0, 0.125, -3.0};
+        double[][] v = new double[c.length][];
+        for (int k = 0; k < c.length; ++k) {
+            v[k] = random(n, 10 + k);
+        }
+        double[] expected = new double[n];
+        double[] actual = new double[n];
+        for (int terms = 1; terms <= c.length; ++terms) {
+            combine(SCALAR, terms, expected, c, v);
+            combine(SELECTED, terms, actual, c, v);
+            for (int i = 0; i < n; ++i) {
+                Assert.assertEquals(Double.doubleToLongBits(actual[i]), Double.doubleToLongBits(expected[i]));
+            }
+        }
+    }
+
+    private static void combine(VectorKernels kernels, int terms, double[] out, double[] c, double[][] v) {
+        int from = 1;
+        int to = out.length - 2;
+        switch (terms) {
+            case 1:
+                kernels.linearCombination(out, from, to, c[0], v[0]);
+                break;
+            case 2:
+                kernels.linearCombination(out, from, to, c[0], v[0], c[1], v[1]);
+                break;
+            case 3:
+                kernels.linearCombination(out, from, to, c[0], v[0], c[1], v[1], c[2], v[2]);
+                break;
+            case 4:
+                kernels.linearCombination(out, from, to, c[0], v[0], c[1], v[1], c[2], v[2], c[3], v[3]);
+                break;
+            default:
+                kernels.linearCombination(out, from, to, c[0], v[0], c[1], v[1], c[2], v[2], c[3], v[3], c[4], v[4]);
+        }
+    }
+
+    private static double[] random(int length, long seed) {
+        Random rand = new Random(seed);
+        double[] out = new double[length];
+        for (int i = 0; i < length; ++i) {
+            out[i] = 4.0 * rand.nextDouble() - 2.0;
+        }
+        return out;
+    }
+}
@@ -0,0 +1,175 @@
+package math.ode.vector;
+
+import math.ode.utils.RosenbrockTableau;
+import math.ode.utils.SolverStatistics;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+public class VectorRosenbrockTest {
+
+    /**
+     * Kaps' problem, stiff with exact solution x0 = exp(-2t), x1 = exp(-t).
+     */
+    static final VectorODE KAPS = (x, t, dxdt) -> {
+        dxdt.set(0, -1002.0 * x.get(0) + 1000.0 * x.get(1) * x.get(1));
+        dxdt.set(1, x.get(0) - x.get(1) - x.get(1) * x.get(1));
+    };
+
+    static final VectorJacobian KAPS_JACOBIAN = (x, t, dfdx) -> {
+        dfdx.set(0, 0, -1002.0);
+        dfdx.set(0, 1, 2000.0 * x.get(1));
+        dfdx.set(1, 0, 1.0);
+        dfdx.set(1, 1, -1.0 - 2.0 * x.get(1));
+    };
+
+    /**
+     * Robertson's chemical kinetics, stiff and conserving the sum of the components.
+     */
+    static final VectorODE ROBERTSON = (x, t, dxdt) -> {
+        double x0 = x.get(0);
+        double x1 = x.get(1);
+        double x2 = x.get(2);
+        dxdt.set(0, -0.04 * x0 + 1e4 * x1 * x2);
+        dxdt.set(1, 0.04 * x0 - 1e4 * x1 * x2 - 3e7 * x1 * x1);
+        dxdt.set(2, 3e7 * x1 * x1);
+    };
+
+    /**
+     * Robertson's problem at t = 40.
+     */
+    static final double[] ROBERTSON_40 = {0.7158270687, 9.185534765e-6, 0.2841637457};
+
+    /**
+     * Stiff non-autonomous problem x' = -50 * (x - cos(t)) with x(0) = 0.
+     */
+    static final VectorODE FORCED = (x, t, dxdt) -> dxdt.set(0, -50.0 * (x.get(0) - Math.cos(t)));
+
+    static double forced(double t) {
+        return -2500.0 / 2501.0 * Math.exp(-50.0 * t) + (2500.0 * Math.cos(t) + 50.0 * Math.sin(t)) / 2501.0;
+    }
+
+    @DataProvider
+    public Object[][] createTableaus() {
+        return Arrays.stream(RosenbrockTableau.values())
+                .map(tableau -> new Object[]{tableau})
+                .toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "createTableaus")
+    public void testKaps(RosenbrockTableau tableau) {
+        for (VectorJacobian jacobian : new VectorJacobian[]{null, KAPS_JACOBIAN}) {
+            VectorRosenbrock solver = VectorRosenbrock.Builder.builder()
+                    .setTableau(tableau)
+                    .setJacobian(jacobian)
+                    .build();
+            for (double t = 0.5; t <= 3.0; t += 0.5) {
+                Vector x = solver.solve(KAPS, Vector.immutable(1.0, 1.0), 0.0, t);
+                Assert.assertEquals(x.get(0), Math.exp(-2.0 * t), 1e-5);
+                Assert.assertEquals(x.get(1), Math.exp(-t), 1e-5);
+            }
+        }
+    }
+
+    @Test(dataProvider = "createTableaus")
+    public void testRobertson(RosenbrockTableau tableau) {
+        VectorRosenbrock solver = VectorRosenbrock.Builder.builder()
+                .setTableau(tableau)
+                .build();
+        Vector x = solver.solve(ROBERTSON, Vector.immutable(1.0, 0.0, 0.0), 0.0, 40.0);
+        for (int i = 0; i < 3; ++i) {
+            Assert.assertEquals(x.get(i), ROBERTSON_40[i], 1e-4 * ROBERTSON_40[i]);
+        }
+        Assert.assertEquals(x.get(0) + x.get(1) + x.get(2), 1.0, 1e-9);
+    }
+
+    @Test(dataProvider = "createTableaus")
+    public void testForced(RosenbrockTableau tableau) {
+        VectorRosenbrock solver = VectorRosenbrock.Builder.builder()
+                .setTableau(tableau)
+                .build();
+        for (double t = 0.25; t <= 2.0; t += 0.25) {
+            Vector x = solver.solve(FORCED, Vector.immutable(0.0), 0.0, t);
+            Assert.assertEquals(x.get(0), forced(t), 1e-6);
+        }
+    }
+
+    @Test(dataProvider = "createTableaus")
+    public void testBackward(RosenbrockTableau tableau) {
+        VectorRosenbrock solver = VectorRosenbrock.Builder.builder()
+                .setTableau(tableau)
+                .build();
+        Vector x = solver.solve((y, t, dydt) -> dydt.set(0, -y.get(0)), Vector.immutable(Math.exp(-2.0)), 2.0, 0.0);
+        Assert.assertEquals(x.get(0), 1.0, 1e-4);
+    }
+
+    @Test(dataProvider = "createTableaus")
+    public void testJacobianReuse(RosenbrockTableau tableau) {
+        int[] calls = new int[1];
+        VectorRosenbrock solver = VectorRosenbrock.Builder.builder()
+                .setTableau(tableau)
+                .setJacobian((x, t, dfdx) -> {
+                    calls[0]++;
+                    KAPS_JACOBIAN.apply(x, t, dfdx);
+                })
+                .build();
+        long steps = solver.steps(KAPS, Vector.immutable(1.0, 1.0), 0.0, 5.0).count();
+        calls[0] = 0;
+        VectorStepper stepper = solver.stepper(KAPS, Vector.immutable(1.0, 1.0), 0.0, 5.0);
+        int shrunk = 0;
+        while (!stepper.isDone()) {
+            double tOld = stepper.getT();
+            stepper.step();
+            if (!stepper.isDone() && Math.abs(stepper.getStepSize()) < stepper.getT() - tOld) {
+                ++shrunk;
+            }
+        }
+        if (tableau.isW()) {
+            // The first Jacobian is kept until a step is rejected or accepted asking for a smaller step
+            int refreshes = stepper.getRejectedSteps() + shrunk;
+            Assert.assertTrue(calls[0] <= refreshes + 1, calls[0] + " Jacobians for " + refreshes + " refreshes");
+            Assert.assertTrue(calls[0] < steps / 2, calls[0] + " Jacobians for " + steps + " steps");
+        } else {
+            Assert.assertTrue(calls[0] >= steps - 1, calls[0] + " Jacobians for " + steps + " steps");
+        }
+    }
+
+    @Test(dataProvider = "createTableaus")
+    public void testStatistics(RosenbrockTableau tableau) {
+        VectorRosenbrock solver = VectorRosenbrock.Builder.builder()
+                .setTableau(tableau)
+                .build();
+        SolverStatistics statistics = new SolverStatistics();
+        solver.solve(KAPS, Vector.immutable(1.0, 1.0), 0.0, 5.0, statistics, null);
+        // Evaluations estimating the Jacobian are counted on top of the one per step
+        Assert.assertTrue(statistics.getEvaluations() > statistics.getAcceptedSteps());
+    }
+
+    @Test
+    public void testComponentTolerances() {
+        // A loose tolerance on the decaying first component must not spoil the second
+        VectorRosenbrock solver = VectorRosenbrock.Builder.builder()
+                .setRelativeTolerance(Vector.immutable(1e-2, 1e-8))
+                .setAbsoluteTolerance(Vector.immutable(1e-2, 1e-12))
+                .setErrorNorm(ErrorNorm.RMS)
+                .build();
+        Vector x = solver.solve(KAPS, Vector.immutable(1.0, 1.0), 0.0, 2.0);
+        Assert.assertEquals(x.get(1), Math.exp(-2.0), 1e-6);
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> solver.solve(ROBERTSON, Vector.immutable(1.0, 0.0, 0.0), 0.0, 1.0));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        VectorRosenbrock.Builder builder = VectorRosenbrock.Builder.builder();
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setTableau(null));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setLocalTruncationError(-1.0));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setAbsoluteTolerance(-1.0));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setInitialStepSize(0.0));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setMaximumTries(-1));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setSafetyFactor1(1.5));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setSafetyFactor2(0.5));
+    }
+}
@@ -4,8 +4,10 @@ import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.List;
 import java.util.Random;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 public class VectorRungeKutta4Test {
@@ -100,4 +102,92 @@ public class VectorRungeKutta4Test {
             Assert.assertEquals(actual.get(1), expected, 1e-6);
         }
     }
-}
\ No newline at end of file
+
+    @Test(dataProvider = "createSpringTests")
+    public void testSpringInPlace(Function<Double, Double> xExp, double omega, double xi, double vi, double ti) {
+        Vector vxi = Vector.mutable(vi, xi);
+        // In-place velocity/position right-hand side
+        VectorODE spring = (vec, tim, out) -> {
+            out.set(0, -omega * omega * vec.get(1));
+            out.set(1, vec.get(0));
+        };
+        Function<Double, Vector> vx = VectorRungeKutta4.Builder.builder()
+                .setStepSize(0.01)
+                .build()
+                .solution(spring, vxi, ti);
+        // Assert that the position function matches the expected
+        for (double time = -10.0; time <= 10.0; time += 0.1) {
+            Vector actual = vx.apply(time);
+            double expected = xExp.apply(time);
+            Assert.assertEquals(actual.get(1), expected, 1e-6);
+        }
+        // Assert that the initial condition was not modified
+        Assert.assertEquals(vxi.get(0), vi);
+        Assert.assertEquals(vxi.get(1), xi);
+    }
+
+    @Test(dataProvider = "createSpringTests")
+    public void testSpringTrajectory(Function<Double, Double> xExp, double omega, double xi, double vi, double ti) {
+        Vector vxi = Vector.mutable(vi, xi);
+        VectorODE spring = (vec, tim, out) -> {
+            out.set(0, -omega * omega * vec.get(1));
+            out.set(1, vec.get(0));
+        };
+        VectorODESolver solver = VectorRungeKutta4.Builder.builder()
+                .setStepSize(0.001)
+                .build();
+        // Integrate once in each direction and interpolate between the recorded steps
+        VectorTrajectory forward = solver.trajectory(spring, vxi, ti, 10.0);
+        VectorTrajectory backward = solver.trajectory(spring, vxi, ti, -10.0);
+        Vector actual = Vector.mutable(2);
+        for (double time = -10.0; time <= 10.0; time += 0.05) {
+            double expected = xExp.apply(time);
+            (time >= ti ? forward : backward).interpolate(time, actual);
+            Assert.assertEquals(actual.get(1), expected, 1e-6);
+        }
+        Assert.assertThrows(IllegalArgumentException.class, () -> forward.apply(10.5));
+    }
+
+    @Test(dataProvider = "createSpringTests")
+    public void testSolveAll(Function<Double, Double> xExp, double omega, double xi, double vi, double ti) {
+        VectorODE spring = (vec, tim, out) -> {
+            out.set(0, -omega * omega * vec.get(1));
+            out.set(1, vec.get(0));
+        };
+        // Ensemble of scaled initial conditions, each member solved in parallel
+        int members = 500;
+        double[] ensemble = new double[2 * members];
+        for (int i = 0; i < members; ++i) {
+            ensemble[2 * i] = vi * i;
+            ensemble[2 * i + 1] = xi * i;
+        }
+        double[] vx = VectorRungeKutta4.Builder.builder()
+                .setStepSize(0.01)
+                .build()
+                .solveAll(spring, ensemble, 2, ti, 10.0);
+        for (int i = 0; i < members; ++i) {
+            Assert.assertEquals(vx[2 * i + 1], i * xExp.apply(10.0), 1e-6 * Math.max(1, i));
+        }
+        Assert.assertThrows(IllegalArgumentException.class, () -> VectorRungeKutta4.Builder.builder()
+                .build()
+                .solveAll(spring, new double[3], 2, ti, 10.0));
+    }
+
+    @Test(dataProvider = "createSpringTests")
+    public void testSteps(Function<Double, Double> xExp, double omega, double xi, double vi, double ti) {
+        VectorODE spring = (vec, tim, out) -> {
+            out.set(0, -omega * omega * vec.get(1));
+            out.set(1, vec.get(0));
+        };
+        VectorODESolver solver = VectorRungeKutta4.Builder.builder()
+                .setStepSize(0.01)
+                .build();
+        List<VectorStep> steps = solver.steps(spring, Vector.mutable(vi, xi), ti, 10.0).collect(Collectors.toList());
+        // Each step holds its own copy of the in-place state
+        Assert.assertEquals(steps.get(0).getX().get(1), xi);
+        for (VectorStep step : steps) {
+            Assert.assertEquals(step.getX().get(1), xExp.apply(step.getT()), 1e-6);
+        }
+        Assert.assertEquals(steps.get(steps.size() - 1).getT(), 10.0);
+    }
+}
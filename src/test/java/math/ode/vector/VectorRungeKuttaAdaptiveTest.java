@@ -1,11 +1,17 @@
 package math.ode.vector;
 
+import math.ode.utils.SolverStatistics;
+import math.ode.utils.StepSizeController;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 public class VectorRungeKuttaAdaptiveTest {
@@ -103,4 +109,228 @@ public class VectorRungeKuttaAdaptiveTest {
             Assert.assertEquals(actual.get(1), expected, 1e-6);
         }
     }
-}
\ No newline at end of file
+
+    @Test(dataProvider = "createSpringTests")
+    public void testSteps(Function<Double, Double> xExp, double omega, double xi, double vi, double ti) {
+        VectorODESolver solver = VectorRungeKuttaAdaptive.Builder.builder()
+                .setInitialStepSize(0.01)
+                .setLocalTruncationError(1e-9)
+                .build();
+        BiFunction<Vector, Double, Vector> spring = (vec, tim) -> Vector.mutable(-omega * omega * vec.get(1), vec.get(0));
+        // Stop the integration at the first step past t = ti + 1
+        List<VectorStep> steps = solver.steps(spring, Vector.mutable(vi, xi), ti, 10.0)
+                .filter(step -> step.getT() > ti + 1.0)
+                .limit(1)
+                .collect(Collectors.toList());
+        Assert.assertEquals(steps.size(), 1);
+        Assert.assertEquals(steps.get(0).getX().get(1), xExp.apply(steps.get(0).getT()), 1e-6);
+    }
+
+    @Test(dataProvider = "createSpringTests")
+    public void testSpringTrajectory(Function<Double, Double> xExp, double omega, double xi, double vi, double ti) {
+        Vector vxi = Vector.mutable(vi, xi);
+        VectorODE spring = (vec, tim, out) -> {
+            out.set(0, -omega * omega * vec.get(1));
+            out.set(1, vec.get(0));
+        };
+        VectorODESolver solver = VectorRungeKuttaAdaptive.Builder.builder()
+                .setInitialStepSize(0.01)
+                .setLocalTruncationError(1e-12)
+                .build();
+        // Integrate once in each direction and interpolate between the recorded steps
+        VectorTrajectory forward = solver.trajectory(spring, vxi, ti, 10.0);
+        VectorTrajectory backward = solver.trajectory(spring, vxi, ti, -10.0);
+        Vector actual = Vector.mutable(2);
+        for (double time = -10.0; time <= 10.0; time += 0.05) {
+            double expected = xExp.apply(time);
+            (time >= ti ? forward : backward).interpolate(time, actual);
+            Assert.assertEquals(actual.get(1), expected, 1e-6);
+        }
+        Assert.assertThrows(IllegalArgumentException.class, () -> forward.apply(10.5));
+    }
+
+    @Test
+    public void testComponentTolerances() {
+        // The second component decays towards zero, where a purely relative tolerance keeps shrinking the step
+        VectorODE decay = (x, t, dxdt) -> {
+            dxdt.set(0, x.get(1));
+            dxdt.set(1, -x.get(1));
+        };
+        Vector xi = Vector.immutable(0.0, 1.0);
+        VectorRungeKuttaAdaptive scalar = VectorRungeKuttaAdaptive.Builder.builder()
+                .setLocalTruncationError(1e-8)
+                .build();
+        VectorRungeKuttaAdaptive loose = VectorRungeKuttaAdaptive.Builder.builder()
+                .setLocalTruncationError(1e-8)
+                .setAbsoluteTolerance(Vector.immutable(0.0, 1e-6))
+                .build();
+        long scalarSteps = scalar.steps(decay, xi, 0.0, 30.0).count();
+        long looseSteps = loose.steps(decay, xi, 0.0, 30.0).count();
+        Assert.assertTrue(looseSteps < scalarSteps, looseSteps + " >= " + scalarSteps);
+        Assert.assertEquals(loose.solve(decay, xi, 0.0, 30.0).get(0), 1.0 - Math.exp(-30.0), 1e-6);
+        // Tolerance vectors holding the scalar settings take the same steps
+        VectorRungeKuttaAdaptive vectors = VectorRungeKuttaAdaptive.Builder.builder()
+                .setRelativeTolerance(Vector.immutable(1e-8, 1e-8))
+                .setAbsoluteTolerance(Vector.immutable(Math.ulp(1.0), Math.ulp(1.0)))
+                .build();
+        Assert.assertEquals(vectors.steps(decay, xi, 0.0, 30.0).count(), scalarSteps);
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> vectors.solve(decay, Vector.immutable(1.0), 0.0, 1.0));
+    }
+
+    @DataProvider
+    public Object[][] createErrorNorms() {
+        return new Object[][]{{ErrorNorm.MAX}, {ErrorNorm.RMS}};
+    }
+
+    @Test(dataProvider = "createErrorNorms")
+    public void testErrorNorm(ErrorNorm norm) {
+        double omega = 2.0;
+        VectorODE spring = (x, t, dxdt) -> {
+            dxdt.set(0, -omega * omega * x.get(1));
+            dxdt.set(1, x.get(0));
+        };
+        Vector actual = VectorRungeKuttaAdaptive.Builder.builder()
+                .setLocalTruncationError(1e-10)
+                .setErrorNorm(norm)
+                .build()
+                .solve(spring, Vector.immutable(0.0, 1.0), 0.0, 5.0);
+        Assert.assertEquals(actual.get(1), Math.cos(omega * 5.0), 1e-6);
+    }
+
+    @Test
+    public void testInvalidTolerances() {
+        VectorRungeKuttaAdaptive.Builder builder = VectorRungeKuttaAdaptive.Builder.builder();
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setAbsoluteTolerance(-1.0));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setAbsoluteTolerance((Vector) null));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> builder.setRelativeTolerance(Vector.immutable(1e-6, -1e-6)));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> builder.setAbsoluteTolerance(Vector.immutable(Double.NaN)));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setErrorNorm(null));
+    }
+
+    /**
+     * Van der Pol oscillator with mu = 20, whose step size an explicit method keeps at its stability limit.
+     */
+    static final VectorODE VAN_DER_POL = (x, t, dxdt) -> {
+        dxdt.set(0, x.get(1));
+        dxdt.set(1, 20.0 * (1.0 - x.get(0) * x.get(0)) * x.get(1) - x.get(0));
+    };
+
+    /**
+     * @param solver solver to integrate the Van der Pol oscillator with
+     * @return rejected tries over two periods
+     */
+    static int vanDerPolRejections(VectorODESolver solver) {
+        VectorStepper stepper = solver.stepper(VAN_DER_POL, Vector.immutable(2.0, 0.0), 0.0, 40.0);
+        while (!stepper.isDone()) {
+            stepper.step();
+        }
+        return stepper.getRejectedSteps();
+    }
+
+    @DataProvider
+    public Object[][] createStepSizeControllers() {
+        return Arrays.stream(StepSizeController.values())
+                .map(controller -> new Object[]{controller})
+                .toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "createStepSizeControllers")
+    public void testStepSizeController(StepSizeController controller) {
+        double omega = 2.0;
+        VectorODE spring = (x, t, dxdt) -> {
+            dxdt.set(0, -omega * omega * x.get(1));
+            dxdt.set(1, x.get(0));
+        };
+        Vector actual = VectorRungeKuttaAdaptive.Builder.builder()
+                .setLocalTruncationError(1e-10)
+                .setStepSizeController(controller)
+                .build()
+                .solve(spring, Vector.immutable(0.0, 1.0), 0.0, 5.0);
+        Assert.assertEquals(actual.get(1), Math.cos(omega * 5.0), 1e-6);
+    }
+
+    @Test
+    public void testFewerRejections() {
+        int integral = vanDerPolRejections(VectorRungeKuttaAdaptive.Builder.builder()
+                .setLocalTruncationError(1e-3)
+                .build());
+        int pi = vanDerPolRejections(VectorRungeKuttaAdaptive.Builder.builder()
+                .setLocalTruncationError(1e-3)
+                .setStepSizeController(StepSizeController.PI)
+                .build());
+        int pid = vanDerPolRejections(VectorRungeKuttaAdaptive.Builder.builder()
+                .setLocalTruncationError(1e-3)
+                .setStepSizeController(StepSizeController.PID)
+                .build());
+        Assert.assertTrue(2 * pi < integral, pi + " against " + integral);
+        Assert.assertTrue(2 * pid < integral, pid + " against " + integral);
+    }
+
+    @Test
+    public void testStatistics() {
+        int[] calls = new int[1];
+        VectorODE vanDerPol = (x, t, dxdt) -> {
+            calls[0]++;
+            VAN_DER_POL.apply(x, t, dxdt);
+        };
+        VectorRungeKuttaAdaptive solver = VectorRungeKuttaAdaptive.Builder.builder()
+                .setLocalTruncationError(1e-3)
+                .build();
+        SolverStatistics statistics = new SolverStatistics();
+        Vector x = solver.solve(vanDerPol, Vector.immutable(2.0, 0.0), 0.0, 40.0, statistics, null);
+        Assert.assertEquals(statistics.getRejectedSteps(), vanDerPolRejections(solver));
+        Assert.assertTrue(statistics.getRejectedSteps() > 0);
+        // The allocating ode takes the same steps
+        calls[0] = 0;
+        SolverStatistics boxed = new SolverStatistics();
+        Vector y = solver.solve((BiFunction<Vector, Double, Vector>) vanDerPol, Vector.immutable(2.0, 0.0), 0.0,
+                40.0, boxed, null);
+        Assert.assertEquals(y.get(0), x.get(0));
+        Assert.assertEquals(boxed.getEvaluations(), calls[0]);
+        Assert.assertEquals(boxed.getEvaluations(), statistics.getEvaluations());
+        Assert.assertEquals(boxed.getAcceptedSteps(), statistics.getAcceptedSteps());
+        Assert.assertEquals(boxed.getRejectedSteps(), statistics.getRejectedSteps());
+        Assert.assertEquals(boxed.getMinStepSize(), statistics.getMinStepSize());
+        Assert.assertEquals(boxed.getMaxStepSize(), statistics.getMaxStepSize());
+    }
+
+    @Test
+    public void testInitialStepSize() {
+        int[] calls = new int[1];
+        VectorODE fast = (x, t, dxdt) -> {
+            calls[0]++;
+            dxdt.set(0, -1e8 * x.get(0));
+            dxdt.set(1, 1e8 * (x.get(0) - x.get(1)));
+        };
+        Vector xi = Vector.immutable(1.0, 0.0);
+        VectorRungeKuttaAdaptive.Builder builder = VectorRungeKuttaAdaptive.Builder.builder()
+                .setLocalTruncationError(1e-6)
+                .setAbsoluteTolerance(1e-12);
+        // The estimate costs the derivative, which the first step reuses, and one more evaluation
+        VectorStepper stepper = builder.build().stepper(fast, xi, 0.0, 5e-8);
+        Assert.assertEquals(calls[0], 2);
+        Assert.assertTrue(stepper.getStepSize() > 0.0 && stepper.getStepSize() < 5e-8);
+        Assert.assertTrue(builder.build().stepper(fast, xi, 0.0, -5e-8).getStepSize() < 0.0);
+        SolverStatistics estimated = new SolverStatistics();
+        Vector x = builder.build().solve(fast, xi, 0.0, 5e-8, estimated, null);
+        Assert.assertEquals(x.get(0), Math.exp(-5.0), 1e-6);
+        // A step size set explicitly overrides the estimate, here one far too large for the time scale
+        VectorRungeKuttaAdaptive explicit = builder.setInitialStepSize(0.1).build();
+        Assert.assertEquals(explicit.stepper(fast, xi, 0.0, 5e-8).getStepSize(), 0.1);
+        SolverStatistics set = new SolverStatistics();
+        explicit.solve(fast, xi, 0.0, 5e-8, set, null);
+        Assert.assertTrue(estimated.getRejectedSteps() < set.getRejectedSteps(),
+                estimated.getRejectedSteps() + " against " + set.getRejectedSteps());
+        Assert.assertTrue(estimated.getEvaluations() < set.getEvaluations(),
+                estimated.getEvaluations() + " against " + set.getEvaluations());
+    }
+
+    @Test
+    public void testInvalidStepSizeController() {
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> VectorRungeKuttaAdaptive.Builder.builder().setStepSizeController(null));
+    }
+}
@@ -0,0 +1,97 @@
+package math.ode.vector;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+public class VectorSolutionTest {
+
+    @DataProvider
+    public Object[][] createSolvers() {
+        return new Object[][]{
+                {VectorRungeKutta4.Builder.builder().setStepSize(0.001).build()},
+                {VectorRungeKuttaAdaptive.Builder.builder().setInitialStepSize(0.01).build()},
+                {VectorEmbeddedRungeKutta.Builder.builder().setInitialStepSize(0.01).build()}
+        };
+    }
+
+    @Test(dataProvider = "createSolvers")
+    public void testResumesFromCheckpoints(VectorODESolver solver) {
+        AtomicLong evaluations = new AtomicLong();
+        VectorODE spring = (vec, tim, out) -> {
+            evaluations.incrementAndGet();
+            out.set(0, -vec.get(1));
+            out.set(1, vec.get(0));
+        };
+        Vector vxi = Vector.mutable(1.0, 0.0);
+        Function<Double, Vector> vx = solver.solution(spring, vxi, 0.0);
+        for (double time = 0.1; time <= 10.0; time += 0.1) {
+            Assert.assertEquals(vx.apply(time).get(1), Math.sin(time), 1e-6);
+        }
+        long cached = evaluations.getAndSet(0);
+        for (double time = 0.1; time <= 10.0; time += 0.1) {
+            solver.solve(spring, vxi, 0.0, time);
+        }
+        Assert.assertTrue(cached * 5 < evaluations.get());
+    }
+
+    @DataProvider
+    public Object[][] createShrinkingSolvers() {
+        return new Object[][]{
+                {VectorEmbeddedRungeKutta.Builder.builder().build()},
+                {VectorAdamsBashforthMoulton.Builder.builder().build()},
+                {VectorRosenbrock.Builder.builder().build()},
+                {VectorBDF.Builder.builder().build()}
+        };
+    }
+
+    @Test(dataProvider = "createShrinkingSolvers")
+    public void testResumeAfterShortenedStep(VectorODESolver solver) {
+        AtomicLong evaluations = new AtomicLong();
+        VectorODE spring = (vec, tim, out) -> {
+            evaluations.incrementAndGet();
+            out.set(0, -vec.get(1));
+            out.set(1, vec.get(0));
+        };
+        Function<Double, Vector> x = solver.solution(spring, Vector.immutable(1.0, 0.0), 0.0);
+        Function<Double, Vector> y = solver.solution(spring, Vector.immutable(1.0, 0.0), 0.0);
+        x.apply(1.0);
+        y.apply(1.0);
+        // Ends on a very short step, after which the solver proposes a step about as short
+        x.apply(1.0 + 1e-9);
+        evaluations.set(0);
+        x.apply(5.0);
+        long afterShortStep = evaluations.getAndSet(0);
+        y.apply(5.0);
+        Assert.assertTrue(afterShortStep <= evaluations.get() + 10, afterShortStep + " against " + evaluations.get());
+    }
+
+    @Test
+    public void testCheckpointsNotAliased() {
+        VectorODE spring = (vec, tim, out) -> {
+            out.set(0, -vec.get(1));
+            out.set(1, vec.get(0));
+        };
+        Function<Double, Vector> vx = VectorRungeKutta4.Builder.builder()
+                .setStepSize(0.001)
+                .build()
+                .solution(spring, Vector.mutable(1.0, 0.0), 0.0);
+        // Modify the in-place result and query the same checkpoint again
+        vx.apply(1.0).set(1, Double.NaN);
+        Assert.assertEquals(vx.apply(1.0).get(1), Math.sin(1.0), 1e-6);
+    }
+
+    @Test(dataProvider = "createSolvers")
+    public void testConcurrentQueries(VectorODESolver solver) {
+        Function<Double, Vector> vx = solver.solution(
+                (vec, tim) -> Vector.mutable(-vec.get(1), vec.get(0)), Vector.mutable(1.0, 0.0), 0.0);
+        IntStream.range(0, 2000).parallel().forEach(i -> {
+            double time = -5.0 + (i % 200) * 0.05;
+            Assert.assertEquals(vx.apply(time).get(1), Math.sin(time), 1e-6);
+        });
+    }
+}
@@ -0,0 +1,247 @@
+package math.ode.vector;
+
+import math.ode.utils.SolverStatistics;
+import math.ode.utils.SplittingScheme;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+public class VectorSymplecticTest {
+
+    private static final VectorODE VELOCITY = (p, t, dqdt) -> dqdt.set(p);
+
+    /**
+     * Kepler problem with unit gravitational parameter.
+     */
+    private static final VectorODE GRAVITY = (q, t, dpdt) -> {
+        double r = Math.hypot(q.get(0), q.get(1));
+        double r3 = r * r * r;
+        dpdt.set(0, -q.get(0) / r3);
+        dpdt.set(1, -q.get(1) / r3);
+    };
+
+    private static double keplerEnergy(Vector q, Vector p) {
+        return 0.5 * (p.get(0) * p.get(0) + p.get(1) * p.get(1)) - 1.0 / Math.hypot(q.get(0), q.get(1));
+    }
+
+    @DataProvider
+    public Object[][] createSchemes() {
+        return Arrays.stream(SplittingScheme.values())
+                .map(scheme -> new Object[]{scheme})
+                .toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "createSchemes")
+    public void testCoefficients(SplittingScheme scheme) {
+        double[] a = scheme.getA();
+        double[] b = scheme.getB();
+        Assert.assertEquals(a.length, b.length);
+        Assert.assertEquals(Arrays.stream(a).sum(), 1.0, 1e-14);
+        Assert.assertEquals(Arrays.stream(b).sum(), 1.0, 1e-14);
+    }
+
+    @Test(dataProvider = "createSchemes")
+    public void testOrder(SplittingScheme scheme) {
+        // Harmonic oscillator q'' = -q, halving the step divides the error by 2^order
+        double[] errors = new double[2];
+        for (int k = 0; k < 2; ++k) {
+            Vector q = Vector.mutable(1, 1.0);
+            Vector p = Vector.mutable(1);
+            VectorSymplectic.Builder.builder()
+                    .setScheme(scheme)
+                    .setStepSize(0.25 / (1 << k))
+                    .build()
+                    .solve(VELOCITY, (x, t, dpdt) -> dpdt.set(0, -x.get(0)), q, p, 0.0, 2.0);
+            errors[k] = Math.hypot(q.get(0) - Math.cos(2.0), p.get(0) + Math.sin(2.0));
+        }
+        double order = Math.log(errors[0] / errors[1]) / Math.log(2.0);
+        Assert.assertEquals(order, scheme.getOrder(), 0.25);
+    }
+
+    @Test(dataProvider = "createSchemes")
+    public void testEnergy(SplittingScheme scheme) {
+        // Eccentric orbit over about 200 periods, sampled every 8 steps so that no step is shortened
+        final double e = 0.5;
+        Vector q = Vector.mutable(2);
+        Vector p = Vector.mutable(2);
+        q.set(0, 1.0 - e);
+        p.set(1, Math.sqrt((1.0 + e) / (1.0 - e)));
+        final double energy = keplerEnergy(q, p);
+        VectorSymplectic solver = VectorSymplectic.Builder.builder()
+                .setScheme(scheme)
+                .setStepSize(0.0625)
+                .build();
+        double earlyError = 0.0;
+        double lateError = 0.0;
+        for (int k = 0; k < 2500; ++k) {
+            solver.solve(VELOCITY, GRAVITY, q, p, 0.5 * k, 0.5 * (k + 1));
+            double error = Math.abs(keplerEnergy(q, p) - energy);
+            if (k < 250) {
+                earlyError = Math.max(earlyError, error);
+            } else if (k >= 1250) {
+                lateError = Math.max(lateError, error);
+            }
+        }
+        // Bounded, not drifting
+        Assert.assertTrue(lateError < 1e-2, "Energy error " + lateError);
+        Assert.assertTrue(lateError < 1.5 * earlyError, lateError + " against " + earlyError);
+    }
+
+    @Test
+    public void testEnergyAgainstRungeKutta4() {
+        final double e = 0.5;
+        final double tEnd = 2.0 * Math.PI * 200;
+        Vector q = Vector.mutable(2);
+        Vector p = Vector.mutable(2);
+        q.set(0, 1.0 - e);
+        p.set(1, Math.sqrt((1.0 + e) / (1.0 - e)));
+        final double energy = keplerEnergy(q, p);
+        int[] calls = new int[1];
+        VectorODE gravity = (x, t, dpdt) -> {
+            calls[0]++;
+            GRAVITY.apply(x, t, dpdt);
+        };
+        VectorSymplectic.Builder.builder()
+                .setScheme(SplittingScheme.YOSHIDA4)
+                .setStepSize(0.1)
+                .build()
+                .solve(VELOCITY, gravity, q, p, 0.0, tEnd);
+        final int symplecticCalls = calls[0];
+        double symplecticError = Math.abs(keplerEnergy(q, p) - energy);
+        calls[0] = 0;
+        VectorODE kepler = (x, t, dxdt) -> {
+            calls[0]++;
+            double r = Math.hypot(x.get(0), x.get(1));
+            double r3 = r * r * r;
+            dxdt.set(0, x.get(2));
+            dxdt.set(1, x.get(3));
+            dxdt.set(2, -x.get(0) / r3);
+            dxdt.set(3, -x.get(1) / r3);
+        };
+        Vector x = VectorRungeKutta4.Builder.builder()
+                .setStepSize(0.1)
+                .build()
+                .solve(kepler, Vector.immutable(1.0 - e, 0.0, 0.0, Math.sqrt((1.0 + e) / (1.0 - e))), 0.0, tEnd);
+        double rungeKuttaError = Math.abs(keplerEnergy(x, Vector.immutable(x.get(2), x.get(3))) - energy);
+        // Fewer force evaluations and a much smaller energy error at the same step size
+        Assert.assertTrue(symplecticCalls < calls[0], symplecticCalls + " against " + calls[0]);
+        Assert.assertTrue(10.0 * symplecticError < rungeKuttaError, symplecticError + " against " + rungeKuttaError);
+    }
+
+    @Test
+    public void testForceEvaluations() {
+        int[] calls = new int[1];
+        VectorODE force = (q, t, dpdt) -> {
+            calls[0]++;
+            dpdt.set(0, -q.get(0));
+        };
+        VectorSymplectic.Builder.builder()
+                .setStepSize(0.01)
+                .build()
+                .solve(VELOCITY, force, Vector.mutable(1, 1.0), Vector.mutable(1), 0.0, 1.0);
+        // The last kick of each velocity Verlet step is the first kick of the next
+        Assert.assertEquals(calls[0], 101);
+    }
+
+    @Test
+    public void testStatistics() {
+        VectorODE force = (q, t, dpdt) -> dpdt.set(0, -q.get(0));
+        VectorSymplectic symplectic = VectorSymplectic.Builder.builder()
+                .setStepSize(0.25)
+                .build();
+        SolverStatistics statistics = new SolverStatistics();
+        symplectic.solve(VELOCITY, force, Vector.mutable(1, 1.0), Vector.mutable(1), 0.0, 10.1, statistics);
+        // 40 full steps and a shortened last step, each evaluating the velocity once and sharing kicks
+        Assert.assertEquals(statistics.getAcceptedSteps(), 41);
+        Assert.assertEquals(statistics.getEvaluations(), 41 + 42);
+        Assert.assertEquals(statistics.getRejectedSteps(), 0);
+        Assert.assertEquals(statistics.getMaxStepSize(), 0.25);
+        Assert.assertEquals(statistics.getLastStepSize(), 0.1, 1e-12);
+        Assert.assertEquals(statistics.getMinStepSize(), statistics.getLastStepSize());
+    }
+
+    @Test(dataProvider = "createSchemes")
+    public void testFlows(SplittingScheme scheme) {
+        // Exact drift and kick flows reproduce the separable integration
+        VectorSymplectic solver = VectorSymplectic.Builder.builder()
+                .setScheme(scheme)
+                .setStepSize(0.1)
+                .build();
+        Vector q = Vector.mutable(2);
+        Vector p = Vector.mutable(2);
+        q.set(0, 1.0);
+        p.set(1, 1.0);
+        Vector dpdt = Vector.mutable(2);
+        solver.solve((x, y, t, h) -> Vector.axpy(h, y, x),
+                (x, y, t, h) -> {
+                    GRAVITY.apply(x, t, dpdt);
+                    Vector.axpy(h, dpdt, y);
+                }, q, p, 0.0, 3.05);
+        Vector qExpected = Vector.mutable(2);
+        Vector pExpected = Vector.mutable(2);
+        qExpected.set(0, 1.0);
+        pExpected.set(1, 1.0);
+        solver.solve(VELOCITY, GRAVITY, qExpected, pExpected, 0.0, 3.05);
+        for (int i = 0; i < 2; ++i) {
+            Assert.assertEquals(q.get(i), qExpected.get(i), 1e-14);
+            Assert.assertEquals(p.get(i), pExpected.get(i), 1e-14);
+        }
+    }
+
+    @Test(dataProvider = "createSchemes")
+    public void testReversibility(SplittingScheme scheme) {
+        // Symmetric schemes retrace their steps backwards
+        VectorSymplectic solver = VectorSymplectic.Builder.builder()
+                .setScheme(scheme)
+                .setStepSize(0.1)
+                .build();
+        Vector q = Vector.mutable(2);
+        Vector p = Vector.mutable(2);
+        q.set(0, 1.0);
+        p.set(1, 1.0);
+        solver.solve(VELOCITY, GRAVITY, q, p, 0.0, 5.0);
+        solver.solve(VELOCITY, GRAVITY, q, p, 5.0, 0.0);
+        Assert.assertEquals(q.get(0), 1.0, 1e-10);
+        Assert.assertEquals(q.get(1), 0.0, 1e-10);
+        Assert.assertEquals(p.get(0), 0.0, 1e-10);
+        Assert.assertEquals(p.get(1), 1.0, 1e-10);
+    }
+
+    @Test
+    public void testCustomCoefficients() {
+        // Leapfrog given as coefficients
+        VectorSymplectic custom = VectorSymplectic.Builder.builder()
+                .setCoefficients(new double[]{0.5, 0.5}, new double[]{1.0, 0.0})
+                .build();
+        VectorSymplectic leapfrog = VectorSymplectic.Builder.builder()
+                .setScheme(SplittingScheme.LEAPFROG)
+                .build();
+        Vector q = Vector.mutable(1, 1.0);
+        Vector p = Vector.mutable(1);
+        Vector qExpected = Vector.mutable(1, 1.0);
+        Vector pExpected = Vector.mutable(1);
+        VectorODE spring = (x, t, dpdt) -> dpdt.set(0, -x.get(0));
+        custom.solve(VELOCITY, spring, q, p, 0.0, 1.0);
+        leapfrog.solve(VELOCITY, spring, qExpected, pExpected, 0.0, 1.0);
+        Assert.assertEquals(q.get(0), qExpected.get(0));
+        Assert.assertEquals(p.get(0), pExpected.get(0));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        VectorSymplectic.Builder builder = VectorSymplectic.Builder.builder();
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setStepSize(0.0));
+        Assert.assertThrows(IllegalArgumentException.class, () -> builder.setScheme(null));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> builder.setCoefficients(new double[]{0.5, 0.5}, new double[]{1.0}));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> builder.setCoefficients(new double[]{0.5, 0.4}, new double[]{1.0, 0.0}));
+        VectorSymplectic solver = builder.build();
+        Assert.assertThrows(IllegalAccessError.class,
+                () -> solver.solve(VELOCITY, GRAVITY, Vector.immutable(1.0, 0.0), Vector.mutable(2), 0.0, 1.0));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> solver.solve(null, GRAVITY, Vector.mutable(2), Vector.mutable(2), 0.0, 1.0));
+    }
+}
@@ -1,5 +1,227 @@
 package math.ode.vector;
 
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
 public class VectorTest {
-    // TODO write tests
+
+    @DataProvider
+    public Object[][] createTermCounts() {
+        return new Object[][]{{1}, {2}, {3}, {4}, {5}, {6}, {8}};
+    }
+
+    @Test(dataProvider = "createTermCounts")
+    public void testLinearCombination(int count) {
+        Random rand = new Random(count);
+        int n = 37;
+        double[] coeffs = new double[count];
+        Vector[] vs = new Vector[count];
+        for (int k = 0; k < count; ++k) {
+            coeffs[k] = rand.nextDouble() - 0.5;
+            vs[k] = Vector.randomImmutable(n);
+        }
+        Vector actual = Vector.linearCombination(coeffs, vs);
+        for (int i = 0; i < n; ++i) {
+            double expected = 0.0;
+            for (int k = 0; k < count; ++k) {
+                expected += coeffs[k] * vs[k].get(i);
+            }
+            Assert.assertEquals(actual.get(i), expected, 1e-14);
+        }
+        // The destination may be one of the combined vectors
+        Vector dest = vs[count - 1].mutable();
+        vs[count - 1] = dest;
+        Assert.assertSame(Vector.linearCombination(dest, coeffs, vs), dest);
+        for (int i = 0; i < n; ++i) {
+            Assert.assertEquals(dest.get(i), actual.get(i), 1e-14);
+        }
+    }
+
+    @Test
+    public void testAxpy() {
+        Vector x = Vector.immutable(1.0, 2.0, 3.0);
+        Vector y = Vector.mutable(1.0, 1.0, 1.0);
+        Assert.assertSame(Vector.axpy(2.0, x, y), y);
+        Assert.assertEquals(y.get(0), 3.0);
+        Assert.assertEquals(y.get(1), 5.0);
+        Assert.assertEquals(y.get(2), 7.0);
+    }
+
+    @Test
+    public void testAddScaled() {
+        Vector x = Vector.immutable(1.0, 2.0, 3.0);
+        Vector y = Vector.mutable(4.0, 5.0, 6.0);
+        Assert.assertSame(Vector.addScaled(x, 0.5, y, y), y);
+        Assert.assertEquals(y.get(0), 3.0);
+        Assert.assertEquals(y.get(1), 4.5);
+        Assert.assertEquals(y.get(2), 6.0);
+    }
+
+    @Test
+    public void testInvalidDestination() {
+        Vector x = Vector.immutable(1.0, 2.0);
+        Assert.assertThrows(IllegalAccessError.class, () -> Vector.axpy(1.0, x, x));
+        Assert.assertThrows(IllegalAccessError.class, () -> Vector.addScaled(x, 1.0, x, x));
+        Assert.assertThrows(IllegalAccessError.class, () -> Vector.linearCombination(x, new double[]{1.0}, x));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> Vector.linearCombination(Vector.mutable(2), new double[]{1.0, 2.0}, x));
+        Assert.assertThrows(IllegalArgumentException.class, () -> Vector.linearCombination(new double[0]));
+    }
+
+    @DataProvider
+    public Object[][] createStorages() {
+        return new Object[][]{{VectorStorage.heap(5000)}, {VectorStorage.direct(5000)}};
+    }
+
+    @Test(dataProvider = "createStorages")
+    public void testStorageMatchesHeap(VectorStorage storage) {
+        // Longer than one chunk so that the off-heap path crosses chunk boundaries
+        Vector heap = Vector.randomImmutable(storage.length());
+        Vector.mutable(storage).set(heap);
+        Vector other = Vector.immutable(storage);
+        Assert.assertEquals(other.getStorage().isOffHeap(), storage.isOffHeap());
+        Vector y = Vector.randomImmutable(storage.length());
+        assertSameElements(other.add(y), heap.add(y));
+        assertSameElements(other.mult(2.5), heap.mult(2.5));
+        assertSameElements(other.abs(), heap.abs());
+        Assert.assertEquals(other.dotProduct(y), heap.dotProduct(y), 1e-10);
+        Assert.assertEquals(other.max(), heap.max());
+        Assert.assertEquals(other.min(), heap.min());
+        Assert.assertEquals(other.sub(y).getStorage().isOffHeap(), storage.isOffHeap());
+        Vector dest = Vector.mutableLike(other);
+        Vector.linearCombination(dest, new double[]{0.5, -2.0, 3.0}, other, y, other);
+        assertSameElements(dest, Vector.linearCombination(new double[]{0.5, -2.0, 3.0}, heap, y, heap));
+        Vector.axpy(3.0, y, dest.set(other));
+        assertSameElements(dest, heap.add(y.mult(3.0)));
+    }
+
+    @Test
+    public void testMappedStorage() throws IOException {
+        Path file = Files.createTempFile("vector", ".bin");
+        try {
+            Vector x = Vector.mutable(VectorStorage.mapped(file, 3));
+            x.set(Vector.immutable(1.0, 2.0, 3.0));
+            Assert.assertTrue(x.getStorage().isOffHeap());
+            Assert.assertEquals(Files.size(file), 3L * Double.BYTES);
+            // A second mapping of the file sees the same elements
+            Vector y = Vector.immutable(VectorStorage.mapped(file, 3));
+            Assert.assertEquals(y.get(0), 1.0);
+            Assert.assertEquals(y.get(1), 2.0);
+            Assert.assertEquals(y.get(2), 3.0);
+            Assert.assertThrows(IllegalAccessError.class, () -> y.set(0, 4.0));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testSolverOnMappedStorageBeyondDirectMemory() throws IOException, InterruptedException {
+        // A fresh JVM, whose direct memory is far smaller than the state and its intermediate results
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, "-XX:MaxDirectMemorySize=1m",
+                "-cp", System.getProperty("java.class.path"), MappedSolve.class.getName())
+                .redirectErrorStream(true)
+                .start();
+        StringBuilder output = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            reader.lines().forEach(line -> output.append(line).append('\n'));
+        }
+        Assert.assertEquals(process.waitFor(), 0, output.toString());
+    }
+
+    /**
+     * Integrate x' = -x over a mapped vector of 8 MiB, exiting with a non-zero status if the result is wrong.
+     */
+    public static final class MappedSolve {
+
+        public static void main(String[] args) throws IOException {
+            Path file = Files.createTempFile("vector", ".bin");
+            try {
+                int n = 1 << 20;
+                Vector xi = Vector.mutable(VectorStorage.mapped(file, n)).set(Vector.immutable(n, 1.0));
+                VectorODE decay = (x, t, dxdt) -> dxdt.set(x).mult(-1.0);
+                Vector x = VectorRungeKutta4.Builder.builder().setStepSize(0.05).build().solve(decay, xi, 0.0, 0.1);
+                double expected = Math.exp(-0.1);
+                for (int i = 0; i < n; ++i) {
+                    if (Math.abs(x.get(i) - expected) > 1e-7) {
+                        System.out.println("Element " + i + " is " + x.get(i) + " instead of " + expected);
+                        System.exit(1);
+                    }
+                }
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    public void testSolverOnDirectStorage() {
+        VectorODE ode = (x, t, dxdt) -> {
+            dxdt.set(0, x.get(1));
+            dxdt.set(1, -x.get(0));
+        };
+        Vector xi = Vector.mutable(VectorStorage.direct(2)).set(Vector.immutable(1.0, 0.0));
+        VectorRungeKutta4 rk4 = VectorRungeKutta4.Builder.builder().setStepSize(0.01).build();
+        Vector actual = rk4.solve(ode, xi, 0.0, 1.0);
+        Vector expected = rk4.solve(ode, Vector.immutable(1.0, 0.0), 0.0, 1.0);
+        Assert.assertTrue(actual.getStorage().isOffHeap());
+        assertSameElements(actual, expected);
+    }
+
+    @Test(dataProvider = "createStorages")
+    public void testParallelMatchesSequential(VectorStorage storage) {
+        int threshold = Vector.getParallelThreshold();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Vector.setParallelThreshold(1);
+        Vector.setParallelPool(pool);
+        try {
+            Vector sequential = Vector.randomImmutable(100003);
+            Vector y = Vector.randomImmutable(sequential.length());
+            Vector parallel = Vector.mutable(storage.allocate(sequential.length())).set(sequential).immutable()
+                    .setExecution(VectorExecution.PARALLEL);
+            Assert.assertEquals(parallel.getExecution(), VectorExecution.PARALLEL);
+            Assert.assertEquals(sequential.getExecution(), VectorExecution.SEQUENTIAL);
+            Vector sum = parallel.add(y);
+            Assert.assertEquals(sum.getExecution(), VectorExecution.PARALLEL);
+            assertSameElements(sum, sequential.add(y));
+            assertSameElements(parallel.exp(), sequential.exp());
+            Assert.assertEquals(parallel.dotProduct(y), sequential.dotProduct(y), 1e-9);
+            Assert.assertEquals(parallel.max(), sequential.max());
+            Assert.assertEquals(parallel.min(), sequential.min());
+            Vector dest = Vector.mutableLike(parallel);
+            Vector.linearCombination(dest, new double[]{1.0, 0.5, -0.25}, parallel, y, parallel);
+            Vector expected = Vector.linearCombination(new double[]{1.0, 0.5, -0.25}, sequential, y, sequential);
+            assertSameElements(dest, expected);
+            // The tree reduction only depends on the length, so it is reproducible
+            Assert.assertEquals(parallel.dotProduct(y), parallel.dotProduct(y));
+        } finally {
+            Vector.setParallelThreshold(threshold);
+            Vector.setParallelPool(ForkJoinPool.commonPool());
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testInvalidExecutionSettings() {
+        Assert.assertThrows(IllegalArgumentException.class, () -> Vector.setDefaultExecution(null));
+        Assert.assertThrows(IllegalArgumentException.class, () -> Vector.setParallelThreshold(0));
+        Assert.assertThrows(IllegalArgumentException.class, () -> Vector.setParallelPool(null));
+    }
+
+    private static void assertSameElements(Vector actual, Vector expected) {
+        Assert.assertEquals(actual.length(), expected.length());
+        for (int i = 0; i < expected.length(); ++i) {
+            Assert.assertEquals(actual.get(i), expected.get(i), 1e-12);
+        }
+    }
 }